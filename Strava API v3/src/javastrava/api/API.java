@@ -5,16 +5,23 @@ import java.util.MissingResourceException;
 import java.util.concurrent.CompletableFuture;
 
 import com.jakewharton.retrofit.Ok3Client;
+import javastrava.api.async.StravaAPIAsyncClient;
 import javastrava.api.async.StravaAPICallback;
 import javastrava.api.async.StravaAPIFuture;
+import javastrava.api.cache.StravaHTTPCache;
 import javastrava.api.util.AuthHeaderInterceptor;
 import javastrava.api.util.RetrofitErrorHandler;
+import javastrava.api.util.StravaAPIEventInterceptor;
+import javastrava.api.util.StravaAPIMetricsConverter;
+import javastrava.api.util.StravaAPIMetricsInterceptor;
 import javastrava.api.util.StravaAPIRateLimitInterceptor;
+import javastrava.api.util.StravaHTTPCacheInterceptor;
 import javastrava.auth.impl.AuthorisationServiceImpl;
 import javastrava.auth.model.Token;
 import javastrava.auth.model.TokenResponse;
 import javastrava.auth.ref.AuthorisationScope;
 import javastrava.config.StravaConfig;
+import javastrava.jfr.StravaFlightRecorder;
 import javastrava.json.impl.JsonUtilImpl;
 import javastrava.model.StravaActivity;
 import javastrava.model.StravaActivityUpdate;
@@ -57,6 +64,7 @@ import javastrava.model.webhook.reference.StravaSubscriptionObjectType;
 import javastrava.service.exception.BadRequestException;
 import javastrava.service.exception.NotFoundException;
 import javastrava.service.exception.UnauthorizedException;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import retrofit.RestAdapter;
 import retrofit.RestAdapter.LogLevel;
@@ -122,21 +130,62 @@ public class API {
      * @return A REST service
      */
     public static <T> T instance(final Class<T> class1, final Token token) {
-        OkHttpClient.Builder httpBuilder = new OkHttpClient.Builder();
-
-        httpBuilder.addInterceptor(new StravaAPIRateLimitInterceptor());
-        httpBuilder.addInterceptor(new AuthHeaderInterceptor(token));
-
-        OkHttpClient okHttpClient = httpBuilder.build();
+        return instance(class1, httpClient(token));
+    }
 
+    /**
+     * <p>
+     * Creates and returns a new API RestAdapter instance which uses an existing HTTP client (so that connections and interceptors can be shared between the API interfaces)
+     * </p>
+     *
+     * @param class1       The class to be returned
+     * @param okHttpClient HTTP client, as created by {@link #httpClient(Token)}
+     * @param <T>          Class of API interface to be instantiated (one of the *API.java interfaces)
+     * @return A REST service
+     */
+    public static <T> T instance(final Class<T> class1, final OkHttpClient okHttpClient) {
         return new RestAdapter.Builder()
                 .setClient(new Ok3Client(okHttpClient))
-                .setConverter(new GsonConverter(new JsonUtilImpl().getGson()))
+                .setConverter(new StravaAPIMetricsConverter(new GsonConverter(new JsonUtilImpl().getGson())))
                 .setLogLevel(API.logLevel(class1))
                 .setEndpoint(StravaConfig.ENDPOINT)
                 .setErrorHandler(new RetrofitErrorHandler()).build().create(class1);
     }
 
+    /**
+     * <p>
+     * Creates a new HTTP client with all the interceptors required to talk to the Strava API
+     * </p>
+     *
+     * @param token The access token required for authentication of requests to the Strava API
+     * @return The HTTP client
+     */
+    public static OkHttpClient httpClient(final Token token) {
+        OkHttpClient.Builder httpBuilder = new OkHttpClient.Builder();
+
+        // All requests go to the same host, so the per-host limit is the overall limit
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(StravaConfig.HTTP_MAX_CONCURRENT_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(StravaConfig.HTTP_MAX_CONCURRENT_REQUESTS);
+        httpBuilder.dispatcher(dispatcher);
+
+        if (StravaFlightRecorder.AVAILABLE) {
+            httpBuilder.addInterceptor(new StravaAPIEventInterceptor());
+        }
+        httpBuilder.addInterceptor(new StravaAPIMetricsInterceptor());
+        httpBuilder.addInterceptor(new StravaAPIRateLimitInterceptor());
+        if (StravaConfig.HTTP_CACHE_ENABLED && (token.getAccessToken() != null)) {
+            StravaHTTPCache cache = StravaHTTPCache.forToken(token);
+            if (cache.getDiskCache() != null) {
+                httpBuilder.cache(cache.getDiskCache());
+            }
+            httpBuilder.addInterceptor(new StravaHTTPCacheInterceptor(cache));
+        }
+        httpBuilder.addInterceptor(new AuthHeaderInterceptor(token));
+
+        return httpBuilder.build();
+    }
+
     /**
      * @param class1 Class for which log level is to be determined
      * @return The appropriate log level for the class
@@ -159,6 +208,16 @@ public class API {
         API.authorisationAPI = authorisationAPI;
     }
 
+    /**
+     * HTTP client shared by all the API instances
+     */
+    private OkHttpClient httpClient;
+
+    /**
+     * Non-blocking client sharing {@link #httpClient}
+     */
+    private StravaAPIAsyncClient asyncClient;
+
     /**
      * API instance for access to activity data
      */
@@ -253,20 +312,22 @@ public class API {
     }
 
     private void addAPIInstances(Token token) {
-        this.activityAPI = API.instance(ActivityAPI.class, token);
-        this.athleteAPI = API.instance(AthleteAPI.class, token);
-        this.challengeAPI = API.instance(ChallengeAPI.class, token);
-        this.clubAPI = API.instance(ClubAPI.class, token);
-        this.clubGroupEventAPI = API.instance(ClubGroupEventAPI.class, token);
-        this.gearAPI = API.instance(GearAPI.class, token);
-        this.segmentAPI = API.instance(SegmentAPI.class, token);
-        this.effortAPI = API.instance(SegmentEffortAPI.class, token);
-        this.routeAPI = API.instance(RouteAPI.class, token);
-        this.runningRaceAPI = API.instance(RunningRaceAPI.class, token);
-        this.streamAPI = API.instance(StreamAPI.class, token);
-        this.tokenAPI = API.instance(TokenAPI.class, token);
-        this.uploadAPI = API.instance(UploadAPI.class, token);
-        this.webhookAPI = API.instance(WebhookAPI.class, token);
+        this.httpClient = API.httpClient(token);
+        this.asyncClient = new StravaAPIAsyncClient(this.httpClient);
+        this.activityAPI = API.instance(ActivityAPI.class, this.httpClient);
+        this.athleteAPI = API.instance(AthleteAPI.class, this.httpClient);
+        this.challengeAPI = API.instance(ChallengeAPI.class, this.httpClient);
+        this.clubAPI = API.instance(ClubAPI.class, this.httpClient);
+        this.clubGroupEventAPI = API.instance(ClubGroupEventAPI.class, this.httpClient);
+        this.gearAPI = API.instance(GearAPI.class, this.httpClient);
+        this.segmentAPI = API.instance(SegmentAPI.class, this.httpClient);
+        this.effortAPI = API.instance(SegmentEffortAPI.class, this.httpClient);
+        this.routeAPI = API.instance(RouteAPI.class, this.httpClient);
+        this.runningRaceAPI = API.instance(RunningRaceAPI.class, this.httpClient);
+        this.streamAPI = API.instance(StreamAPI.class, this.httpClient);
+        this.tokenAPI = API.instance(TokenAPI.class, this.httpClient);
+        this.uploadAPI = API.instance(UploadAPI.class, this.httpClient);
+        this.webhookAPI = API.instance(WebhookAPI.class, this.httpClient);
     }
 
     /**
@@ -573,6 +634,13 @@ public class API {
         return future;
     }
 
+    /**
+     * @return Client for making non-blocking calls to any of the API interfaces, sharing this instance's HTTP client
+     */
+    public StravaAPIAsyncClient getAsyncClient() {
+        return this.asyncClient;
+    }
+
     /**
      * @param athleteId Athlete identifier
      * @return Details of the athlete, will be somewhat anonymised if the athlete is private
@@ -832,6 +900,13 @@ public class API {
         return future;
     }
 
+    /**
+     * @return the HTTP client shared by all the API instances
+     */
+    public OkHttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
     /**
      * <p>
      * Get details of a specific running race
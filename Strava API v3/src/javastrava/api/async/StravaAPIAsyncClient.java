@@ -0,0 +1,327 @@
+package javastrava.api.async;
+
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+
+import javastrava.api.metrics.StravaAPIMetrics;
+import javastrava.api.metrics.StravaEndpointMetrics;
+import javastrava.api.util.RetrofitErrorHandler;
+import javastrava.config.Messages;
+import javastrava.config.StravaConfig;
+import javastrava.json.impl.JsonUtilImpl;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.FormBody;
+import okhttp3.HttpUrl;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit.ErrorHandler;
+import retrofit.RetrofitError;
+import retrofit.client.Header;
+import retrofit.client.Response;
+import retrofit.converter.Converter;
+import retrofit.converter.GsonConverter;
+import retrofit.http.Body;
+import retrofit.http.DELETE;
+import retrofit.http.Field;
+import retrofit.http.GET;
+import retrofit.http.Multipart;
+import retrofit.http.POST;
+import retrofit.http.PUT;
+import retrofit.http.Path;
+import retrofit.http.Query;
+import retrofit.mime.TypedByteArray;
+
+/**
+ * <p>
+ * Makes non-blocking calls to the Strava API using the methods declared on the Retrofit API interfaces ({@link javastrava.api.ActivityAPI}, {@link javastrava.api.SegmentAPI} etc.)
+ * </p>
+ *
+ * <p>
+ * The call to make is identified by invoking the synchronous method on a recording proxy, so
+ * </p>
+ *
+ * <pre>
+ * client.call(SegmentAPI.class, api -&gt; api.getSegment(segmentId))
+ * </pre>
+ *
+ * <p>
+ * builds the same request as <code>SegmentAPI.getSegment(segmentId)</code> would, queues it with OkHttp and returns immediately. The returned {@link StravaAPICall} is completed from the OkHttp
+ * callback, so no thread is held while waiting for a response and requests beyond the dispatcher's limit are simply queued. Errors are mapped to exactly the same exceptions as the synchronous
+ * API throws (by {@link RetrofitErrorHandler}). Dependent stages run on the OkHttp dispatcher thread unless an executor is supplied, so should not block.
+ * </p>
+ *
+ * <p>
+ * Multipart (upload) methods and methods returning the raw {@link Response} are not supported.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaAPIAsyncClient {
+	/**
+	 * Records the method and arguments of the call made on a recording proxy
+	 */
+	private static class Invocation implements InvocationHandler {
+		/**
+		 * The API method called
+		 */
+		Method method;
+
+		/**
+		 * The arguments it was called with
+		 */
+		Object[] args;
+
+		/**
+		 * @see java.lang.reflect.InvocationHandler#invoke(java.lang.Object, java.lang.reflect.Method, java.lang.Object[])
+		 */
+		@Override
+		public Object invoke(final Object proxy, final Method invokedMethod, final Object[] invokedArgs) {
+			this.method = invokedMethod;
+			this.args = (invokedArgs == null ? new Object[0] : invokedArgs);
+			return null;
+		}
+	}
+
+	/**
+	 * Media type of JSON request bodies
+	 */
+	private static final MediaType JSON = MediaType.parse("application/json; charset=UTF-8");
+
+	/**
+	 * @param value
+	 *            Value of a path parameter
+	 * @return The value encoded the same way as Retrofit encodes it
+	 */
+	private static String encodePath(final Object value) {
+		try {
+			return URLEncoder.encode(String.valueOf(value), "UTF-8").replace("+", "%20");
+		} catch (final UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * HTTP client, shared with the synchronous API instances so that interceptors, connection pool and dispatcher are common
+	 */
+	private final OkHttpClient httpClient;
+
+	/**
+	 * Used to serialise request bodies and deserialise responses
+	 */
+	private final Gson gson;
+
+	/**
+	 * Converter handed to {@link RetrofitError} so that error responses can be read
+	 */
+	private final Converter converter;
+
+	/**
+	 * Maps errors to javastrava exceptions
+	 */
+	private final ErrorHandler errorHandler = new RetrofitErrorHandler();
+
+	/**
+	 * @param httpClient
+	 *            HTTP client to make calls with; should be the one created by {@link javastrava.api.API#httpClient(javastrava.auth.model.Token)}
+	 */
+	public StravaAPIAsyncClient(final OkHttpClient httpClient) {
+		this.httpClient = httpClient;
+		this.gson = new JsonUtilImpl().getGson();
+		this.converter = new GsonConverter(this.gson);
+	}
+
+	/**
+	 * <p>
+	 * Queues a call to the Strava API and returns without waiting for the response
+	 * </p>
+	 *
+	 * @param <A>
+	 *            API interface class
+	 * @param <T>
+	 *            Class of object returned by the API method
+	 * @param apiClass
+	 *            API interface class
+	 * @param invocation
+	 *            Calls the synchronous API method (on a recording proxy) with the required arguments
+	 * @return Future which is completed when the response has been received and deserialised; cancelling it cancels the HTTP call
+	 * @throws IllegalArgumentException
+	 *             If no API method was called by the invocation
+	 * @throws UnsupportedOperationException
+	 *             If the API method cannot be called asynchronously
+	 */
+	public <A, T> StravaAPICall<T> call(final Class<A> apiClass, final Function<A, T> invocation) {
+		final Invocation recorded = new Invocation();
+		invocation.apply(apiClass.cast(Proxy.newProxyInstance(apiClass.getClassLoader(), new Class<?>[] { apiClass }, recorded)));
+		if (recorded.method == null) {
+			throw new IllegalArgumentException(Messages.string("StravaAPIAsyncClient.noMethod") + apiClass.getName());
+		}
+
+		final Request request = request(recorded.method, recorded.args);
+		final Type type = recorded.method.getGenericReturnType();
+		final StravaAPICall<T> future = new StravaAPICall<>();
+		final Call call = this.httpClient.newCall(request);
+		future.setCall(call);
+		call.enqueue(new Callback() {
+			@Override
+			public void onFailure(final Call failedCall, final IOException e) {
+				future.completeExceptionally(StravaAPIAsyncClient.this.errorHandler.handleError(RetrofitError.networkError(request.url().toString(), e)));
+			}
+
+			@Override
+			public void onResponse(final Call completedCall, final okhttp3.Response response) {
+				try {
+					future.complete(StravaAPIAsyncClient.this.<T> response(request, response, type));
+				} catch (final Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * @param <T>
+	 *            Class of object returned by the API method
+	 * @param body
+	 *            Successful response body
+	 * @param type
+	 *            Return type of the API method
+	 * @return The deserialised response
+	 */
+	private <T> T deserialise(final ResponseBody body, final Type type) {
+		final StravaEndpointMetrics metrics = StravaAPIMetrics.current();
+		StravaAPIMetrics.setCurrent(null);
+		final long start = System.nanoTime();
+		try {
+			return this.gson.fromJson(body.charStream(), type);
+		} finally {
+			if (metrics != null) {
+				metrics.recordDeserialisation(System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Builds the HTTP request described by the Retrofit annotations on an API method
+	 * </p>
+	 *
+	 * @param method
+	 *            The API method
+	 * @param args
+	 *            The arguments it was called with
+	 * @return The request
+	 */
+	private Request request(final Method method, final Object[] args) {
+		if (method.isAnnotationPresent(Multipart.class) || Response.class.equals(method.getReturnType()) || void.class.equals(method.getReturnType())) {
+			throw new UnsupportedOperationException(Messages.string("StravaAPIAsyncClient.unsupported") + method);
+		}
+
+		String httpMethod;
+		String path;
+		if (method.isAnnotationPresent(GET.class)) {
+			httpMethod = "GET";
+			path = method.getAnnotation(GET.class).value();
+		} else if (method.isAnnotationPresent(POST.class)) {
+			httpMethod = "POST";
+			path = method.getAnnotation(POST.class).value();
+		} else if (method.isAnnotationPresent(PUT.class)) {
+			httpMethod = "PUT";
+			path = method.getAnnotation(PUT.class).value();
+		} else if (method.isAnnotationPresent(DELETE.class)) {
+			httpMethod = "DELETE";
+			path = method.getAnnotation(DELETE.class).value();
+		} else {
+			throw new UnsupportedOperationException(Messages.string("StravaAPIAsyncClient.unsupported") + method);
+		}
+
+		final List<String> queryNames = new ArrayList<>();
+		final List<String> queryValues = new ArrayList<>();
+		final FormBody.Builder form = new FormBody.Builder();
+		boolean hasForm = false;
+		RequestBody body = null;
+
+		final Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+		for (int i = 0; i < parameterAnnotations.length; i++) {
+			final Object value = args[i];
+			for (final Annotation annotation : parameterAnnotations[i]) {
+				if (annotation instanceof Path) {
+					path = path.replace("{" + ((Path) annotation).value() + "}", encodePath(value));
+				} else if ((annotation instanceof Query) && (value != null)) {
+					queryNames.add(((Query) annotation).value());
+					queryValues.add(value.toString());
+				} else if ((annotation instanceof Field) && (value != null)) {
+					form.add(((Field) annotation).value(), value.toString());
+					hasForm = true;
+				} else if (annotation instanceof Body) {
+					body = RequestBody.create(JSON, this.gson.toJson(value));
+				}
+			}
+		}
+
+		final HttpUrl.Builder url = HttpUrl.parse(StravaConfig.ENDPOINT + path).newBuilder();
+		for (int i = 0; i < queryNames.size(); i++) {
+			url.addQueryParameter(queryNames.get(i), queryValues.get(i));
+		}
+		if ((body == null) && (hasForm || httpMethod.equals("POST") || httpMethod.equals("PUT"))) {
+			body = form.build();
+		}
+		return new Request.Builder().url(url.build()).method(httpMethod, body).build();
+	}
+
+	/**
+	 * <p>
+	 * Deserialises a successful response, or converts an unsuccessful one to the appropriate javastrava exception
+	 * </p>
+	 *
+	 * @param <T>
+	 *            Class of object returned by the API method
+	 * @param request
+	 *            The request
+	 * @param response
+	 *            The response
+	 * @param type
+	 *            Return type of the API method
+	 * @return The deserialised response
+	 * @throws Throwable
+	 *             The exception the synchronous API would have thrown
+	 */
+	private <T> T response(final Request request, final okhttp3.Response response, final Type type) throws Throwable {
+		final String url = request.url().toString();
+		Throwable error;
+		try (ResponseBody body = response.body()) {
+			if (response.isSuccessful()) {
+				return (body == null ? null : deserialise(body, type));
+			}
+
+			final List<Header> headers = new ArrayList<>();
+			for (int i = 0; i < response.headers().size(); i++) {
+				headers.add(new Header(response.headers().name(i), response.headers().value(i)));
+			}
+			final TypedByteArray errorBody = (body == null ? null
+					: new TypedByteArray(body.contentType() == null ? null : body.contentType().toString(), body.bytes()));
+			final Response retrofitResponse = new Response(url, response.code(), response.message(), headers, errorBody);
+			error = this.errorHandler.handleError(RetrofitError.httpError(url, retrofitResponse, this.converter, type));
+		} catch (final IOException e) {
+			error = this.errorHandler.handleError(RetrofitError.networkError(url, e));
+		} catch (final RuntimeException e) {
+			error = this.errorHandler.handleError(RetrofitError.unexpectedError(url, e));
+		}
+		throw error;
+	}
+}
@@ -0,0 +1,83 @@
+package javastrava.api.async;
+
+import java.util.concurrent.CompletableFuture;
+
+import okhttp3.Call;
+
+/**
+ * <p>
+ * {@link CompletableFuture} which is completed directly from the OkHttp callback of a single call to the Strava API (see {@link StravaAPIAsyncClient})
+ * </p>
+ *
+ * <p>
+ * Cancelling the future cancels the underlying HTTP call, which closes its socket. Stages derived from this future do not pass cancellation back up the chain by themselves; use
+ * {@link #cancelling(CompletableFuture, CompletableFuture)} to link them.
+ * </p>
+ *
+ * @author Dan Shannon
+ * @param <T>
+ *            Class of object which will be returned by the future
+ */
+public class StravaAPICall<T> extends CompletableFuture<T> {
+	/**
+	 * <p>
+	 * Arranges for cancellation of a derived stage to cancel the stage it was derived from
+	 * </p>
+	 *
+	 * @param <T>
+	 *            Class of object returned by the derived stage
+	 * @param upstream
+	 *            The stage to be cancelled
+	 * @param downstream
+	 *            The derived stage
+	 * @return The derived stage
+	 */
+	public static <T> CompletableFuture<T> cancelling(final CompletableFuture<?> upstream, final CompletableFuture<T> downstream) {
+		downstream.whenComplete((result, error) -> {
+			if (downstream.isCancelled()) {
+				upstream.cancel(true);
+			}
+		});
+		return downstream;
+	}
+
+	/**
+	 * The HTTP call
+	 */
+	private volatile Call call;
+
+	/**
+	 * <p>
+	 * Cancels the HTTP call as well as completing the future with a {@link java.util.concurrent.CancellationException}
+	 * </p>
+	 *
+	 * @see java.util.concurrent.CompletableFuture#cancel(boolean)
+	 */
+	@Override
+	public boolean cancel(final boolean mayInterruptIfRunning) {
+		final boolean cancelled = super.cancel(mayInterruptIfRunning);
+		final Call httpCall = this.call;
+		if (httpCall != null) {
+			httpCall.cancel();
+		}
+		return cancelled;
+	}
+
+	/**
+	 * @return The HTTP call
+	 */
+	public Call getCall() {
+		return this.call;
+	}
+
+	/**
+	 * @param call
+	 *            The HTTP call; if the future has already been cancelled the call is cancelled straight away
+	 */
+	void setCall(final Call call) {
+		this.call = call;
+		if (isCancelled()) {
+			call.cancel();
+		}
+	}
+}
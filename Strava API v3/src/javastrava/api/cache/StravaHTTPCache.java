@@ -0,0 +1,277 @@
+package javastrava.api.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javastrava.api.metrics.StravaAPIMetrics;
+import javastrava.api.metrics.StravaHTTPCacheMetrics;
+import javastrava.auth.model.Token;
+import javastrava.config.StravaConfig;
+import okhttp3.Cache;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * <p>
+ * HTTP-level cache of GET responses for a single token, sitting underneath the {@link javastrava.api.API} layer
+ * </p>
+ *
+ * <p>
+ * For every successful GET response which carries an <code>ETag</code> or <code>Last-Modified</code> header, the response body is kept in an in-memory index keyed by URL. The next GET
+ * for the same URL is sent with <code>If-None-Match</code> / <code>If-Modified-Since</code>; if Strava responds <code>304 Not Modified</code> the indexed body is handed back to the
+ * caller as if it had been sent again, so the body transfer is not repeated. The body is parsed afresh each time, so every caller gets objects of its own which it is free to change.
+ * If a cache directory is configured, response bodies are also kept on disk by OkHttp's own {@link Cache}, which survives restarts.
+ * </p>
+ *
+ * <p>
+ * There is one cache for each token's {@link Token#getCacheKey() cache key}, which (unlike the access token) stays the same when the token is refreshed; a token's cache is
+ * {@link #discard(Token) discarded} when it is deauthorised.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaHTTPCache {
+	/**
+	 * Indexed response
+	 */
+	private static final class Entry {
+		/**
+		 * Value of the ETag header
+		 */
+		final String etag;
+
+		/**
+		 * Value of the Last-Modified header
+		 */
+		final String lastModified;
+
+		/**
+		 * Content type of the body
+		 */
+		final MediaType contentType;
+
+		/**
+		 * The response body
+		 */
+		final byte[] body;
+
+		/**
+		 * @param etag
+		 *            Value of the ETag header
+		 * @param lastModified
+		 *            Value of the Last-Modified header
+		 * @param contentType
+		 *            Content type of the body
+		 * @param body
+		 *            The response body
+		 */
+		Entry(final String etag, final String lastModified, final MediaType contentType, final byte[] body) {
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.contentType = contentType;
+			this.body = body;
+		}
+	}
+
+	/**
+	 * Caches by {@link Token#getCacheKey() token cache key}
+	 */
+	private static final ConcurrentMap<String, StravaHTTPCache> CACHES = new ConcurrentHashMap<>();
+
+	/**
+	 * @param token
+	 *            Access token
+	 * @return The (shared) HTTP cache for the token
+	 */
+	public static StravaHTTPCache forToken(final Token token) {
+		return CACHES.computeIfAbsent(token.getCacheKey(), StravaHTTPCache::new);
+	}
+
+	/**
+	 * <p>
+	 * Discards the token's HTTP cache, in memory and on disk
+	 * </p>
+	 *
+	 * @param token
+	 *            Access token
+	 * @throws IOException
+	 *             If the disk cache could not be cleared
+	 */
+	public static void discard(final Token token) throws IOException {
+		final StravaHTTPCache cache = CACHES.remove(token.getCacheKey());
+		if (cache != null) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * @param cacheKey
+	 *            Cache key of the token
+	 * @return Hex digest of the key, used to name the token's disk cache directory
+	 */
+	private static String digest(final String cacheKey) {
+		try {
+			final StringBuilder hex = new StringBuilder();
+			for (final byte b : MessageDigest.getInstance("SHA-256").digest(cacheKey.getBytes(StandardCharsets.UTF_8))) {
+				hex.append(String.format("%02x", Byte.valueOf(b)));
+			}
+			return hex.toString();
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param request
+	 *            The request
+	 * @return The HTTP cache metrics for the request's endpoint, or <code>null</code> if metrics are disabled
+	 */
+	private static StravaHTTPCacheMetrics metrics(final Request request) {
+		return (StravaAPIMetrics.isEnabled() ? StravaAPIMetrics.httpCache(request.method(), StravaAPIMetrics.endpointTemplate(request.url())) : null);
+	}
+
+	/**
+	 * OkHttp's on-disk cache, or <code>null</code> if no directory is configured
+	 */
+	private final Cache diskCache;
+
+	/**
+	 * Response bodies by URL, least recently used first
+	 */
+	private final Map<String, Entry> index;
+
+	/**
+	 * @param cacheKey
+	 *            Cache key of the token
+	 */
+	private StravaHTTPCache(final String cacheKey) {
+		final String directory = StravaConfig.HTTP_CACHE_DIRECTORY;
+		this.diskCache = (directory == null || directory.trim().isEmpty() ? null : new Cache(new File(directory, digest(cacheKey)), StravaConfig.HTTP_CACHE_MAX_SIZE));
+		final int maxEntries = StravaConfig.HTTP_CACHE_MAX_ENTRIES;
+		this.index = Collections.synchronizedMap(new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+				return size() > maxEntries;
+			}
+		});
+	}
+
+	/**
+	 * <p>
+	 * Discards all cached responses, in memory and on disk
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If the disk cache could not be cleared
+	 */
+	public void clear() throws IOException {
+		this.index.clear();
+		if (this.diskCache != null) {
+			this.diskCache.evictAll();
+		}
+	}
+
+	/**
+	 * @return OkHttp's on-disk cache, or <code>null</code> if no directory is configured
+	 */
+	public Cache getDiskCache() {
+		return this.diskCache;
+	}
+
+	/**
+	 * <p>
+	 * Makes a GET request, conditionally if the response to a previous request for the same URL has been indexed
+	 * </p>
+	 *
+	 * <p>
+	 * A <code>304 Not Modified</code> response is turned into a <code>200 OK</code> carrying the indexed body, so that Retrofit treats it as a success and parses the body as usual.
+	 * </p>
+	 *
+	 * @param chain
+	 *            Interceptor chain
+	 * @return The response
+	 * @throws IOException
+	 *             If the request fails
+	 */
+	public Response proceed(final Interceptor.Chain chain) throws IOException {
+		final Request request = chain.request();
+		if (!request.method().equals("GET")) {
+			return chain.proceed(request);
+		}
+
+		final String key = request.url().toString();
+		final Entry entry = this.index.get(key);
+		Request conditional = request;
+		if (entry != null) {
+			final Request.Builder builder = request.newBuilder();
+			if (entry.etag != null) {
+				builder.header("If-None-Match", entry.etag);
+			}
+			if (entry.lastModified != null) {
+				builder.header("If-Modified-Since", entry.lastModified);
+			}
+			conditional = builder.build();
+		}
+
+		final Response response = chain.proceed(conditional);
+		final StravaHTTPCacheMetrics metrics = metrics(request);
+
+		if ((response.code() == 304) && (entry != null)) {
+			if (metrics != null) {
+				metrics.recordRevalidation();
+			}
+			final ResponseBody body = response.body();
+			if (body != null) {
+				body.close();
+			}
+			return response.newBuilder().code(200).message("OK").body(ResponseBody.create(entry.contentType, entry.body)).build();
+		}
+
+		if (!response.isSuccessful()) {
+			this.index.remove(key);
+			return response;
+		}
+
+		if (metrics != null) {
+			if (response.networkResponse() == null) {
+				metrics.recordHit();
+			} else if (response.networkResponse().code() == 304) {
+				metrics.recordRevalidation();
+			} else {
+				metrics.recordMiss();
+			}
+		}
+
+		final String etag = response.header("ETag");
+		final String lastModified = response.header("Last-Modified");
+		final ResponseBody body = response.body();
+		if (((etag == null) && (lastModified == null)) || (body == null)) {
+			this.index.remove(key);
+			return response;
+		}
+		final byte[] bytes = body.bytes();
+		this.index.put(key, new Entry(etag, lastModified, body.contentType(), bytes));
+		return response.newBuilder().body(ResponseBody.create(body.contentType(), bytes)).build();
+	}
+
+	/**
+	 * @param url
+	 *            URL of a GET request
+	 */
+	public void remove(final String url) {
+		this.index.remove(url);
+	}
+}
@@ -0,0 +1,222 @@
+package javastrava.api.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javastrava.config.StravaConfig;
+import okhttp3.HttpUrl;
+
+/**
+ * <p>
+ * Global registry of {@link StravaEndpointMetrics} for all calls made to the Strava API
+ * </p>
+ *
+ * <p>
+ * Metrics are recorded by {@link javastrava.api.util.StravaAPIMetricsInterceptor} and are switched off by default (set <code>strava.metrics.enabled=true</code> in javastrava-config.properties,
+ * or call {@link #setEnabled(boolean)}). Exporters should poll {@link #getEndpointMetrics()}.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaAPIMetrics {
+	/**
+	 * Status class used when the request failed without an HTTP response
+	 */
+	public static final String IO_ERROR = "IOE";
+
+	/**
+	 * Placeholder used in endpoint templates in place of identifiers
+	 */
+	private static final String ID_PLACEHOLDER = "{id}";
+
+	/**
+	 * Path segments of the API endpoint, which are stripped from endpoint templates
+	 */
+	private static final List<String> BASE_PATH = HttpUrl.parse(StravaConfig.ENDPOINT).pathSegments();
+
+	/**
+	 * Whether metrics are currently being recorded
+	 */
+	private static volatile boolean enabled = StravaConfig.METRICS_ENABLED;
+
+	/**
+	 * Metrics by key (method, endpoint and status class)
+	 */
+	private static final ConcurrentMap<String, StravaEndpointMetrics> ENDPOINTS = new ConcurrentHashMap<>();
+
+	/**
+	 * HTTP cache metrics by key (method and endpoint)
+	 */
+	private static final ConcurrentMap<String, StravaHTTPCacheMetrics> HTTP_CACHE = new ConcurrentHashMap<>();
+
+	/**
+	 * The endpoint whose response is currently being deserialised on this thread
+	 */
+	private static final ThreadLocal<StravaEndpointMetrics> CURRENT = new ThreadLocal<>();
+
+	/**
+	 * @return The metrics for the response currently being handled on this thread, or <code>null</code> if there is none
+	 */
+	public static StravaEndpointMetrics current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * <p>
+	 * Get (or create) the metrics for an endpoint
+	 * </p>
+	 *
+	 * @param method
+	 *            HTTP method
+	 * @param endpoint
+	 *            Endpoint template (see {@link #endpointTemplate(HttpUrl)})
+	 * @param statusClass
+	 *            HTTP status class (see {@link #statusClass(int)})
+	 * @return The metrics
+	 */
+	public static StravaEndpointMetrics endpoint(final String method, final String endpoint, final String statusClass) {
+		final String key = method + " " + endpoint + " " + statusClass;
+		StravaEndpointMetrics metrics = ENDPOINTS.get(key);
+		if (metrics == null) {
+			metrics = ENDPOINTS.computeIfAbsent(key, k -> new StravaEndpointMetrics(method, endpoint, statusClass));
+		}
+		return metrics;
+	}
+
+	/**
+	 * <p>
+	 * Converts a request URL to an endpoint template by removing the API base path and replacing identifiers with <code>{id}</code>, so <code>/api/v3/segments/1234/streams/altitude</code>
+	 * becomes <code>/segments/{id}/streams/altitude</code>
+	 * </p>
+	 *
+	 * @param url
+	 *            The request URL
+	 * @return The endpoint template
+	 */
+	public static String endpointTemplate(final HttpUrl url) {
+		final List<String> segments = url.pathSegments();
+		final StringBuilder template = new StringBuilder();
+		for (int i = 0; i < segments.size(); i++) {
+			final String segment = segments.get(i);
+			if ((i < BASE_PATH.size()) && segment.equals(BASE_PATH.get(i))) {
+				continue;
+			}
+			template.append('/').append(isIdentifier(segment) ? ID_PLACEHOLDER : segment);
+		}
+		return template.toString();
+	}
+
+	/**
+	 * @return Snapshot of the list of endpoints for which metrics have been recorded
+	 */
+	public static List<StravaEndpointMetrics> getEndpointMetrics() {
+		return new ArrayList<>(ENDPOINTS.values());
+	}
+
+	/**
+	 * @return Snapshot of the list of endpoints for which HTTP cache metrics have been recorded
+	 */
+	public static List<StravaHTTPCacheMetrics> getHTTPCacheMetrics() {
+		return new ArrayList<>(HTTP_CACHE.values());
+	}
+
+	/**
+	 * <p>
+	 * Get (or create) the HTTP cache metrics for an endpoint
+	 * </p>
+	 *
+	 * @param method
+	 *            HTTP method
+	 * @param endpoint
+	 *            Endpoint template (see {@link #endpointTemplate(HttpUrl)})
+	 * @return The metrics
+	 */
+	public static StravaHTTPCacheMetrics httpCache(final String method, final String endpoint) {
+		final String key = method + " " + endpoint;
+		StravaHTTPCacheMetrics metrics = HTTP_CACHE.get(key);
+		if (metrics == null) {
+			metrics = HTTP_CACHE.computeIfAbsent(key, k -> new StravaHTTPCacheMetrics(method, endpoint));
+		}
+		return metrics;
+	}
+
+	/**
+	 * @param segment
+	 *            A URL path segment
+	 * @return <code>true</code> if the segment looks like a Strava identifier (numeric, or a gear id such as b12345)
+	 */
+	private static boolean isIdentifier(final String segment) {
+		if (segment.isEmpty()) {
+			return false;
+		}
+		int start = 0;
+		if ((segment.length() > 1) && ((segment.charAt(0) == 'b') || (segment.charAt(0) == 'g'))) {
+			start = 1;
+		}
+		for (int i = start; i < segment.length(); i++) {
+			if (!Character.isDigit(segment.charAt(i))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return <code>true</code> if metrics are being recorded
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * <p>
+	 * Discards all recorded metrics
+	 * </p>
+	 */
+	public static void reset() {
+		for (final StravaEndpointMetrics metrics : ENDPOINTS.values()) {
+			metrics.reset();
+		}
+		for (final StravaHTTPCacheMetrics metrics : HTTP_CACHE.values()) {
+			metrics.reset();
+		}
+	}
+
+	/**
+	 * @param metrics
+	 *            The metrics for the response about to be handled on this thread, or <code>null</code> to clear
+	 */
+	public static void setCurrent(final StravaEndpointMetrics metrics) {
+		if (metrics == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(metrics);
+		}
+	}
+
+	/**
+	 * @param enabled
+	 *            <code>true</code> to start recording metrics, <code>false</code> to stop
+	 */
+	public static void setEnabled(final boolean enabled) {
+		StravaAPIMetrics.enabled = enabled;
+	}
+
+	/**
+	 * @param status
+	 *            HTTP status code
+	 * @return Status class, e.g. <code>2xx</code>
+	 */
+	public static String statusClass(final int status) {
+		return (status / 100) + "xx";
+	}
+
+	/**
+	 * No instances
+	 */
+	private StravaAPIMetrics() {
+	}
+}
@@ -0,0 +1,197 @@
+package javastrava.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Throughput and latency figures for a single API endpoint template (e.g. <code>GET /segments/{id}</code>) and HTTP status class (e.g. <code>2xx</code>)
+ * </p>
+ *
+ * <p>
+ * All latencies are held in {@link StravaLatencyHistogram histograms} in microseconds. Instances are thread safe and are only ever created by {@link StravaAPIMetrics}.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaEndpointMetrics {
+	/**
+	 * HTTP method
+	 */
+	private final String method;
+
+	/**
+	 * Endpoint template, with identifiers replaced by <code>{id}</code>
+	 */
+	private final String endpoint;
+
+	/**
+	 * HTTP status class - <code>2xx</code>, <code>4xx</code> etc., or <code>IOE</code> if the request failed without a response
+	 */
+	private final String statusClass;
+
+	/**
+	 * Number of requests made
+	 */
+	private final LongAdder requestCount = new LongAdder();
+
+	/**
+	 * Total bytes sent in request bodies
+	 */
+	private final LongAdder requestBytes = new LongAdder();
+
+	/**
+	 * Total bytes received in response bodies
+	 */
+	private final LongAdder responseBytes = new LongAdder();
+
+	/**
+	 * Time from sending the request until the response headers were received
+	 */
+	private final StravaLatencyHistogram timeToFirstByte = new StravaLatencyHistogram();
+
+	/**
+	 * Time from sending the request until the response body was completely read
+	 */
+	private final StravaLatencyHistogram totalTime = new StravaLatencyHistogram();
+
+	/**
+	 * Time taken to deserialise the response body from JSON
+	 */
+	private final StravaLatencyHistogram deserialisationTime = new StravaLatencyHistogram();
+
+	/**
+	 * @param method
+	 *            HTTP method
+	 * @param endpoint
+	 *            Endpoint template
+	 * @param statusClass
+	 *            HTTP status class
+	 */
+	StravaEndpointMetrics(final String method, final String endpoint, final String statusClass) {
+		this.method = method;
+		this.endpoint = endpoint;
+		this.statusClass = statusClass;
+	}
+
+	/**
+	 * @return the deserialisation time histogram
+	 */
+	public StravaLatencyHistogram getDeserialisationTime() {
+		return this.deserialisationTime;
+	}
+
+	/**
+	 * @return the endpoint template
+	 */
+	public String getEndpoint() {
+		return this.endpoint;
+	}
+
+	/**
+	 * @return the HTTP method
+	 */
+	public String getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * @return total bytes sent in request bodies
+	 */
+	public long getRequestBytes() {
+		return this.requestBytes.sum();
+	}
+
+	/**
+	 * @return number of requests made
+	 */
+	public long getRequestCount() {
+		return this.requestCount.sum();
+	}
+
+	/**
+	 * @return total bytes received in response bodies
+	 */
+	public long getResponseBytes() {
+		return this.responseBytes.sum();
+	}
+
+	/**
+	 * @return the HTTP status class
+	 */
+	public String getStatusClass() {
+		return this.statusClass;
+	}
+
+	/**
+	 * @return the time to first byte histogram
+	 */
+	public StravaLatencyHistogram getTimeToFirstByte() {
+		return this.timeToFirstByte;
+	}
+
+	/**
+	 * @return the total time histogram
+	 */
+	public StravaLatencyHistogram getTotalTime() {
+		return this.totalTime;
+	}
+
+	/**
+	 * @param nanos
+	 *            Time taken to deserialise a response body
+	 */
+	public void recordDeserialisation(final long nanos) {
+		this.deserialisationTime.record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param bytes
+	 *            Size of the request body (negative if unknown)
+	 * @param ttfbNanos
+	 *            Time until the response headers were received
+	 */
+	public void recordRequest(final long bytes, final long ttfbNanos) {
+		this.requestCount.increment();
+		if (bytes > 0) {
+			this.requestBytes.add(bytes);
+		}
+		this.timeToFirstByte.record(ttfbNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * @param bytes
+	 *            Number of bytes read from the response body
+	 * @param totalNanos
+	 *            Time from sending the request until the body was completely read
+	 */
+	public void recordResponse(final long bytes, final long totalNanos) {
+		this.responseBytes.add(bytes);
+		this.totalTime.record(totalNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * <p>
+	 * Clears all recorded values
+	 * </p>
+	 */
+	void reset() {
+		this.requestCount.reset();
+		this.requestBytes.reset();
+		this.responseBytes.reset();
+		this.timeToFirstByte.reset();
+		this.totalTime.reset();
+		this.deserialisationTime.reset();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaEndpointMetrics [method=" + this.method + ", endpoint=" + this.endpoint + ", statusClass=" + this.statusClass + ", requestCount=" + getRequestCount() + ", requestBytes="
+				+ getRequestBytes() + ", responseBytes=" + getResponseBytes() + ", timeToFirstByte=" + this.timeToFirstByte + ", totalTime=" + this.totalTime + ", deserialisationTime="
+				+ this.deserialisationTime + "]";
+	}
+}
@@ -0,0 +1,175 @@
+package javastrava.api.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * HTTP cache effectiveness for a single API endpoint template (e.g. <code>GET /segments/{id}</code>)
+ * </p>
+ *
+ * <p>
+ * Every cacheable (GET) request is counted as exactly one of:
+ * </p>
+ * <ul>
+ * <li>a hit - served from the cache without contacting Strava</li>
+ * <li>a revalidation - Strava responded <code>304 Not Modified</code> to a conditional request, so no body was transferred</li>
+ * <li>a miss - a full response body was downloaded</li>
+ * </ul>
+ *
+ * <p>
+ * Instances are thread safe and are only ever created by {@link StravaAPIMetrics}.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaHTTPCacheMetrics {
+	/**
+	 * HTTP method
+	 */
+	private final String method;
+
+	/**
+	 * Endpoint template, with identifiers replaced by <code>{id}</code>
+	 */
+	private final String endpoint;
+
+	/**
+	 * Requests served from the cache
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Requests answered with 304 Not Modified
+	 */
+	private final LongAdder revalidations = new LongAdder();
+
+	/**
+	 * Requests which downloaded a full body
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param method
+	 *            HTTP method
+	 * @param endpoint
+	 *            Endpoint template
+	 */
+	StravaHTTPCacheMetrics(final String method, final String endpoint) {
+		this.method = method;
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * @return the endpoint template
+	 */
+	public String getEndpoint() {
+		return this.endpoint;
+	}
+
+	/**
+	 * @return number of requests served from the cache
+	 */
+	public long getHits() {
+		return this.hits.sum();
+	}
+
+	/**
+	 * @return proportion of requests served from the cache
+	 */
+	public double getHitRatio() {
+		return ratio(getHits());
+	}
+
+	/**
+	 * @return the HTTP method
+	 */
+	public String getMethod() {
+		return this.method;
+	}
+
+	/**
+	 * @return number of requests which downloaded a full body
+	 */
+	public long getMisses() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * @return proportion of requests which downloaded a full body
+	 */
+	public double getMissRatio() {
+		return ratio(getMisses());
+	}
+
+	/**
+	 * @return number of requests answered with 304 Not Modified
+	 */
+	public long getRevalidations() {
+		return this.revalidations.sum();
+	}
+
+	/**
+	 * @return proportion of requests answered with 304 Not Modified
+	 */
+	public double getRevalidationRatio() {
+		return ratio(getRevalidations());
+	}
+
+	/**
+	 * @return total number of cacheable requests
+	 */
+	public long getTotal() {
+		return getHits() + getRevalidations() + getMisses();
+	}
+
+	/**
+	 * @param count
+	 *            Number of requests
+	 * @return Proportion of all cacheable requests, or 0 if there have been none
+	 */
+	private double ratio(final long count) {
+		final long total = getTotal();
+		return (total == 0 ? 0 : (double) count / total);
+	}
+
+	/**
+	 * Records a request served from the cache
+	 */
+	public void recordHit() {
+		this.hits.increment();
+	}
+
+	/**
+	 * Records a request which downloaded a full body
+	 */
+	public void recordMiss() {
+		this.misses.increment();
+	}
+
+	/**
+	 * Records a request answered with 304 Not Modified
+	 */
+	public void recordRevalidation() {
+		this.revalidations.increment();
+	}
+
+	/**
+	 * <p>
+	 * Clears all recorded values
+	 * </p>
+	 */
+	void reset() {
+		this.hits.reset();
+		this.revalidations.reset();
+		this.misses.reset();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaHTTPCacheMetrics [method=" + this.method + ", endpoint=" + this.endpoint + ", hits=" + getHits() + ", revalidations=" + getRevalidations() + ", misses=" + getMisses() + "]";
+	}
+}
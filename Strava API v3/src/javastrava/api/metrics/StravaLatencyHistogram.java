@@ -0,0 +1,204 @@
+package javastrava.api.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>
+ * Lock-free latency histogram with a fixed memory footprint, recording values in microseconds.
+ * </p>
+ *
+ * <p>
+ * Buckets are log-linear in the same way as an HdrHistogram: values below 128&micro;s are recorded exactly, and above that each power of two is divided into 64 linear sub-buckets, so any recorded
+ * value is accurate to within about 1.5%. Values up to roughly 19 hours can be recorded; anything larger is recorded in the top bucket.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaLatencyHistogram {
+	/**
+	 * Number of linear sub-buckets in each power-of-two range (the top half of the sub-bucket space)
+	 */
+	private static final int SUB_BUCKET_HALF_COUNT = 64;
+
+	/**
+	 * Values smaller than this are recorded in their own bucket
+	 */
+	private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT * 2;
+
+	/**
+	 * Largest power of two range tracked
+	 */
+	private static final int MAX_MAGNITUDE = 36;
+
+	/**
+	 * Total number of buckets
+	 */
+	private static final int BUCKET_COUNT = (SUB_BUCKET_HALF_COUNT * (MAX_MAGNITUDE - 6)) + SUB_BUCKET_COUNT;
+
+	/**
+	 * @param value
+	 *            Value in microseconds
+	 * @return Index of the bucket the value is recorded in
+	 */
+	private static int bucketIndex(final long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) Math.max(0, value);
+		}
+		final int magnitude = Math.min(MAX_MAGNITUDE, 63 - Long.numberOfLeadingZeros(value));
+		final int shift = magnitude - 6;
+		final int subBucket = (int) Math.min(SUB_BUCKET_COUNT - 1, value >>> shift);
+		return (SUB_BUCKET_HALF_COUNT * shift) + subBucket;
+	}
+
+	/**
+	 * @param index
+	 *            Bucket index
+	 * @return The smallest value (in microseconds) that is recorded in the bucket
+	 */
+	private static long lowestValueInBucket(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int shift = (index / SUB_BUCKET_HALF_COUNT) - 1;
+		final long subBucket = (index % SUB_BUCKET_HALF_COUNT) + SUB_BUCKET_HALF_COUNT;
+		return subBucket << shift;
+	}
+
+	/**
+	 * @param index
+	 *            Bucket index
+	 * @return The value (in microseconds) used to represent all values recorded in the bucket
+	 */
+	private static long medianValueInBucket(final int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		final int shift = (index / SUB_BUCKET_HALF_COUNT) - 1;
+		return lowestValueInBucket(index) + ((1L << shift) >> 1);
+	}
+
+	/**
+	 * Count of values recorded per bucket
+	 */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	/**
+	 * Number of values recorded
+	 */
+	private final LongAdder totalCount = new LongAdder();
+
+	/**
+	 * Sum of all values recorded, in microseconds
+	 */
+	private final LongAdder totalValue = new LongAdder();
+
+	/**
+	 * Largest value recorded, in microseconds
+	 */
+	private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0L);
+
+	/**
+	 * @return Number of values recorded
+	 */
+	public long getCount() {
+		return this.totalCount.sum();
+	}
+
+	/**
+	 * @return Largest value recorded, in microseconds
+	 */
+	public long getMax() {
+		return this.maxValue.get();
+	}
+
+	/**
+	 * @return Arithmetic mean of the values recorded, in microseconds
+	 */
+	public double getMean() {
+		final long count = this.totalCount.sum();
+		return (count == 0 ? 0.0 : (double) this.totalValue.sum() / count);
+	}
+
+	/**
+	 * <p>
+	 * Calculates the value at the given percentile.
+	 * </p>
+	 *
+	 * @param percentile
+	 *            Percentile between 0 and 100
+	 * @return The value at that percentile, in microseconds; 0 if nothing has been recorded
+	 */
+	public long getValueAtPercentile(final double percentile) {
+		final long count = this.totalCount.sum();
+		if (count == 0) {
+			return 0L;
+		}
+		final double requested = Math.min(Math.max(percentile, 0.0), 100.0);
+		final long countAtPercentile = Math.max(1L, (long) Math.ceil((requested / 100.0) * count));
+		long runningCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			runningCount += this.counts.get(i);
+			if (runningCount >= countAtPercentile) {
+				return Math.min(medianValueInBucket(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * <p>
+	 * Records a duration
+	 * </p>
+	 *
+	 * @param duration
+	 *            The duration
+	 * @param unit
+	 *            Unit of the duration
+	 */
+	public void record(final long duration, final TimeUnit unit) {
+		recordMicros(unit.toMicros(duration));
+	}
+
+	/**
+	 * <p>
+	 * Records a value
+	 * </p>
+	 *
+	 * @param micros
+	 *            Value in microseconds
+	 */
+	public void recordMicros(final long micros) {
+		final long value = Math.max(0L, micros);
+		this.counts.incrementAndGet(bucketIndex(value));
+		this.totalCount.increment();
+		this.totalValue.add(value);
+		this.maxValue.accumulate(value);
+	}
+
+	/**
+	 * <p>
+	 * Clears all recorded values
+	 * </p>
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0L);
+		}
+		this.totalCount.reset();
+		this.totalValue.reset();
+		this.maxValue.reset();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaLatencyHistogram [count=" + getCount() + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50.0) + ", p90=" + getValueAtPercentile(90.0) + ", p99="
+				+ getValueAtPercentile(99.0) + ", max=" + getMax() + "]";
+	}
+}
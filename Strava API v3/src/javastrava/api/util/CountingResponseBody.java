@@ -0,0 +1,94 @@
+package javastrava.api.util;
+
+import java.io.IOException;
+import java.util.function.LongConsumer;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * <p>
+ * Response body which counts the bytes read from it, and reports the total once the body has been completely read or is closed (whichever happens first).
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class CountingResponseBody extends ResponseBody {
+    /**
+     * The real response body
+     */
+    private final ResponseBody delegate;
+
+    /**
+     * Called once with the number of bytes read
+     */
+    private final LongConsumer onComplete;
+
+    /**
+     * Counting source wrapped around the real body's source
+     */
+    private final BufferedSource source;
+
+    /**
+     * Bytes read so far
+     */
+    private long bytesRead;
+
+    /**
+     * Set once {@link #onComplete} has been called
+     */
+    private boolean completed;
+
+    /**
+     * @param delegate   The real response body
+     * @param onComplete Called once with the number of bytes read when the body has been completely read or is closed
+     */
+    public CountingResponseBody(final ResponseBody delegate, final LongConsumer onComplete) {
+        this.delegate = delegate;
+        this.onComplete = onComplete;
+        this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read == -1) {
+                    complete();
+                } else {
+                    CountingResponseBody.this.bytesRead += read;
+                }
+                return read;
+            }
+
+            @Override
+            public void close() throws IOException {
+                complete();
+                super.close();
+            }
+        });
+    }
+
+    private void complete() {
+        if (!this.completed) {
+            this.completed = true;
+            this.onComplete.accept(this.bytesRead);
+        }
+    }
+
+    @Override
+    public MediaType contentType() {
+        return this.delegate.contentType();
+    }
+
+    @Override
+    public long contentLength() {
+        return this.delegate.contentLength();
+    }
+
+    @Override
+    public BufferedSource source() {
+        return this.source;
+    }
+}
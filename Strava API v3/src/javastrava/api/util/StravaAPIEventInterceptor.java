@@ -0,0 +1,55 @@
+package javastrava.api.util;
+
+import java.io.IOException;
+
+import javastrava.api.metrics.StravaAPIMetrics;
+import javastrava.jfr.StravaAPICallEvent;
+import javastrava.jfr.StravaFlightRecorder;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+
+/**
+ * <p>
+ * Emits a {@link StravaAPICallEvent} to Java Flight Recorder for each call to the Strava API. The event ends when the response body has been completely read.
+ * </p>
+ *
+ * <p>
+ * Only add this interceptor if {@link StravaFlightRecorder#AVAILABLE} is <code>true</code>.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaAPIEventInterceptor implements Interceptor {
+
+    @Override
+    public okhttp3.Response intercept(Chain chain) throws IOException {
+        final StravaAPICallEvent event = StravaAPICallEvent.start();
+        if (event == null) {
+            return chain.proceed(chain.request());
+        }
+
+        Request request = chain.request();
+        event.setMethod(request.method());
+        event.setEndpoint(StravaAPIMetrics.endpointTemplate(request.url()));
+        event.setRequestBytes(request.body() == null ? 0 : request.body().contentLength());
+
+        okhttp3.Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            event.setStatus(-1);
+            event.commit();
+            throw e;
+        }
+
+        event.setStatus(response.code());
+        if (response.body() == null) {
+            event.commit();
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(response.body(), bytes -> {
+            event.setResponseBytes(bytes);
+            event.commit();
+        })).build();
+    }
+}
@@ -0,0 +1,52 @@
+package javastrava.api.util;
+
+import java.lang.reflect.Type;
+
+import javastrava.api.metrics.StravaAPIMetrics;
+import javastrava.api.metrics.StravaEndpointMetrics;
+import retrofit.converter.ConversionException;
+import retrofit.converter.Converter;
+import retrofit.mime.TypedInput;
+import retrofit.mime.TypedOutput;
+
+/**
+ * <p>
+ * Converter which times deserialisation of response bodies and records it against the endpoint that {@link StravaAPIMetricsInterceptor} has just handled on the same thread.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaAPIMetricsConverter implements Converter {
+
+    /**
+     * The converter which actually does the work
+     */
+    private final Converter delegate;
+
+    /**
+     * @param delegate The converter which actually does the work
+     */
+    public StravaAPIMetricsConverter(final Converter delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object fromBody(final TypedInput body, final Type type) throws ConversionException {
+        StravaEndpointMetrics metrics = StravaAPIMetrics.current();
+        if (metrics == null) {
+            return this.delegate.fromBody(body, type);
+        }
+        StravaAPIMetrics.setCurrent(null);
+        long start = System.nanoTime();
+        try {
+            return this.delegate.fromBody(body, type);
+        } finally {
+            metrics.recordDeserialisation(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public TypedOutput toBody(final Object object) {
+        return this.delegate.toBody(object);
+    }
+}
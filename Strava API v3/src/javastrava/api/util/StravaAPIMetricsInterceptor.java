@@ -0,0 +1,55 @@
+package javastrava.api.util;
+
+import java.io.IOException;
+
+import javastrava.api.metrics.StravaAPIMetrics;
+import javastrava.api.metrics.StravaEndpointMetrics;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+
+/**
+ * <p>
+ * Records per-endpoint latency and throughput in {@link StravaAPIMetrics}.
+ * </p>
+ *
+ * <p>
+ * Time to first byte is measured when the response headers arrive; total time and response size are recorded when the response body has been completely read or is closed. When metrics are
+ * disabled the request is passed straight through.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaAPIMetricsInterceptor implements Interceptor {
+
+    @Override
+    public okhttp3.Response intercept(Chain chain) throws IOException {
+        StravaAPIMetrics.setCurrent(null);
+        if (!StravaAPIMetrics.isEnabled()) {
+            return chain.proceed(chain.request());
+        }
+
+        Request request = chain.request();
+        String endpoint = StravaAPIMetrics.endpointTemplate(request.url());
+        long requestBytes = (request.body() == null ? 0 : request.body().contentLength());
+        final long start = System.nanoTime();
+
+        okhttp3.Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            StravaEndpointMetrics metrics = StravaAPIMetrics.endpoint(request.method(), endpoint, StravaAPIMetrics.IO_ERROR);
+            metrics.recordRequest(requestBytes, System.nanoTime() - start);
+            throw e;
+        }
+
+        final StravaEndpointMetrics metrics = StravaAPIMetrics.endpoint(request.method(), endpoint, StravaAPIMetrics.statusClass(response.code()));
+        metrics.recordRequest(requestBytes, System.nanoTime() - start);
+        StravaAPIMetrics.setCurrent(metrics);
+
+        if (response.body() == null) {
+            metrics.recordResponse(0, System.nanoTime() - start);
+            return response;
+        }
+        return response.newBuilder().body(new CountingResponseBody(response.body(), bytes -> metrics.recordResponse(bytes, System.nanoTime() - start))).build();
+    }
+}
@@ -0,0 +1,33 @@
+package javastrava.api.util;
+
+import java.io.IOException;
+
+import javastrava.api.cache.StravaHTTPCache;
+import okhttp3.Interceptor;
+
+/**
+ * <p>
+ * Sends GET requests through a {@link StravaHTTPCache}, so that they are revalidated with <code>If-None-Match</code> / <code>If-Modified-Since</code> where possible
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+public class StravaHTTPCacheInterceptor implements Interceptor {
+
+    /**
+     * The cache for the token the requests are being made with
+     */
+    private final StravaHTTPCache cache;
+
+    /**
+     * @param cache The cache for the token the requests are being made with
+     */
+    public StravaHTTPCacheInterceptor(final StravaHTTPCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public okhttp3.Response intercept(Chain chain) throws IOException {
+        return this.cache.proceed(chain);
+    }
+}
@@ -7,6 +7,8 @@ import javastrava.auth.TokenManager;
 import javastrava.auth.model.Token;
 import javastrava.auth.model.TokenResponse;
 import javastrava.auth.ref.AuthorisationScope;
+import javastrava.jfr.StravaFlightRecorder;
+import javastrava.jfr.StravaTokenRefreshEvent;
 
 import java.time.Instant;
 
@@ -36,7 +38,7 @@ public class AuthorisationServiceImpl implements AuthorisationService {
 		Token cachedToken = tokenManager.retrieveToken(userId);
 
 		if (cachedToken == null || isExpired(cachedToken)) {
-			Token newToken = getNewToken(clientId, clientSecret, refreshToken);
+			Token newToken = refreshToken(clientId, clientSecret, userId, refreshToken, cachedToken != null);
 			if (cachedToken == null) {
 				cachedToken = newToken;
 			} else {
@@ -49,6 +51,20 @@ public class AuthorisationServiceImpl implements AuthorisationService {
 		return cachedToken;
 	}
 
+	private Token refreshToken(final Integer clientId, final String clientSecret, final Integer userId, final String refreshToken, final boolean expired) {
+		final StravaTokenRefreshEvent event = (StravaFlightRecorder.AVAILABLE ? StravaTokenRefreshEvent.start() : null);
+		boolean success = false;
+		try {
+			final Token token = getNewToken(clientId, clientSecret, refreshToken);
+			success = true;
+			return token;
+		} finally {
+			if (event != null) {
+				event.finish(userId, expired, success);
+			}
+		}
+	}
+
 	private Token getNewToken(final Integer clientId, final String clientSecret, final String refreshToken) {
 		TokenResponse newTokenResponse = this.api.getAuthToken(clientId, clientSecret, refreshToken, GRANT_TYPE_REFRESH_TOKEN);
 		return new Token(newTokenResponse);
@@ -1,5 +1,8 @@
 package javastrava.auth.impl;
 
+import java.io.IOException;
+
+import javastrava.api.cache.StravaHTTPCache;
 import javastrava.auth.TokenManager;
 import javastrava.auth.TokenService;
 import javastrava.auth.model.Token;
@@ -68,6 +71,11 @@ public class TokenServiceImpl extends StravaServiceImpl implements TokenService
 		for (final StravaService service : token.getServices().values()) {
 			service.clearCache();
 		}
+		try {
+			StravaHTTPCache.discard(token);
+		} catch (final IOException e) {
+			// The responses are no longer used; leave them for the disk cache to evict in its own time
+		}
 		TokenManager.instance().revokeToken(token);
 		return response;
 	}
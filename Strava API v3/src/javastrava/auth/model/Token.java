@@ -3,6 +3,7 @@ package javastrava.auth.model;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javastrava.auth.AuthorisationService;
 import javastrava.auth.TokenService;
@@ -70,6 +71,11 @@ import javastrava.service.impl.WebhookServiceImpl;
  *
  */
 public class Token implements StravaEntity {
+	/**
+	 * Number of tokens created, used to give each one a {@link #getCacheKey() cache key} of its own until its athlete is known
+	 */
+	private static final AtomicLong INSTANCES = new AtomicLong();
+
 	private StravaAthlete athlete;
 	private String accessToken;
 	private String refreshToken;
@@ -79,6 +85,11 @@ public class Token implements StravaEntity {
 
 	private HashMap<Class<? extends StravaService>, StravaService> services;
 
+	/**
+	 * Cache key used while the athlete is not known
+	 */
+	private final transient String instanceKey = "token-" + INSTANCES.incrementAndGet(); //$NON-NLS-1$
+
 	/**
 	 * No-args constructor
 	 */
@@ -247,6 +258,21 @@ public class Token implements StravaEntity {
 		return this.accessToken;
 	}
 
+	/**
+	 * <p>
+	 * Key under which caches hold what has been fetched with this token. It is the athlete's id, together with whether the token can {@link #hasViewPrivate() view private} data, so
+	 * unlike the access token it stays the same when the token is refreshed and from one run to the next. If the athlete is not known, it is a key unique to this token object.
+	 * </p>
+	 *
+	 * @return The cache key
+	 */
+	public String getCacheKey() {
+		if ((this.athlete == null) || (this.athlete.getId() == null)) {
+			return this.instanceKey;
+		}
+		return "athlete-" + this.athlete.getId() + (hasViewPrivate() ? "-private" : ""); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
 	/**
 	 * @return the tokenType
 	 */
@@ -1,6 +1,9 @@
 package javastrava.cache;
 
 import java.util.List;
+import java.util.function.Function;
+
+import javastrava.model.reference.StravaResourceState;
 
 /**
  * <p>
@@ -11,6 +14,12 @@ import java.util.List;
  * Data is cached <strong>per unique token</strong> and cannot be read by a session with an access token different to the one that stored data
  * </p>
  *
+ * <p>
+ * The exception is public objects which look the same to every athlete (public segments and clubs, challenges, running races). A copy of these without the viewer-specific fields (starred,
+ * membership and so on) can also be kept in a tier shared by all tokens. When the token has no copy of its own, the shared copy is returned by {@link #get(Object, StravaResourceState)}
+ * for a summary representation, but not for a detailed one unless the class has no viewer-specific fields. Private objects are never shared.
+ * </p>
+ *
  * @author Dan Shannon
  *
  * @param <T>
@@ -26,22 +35,60 @@ public interface StravaCache<T extends StravaCacheableEntity<U>, U> {
 	 *
 	 * @param key
 	 *            The key
-	 * @return the object, or <code>null</code> if not in cache
+	 * @return the object, or <code>null</code> if a detailed representation is not in cache (or older than the hard TTL)
 	 */
     T get(U key);
 
 	/**
 	 * <p>
-	 * Returns a list of the objects in the cache
+	 * Retrieves the object from the cache, if the cached representation is at least as complete as the caller needs
+	 * </p>
+	 *
+	 * <p>
+	 * The cache holds the most complete representation it has been given for each object, so summaries returned by list endpoints can be used by callers which don't need the detail
+	 * </p>
+	 *
+	 * @param key
+	 *            The key
+	 * @param minimumState
+	 *            {@link StravaResourceState#SUMMARY} to accept a summary or detailed representation, {@link StravaResourceState#DETAILED} to accept only a detailed one
+	 * @return the object, or <code>null</code> if not in cache in at least the required state (or older than the hard TTL)
+	 */
+    T get(U key, StravaResourceState minimumState);
+
+	/**
+	 * <p>
+	 * Retrieves a negative result from the cache
+	 * </p>
+	 *
+	 * <p>
+	 * Negative results are kept separately from objects, for a shorter time (see {@link javastrava.config.StravaConfig#CACHE_NEGATIVE_TTL_SECONDS}), and are dropped when a matching webhook
+	 * event is received (see {@link javastrava.cache.impl.StravaCacheImpl#invalidate(javastrava.model.webhook.StravaWebhookEvent)}).
 	 * </p>
 	 *
-	 * @return List of the objects in the cache
+	 * @param key
+	 *            The key
+	 * @return the negative result, or <code>null</code> if there isn't one in cache (or it has expired)
+	 */
+    StravaNegativeResult<T> getNegative(U key);
+
+	/**
+	 * <p>
+	 * Returns a list of the detailed objects in the cache
+	 * </p>
+	 *
+	 * @return List of the detailed objects in the cache
 	 */
     List<T> list();
 
 	/**
 	 * <p>
-	 * Stores the given object in the cache
+	 * Stores the given object in the cache, replacing any negative result for it
+	 * </p>
+	 *
+	 * <p>
+	 * Detailed and summary representations are stored; a summary does not replace a detailed representation which is still fresh (younger than the soft TTL, or the hard TTL if the soft
+	 * TTL is 0)
 	 * </p>
 	 *
 	 * @param object
@@ -49,6 +96,19 @@ public interface StravaCache<T extends StravaCacheableEntity<U>, U> {
 	 */
     void put(T object);
 
+	/**
+	 * <p>
+	 * Stores a negative result in the cache, replacing any cached copy of the object
+	 * </p>
+	 *
+	 * @param key
+	 *            The key
+	 * @param object
+	 *            <code>null</code> if the object doesn't exist, or its private representation (with resource state {@link javastrava.model.reference.StravaResourceState#PRIVATE}) if it
+	 *            can't be read with the token; any other object is ignored
+	 */
+    void putNegative(U key, T object);
+
 	/**
 	 * <p>
 	 * Puts all the contents of the list in the cache
@@ -61,7 +121,7 @@ public interface StravaCache<T extends StravaCacheableEntity<U>, U> {
 
 	/**
 	 * <p>
-	 * Removes the object identified by the key from the cache
+	 * Removes the object identified by the key from the cache, along with any negative result for it
 	 * </p>
 	 *
 	 * @param key
@@ -76,6 +136,23 @@ public interface StravaCache<T extends StravaCacheableEntity<U>, U> {
 	 */
     void removeAll();
 
+	/**
+	 * <p>
+	 * Sets the function used to reload objects in the background
+	 * </p>
+	 *
+	 * <p>
+	 * Once a cached object is older than the soft TTL it is still returned by {@link #get(Object)}, but a single background reload is started; frequently read objects are reloaded ahead of
+	 * the soft TTL. Reloads are made at low priority and are skipped when the rate limit is nearly used up. Without a refresher, or with a soft TTL of 0, objects are returned until the
+	 * hard TTL and then discarded.
+	 * </p>
+	 *
+	 * @param refresher
+	 *            Gets the current version of an object from the API without going through the cache; returns <code>null</code> if the object no longer exists, and throws an exception if it
+	 *            could not be retrieved (in which case the cached object is kept)
+	 */
+    void setRefresher(Function<U, T> refresher);
+
 	/**
 	 * <p>
 	 * Returns the number of objects in the cache
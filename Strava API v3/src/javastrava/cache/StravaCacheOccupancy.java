@@ -0,0 +1,115 @@
+package javastrava.cache;
+
+/**
+ * <p>
+ * Snapshot of how much of the cache is taken up by one token, and how much it is allowed
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaCacheOccupancy {
+	/**
+	 * Identifier of the athlete the token belongs to, if known
+	 */
+	private final Integer athleteId;
+
+	/**
+	 * Number of objects cached for the token
+	 */
+	private final long entries;
+
+	/**
+	 * Estimated weight of the objects cached for the token
+	 */
+	private final long weight;
+
+	/**
+	 * Maximum number of objects the token may have cached
+	 */
+	private final long maxEntries;
+
+	/**
+	 * Maximum estimated weight of the objects the token may have cached, or 0 if unlimited
+	 */
+	private final long maxWeight;
+
+	/**
+	 * Number of objects evicted because the token was over its budget, or had the largest share of a full cache
+	 */
+	private final long evictions;
+
+	/**
+	 * @param athleteId
+	 *            Identifier of the athlete the token belongs to, if known
+	 * @param entries
+	 *            Number of objects cached for the token
+	 * @param weight
+	 *            Estimated weight of the objects cached for the token
+	 * @param maxEntries
+	 *            Maximum number of objects the token may have cached
+	 * @param maxWeight
+	 *            Maximum estimated weight of the objects the token may have cached, or 0 if unlimited
+	 * @param evictions
+	 *            Number of objects evicted
+	 */
+	public StravaCacheOccupancy(final Integer athleteId, final long entries, final long weight, final long maxEntries, final long maxWeight, final long evictions) {
+		this.athleteId = athleteId;
+		this.entries = entries;
+		this.weight = weight;
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+		this.evictions = evictions;
+	}
+
+	/**
+	 * @return the athlete id, or <code>null</code> if the token has no athlete
+	 */
+	public Integer getAthleteId() {
+		return this.athleteId;
+	}
+
+	/**
+	 * @return the number of objects cached for the token
+	 */
+	public long getEntries() {
+		return this.entries;
+	}
+
+	/**
+	 * @return the number of objects evicted
+	 */
+	public long getEvictions() {
+		return this.evictions;
+	}
+
+	/**
+	 * @return the maximum number of objects the token may have cached
+	 */
+	public long getMaxEntries() {
+		return this.maxEntries;
+	}
+
+	/**
+	 * @return the maximum estimated weight, or 0 if unlimited
+	 */
+	public long getMaxWeight() {
+		return this.maxWeight;
+	}
+
+	/**
+	 * @return the estimated weight of the objects cached for the token, in bytes of heap
+	 */
+	public long getWeight() {
+		return this.weight;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaCacheOccupancy [athleteId=" + this.athleteId + ", entries=" + this.entries + ", weight=" + this.weight + ", maxEntries=" + this.maxEntries + ", maxWeight="
+				+ this.maxWeight + ", evictions=" + this.evictions + "]";
+	}
+}
@@ -0,0 +1,50 @@
+package javastrava.cache;
+
+import javastrava.model.reference.StravaResourceState;
+
+/**
+ * <p>
+ * A cached negative result: the object doesn't exist, or is private and can't be read with the token
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ * @param <T>
+ *            Class of object
+ */
+public class StravaNegativeResult<T extends StravaCacheableEntity<?>> {
+	/**
+	 * The private representation of the object, or <code>null</code> if it doesn't exist
+	 */
+	private final T value;
+
+	/**
+	 * @param value
+	 *            The private representation of the object (with resource state {@link StravaResourceState#PRIVATE}), or <code>null</code> if it doesn't exist
+	 */
+	public StravaNegativeResult(final T value) {
+		this.value = value;
+	}
+
+	/**
+	 * @return The private representation of the object, or <code>null</code> if it doesn't exist; this is what the service returns to its caller
+	 */
+	public T getValue() {
+		return this.value;
+	}
+
+	/**
+	 * @return <code>true</code> if the object doesn't exist, <code>false</code> if it is private
+	 */
+	public boolean isNotFound() {
+		return this.value == null;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaNegativeResult [value=" + this.value + "]";
+	}
+}
@@ -0,0 +1,538 @@
+package javastrava.cache.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javastrava.config.StravaConfig;
+import javastrava.json.JsonUtil;
+import javastrava.json.exception.JsonSerialisationException;
+import javastrava.json.impl.JsonUtilImpl;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Optional second tier of the cache, on disk, so that a restarted process doesn't have to request everything it had cached again
+ * </p>
+ *
+ * <p>
+ * Objects are appended to memory-mapped segment files in {@link StravaConfig#CACHE_DISK_DIRECTORY}, each record holding the time the object was cached, its key, and its JSON
+ * representation compressed with DEFLATE. Removals are appended as records without a body. When the current segment is full a new one is started, and once there are more than
+ * {@link StravaConfig#CACHE_DISK_MAX_SEGMENTS} the oldest is compacted into it: the records in the oldest which are still live are copied to the new segment (as far as it has room),
+ * and then the oldest is deleted, so that an object which was cached long ago and not changed since isn't lost.
+ * </p>
+ *
+ * <p>
+ * On startup only the record headers are scanned, to rebuild the index from key to record; objects are decoded when first asked for, so the hot ones are reloaded lazily. Records older
+ * than {@link StravaConfig#CACHE_HARD_TTL_SECONDS} are discarded, and objects keep their original age so that they are reloaded from the API in the background as usual once they pass the
+ * soft TTL. Keys contain the {@link javastrava.auth.model.Token#getCacheKey() cache key} of the token (which is based on the athlete, and doesn't change when the token is refreshed)
+ * rather than the access token, so that they are found again after a restart.
+ * </p>
+ *
+ * <p>
+ * The directory must not be shared between processes.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+@Slf4j
+final class StravaCacheDiskTier {
+	/**
+	 * Lazily opened instance
+	 */
+	private static final class Holder {
+		/**
+		 * The instance, or <code>null</code> if there is no disk tier
+		 */
+		static final StravaCacheDiskTier INSTANCE = open();
+
+		/**
+		 * @return The disk tier, or <code>null</code> if it is not configured or cannot be opened
+		 */
+		private static StravaCacheDiskTier open() {
+			final String directory = StravaConfig.CACHE_DISK_DIRECTORY.trim();
+			if (directory.isEmpty()) {
+				return null;
+			}
+			try {
+				return new StravaCacheDiskTier(new File(directory));
+			} catch (final IOException e) {
+				log.warn("Could not open disk cache in " + directory + ", continuing without it", e);
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Location of a record
+	 */
+	private static final class Location {
+		/**
+		 * The segment
+		 */
+		final Segment segment;
+
+		/**
+		 * Offset of the compressed body within the segment
+		 */
+		final int offset;
+
+		/**
+		 * Length of the compressed body
+		 */
+		final int length;
+
+		/**
+		 * Time at which the object was cached
+		 */
+		final long created;
+
+		/**
+		 * @param segment
+		 *            The segment
+		 * @param offset
+		 *            Offset of the compressed body within the segment
+		 * @param length
+		 *            Length of the compressed body
+		 * @param created
+		 *            Time at which the object was cached
+		 */
+		Location(final Segment segment, final int offset, final int length, final long created) {
+			this.segment = segment;
+			this.offset = offset;
+			this.length = length;
+			this.created = created;
+		}
+	}
+
+	/**
+	 * A memory-mapped segment file
+	 */
+	private static final class Segment {
+		/**
+		 * The file
+		 */
+		final File file;
+
+		/**
+		 * The mapping
+		 */
+		final MappedByteBuffer buffer;
+
+		/**
+		 * Position at which the next record will be written
+		 */
+		int position;
+
+		/**
+		 * @param file
+		 *            The file
+		 * @param size
+		 *            Size of the file
+		 * @throws IOException
+		 *             If it cannot be mapped
+		 */
+		Segment(final File file, final int size) throws IOException {
+			this.file = file;
+			try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+				this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, raf.length()));
+			}
+		}
+	}
+
+	/**
+	 * Size of a record header: record length (int), time cached (long), key length (short), body length (int)
+	 */
+	private static final int HEADER_SIZE = 4 + 8 + 2 + 4;
+
+	/**
+	 * Body length recorded for removals
+	 */
+	private static final int TOMBSTONE = -1;
+
+	/**
+	 * Age after which records are discarded
+	 */
+	private static final long MAX_AGE = TimeUnit.SECONDS.toMillis(StravaConfig.CACHE_HARD_TTL_SECONDS);
+
+	/**
+	 * @return The disk tier, or <code>null</code> if there isn't one
+	 */
+	static StravaCacheDiskTier instance() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Directory holding the segments
+	 */
+	private final File directory;
+
+	/**
+	 * Size of each segment
+	 */
+	private final int segmentSize;
+
+	/**
+	 * Segments by sequence number, oldest first
+	 */
+	private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+	/**
+	 * The segment being written to
+	 */
+	private Segment current;
+
+	/**
+	 * Sequence number of the segment being written to
+	 */
+	private long currentSequence;
+
+	/**
+	 * Where the latest record for each key is
+	 */
+	private final ConcurrentMap<String, Location> index = new ConcurrentHashMap<>();
+
+	/**
+	 * Used to encode and decode objects
+	 */
+	private final JsonUtil json = new JsonUtilImpl();
+
+	/**
+	 * @param directory
+	 *            Directory holding the segments
+	 * @throws IOException
+	 *             If the directory or its segments cannot be opened
+	 */
+	private StravaCacheDiskTier(final File directory) throws IOException {
+		this.directory = directory;
+		this.segmentSize = StravaConfig.CACHE_DISK_SEGMENT_SIZE_MB * 1024 * 1024;
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Cannot create " + directory);
+		}
+		final File[] files = directory.listFiles((dir, name) -> name.matches("segment-\\d+\\.dat"));
+		Arrays.sort(files);
+		for (final File file : files) {
+			final long sequence = Long.parseLong(file.getName().replaceAll("\\D", ""));
+			final Segment segment = new Segment(file, 0);
+			scan(segment);
+			this.segments.put(Long.valueOf(sequence), segment);
+			this.current = segment;
+			this.currentSequence = sequence;
+		}
+		if (this.current == null) {
+			roll();
+		}
+		log.info("Opened disk cache in " + directory + " with " + this.index.size() + " objects");
+	}
+
+	/**
+	 * @param body
+	 *            Compressed JSON
+	 * @return The JSON
+	 * @throws DataFormatException
+	 *             If the body is corrupt
+	 */
+	private static String inflate(final byte[] body) throws DataFormatException {
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(body);
+			final ByteArrayOutputStream out = new ByteArrayOutputStream(body.length * 4);
+			final byte[] chunk = new byte[8192];
+			while (!inflater.finished()) {
+				final int n = inflater.inflate(chunk);
+				if ((n == 0) && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new DataFormatException("Truncated record");
+				}
+				out.write(chunk, 0, n);
+			}
+			return new String(out.toByteArray(), StandardCharsets.UTF_8);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/**
+	 * @param json
+	 *            JSON
+	 * @return The JSON, compressed
+	 */
+	private static byte[] deflate(final String json) {
+		final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(json.getBytes(StandardCharsets.UTF_8));
+			deflater.finish();
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+			final byte[] chunk = new byte[8192];
+			while (!deflater.finished()) {
+				out.write(chunk, 0, deflater.deflate(chunk));
+			}
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Appends a record to the current segment, starting a new one if it is full
+	 * </p>
+	 *
+	 * @param key
+	 *            Key
+	 * @param created
+	 *            Time the object was cached
+	 * @param body
+	 *            Compressed JSON, or <code>null</code> for a removal
+	 * @return Location of the record, or <code>null</code> if it could not be written
+	 */
+	private synchronized Location append(final String key, final long created, final byte[] body) {
+		final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+		final int bodyLength = (body == null ? 0 : body.length);
+		final int recordLength = HEADER_SIZE + keyBytes.length + bodyLength;
+		if ((recordLength + 4) > this.segmentSize) {
+			return null;
+		}
+		try {
+			if (!fits(recordLength)) {
+				roll();
+			}
+		} catch (final IOException e) {
+			log.warn("Could not start a new disk cache segment", e);
+			return null;
+		}
+		return record(keyBytes, created, body);
+	}
+
+	/**
+	 * @param location
+	 *            Location of a record
+	 * @return The compressed body of the record
+	 */
+	private static byte[] body(final Location location) {
+		final byte[] body = new byte[location.length];
+		final MappedByteBuffer view = (MappedByteBuffer) location.segment.buffer.duplicate();
+		view.position(location.offset);
+		view.get(body);
+		return body;
+	}
+
+	/**
+	 * @param recordLength
+	 *            Length of a record
+	 * @return <code>true</code> if the record fits in the current segment
+	 */
+	private boolean fits(final int recordLength) {
+		return (this.current.position + recordLength + 4) <= this.current.buffer.capacity();
+	}
+
+	/**
+	 * <p>
+	 * Writes a record at the end of the current segment, which must have room for it
+	 * </p>
+	 *
+	 * @param keyBytes
+	 *            Key
+	 * @param created
+	 *            Time the object was cached
+	 * @param body
+	 *            Compressed JSON, or <code>null</code> for a removal
+	 * @return Location of the record
+	 */
+	private Location record(final byte[] keyBytes, final long created, final byte[] body) {
+		final int bodyLength = (body == null ? 0 : body.length);
+		final int recordLength = HEADER_SIZE + keyBytes.length + bodyLength;
+		final Segment segment = this.current;
+		final MappedByteBuffer buffer = segment.buffer;
+		final int start = segment.position;
+		buffer.position(start + 4);
+		buffer.putLong(created);
+		buffer.putShort((short) keyBytes.length);
+		buffer.putInt(body == null ? TOMBSTONE : body.length);
+		buffer.put(keyBytes);
+		if (body != null) {
+			buffer.put(body);
+		}
+		// Length last, so that a record is only seen on a rescan once it is complete
+		buffer.putInt(start, recordLength);
+		segment.position = start + recordLength;
+		return new Location(segment, start + HEADER_SIZE + keyBytes.length, bodyLength, created);
+	}
+
+	/**
+	 * <p>
+	 * Reads an object, if there is a record of it which is not too old
+	 * </p>
+	 *
+	 * @param key
+	 *            Key
+	 * @param class1
+	 *            Class of the object
+	 * @param <T>
+	 *            Class of the object
+	 * @return A cache element holding the object, with its original age, or <code>null</code>
+	 */
+	<T> StravaCacheElement<T> read(final String key, final Class<T> class1) {
+		final Location location = this.index.get(key);
+		if (location == null) {
+			return null;
+		}
+		if ((System.currentTimeMillis() - location.created) >= MAX_AGE) {
+			this.index.remove(key, location);
+			return null;
+		}
+		try {
+			return new StravaCacheElement<>(this.json.deserialise(inflate(body(location)), class1), location.created);
+		} catch (final DataFormatException | JsonSerialisationException | RuntimeException e) {
+			log.debug("Discarding unreadable disk cache record for " + key, e);
+			this.index.remove(key, location);
+			return null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records the removal of an object
+	 * </p>
+	 *
+	 * @param key
+	 *            Key
+	 */
+	synchronized void remove(final String key) {
+		if (this.index.remove(key) != null) {
+			append(key, System.currentTimeMillis(), null);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records the removal of all objects whose keys start with the given prefix
+	 * </p>
+	 *
+	 * @param prefix
+	 *            Prefix
+	 */
+	void removeAll(final String prefix) {
+		final List<String> keys = new ArrayList<>();
+		for (final String key : this.index.keySet()) {
+			if (key.startsWith(prefix)) {
+				keys.add(key);
+			}
+		}
+		for (final String key : keys) {
+			remove(key);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Starts a new segment, compacting the oldest into it and deleting it if there are now too many
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If the segment cannot be created
+	 */
+	private void roll() throws IOException {
+		this.currentSequence++;
+		final File file = new File(this.directory, String.format("segment-%010d.dat", Long.valueOf(this.currentSequence)));
+		this.current = new Segment(file, this.segmentSize);
+		this.segments.put(Long.valueOf(this.currentSequence), this.current);
+		while (this.segments.size() > Math.max(1, StravaConfig.CACHE_DISK_MAX_SEGMENTS)) {
+			final Segment oldest = this.segments.pollFirstEntry().getValue();
+			final long expired = System.currentTimeMillis() - MAX_AGE;
+			final Iterator<Map.Entry<String, Location>> iterator = this.index.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<String, Location> entry = iterator.next();
+				final Location location = entry.getValue();
+				if (location.segment != oldest) {
+					continue;
+				}
+				// Copy the live record to the new segment; if it is too old, or there is no room left, it is dropped
+				final byte[] keyBytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+				if ((location.created >= expired) && fits(HEADER_SIZE + keyBytes.length + location.length)) {
+					entry.setValue(record(keyBytes, location.created, body(location)));
+				} else {
+					iterator.remove();
+				}
+			}
+			// The mapping stays valid for any reader still using it
+			if (!oldest.file.delete()) {
+				log.warn("Could not delete disk cache segment " + oldest.file);
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Adds the records in a segment to the index, skipping any which are too old, and finds the end of the segment
+	 * </p>
+	 *
+	 * @param segment
+	 *            The segment
+	 */
+	private void scan(final Segment segment) {
+		final MappedByteBuffer buffer = segment.buffer;
+		final long oldest = System.currentTimeMillis() - MAX_AGE;
+		int position = 0;
+		while ((position + HEADER_SIZE) <= buffer.capacity()) {
+			final int recordLength = buffer.getInt(position);
+			if ((recordLength < HEADER_SIZE) || ((position + recordLength) > buffer.capacity())) {
+				break;
+			}
+			final long created = buffer.getLong(position + 4);
+			final int keyLength = buffer.getShort(position + 12);
+			final int bodyLength = buffer.getInt(position + 14);
+			final byte[] keyBytes = new byte[keyLength];
+			final MappedByteBuffer view = (MappedByteBuffer) buffer.duplicate();
+			view.position(position + HEADER_SIZE);
+			view.get(keyBytes);
+			final String key = new String(keyBytes, StandardCharsets.UTF_8);
+			if ((bodyLength == TOMBSTONE) || (created < oldest)) {
+				this.index.remove(key);
+			} else {
+				this.index.put(key, new Location(segment, position + HEADER_SIZE + keyLength, bodyLength, created));
+			}
+			position += recordLength;
+		}
+		segment.position = position;
+	}
+
+	/**
+	 * <p>
+	 * Writes an object
+	 * </p>
+	 *
+	 * @param key
+	 *            Key
+	 * @param object
+	 *            The object
+	 * @param created
+	 *            Time at which the object was cached
+	 */
+	void write(final String key, final Object object, final long created) {
+		final byte[] body = deflate(this.json.serialise(object));
+		synchronized (this) {
+			final Location location = append(key, created, body);
+			if (location != null) {
+				this.index.put(key, location);
+			} else {
+				this.index.remove(key);
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package javastrava.cache.impl;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>
+ * Wrapper for an object held in the cache, which keeps track of its age and how often it has been read
+ * </p>
+ *
+ * <p>
+ * When the heap is under pressure the object may be {@link #demote() demoted} to a soft reference, after which the garbage collector is free to reclaim it; once it has been reclaimed,
+ * {@link #getValue()} returns <code>null</code> and the element should be treated as missing.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ * @param <T>
+ *            Class of the object being cached
+ */
+class StravaCacheElement<T> {
+	/**
+	 * The cached object, or <code>null</code> once it has been demoted
+	 */
+	private volatile T value;
+
+	/**
+	 * Soft reference to the cached object once it has been demoted
+	 */
+	private volatile SoftReference<T> softValue;
+
+	/**
+	 * Time at which the object was cached (milliseconds since the epoch)
+	 */
+	private final long created;
+
+	/**
+	 * Number of times the object has been read from the cache
+	 */
+	private final AtomicInteger hits = new AtomicInteger();
+
+	/**
+	 * Set while a background reload of the object is queued or running
+	 */
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	/**
+	 * @param value
+	 *            The cached object
+	 */
+	StravaCacheElement(final T value) {
+		this(value, System.currentTimeMillis());
+	}
+
+	/**
+	 * @param value
+	 *            The cached object
+	 * @param created
+	 *            Time at which the object was originally cached (milliseconds since the epoch)
+	 */
+	StravaCacheElement(final T value, final long created) {
+		this.value = value;
+		this.created = created;
+	}
+
+	/**
+	 * @return Time at which the object was cached (milliseconds since the epoch)
+	 */
+	long created() {
+		return this.created;
+	}
+
+	/**
+	 * @return Age of the element in milliseconds
+	 */
+	long age() {
+		return System.currentTimeMillis() - this.created;
+	}
+
+	/**
+	 * <p>
+	 * Replaces the strong reference to the object with a soft one, so that the garbage collector can reclaim it if it needs the space
+	 * </p>
+	 */
+	synchronized void demote() {
+		if (this.value != null) {
+			this.softValue = new SoftReference<>(this.value);
+			this.value = null;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Called when a background reload has finished (or could not be started), so that another may be started later
+	 * </p>
+	 */
+	void endRefresh() {
+		this.refreshing.set(false);
+	}
+
+	/**
+	 * @return The cached object, or <code>null</code> if it was demoted and has since been reclaimed
+	 */
+	T getValue() {
+		final T strong = this.value;
+		if (strong != null) {
+			return strong;
+		}
+		final SoftReference<T> soft = this.softValue;
+		return (soft == null ? null : soft.get());
+	}
+
+	/**
+	 * <p>
+	 * Records a read of the object
+	 * </p>
+	 *
+	 * @return Number of times the object has now been read
+	 */
+	int hit() {
+		return this.hits.incrementAndGet();
+	}
+
+	/**
+	 * @return <code>true</code> if the caller should start a background reload, <code>false</code> if one is already under way
+	 */
+	boolean startRefresh() {
+		return this.refreshing.compareAndSet(false, true);
+	}
+}
@@ -2,21 +2,138 @@ package javastrava.cache.impl;
 
 import javastrava.auth.model.Token;
 import javastrava.cache.StravaCache;
+import javastrava.cache.StravaCacheOccupancy;
 import javastrava.cache.StravaCacheableEntity;
+import javastrava.cache.StravaNegativeResult;
+import javastrava.config.StravaConfig;
+import javastrava.jfr.StravaCacheEvent;
+import javastrava.jfr.StravaFlightRecorder;
+import javastrava.model.StravaActivity;
+import javastrava.model.StravaAthlete;
 import javastrava.model.reference.StravaResourceState;
+import javastrava.model.webhook.StravaWebhookEvent;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.jcs.JCS;
 import org.apache.commons.jcs.access.GroupCacheAccess;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * @param <T> Class of object to be stored in cache
  * @param <U> Class of object id
  * @author Dan Shannon
  */
+@Slf4j
 public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements StravaCache<T, U> {
+    /**
+     * Age after which objects are reloaded in the background, or 0 if they aren't
+     */
+    private static final long SOFT_TTL = TimeUnit.SECONDS.toMillis(StravaConfig.CACHE_SOFT_TTL_SECONDS);
+
+    /**
+     * Age after which objects are discarded
+     */
+    private static final long HARD_TTL = TimeUnit.SECONDS.toMillis(StravaConfig.CACHE_HARD_TTL_SECONDS);
+
+    /**
+     * Age after which frequently read objects are reloaded in the background
+     */
+    private static final long REFRESH_AHEAD_AGE = (long) (SOFT_TTL * StravaConfig.CACHE_REFRESH_AHEAD_FRACTION);
+
+    /**
+     * Age after which negative results are discarded
+     */
+    private static final long NEGATIVE_TTL = TimeUnit.SECONDS.toMillis(StravaConfig.CACHE_NEGATIVE_TTL_SECONDS);
+
+    /**
+     * All live cache instances, so that webhook events can be applied to every token's cache
+     */
+    private static final Set<StravaCacheImpl<?, ?>> INSTANCES = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    /**
+     * <p>
+     * Removes the object with the given identifier, and any negative result for it, from the caches of every token
+     * </p>
+     *
+     * @param class1 Class of the object
+     * @param id     Identifier of the object
+     */
+    public static void invalidate(final Class<?> class1, final Object id) {
+        for (final StravaCacheImpl<?, ?> cache : instances()) {
+            if (cache.class1 == class1) {
+                cache.removeKey(id);
+            }
+        }
+    }
+
+    /**
+     * <p>
+     * Applies an event received from a webhook subscription to the caches of every token
+     * </p>
+     *
+     * <p>
+     * Any event about an activity drops the cached activity, its streams and any negative result for it, so an activity which has been created, deleted or had its privacy changed is requested
+     * afresh. An event about an athlete drops the cached athlete, and all the negative results held for that athlete's own tokens, since a change to their privacy settings may make things
+     * visible that weren't; if the athlete has revoked access, everything cached for their tokens is dropped. Strava doesn't send events for segments, efforts, clubs or routes, so negative
+     * results for those simply expire.
+     * </p>
+     *
+     * @param event The event
+     */
+    public static void invalidate(final StravaWebhookEvent event) {
+        if ((event == null) || (event.getObjectId() == null)) {
+            return;
+        }
+        if (StravaWebhookEvent.OBJECT_TYPE_ACTIVITY.equals(event.getObjectType())) {
+            invalidate(StravaActivity.class, event.getObjectId());
+            StravaStreamCache.invalidate(StravaStreamCache.Owner.ACTIVITY, event.getObjectId());
+        } else if (StravaWebhookEvent.OBJECT_TYPE_ATHLETE.equals(event.getObjectType())) {
+            final Integer athleteId = Integer.valueOf(event.getObjectId().intValue());
+            invalidate(StravaAthlete.class, athleteId);
+            final boolean deauthorised = (event.getUpdates() != null) && "false".equals(event.getUpdates().get("authorized"));
+            for (final StravaCacheImpl<?, ?> cache : instances()) {
+                final StravaAthlete owner = cache.token.getAthlete();
+                if ((owner != null) && athleteId.equals(owner.getId())) {
+                    if (deauthorised) {
+                        cache.removeAll();
+                    } else {
+                        cache.cache.invalidateGroup(cache.negativeGroupName());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return How much of the cache is taken up by each token which has used it
+     */
+    public static List<StravaCacheOccupancy> occupancy() {
+        return StravaCacheTenant.occupancyOfAll();
+    }
+
+    /**
+     * @param token The token
+     * @return How much of the cache is taken up by the token, or <code>null</code> if it hasn't used the cache
+     */
+    public static StravaCacheOccupancy occupancy(final Token token) {
+        return StravaCacheTenant.occupancyOf(token);
+    }
+
+    /**
+     * @return A snapshot of the live cache instances
+     */
+    private static List<StravaCacheImpl<?, ?>> instances() {
+        synchronized (INSTANCES) {
+            return new ArrayList<>(INSTANCES);
+        }
+    }
+
     /**
      * Strava access token associated with this cache instance
      */
@@ -25,31 +142,96 @@ public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements S
     /**
      * The cache implementation (which is global, so we need to be careful about how we store stuff in it or we'll revealn stuff to the wrong users)
      */
-    private final GroupCacheAccess<StravaCacheKey<U, T>, T> cache;
+    private final GroupCacheAccess<StravaCacheKey<U, T>, StravaCacheElement<T>> cache;
 
     /**
      * Class of object being stored in the cache
      */
     private final Class<T> class1;
 
+    /**
+     * Which objects are also held in the tier shared by all tokens, or <code>null</code> if objects of this class depend on the token and are never shared
+     */
+    private final StravaSharedCachePolicy<T> sharing;
+
+    /**
+     * Second tier of the cache on disk, or <code>null</code> if there isn't one
+     */
+    private final StravaCacheDiskTier disk;
+
+    /**
+     * Reloads objects from the API in the background, if set
+     */
+    private volatile Function<U, T> refresher;
+
     /**
      * @param class1 The class of objects to be stored
      * @param token  The security token will be used to generate the key for the stored objects
      */
     public StravaCacheImpl(final Class<T> class1, final Token token) {
         this.token = token;
-        this.cache = JCS.getGroupCacheInstance("default"); 
+        this.cache = JCS.getGroupCacheInstance("default");
         this.class1 = class1;
-        removeAll();
+        this.sharing = (StravaConfig.CACHE_SHARED_TIER_ENABLED ? StravaSharedCachePolicy.forClass(class1) : null);
+        this.disk = StravaCacheDiskTier.instance();
+        // Only the memory tier is cleared; what is on disk is kept for a warm start
+        this.cache.invalidateGroup(groupName());
+        this.cache.invalidateGroup(overlayGroupName());
+        this.cache.invalidateGroup(negativeGroupName());
+        tenant().removeAll(class1);
+        INSTANCES.add(this);
+        StravaCacheMemoryMonitor.start();
+    }
+
+    /**
+     * @param state   Resource state of a cached object
+     * @param minimum Minimum resource state required
+     * @return <code>true</code> if an object in the given state is at least as complete as the minimum
+     */
+    private static boolean satisfies(final StravaResourceState state, final StravaResourceState minimum) {
+        return (state == minimum) || ((state == StravaResourceState.DETAILED) && (minimum == StravaResourceState.SUMMARY));
     }
 
     @Override
     public T get(final U id) {
+        return get(id, StravaResourceState.DETAILED);
+    }
+
+    @Override
+    public T get(final U id, final StravaResourceState minimumState) {
         if (id == null) {
             return null;
         }
         final StravaCacheKey<U, T> key = new StravaCacheKey<>(id, this.token, this.class1);
-        return this.cache.getFromGroup(key, groupName());
+        T object = read(id, key, groupName(), diskKey(key), minimumState);
+        if ((object == null) && (this.sharing != null)) {
+            object = readShared(id, key, minimumState);
+        }
+        if (StravaFlightRecorder.AVAILABLE) {
+            StravaCacheEvent.emit("get", this.class1, id, object != null);
+        }
+        return object;
+    }
+
+    @Override
+    public StravaNegativeResult<T> getNegative(final U id) {
+        if (id == null) {
+            return null;
+        }
+        final StravaCacheKey<U, T> key = new StravaCacheKey<>(id, this.token, this.class1);
+        final StravaCacheElement<T> element = this.cache.getFromGroup(key, negativeGroupName());
+        StravaNegativeResult<T> result = null;
+        if (element != null) {
+            if (element.age() >= NEGATIVE_TTL) {
+                this.cache.removeFromGroup(key, negativeGroupName());
+            } else {
+                result = new StravaNegativeResult<>(element.getValue());
+            }
+        }
+        if (StravaFlightRecorder.AVAILABLE) {
+            StravaCacheEvent.emit("getNegative", this.class1, id, result != null);
+        }
+        return result;
     }
 
     /**
@@ -67,7 +249,102 @@ public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements S
      * @return The group name, based on the token and the class being stored
      */
     private String groupName() {
-        return this.class1.getName() + "::" + this.token.getAccessToken(); 
+        return groupName(this.class1, this.token.getCacheKey());
+    }
+
+    /**
+     * Generate the group name to store the data in cache
+     *
+     * @param class1   The class being stored
+     * @param cacheKey The token's {@link Token#getCacheKey() cache key}
+     * @return The group name, based on the token and the class being stored
+     */
+    static String groupName(final Class<?> class1, final String cacheKey) {
+        return class1.getName() + "::" + cacheKey;
+    }
+
+    /**
+     * Looked up on each use, as (like the group name) it depends on the token's cache key, which changes once the athlete is known
+     *
+     * @return Keeps the objects cached for the token within its budget
+     */
+    private StravaCacheTenant tenant() {
+        return StravaCacheTenant.forToken(this.token);
+    }
+
+    /**
+     * Generate the group name to store objects shared by all tokens in cache
+     *
+     * @return The group name, based on the class being stored
+     */
+    private String sharedGroupName() {
+        return this.class1.getName() + "::shared";
+    }
+
+    /**
+     * Generate the group name to store the token's overlays of objects in the shared tier in cache
+     *
+     * @return The group name, based on the token and the class being stored
+     */
+    private String overlayGroupName() {
+        return overlayGroupName(this.class1, this.token.getCacheKey());
+    }
+
+    /**
+     * Generate the group name to store a token's overlays of objects in the shared tier in cache
+     *
+     * @param class1   The class being stored
+     * @param cacheKey The token's {@link Token#getCacheKey() cache key}
+     * @return The group name, based on the token and the class being stored
+     */
+    static String overlayGroupName(final Class<?> class1, final String cacheKey) {
+        return groupName(class1, cacheKey) + "::overlay";
+    }
+
+    /**
+     * Generate the group name to store negative results in cache
+     *
+     * @return The group name, based on the token and the class being stored
+     */
+    private String negativeGroupName() {
+        return groupName() + "::negative";
+    }
+
+    /**
+     * @return <code>true</code> if the token's athlete is known, so that its {@link Token#getCacheKey() cache key} is the same from one run to the next
+     */
+    private boolean hasAthlete() {
+        return (this.token.getAthlete() != null) && (this.token.getAthlete().getId() != null);
+    }
+
+    /**
+     * Generate the key to store an object under in the disk tier
+     *
+     * @param key Key of the object in memory
+     * @return The disk key, based on the class, the token's cache key (the athlete) or the shared tier, and the id; or <code>null</code> if there is no disk tier, or the object
+     *         belongs to a token whose athlete isn't known (its cache key is then only unique within this run, so can't be used on disk)
+     */
+    private String diskKey(final StravaCacheKey<U, T> key) {
+        if ((this.disk == null) || ((key.getToken() != null) && !hasAthlete())) {
+            return null;
+        }
+        return diskPrefix(key.getToken() == null) + key.getId();
+    }
+
+    /**
+     * @param key Key of the object in memory
+     * @return The key to store the token's overlay of a shared object under in the disk tier, or <code>null</code> if it isn't kept on disk
+     */
+    private String overlayDiskKey(final StravaCacheKey<U, T> key) {
+        return (diskKey(key) == null ? null : diskPrefix(false) + "overlay::" + key.getId());
+    }
+
+    /**
+     * @param shared <code>true</code> for the tier shared by all tokens
+     * @return Prefix of the keys of all objects of this class in the disk tier, for this token or the shared tier
+     */
+    private String diskPrefix(final boolean shared) {
+        return this.class1.getName() + "::" + (shared ? "shared" : this.token.getCacheKey()) + "::";
     }
 
     @Override
@@ -75,7 +352,23 @@ public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements S
         final Set<StravaCacheKey<U, T>> keys = this.cache.getGroupKeys(groupName());
         final List<T> list = new ArrayList<>();
         for (final StravaCacheKey<U, T> key : keys) {
-            list.add(this.cache.getFromGroup(key, groupName()));
+            final StravaCacheElement<T> element = this.cache.getFromGroup(key, groupName());
+            final T object = (element == null ? null : element.getValue());
+            if ((object != null) && (element.age() < HARD_TTL) && (object.getResourceState() == StravaResourceState.DETAILED)) {
+                list.add(object);
+            }
+        }
+        if (this.sharing != null) {
+            for (final StravaCacheKey<U, T> key : this.cache.getGroupKeys(overlayGroupName())) {
+                final StravaCacheElement<T> overlay = this.cache.getFromGroup(key, overlayGroupName());
+                final StravaCacheElement<T> core = this.cache.getFromGroup(new StravaCacheKey<>(key.getId(), null, this.class1), sharedGroupName());
+                if ((overlay != null) && (overlay.getValue() != null) && (overlay.age() < HARD_TTL) && (core != null) && (core.getValue() != null) && (core.age() < HARD_TTL)) {
+                    final T object = this.sharing.merge(core.getValue(), overlay.getValue());
+                    if (object.getResourceState() == StravaResourceState.DETAILED) {
+                        list.add(object);
+                    }
+                }
+            }
         }
         return list;
     }
@@ -87,10 +380,35 @@ public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements S
             return;
         }
 
-        // Only cache detailed objects
-        if (object.getResourceState() == StravaResourceState.DETAILED) {
+        // Only cache detailed and summary objects
+        final StravaResourceState state = object.getResourceState();
+        if ((state == StravaResourceState.DETAILED) || (state == StravaResourceState.SUMMARY)) {
             final StravaCacheKey<U, T> key = new StravaCacheKey<>(object.getId(), this.token, this.class1);
-            this.cache.putInGroup(key, groupName(), object);
+            if ((this.sharing != null) && this.sharing.isShareable(object)) {
+                // The token keeps only the fields which depend on who is looking; the rest is held once, for all tokens
+                final T overlay = this.sharing.overlay(object);
+                if (store(key, overlayGroupName(), overlayDiskKey(key), overlay)) {
+                    tenant().add(key, StravaCacheTenant.weigh(overlay));
+                    this.cache.removeFromGroup(key, groupName());
+                    removeDisk(diskKey(key));
+                }
+                final StravaCacheKey<U, T> sharedKey = new StravaCacheKey<>(object.getId(), null, this.class1);
+                store(sharedKey, sharedGroupName(), diskKey(sharedKey), this.sharing.shared(object));
+            } else {
+                if (store(key, groupName(), diskKey(key), object)) {
+                    tenant().add(key, StravaCacheTenant.weigh(object));
+                }
+                if (this.sharing != null) {
+                    // Has become private, so must no longer be seen by other tokens
+                    this.cache.removeFromGroup(key, overlayGroupName());
+                    removeDisk(overlayDiskKey(key));
+                    removeShared(object.getId());
+                }
+            }
+            this.cache.removeFromGroup(key, negativeGroupName());
+            if (StravaFlightRecorder.AVAILABLE) {
+                StravaCacheEvent.emit("put", this.class1, object.getId(), false);
+            }
         }
     }
 
@@ -105,19 +423,234 @@ public class StravaCacheImpl<T extends StravaCacheableEntity<U>, U> implements S
     }
 
     @Override
-    public void remove(final U id) {
+    public void putNegative(final U id, final T object) {
+        if ((id == null) || ((object != null) && (object.getResourceState() != StravaResourceState.PRIVATE))) {
+            return;
+        }
         final StravaCacheKey<U, T> key = new StravaCacheKey<>(id, this.token, this.class1);
         this.cache.removeFromGroup(key, groupName());
+        this.cache.removeFromGroup(key, overlayGroupName());
+        tenant().remove(key);
+        removeDisk(diskKey(key));
+        removeDisk(overlayDiskKey(key));
+        removeShared(id);
+        this.cache.putInGroup(key, negativeGroupName(), new StravaCacheElement<>(object));
+        if (StravaFlightRecorder.AVAILABLE) {
+            StravaCacheEvent.emit("putNegative", this.class1, id, false);
+        }
+    }
+
+    /**
+     * <p>
+     * Reads an object from one of the groups, discarding it if it has passed the hard TTL or was demoted and has been reclaimed by the garbage collector
+     * </p>
+     *
+     * @param id           Identifier of the object
+     * @param key          Key of the object within the group
+     * @param group        Name of the group
+     * @param diskKey      Key of the object in the disk tier, or <code>null</code> if it isn't kept on disk
+     * @param minimumState Minimum resource state required
+     * @return The object, or <code>null</code> if it isn't held in at least the required state
+     */
+    private T read(final U id, final StravaCacheKey<U, T> key, final String group, final String diskKey, final StravaResourceState minimumState) {
+        final boolean tracked = (key.getToken() != null);
+        StravaCacheElement<T> element = this.cache.getFromGroup(key, group);
 
+        // Missing from memory (or reclaimed after being demoted under memory pressure) - reload it from disk if it's there
+        if ((diskKey != null) && ((element == null) || (element.getValue() == null))) {
+            element = this.disk.read(diskKey, this.class1);
+            if (element != null) {
+                this.cache.putInGroup(key, group, element);
+                if (tracked) {
+                    tenant().add(key, StravaCacheTenant.weigh(element.getValue()));
+                }
+            }
+        }
+        if (element == null) {
+            // An object of a class with a shared tier may be held as an overlay instead, under the same key
+            if (tracked && ((this.sharing == null) || !group.equals(groupName()))) {
+                tenant().remove(key);
+            }
+            return null;
+        }
+        final long age = element.age();
+        final T object = element.getValue();
+        if ((age >= HARD_TTL) || (object == null)) {
+            this.cache.removeFromGroup(key, group);
+            removeDisk(diskKey);
+            if (tracked) {
+                tenant().remove(key);
+            }
+            return null;
+        }
+        if (tracked) {
+            tenant().touch(key);
+        }
+        final StravaResourceState state = object.getResourceState();
+        if (!satisfies(state, minimumState)) {
+            return null;
+        }
+        final int hits = element.hit();
+        // Summaries are left to expire rather than refreshed, as the refresher would fetch (and pay for) the detailed representation
+        if ((SOFT_TTL > 0) && (state == StravaResourceState.DETAILED) && ((age >= SOFT_TTL) || ((hits >= StravaConfig.CACHE_REFRESH_AHEAD_HITS) && (age >= REFRESH_AHEAD_AGE)))) {
+            refresh(id, element);
+        }
+        return object;
+    }
+
+    /**
+     * <p>
+     * Reads an object from the tier shared by all tokens, with the token's own overlay of the fields which depend on who is looking
+     * </p>
+     *
+     * <p>
+     * Without an overlay, the shared copy only stands in for a summary representation (or for a detailed one of a class that has no such fields), as its viewer-specific fields have
+     * been cleared.
+     * </p>
+     *
+     * @param id           Identifier of the object
+     * @param key          Key of the object for the token
+     * @param minimumState Minimum resource state required
+     * @return The object, or <code>null</code> if it isn't held in at least the required state
+     */
+    private T readShared(final U id, final StravaCacheKey<U, T> key, final StravaResourceState minimumState) {
+        final StravaCacheKey<U, T> sharedKey = new StravaCacheKey<>(id, null, this.class1);
+        final T core = read(id, sharedKey, sharedGroupName(), diskKey(sharedKey), StravaResourceState.SUMMARY);
+        if (core == null) {
+            return null;
+        }
+        final T overlay = read(id, key, overlayGroupName(), overlayDiskKey(key), StravaResourceState.SUMMARY);
+        if (overlay != null) {
+            final T object = this.sharing.merge(core, overlay);
+            return (satisfies(object.getResourceState(), minimumState) ? object : null);
+        }
+        if (((minimumState == StravaResourceState.DETAILED) && this.sharing.hasViewerFields()) || !satisfies(core.getResourceState(), minimumState)) {
+            return null;
+        }
+        return this.sharing.copy(core);
+    }
+
+    /**
+     * <p>
+     * Starts a background reload of an object, unless one is already under way or there is no refresher
+     * </p>
+     *
+     * @param id      Identifier of the object
+     * @param element The cache element holding the object
+     */
+    private void refresh(final U id, final StravaCacheElement<T> element) {
+        final Function<U, T> reload = this.refresher;
+        if ((reload == null) || !element.startRefresh()) {
+            return;
+        }
+        StravaCacheRefreshExecutor.submit(() -> {
+            try {
+                final T object = reload.apply(id);
+                // Objects which have gone or become private are replaced by a negative result; anything else which isn't DETAILED (e.g. UPDATING) leaves the cached copy alone
+                if ((object == null) || (object.getResourceState() == StravaResourceState.PRIVATE)) {
+                    putNegative(id, object);
+                } else {
+                    put(object);
+                }
+            } catch (final RuntimeException e) {
+                log.debug("Background reload of " + this.class1.getSimpleName() + " " + id + " failed", e);
+            } finally {
+                element.endRefresh();
+            }
+        }, element::endRefresh);
+    }
+
+    @Override
+    public void remove(final U id) {
+        final StravaCacheKey<U, T> key = new StravaCacheKey<>(id, this.token, this.class1);
+        this.cache.removeFromGroup(key, groupName());
+        this.cache.removeFromGroup(key, overlayGroupName());
+        this.cache.removeFromGroup(key, negativeGroupName());
+        tenant().remove(key);
+        removeDisk(diskKey(key));
+        removeDisk(overlayDiskKey(key));
+        removeShared(id);
+        if (StravaFlightRecorder.AVAILABLE) {
+            StravaCacheEvent.emit("remove", this.class1, id, false);
+        }
     }
 
     @Override
     public void removeAll() {
         this.cache.invalidateGroup(groupName());
+        this.cache.invalidateGroup(overlayGroupName());
+        this.cache.invalidateGroup(negativeGroupName());
+        tenant().removeAll(this.class1);
+        if ((this.disk != null) && hasAthlete()) {
+            this.disk.removeAll(diskPrefix(false));
+        }
+        if (StravaFlightRecorder.AVAILABLE) {
+            StravaCacheEvent.emit("removeAll", this.class1, null, false);
+        }
+    }
+
+    /**
+     * @param id Identifier of the object to be removed from the tier shared by all tokens
+     */
+    private void removeShared(final U id) {
+        if (this.sharing != null) {
+            final StravaCacheKey<U, T> key = new StravaCacheKey<>(id, null, this.class1);
+            this.cache.removeFromGroup(key, sharedGroupName());
+            removeDisk(diskKey(key));
+        }
+    }
+
+    /**
+     * @param diskKey Key of an object to be removed from the disk tier, or <code>null</code> if it isn't kept on disk
+     */
+    private void removeDisk(final String diskKey) {
+        if (diskKey != null) {
+            this.disk.remove(diskKey);
+        }
+    }
+
+    /**
+     * @param id Identifier of an object of this cache's class, of unchecked type
+     */
+    @SuppressWarnings("unchecked")
+    private void removeKey(final Object id) {
+        remove((U) id);
+    }
+
+    @Override
+    public void setRefresher(final Function<U, T> refresher) {
+        this.refresher = refresher;
+    }
+
+    /**
+     * <p>
+     * Puts an object in one of the groups, unless that would replace a detailed object with a summary before the detailed one is due to be reloaded
+     * </p>
+     *
+     * @param key     Key of the object within the group
+     * @param group   Name of the group
+     * @param diskKey Key of the object in the disk tier, or <code>null</code> if it isn't to be kept on disk
+     * @param object  The object
+     * @return <code>true</code> if the object was stored
+     */
+    private boolean store(final StravaCacheKey<U, T> key, final String group, final String diskKey, final T object) {
+        if (object.getResourceState() == StravaResourceState.SUMMARY) {
+            final StravaCacheElement<T> existing = this.cache.getFromGroup(key, group);
+            final T current = (existing == null ? null : existing.getValue());
+            if ((current != null) && (current.getResourceState() == StravaResourceState.DETAILED) && (existing.age() < (SOFT_TTL > 0 ? SOFT_TTL : HARD_TTL))) {
+                return false;
+            }
+        }
+        final StravaCacheElement<T> element = new StravaCacheElement<>(object);
+        this.cache.putInGroup(key, group, element);
+        if (diskKey != null) {
+            this.disk.write(diskKey, object, element.created());
+        }
+        return true;
     }
 
     @Override
     public int size() {
-        return this.cache.getGroupKeys(groupName()).size();
+        return this.cache.getGroupKeys(groupName()).size() + this.cache.getGroupKeys(overlayGroupName()).size();
     }
 }
@@ -18,7 +18,8 @@ public class StravaCacheKey<T, U> {
 	 */
 	private T id;
 	/**
-	 * The Strava access token in use (caching is per-token, as otherwise permission issues and cross-account issues would arise)
+	 * The Strava access token in use (caching is per-token, as otherwise permission issues and cross-account issues would arise); keys are compared by its
+	 * {@link Token#getCacheKey() cache key}, which doesn't change when the token is refreshed
 	 */
 	private Token token;
 	/**
@@ -71,7 +72,7 @@ public class StravaCacheKey<T, U> {
 		}
 		if (this.token == null) {
             return other.token == null;
-		} else return this.token.equals(other.token);
+		} else return (other.token != null) && this.token.getCacheKey().equals(other.token.getCacheKey());
     }
 	/**
 	 * @return the class1
@@ -100,7 +101,7 @@ public class StravaCacheKey<T, U> {
 		int result = 1;
 		result = (prime * result) + ((this.class1 == null) ? 0 : this.class1.getName().hashCode());
 		result = (prime * result) + ((this.id == null) ? 0 : this.id.hashCode());
-		result = (prime * result) + ((this.token == null) ? 0 : this.token.hashCode());
+		result = (prime * result) + ((this.token == null) ? 0 : this.token.getCacheKey().hashCode());
 		return result;
 	}
 	/**
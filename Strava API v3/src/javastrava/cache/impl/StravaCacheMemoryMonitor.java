@@ -0,0 +1,71 @@
+package javastrava.cache.impl;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.NotificationEmitter;
+
+import javastrava.config.StravaConfig;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Shrinks the cache when the heap is under pressure, so that it gives way to the application rather than competing with it for memory
+ * </p>
+ *
+ * <p>
+ * A collection usage threshold of {@link StravaConfig#CACHE_ADAPTIVE_HIGH_WATERMARK_PERCENT} is set on each heap pool which supports one (in practice, the old generation) and doesn't
+ * already have one; a threshold set by the application is kept, and the cache shrinks whenever that one is exceeded. Each time a garbage collection leaves such a pool above its
+ * threshold, {@link StravaConfig#CACHE_ADAPTIVE_SHRINK_PERCENT} of the estimated weight of the cache is {@link StravaCacheTenant#relieve(int) released}. Collection usage is used rather than current usage so that garbage which is about to be collected anyway doesn't count.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+@Slf4j
+final class StravaCacheMemoryMonitor {
+	/**
+	 * Set once the monitor has been installed
+	 */
+	private static final AtomicBoolean STARTED = new AtomicBoolean();
+
+	/**
+	 * <p>
+	 * Installs the monitor, if {@link StravaConfig#CACHE_ADAPTIVE_ENABLED adaptive mode} is enabled and it isn't already installed
+	 * </p>
+	 */
+	static void start() {
+		if (!StravaConfig.CACHE_ADAPTIVE_ENABLED || !STARTED.compareAndSet(false, true)) {
+			return;
+		}
+		boolean watching = false;
+		for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			final long max = pool.getUsage().getMax();
+			if ((pool.getType() == MemoryType.HEAP) && pool.isCollectionUsageThresholdSupported() && (max > 0)) {
+				// A pool has only one threshold, so leave alone any that somebody else has set
+				if (pool.getCollectionUsageThreshold() == 0) {
+					pool.setCollectionUsageThreshold((max * StravaConfig.CACHE_ADAPTIVE_HIGH_WATERMARK_PERCENT) / 100);
+				}
+				watching = true;
+			}
+		}
+		if (!watching) {
+			log.info("No heap pool supports a collection usage threshold; the cache will not adapt to memory pressure");
+			return;
+		}
+		((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener((notification, handback) -> {
+			if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+				final int released = StravaCacheTenant.relieve(StravaConfig.CACHE_ADAPTIVE_SHRINK_PERCENT);
+				log.debug("Heap above " + StravaConfig.CACHE_ADAPTIVE_HIGH_WATERMARK_PERCENT + "% after garbage collection, released " + released + " cached objects");
+			}
+		}, null, null);
+	}
+
+	/**
+	 * No instances
+	 */
+	private StravaCacheMemoryMonitor() {
+	}
+}
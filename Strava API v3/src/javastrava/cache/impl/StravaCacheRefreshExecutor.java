@@ -0,0 +1,102 @@
+package javastrava.cache.impl;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javastrava.config.StravaConfig;
+import javastrava.service.Strava;
+
+/**
+ * <p>
+ * Runs background reloads of cached objects at low priority
+ * </p>
+ *
+ * <p>
+ * Reloads run on a small pool of minimum-priority daemon threads, and are only made while usage of both the 15 minute and daily rate limits is below
+ * {@link StravaConfig#CACHE_REFRESH_MAX_RATE_LIMIT_PERCENT}, so that they never compete with requests made on behalf of callers for the last of the rate limit. A reload which is refused is
+ * simply not made; the stale object continues to be returned until it reaches its hard TTL.
+ * </p>
+ *
+ * @author Dan Shannon
+ */
+final class StravaCacheRefreshExecutor {
+	/**
+	 * Maximum number of reloads waiting to run
+	 */
+	private static final int QUEUE_CAPACITY = 1000;
+
+	/**
+	 * The thread pool
+	 */
+	private static final ThreadPoolExecutor EXECUTOR;
+
+	static {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		final ThreadFactory threadFactory = runnable -> {
+			final Thread thread = new Thread(runnable, "javastrava-cache-refresh-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		};
+		final int threads = Math.max(1, StravaConfig.CACHE_REFRESH_THREADS);
+		EXECUTOR = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(QUEUE_CAPACITY), threadFactory);
+		EXECUTOR.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * @param used
+	 *            Requests used
+	 * @param limit
+	 *            Rate limit
+	 * @return Percentage of the limit used
+	 */
+	private static float percent(final int used, final int limit) {
+		return (limit == 0 ? 0 : (100 * (float) used) / limit);
+	}
+
+	/**
+	 * @return <code>true</code> if usage of both rate limits is low enough for background reloads to be made
+	 */
+	static boolean rateLimitAllows() {
+		final int max = StravaConfig.CACHE_REFRESH_MAX_RATE_LIMIT_PERCENT;
+		return (percent(Strava.REQUEST_RATE_CURRENT, Strava.RATE_LIMIT_CURRENT) < max) && (percent(Strava.REQUEST_RATE_DAILY, Strava.RATE_LIMIT_DAILY) < max);
+	}
+
+	/**
+	 * <p>
+	 * Queues a background reload, if the rate limit allows
+	 * </p>
+	 *
+	 * @param reload
+	 *            The reload
+	 * @param refused
+	 *            Run instead of the reload if it is refused, either now or because the rate limit no longer allows it by the time it comes to run
+	 */
+	static void submit(final Runnable reload, final Runnable refused) {
+		if (!rateLimitAllows()) {
+			refused.run();
+			return;
+		}
+		try {
+			EXECUTOR.execute(() -> {
+				if (rateLimitAllows()) {
+					reload.run();
+				} else {
+					refused.run();
+				}
+			});
+		} catch (final RejectedExecutionException e) {
+			refused.run();
+		}
+	}
+
+	/**
+	 * No instances
+	 */
+	private StravaCacheRefreshExecutor() {
+	}
+}
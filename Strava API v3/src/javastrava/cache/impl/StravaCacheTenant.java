@@ -0,0 +1,436 @@
+package javastrava.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.jcs.JCS;
+import org.apache.commons.jcs.access.GroupCacheAccess;
+
+import javastrava.auth.model.Token;
+import javastrava.cache.StravaCacheOccupancy;
+import javastrava.config.StravaConfig;
+
+/**
+ * <p>
+ * Keeps track of the objects cached for one token, so that each token can be held to its own budget
+ * </p>
+ *
+ * <p>
+ * All tokens share a single JCS region, so left to itself JCS would let one token with a large working set push everyone else's objects out. Instead, every object cached for a token is
+ * recorded here in least-recently-used order; once the token has more than {@link StravaConfig#CACHE_TOKEN_MAX_ENTRIES} objects (or, if set, more than
+ * {@link StravaConfig#CACHE_TOKEN_MAX_WEIGHT} of estimated weight) its own least recently used objects are evicted. If the cache as a whole reaches {@link StravaConfig#CACHE_MAX_ENTRIES},
+ * objects are evicted from whichever token currently has the most, so that a small token's working set is only ever evicted by its own activity. The tenants are kept ranked by number
+ * and by weight of objects as they change, so the largest and heaviest are found without looking at every tenant.
+ * </p>
+ *
+ * <p>
+ * Tenants are keyed by the token's {@link Token#getCacheKey() cache key}, which stays the same when the token is refreshed, so a token keeps its tenant (and its cached objects) across
+ * a refresh.
+ * </p>
+ *
+ * <p>
+ * When the heap is under pressure, {@link StravaCacheMemoryMonitor} asks for a share of the cache to be {@link #relieve(int) released}; the least recently used objects of the
+ * heaviest tokens are then either evicted or (if {@link StravaConfig#CACHE_ADAPTIVE_SOFT_REFERENCES} is set) demoted to soft references, which no longer count against any budget.
+ * </p>
+ *
+ * <p>
+ * Objects which JCS discards by itself (on expiry), or which the garbage collector reclaims, are forgotten the next time they are looked for. A token's tenant is dropped once
+ * {@link #removeAll(Class)} leaves it with nothing cached (as it does when the token is deauthorised and its services' caches are cleared), so tokens which are no longer used don't
+ * accumulate.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+final class StravaCacheTenant {
+	/**
+	 * <p>
+	 * A tenant's number or weight of objects at the time it was ranked; immutable, so that it can be a key of a sorted map while the tenant itself changes
+	 * </p>
+	 */
+	private static final class Rank implements Comparable<Rank> {
+		/**
+		 * Number or weight of objects
+		 */
+		final long value;
+
+		/**
+		 * Serial number of the tenant
+		 */
+		final long serial;
+
+		/**
+		 * @param value
+		 *            Number or weight of objects
+		 * @param serial
+		 *            Serial number of the tenant
+		 */
+		Rank(final long value, final long serial) {
+			this.value = value;
+			this.serial = serial;
+		}
+
+		@Override
+		public int compareTo(final Rank other) {
+			final int byValue = Long.compare(this.value, other.value);
+			return (byValue != 0 ? byValue : Long.compare(this.serial, other.serial));
+		}
+	}
+
+	/**
+	 * Tenants by the {@link Token#getCacheKey() cache key} of their token
+	 */
+	private static final ConcurrentMap<String, StravaCacheTenant> TENANTS = new ConcurrentHashMap<>();
+
+	/**
+	 * Tenants with anything cached, by number of objects cached
+	 */
+	private static final ConcurrentNavigableMap<Rank, StravaCacheTenant> BY_COUNT = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Tenants with anything cached, by weight of objects cached
+	 */
+	private static final ConcurrentNavigableMap<Rank, StravaCacheTenant> BY_WEIGHT = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Number of tenants created, used to tell apart tenants of the same rank
+	 */
+	private static final AtomicLong TENANT_COUNT = new AtomicLong();
+
+	/**
+	 * Number of objects cached across all tenants
+	 */
+	private static final AtomicLong TOTAL = new AtomicLong();
+
+	/**
+	 * Estimated weight of the objects cached across all tenants
+	 */
+	private static final AtomicLong TOTAL_WEIGHT = new AtomicLong();
+
+	/**
+	 * The (global) cache
+	 */
+	private static final GroupCacheAccess<StravaCacheKey<?, ?>, Object> CACHE = JCS.getGroupCacheInstance("default");
+
+	/**
+	 * Evicts from the token with the most objects until the cache as a whole is back within its budget
+	 */
+	private static void enforceGlobalBudget() {
+		while (TOTAL.get() > StravaConfig.CACHE_MAX_ENTRIES) {
+			final Map.Entry<Rank, StravaCacheTenant> largest = BY_COUNT.lastEntry();
+			if ((largest == null) || !largest.getValue().evictEldest(false)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @param token
+	 *            Access token
+	 * @return The tenant for the token
+	 */
+	static StravaCacheTenant forToken(final Token token) {
+		return forToken(token, token.getCacheKey());
+	}
+
+	/**
+	 * @param token
+	 *            The token
+	 * @param cacheKey
+	 *            The token's cache key, which the objects are cached under
+	 * @return The tenant for the token
+	 */
+	private static StravaCacheTenant forToken(final Token token, final String cacheKey) {
+		return TENANTS.computeIfAbsent(cacheKey, key -> new StravaCacheTenant(token, key));
+	}
+
+	/**
+	 * @return Occupancy of every token which has used the cache
+	 */
+	static List<StravaCacheOccupancy> occupancyOfAll() {
+		final List<StravaCacheOccupancy> occupancy = new ArrayList<>();
+		for (final StravaCacheTenant tenant : TENANTS.values()) {
+			occupancy.add(tenant.occupancy());
+		}
+		return occupancy;
+	}
+
+	/**
+	 * @param token
+	 *            Access token
+	 * @return Occupancy of the token, or <code>null</code> if it has not used the cache
+	 */
+	static StravaCacheOccupancy occupancyOf(final Token token) {
+		final StravaCacheTenant tenant = TENANTS.get(token.getCacheKey());
+		return (tenant == null ? null : tenant.occupancy());
+	}
+
+	/**
+	 * <p>
+	 * Releases a share of the cache, starting with the least recently used objects of whichever token has the greatest weight cached
+	 * </p>
+	 *
+	 * @param percent
+	 *            Percentage of the total weight to release
+	 * @return Number of objects released
+	 */
+	static int relieve(final int percent) {
+		final long target = TOTAL_WEIGHT.get() - ((TOTAL_WEIGHT.get() * percent) / 100);
+		int released = 0;
+		while (TOTAL_WEIGHT.get() > target) {
+			final Map.Entry<Rank, StravaCacheTenant> heaviest = BY_WEIGHT.lastEntry();
+			if ((heaviest == null) || !heaviest.getValue().evictEldest(StravaConfig.CACHE_ADAPTIVE_SOFT_REFERENCES)) {
+				break;
+			}
+			released++;
+		}
+		return released;
+	}
+
+	/**
+	 * @param object
+	 *            Object to be cached
+	 * @return Its estimated weight: the heap it takes up, in bytes, as {@link StravaCacheWeigher estimated} from its structure
+	 */
+	static long weigh(final Object object) {
+		return StravaCacheWeigher.weigh(object);
+	}
+
+	/**
+	 * The token
+	 */
+	private final Token token;
+
+	/**
+	 * The token's cache key, which the objects were cached under
+	 */
+	private final String cacheKey;
+
+	/**
+	 * Tells this tenant apart from others of the same rank
+	 */
+	private final long serial = TENANT_COUNT.incrementAndGet();
+
+	/**
+	 * The tenant's current place in {@link #BY_COUNT}, or <code>null</code> if it has nothing cached
+	 */
+	private Rank countRank;
+
+	/**
+	 * The tenant's current place in {@link #BY_WEIGHT}, or <code>null</code> if it has nothing cached
+	 */
+	private Rank weightRank;
+
+	/**
+	 * Weights of the cached objects, least recently used first
+	 */
+	private final LinkedHashMap<StravaCacheKey<?, ?>, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Number of cached objects (also readable without holding the lock)
+	 */
+	private volatile int count;
+
+	/**
+	 * Total weight of the cached objects (also readable without holding the lock)
+	 */
+	private volatile long weight;
+
+	/**
+	 * Number of objects evicted
+	 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Set once the tenant has been dropped; anything added to it after that goes to the token's new tenant
+	 */
+	private boolean retired;
+
+	/**
+	 * @param token
+	 *            The token
+	 * @param cacheKey
+	 *            The token's cache key, which the objects are cached under
+	 */
+	private StravaCacheTenant(final Token token, final String cacheKey) {
+		this.token = token;
+		this.cacheKey = cacheKey;
+	}
+
+	/**
+	 * <p>
+	 * Records that an object has been cached, and evicts the token's least recently used objects if it is now over budget
+	 * </p>
+	 *
+	 * @param key
+	 *            Key of the object
+	 * @param objectWeight
+	 *            Estimated weight of the object
+	 */
+	void add(final StravaCacheKey<?, ?> key, final long objectWeight) {
+		synchronized (this) {
+			if (this.retired) {
+				// Looked up just before it was dropped
+				forToken(this.token, this.cacheKey).add(key, objectWeight);
+				return;
+			}
+			final Long previous = this.entries.put(key, Long.valueOf(objectWeight));
+			if (previous == null) {
+				TOTAL.incrementAndGet();
+			} else {
+				this.weight -= previous.longValue();
+				TOTAL_WEIGHT.addAndGet(-previous.longValue());
+			}
+			this.weight += objectWeight;
+			TOTAL_WEIGHT.addAndGet(objectWeight);
+			this.count = this.entries.size();
+			while ((this.count > 1) && overBudget()) {
+				evictEldest(false);
+			}
+			rerank();
+		}
+		enforceGlobalBudget();
+	}
+
+	/**
+	 * <p>
+	 * Evicts the least recently used object, or demotes it to a soft reference
+	 * </p>
+	 *
+	 * @param demote
+	 *            If <code>true</code>, the object is left in the cache but demoted to a soft reference (and no longer counted against the budget) rather than evicted
+	 * @return <code>false</code> if there was nothing to evict
+	 */
+	private synchronized boolean evictEldest(final boolean demote) {
+		final Iterator<Map.Entry<StravaCacheKey<?, ?>, Long>> iterator = this.entries.entrySet().iterator();
+		if (!iterator.hasNext()) {
+			return false;
+		}
+		final Map.Entry<StravaCacheKey<?, ?>, Long> eldest = iterator.next();
+		iterator.remove();
+		forget(eldest.getValue());
+		// The object is held in the token's own group, or as an overlay of a shared object
+		for (final String group : new String[] { StravaCacheImpl.groupName(eldest.getKey().getClass1(), this.cacheKey),
+				StravaCacheImpl.overlayGroupName(eldest.getKey().getClass1(), this.cacheKey) }) {
+			final Object element = (demote ? CACHE.getFromGroup(eldest.getKey(), group) : null);
+			if (element instanceof StravaCacheElement) {
+				((StravaCacheElement<?>) element).demote();
+			} else {
+				CACHE.removeFromGroup(eldest.getKey(), group);
+			}
+		}
+		this.evictions.increment();
+		rerank();
+		return true;
+	}
+
+	/**
+	 * @param removedWeight
+	 *            Weight of an object which is no longer cached
+	 */
+	private void forget(final Long removedWeight) {
+		this.weight -= removedWeight.longValue();
+		TOTAL_WEIGHT.addAndGet(-removedWeight.longValue());
+		this.count = this.entries.size();
+		TOTAL.decrementAndGet();
+	}
+
+	/**
+	 * @return Current occupancy
+	 */
+	synchronized StravaCacheOccupancy occupancy() {
+		final Integer athleteId = (this.token.getAthlete() == null ? null : this.token.getAthlete().getId());
+		return new StravaCacheOccupancy(athleteId, this.count, this.weight, StravaConfig.CACHE_TOKEN_MAX_ENTRIES, StravaConfig.CACHE_TOKEN_MAX_WEIGHT, this.evictions.sum());
+	}
+
+	/**
+	 * @return <code>true</code> if the token has more cached than its budget allows
+	 */
+	private boolean overBudget() {
+		return (this.count > StravaConfig.CACHE_TOKEN_MAX_ENTRIES) || ((StravaConfig.CACHE_TOKEN_MAX_WEIGHT > 0) && (this.weight > StravaConfig.CACHE_TOKEN_MAX_WEIGHT));
+	}
+
+	/**
+	 * <p>
+	 * Records that an object is no longer cached
+	 * </p>
+	 *
+	 * @param key
+	 *            Key of the object
+	 */
+	synchronized void remove(final StravaCacheKey<?, ?> key) {
+		final Long removed = this.entries.remove(key);
+		if (removed != null) {
+			forget(removed);
+			rerank();
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records that all objects of a class are no longer cached, and drops the tenant if the token now has nothing cached
+	 * </p>
+	 *
+	 * @param class1
+	 *            The class
+	 */
+	synchronized void removeAll(final Class<?> class1) {
+		final Iterator<Map.Entry<StravaCacheKey<?, ?>, Long>> iterator = this.entries.entrySet().iterator();
+		while (iterator.hasNext()) {
+			final Map.Entry<StravaCacheKey<?, ?>, Long> entry = iterator.next();
+			if (entry.getKey().getClass1() == class1) {
+				iterator.remove();
+				forget(entry.getValue());
+			}
+		}
+		if (this.entries.isEmpty() && !this.retired) {
+			this.retired = true;
+			TENANTS.remove(this.cacheKey, this);
+		}
+		rerank();
+	}
+
+	/**
+	 * <p>
+	 * Moves the tenant to its place in {@link #BY_COUNT} and {@link #BY_WEIGHT} after its count or weight has changed, or takes it out of them if it has nothing cached
+	 * </p>
+	 */
+	private void rerank() {
+		if ((this.countRank != null) && (this.countRank.value == this.count) && (this.weightRank.value == this.weight)) {
+			return;
+		}
+		if (this.countRank != null) {
+			BY_COUNT.remove(this.countRank);
+			BY_WEIGHT.remove(this.weightRank);
+			this.countRank = null;
+			this.weightRank = null;
+		}
+		if (this.count > 0) {
+			this.countRank = new Rank(this.count, this.serial);
+			this.weightRank = new Rank(this.weight, this.serial);
+			BY_COUNT.put(this.countRank, this);
+			BY_WEIGHT.put(this.weightRank, this);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records a read of an object, making it the most recently used
+	 * </p>
+	 *
+	 * @param key
+	 *            Key of the object
+	 */
+	synchronized void touch(final StravaCacheKey<?, ?> key) {
+		this.entries.get(key);
+	}
+}
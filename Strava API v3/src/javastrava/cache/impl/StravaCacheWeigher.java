@@ -0,0 +1,166 @@
+package javastrava.cache.impl;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * Estimates how much heap a cached object takes up, in bytes, by walking its fields rather than serialising it
+ * </p>
+ *
+ * <p>
+ * The estimate uses typical 64-bit JVM sizes (a 16 byte object header and 8 bytes a field), and counts strings, collections, maps and arrays by their length. It is meant for comparing
+ * objects and tokens with each other, not for exact accounting: objects of classes outside the model count as a fixed size, enum constants as nothing (they are shared), and the walk stops
+ * after {@link #MAXIMUM_DEPTH} levels so that a cycle can't make it run forever. The fields of each model class are looked up once and then reused.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+final class StravaCacheWeigher {
+	/**
+	 * Size of an object header, in bytes
+	 */
+	private static final int HEADER = 16;
+
+	/**
+	 * Size of a field or reference, in bytes
+	 */
+	private static final int SLOT = 8;
+
+	/**
+	 * Size counted for an object of a class outside the model (a date, for example), in bytes
+	 */
+	private static final int OPAQUE = 24;
+
+	/**
+	 * Deepest level of nested objects counted
+	 */
+	private static final int MAXIMUM_DEPTH = 12;
+
+	/**
+	 * Package whose classes are walked field by field
+	 */
+	private static final String MODEL_PACKAGE = "javastrava."; //$NON-NLS-1$
+
+	/**
+	 * Instance fields of each model class walked so far, including inherited ones
+	 */
+	private static final Map<Class<?>, Field[]> FIELDS = new ConcurrentHashMap<>();
+
+	/**
+	 * @param object
+	 *            An object
+	 * @return Its estimated size on the heap, in bytes; at least 1
+	 */
+	static long weigh(final Object object) {
+		return Math.max(1, weigh(object, 0));
+	}
+
+	/**
+	 * @param class1
+	 *            A model class
+	 * @return Its instance fields, including inherited ones
+	 */
+	private static Field[] fields(final Class<?> class1) {
+		return FIELDS.computeIfAbsent(class1, c -> {
+			final List<Field> fields = new ArrayList<>();
+			for (Class<?> declaring = c; (declaring != null) && (declaring != Object.class); declaring = declaring.getSuperclass()) {
+				for (final Field field : declaring.getDeclaredFields()) {
+					if (!Modifier.isStatic(field.getModifiers())) {
+						field.setAccessible(true);
+						fields.add(field);
+					}
+				}
+			}
+			return fields.toArray(new Field[fields.size()]);
+		});
+	}
+
+	/**
+	 * @param type
+	 *            A primitive type
+	 * @return Its size, in bytes
+	 */
+	private static int primitiveSize(final Class<?> type) {
+		if ((type == long.class) || (type == double.class)) {
+			return 8;
+		}
+		if ((type == byte.class) || (type == boolean.class)) {
+			return 1;
+		}
+		return ((type == short.class) || (type == char.class) ? 2 : 4);
+	}
+
+	/**
+	 * @param object
+	 *            An object, or <code>null</code>
+	 * @param depth
+	 *            How deeply nested it is
+	 * @return Its estimated size, in bytes, not counting the reference to it
+	 */
+	private static long weigh(final Object object, final int depth) {
+		if ((object == null) || (object instanceof Enum) || (depth > MAXIMUM_DEPTH)) {
+			return 0;
+		}
+		if (object instanceof String) {
+			return HEADER + SLOT + HEADER + (2L * ((String) object).length());
+		}
+		if ((object instanceof Number) || (object instanceof Boolean) || (object instanceof Character)) {
+			return HEADER;
+		}
+		if (object instanceof Collection) {
+			long weight = HEADER + SLOT + (SLOT * (long) ((Collection<?>) object).size());
+			for (final Object element : (Collection<?>) object) {
+				weight += weigh(element, depth + 1);
+			}
+			return weight;
+		}
+		if (object instanceof Map) {
+			long weight = HEADER + (4L * SLOT * ((Map<?, ?>) object).size());
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) object).entrySet()) {
+				weight += weigh(entry.getKey(), depth + 1) + weigh(entry.getValue(), depth + 1);
+			}
+			return weight;
+		}
+		final Class<?> class1 = object.getClass();
+		if (class1.isArray()) {
+			final int length = Array.getLength(object);
+			if (class1.getComponentType().isPrimitive()) {
+				return HEADER + ((long) length * primitiveSize(class1.getComponentType()));
+			}
+			long weight = HEADER + ((long) SLOT * length);
+			for (int i = 0; i < length; i++) {
+				weight += weigh(Array.get(object, i), depth + 1);
+			}
+			return weight;
+		}
+		if (!class1.getName().startsWith(MODEL_PACKAGE)) {
+			return OPAQUE;
+		}
+		final Field[] fields = fields(class1);
+		long weight = HEADER + ((long) SLOT * fields.length);
+		for (final Field field : fields) {
+			if (!field.getType().isPrimitive()) {
+				try {
+					weight += weigh(field.get(object), depth + 1);
+				} catch (final IllegalAccessException e) {
+					// Made accessible when looked up, so can't happen; count it as empty
+				}
+			}
+		}
+		return weight;
+	}
+
+	/**
+	 * No instances
+	 */
+	private StravaCacheWeigher() {
+	}
+}
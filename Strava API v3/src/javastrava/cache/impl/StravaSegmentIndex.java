@@ -0,0 +1,660 @@
+package javastrava.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javastrava.config.StravaConfig;
+import javastrava.model.StravaMapPoint;
+import javastrava.model.StravaSegment;
+import javastrava.model.StravaSegmentExplorerResponse;
+import javastrava.model.StravaSegmentExplorerResponseSegment;
+import javastrava.model.reference.StravaClimbCategory;
+import javastrava.model.reference.StravaResourceState;
+import javastrava.model.reference.StravaSegmentActivityType;
+import javastrava.model.reference.StravaSegmentExplorerActivityType;
+import javastrava.util.StravaGeoKernels;
+import javastrava.util.StravaPolylineUtils;
+
+/**
+ * <p>
+ * Spatial index of every public segment seen, whether from {@link javastrava.service.SegmentService#segmentExplore(StravaMapPoint, StravaMapPoint, StravaSegmentExplorerActivityType,
+ * StravaClimbCategory, StravaClimbCategory) segment explorer} results or from segments fetched or listed, which answers explore and nearest-segment queries without calling the API
+ * </p>
+ *
+ * <p>
+ * The world is divided into a grid of cells {@link StravaConfig#SEGMENT_INDEX_CELLS_PER_DEGREE} to a degree. Each segment is indexed under every cell its bounding box (from its
+ * polyline, or failing that its start and end points) overlaps. When the API is asked to explore an area and returns fewer than {@link #EXPLORE_LIMIT} segments, the cells lying wholly
+ * inside it are recorded as crawled for that activity type;
+ * later explores of an area made up entirely of cells crawled within {@link StravaConfig#SEGMENT_INDEX_TTL_SECONDS} are answered from the index. Explores filtered by climb category
+ * don't mark cells as crawled, since they don't return every segment, but can be answered from cells crawled without a filter.
+ * </p>
+ *
+ * <p>
+ * Segments are public data and look the same to every athlete, so there is one index shared by all tokens. Private segments are never indexed.
+ * </p>
+ *
+ * <p>
+ * Segments indexed more than {@link StravaConfig#SEGMENT_INDEX_TTL_SECONDS} ago are dropped, and once more than {@link StravaConfig#SEGMENT_INDEX_MAX_ENTRIES} are indexed the
+ * least recently indexed are dropped too; the cells a dropped segment overlaps are no longer counted as crawled. Nothing is indexed if {@link StravaConfig#SEGMENT_INDEX_ENABLED} is
+ * off.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSegmentIndex {
+	/**
+	 * A segment and its bounding box
+	 */
+	private static final class Entry {
+		/**
+		 * The segment, as the segment explorer would return it
+		 */
+		final StravaSegmentExplorerResponseSegment	segment;
+
+		/**
+		 * South-west latitude and longitude and north-east latitude and longitude
+		 */
+		final float[]								box;
+
+		/**
+		 * Activity types the segment has been explored for, or is for; never changed, as a new entry replaces this one when another is added
+		 */
+		final Set<StravaSegmentExplorerActivityType>	activityTypes;
+
+		/**
+		 * Time at which the segment was indexed
+		 */
+		final long										indexed;
+
+		/**
+		 * @param segment
+		 *            The segment
+		 * @param box
+		 *            Its bounding box
+		 * @param activityTypes
+		 *            Activity types the segment has been explored for, or is for
+		 */
+		Entry(final StravaSegmentExplorerResponseSegment segment, final float[] box, final Set<StravaSegmentExplorerActivityType> activityTypes) {
+			this.segment = segment;
+			this.box = box;
+			this.activityTypes = Collections.unmodifiableSet(activityTypes);
+			this.indexed = System.currentTimeMillis();
+		}
+	}
+
+	/**
+	 * Most segments the segment explorer returns; an area which returns this many may have more
+	 */
+	public static final int EXPLORE_LIMIT = 10;
+
+	/**
+	 * Indexed segments, by id
+	 */
+	private static final Map<Integer, Entry> ENTRIES = new ConcurrentHashMap<>();
+
+	/**
+	 * Ids of the segments overlapping each cell
+	 */
+	private static final Map<Long, Set<Integer>> CELLS = new ConcurrentHashMap<>();
+
+	/**
+	 * Time at which each cell was last crawled, by activity type
+	 */
+	private static final Map<StravaSegmentExplorerActivityType, Map<Long, Long>> CRAWLED = new ConcurrentHashMap<>();
+
+	/**
+	 * Cells to a degree
+	 */
+	private static final int CELLS_PER_DEGREE = StravaConfig.SEGMENT_INDEX_CELLS_PER_DEGREE;
+
+	/**
+	 * Time for which a crawled cell answers explore queries, in milliseconds
+	 */
+	private static final long TTL = TimeUnit.SECONDS.toMillis(StravaConfig.SEGMENT_INDEX_TTL_SECONDS);
+
+	/**
+	 * Time of the last sweep for segments and crawled cells to drop
+	 */
+	private static final AtomicLong LAST_SWEEP = new AtomicLong(System.currentTimeMillis());
+
+	/**
+	 * Held while sweeping
+	 */
+	private static final ReentrantLock SWEEP = new ReentrantLock();
+
+	/**
+	 * <p>
+	 * Indexes a segment
+	 * </p>
+	 *
+	 * @param segment
+	 *            A segment; ignored if it is private or doesn't say where it is
+	 */
+	public static void add(final StravaSegment segment) {
+		if (!StravaConfig.SEGMENT_INDEX_ENABLED || (segment == null) || (segment.getId() == null) || (segment.getStartLatlng() == null) || (segment.getEndLatlng() == null)
+				|| Boolean.TRUE.equals(segment.getPrivateSegment()) || (segment.getResourceState() == StravaResourceState.PRIVATE)) {
+			return;
+		}
+		final StravaSegmentExplorerResponseSegment explored = new StravaSegmentExplorerResponseSegment();
+		explored.setId(segment.getId());
+		explored.setName(segment.getName());
+		explored.setClimbCategory(segment.getClimbCategory());
+		if (segment.getClimbCategory() != null) {
+			explored.setClimbCategoryDesc(segment.getClimbCategory().getDescription());
+		}
+		explored.setAvgGrade(segment.getAverageGrade());
+		explored.setStartLatlng(segment.getStartLatlng());
+		explored.setEndLatlng(segment.getEndLatlng());
+		if ((segment.getElevationHigh() != null) && (segment.getElevationLow() != null)) {
+			explored.setElevDifference(Float.valueOf(segment.getElevationHigh().floatValue() - segment.getElevationLow().floatValue()));
+		}
+		explored.setDistance(segment.getDistance());
+		if (segment.getMap() != null) {
+			explored.setPoints(segment.getMap().getPolyline() != null ? segment.getMap().getPolyline() : segment.getMap().getSummaryPolyline());
+		}
+		explored.setResourceState(StravaResourceState.SUMMARY);
+
+		final Entry existing = ENTRIES.get(segment.getId());
+		if ((existing != null) && (explored.getPoints() == null)) {
+			// Keep the polyline from the explorer
+			explored.setPoints(existing.segment.getPoints());
+		}
+		add(explored, activityType(segment.getActivityType()));
+	}
+
+	/**
+	 * <p>
+	 * Indexes segments
+	 * </p>
+	 *
+	 * @param segments
+	 *            Segments; private segments are ignored
+	 */
+	public static void addAll(final List<StravaSegment> segments) {
+		if (!StravaConfig.SEGMENT_INDEX_ENABLED || (segments == null)) {
+			return;
+		}
+		for (final StravaSegment segment : segments) {
+			add(segment);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Records the result of exploring an area with the API: indexes the segments returned and, if the explore wasn't filtered by climb category and returned fewer than
+	 * {@link #EXPLORE_LIMIT} segments (so none were left out), marks the cells wholly inside the area as crawled
+	 * </p>
+	 *
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @param activityType
+	 *            Activity type explored for (<code>null</code> is riding)
+	 * @param minCat
+	 *            Minimum climb category filter, or <code>null</code>
+	 * @param maxCat
+	 *            Maximum climb category filter, or <code>null</code>
+	 * @param response
+	 *            Response from the API
+	 */
+	public static void explored(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner, final StravaSegmentExplorerActivityType activityType,
+			final StravaClimbCategory minCat, final StravaClimbCategory maxCat, final StravaSegmentExplorerResponse response) {
+		if (!StravaConfig.SEGMENT_INDEX_ENABLED) {
+			return;
+		}
+		final StravaSegmentExplorerActivityType type = normalise(activityType);
+		if ((response != null) && (response.getSegments() != null)) {
+			for (final StravaSegmentExplorerResponseSegment segment : response.getSegments()) {
+				add(segment, type);
+			}
+		}
+		if ((minCat != null) || (maxCat != null) || (southwestCorner == null) || (northeastCorner == null) || (response == null) || (response.getSegments() == null)
+				|| (response.getSegments().size() >= EXPLORE_LIMIT)) {
+			return;
+		}
+		markCrawled(southwestCorner, northeastCorner, type);
+	}
+
+	/**
+	 * <p>
+	 * Answers an explore query from the index, if every cell it touches has been crawled recently enough
+	 * </p>
+	 *
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @param activityType
+	 *            Activity type to explore for (<code>null</code> is riding)
+	 * @param minCat
+	 *            Minimum climb category, or <code>null</code>
+	 * @param maxCat
+	 *            Maximum climb category, or <code>null</code>
+	 * @return The segments in the area, or <code>null</code> if the area hasn't been crawled (or was crawled too long ago) and the API must be asked
+	 */
+	public static StravaSegmentExplorerResponse explore(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner,
+			final StravaSegmentExplorerActivityType activityType, final StravaClimbCategory minCat, final StravaClimbCategory maxCat) {
+		if (!StravaConfig.SEGMENT_INDEX_ENABLED || (southwestCorner == null) || (northeastCorner == null)) {
+			return null;
+		}
+		final StravaSegmentExplorerActivityType type = normalise(activityType);
+		if (!isCrawled(southwestCorner, northeastCorner, type)) {
+			return null;
+		}
+		final List<StravaSegmentExplorerResponseSegment> segments = new ArrayList<>();
+		for (final StravaSegmentExplorerResponseSegment segment : segments(southwestCorner, northeastCorner)) {
+			final Entry entry = ENTRIES.get(segment.getId());
+			if ((entry != null) && entry.activityTypes.contains(type) && inCategories(segment.getClimbCategory(), minCat, maxCat)) {
+				segments.add(segment);
+			}
+		}
+		final StravaSegmentExplorerResponse response = new StravaSegmentExplorerResponse();
+		response.setSegments(segments);
+		return response;
+	}
+
+	/**
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @param activityType
+	 *            Activity type (<code>null</code> is riding)
+	 * @return <code>true</code> if every cell the area touches was crawled within {@link StravaConfig#SEGMENT_INDEX_TTL_SECONDS}
+	 */
+	public static boolean isCrawled(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner, final StravaSegmentExplorerActivityType activityType) {
+		final Map<Long, Long> crawled = CRAWLED.get(normalise(activityType));
+		if (crawled == null) {
+			return false;
+		}
+		final long stale = System.currentTimeMillis() - TTL;
+		final int[] cells = cells(southwestCorner.getLatitude().floatValue(), southwestCorner.getLongitude().floatValue(), northeastCorner.getLatitude().floatValue(),
+				northeastCorner.getLongitude().floatValue());
+		for (int row = cells[0]; row <= cells[2]; row++) {
+			for (int column = cells[1]; column <= cells[3]; column++) {
+				final Long time = crawled.get(Long.valueOf(cell(row, column)));
+				if ((time == null) || (time.longValue() < stale)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Marks the cells wholly inside an area as crawled, when every segment in the area is known to have been indexed (for example once a crawl of the area has subdivided it into tiles
+	 * small enough that none returned {@link #EXPLORE_LIMIT} segments)
+	 * </p>
+	 *
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @param activityType
+	 *            Activity type (<code>null</code> is riding)
+	 */
+	public static void markCrawled(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner, final StravaSegmentExplorerActivityType activityType) {
+		markCrawled(southwestCorner, northeastCorner, activityType, new ArrayList<>());
+	}
+
+	/**
+	 * <p>
+	 * Marks the cells wholly inside an area as crawled, except those touching parts of the area which may still hold segments that haven't been indexed (for example tiles which returned
+	 * {@link #EXPLORE_LIMIT} segments but were too small to split)
+	 * </p>
+	 *
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @param activityType
+	 *            Activity type (<code>null</code> is riding)
+	 * @param incomplete
+	 *            Parts of the area not seen in full, each as its south-west and north-east corners
+	 */
+	public static void markCrawled(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner, final StravaSegmentExplorerActivityType activityType,
+			final List<StravaMapPoint[]> incomplete) {
+		if (!StravaConfig.SEGMENT_INDEX_ENABLED) {
+			return;
+		}
+		final Set<Long> excluded = new HashSet<>();
+		for (final StravaMapPoint[] part : incomplete) {
+			final int[] cells = cells(part[0].getLatitude().floatValue(), part[0].getLongitude().floatValue(), part[1].getLatitude().floatValue(), part[1].getLongitude().floatValue());
+			for (int row = cells[0]; row <= cells[2]; row++) {
+				for (int column = cells[1]; column <= cells[3]; column++) {
+					excluded.add(Long.valueOf(cell(row, column)));
+				}
+			}
+		}
+		final long now = System.currentTimeMillis();
+		final Map<Long, Long> crawled = CRAWLED.computeIfAbsent(normalise(activityType), t -> new ConcurrentHashMap<>());
+		// Only cells entirely inside the area have been seen in full
+		final int south = (int) Math.ceil(southwestCorner.getLatitude().floatValue() * CELLS_PER_DEGREE);
+		final int west = (int) Math.ceil(southwestCorner.getLongitude().floatValue() * CELLS_PER_DEGREE);
+		final int north = (int) Math.floor(northeastCorner.getLatitude().floatValue() * CELLS_PER_DEGREE) - 1;
+		final int east = (int) Math.floor(northeastCorner.getLongitude().floatValue() * CELLS_PER_DEGREE) - 1;
+		for (int row = south; row <= north; row++) {
+			for (int column = west; column <= east; column++) {
+				final Long cell = Long.valueOf(cell(row, column));
+				if (!excluded.contains(cell)) {
+					crawled.put(cell, Long.valueOf(now));
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Finds the indexed segments starting closest to a point, searching outwards from its cell ring by ring
+	 * </p>
+	 *
+	 * @param point
+	 *            The point
+	 * @param count
+	 *            Maximum number of segments to return
+	 * @param maximumDistance
+	 *            Furthest a segment may start from the point, in metres
+	 * @return The segments, nearest first
+	 */
+	public static List<StravaSegmentExplorerResponseSegment> nearest(final StravaMapPoint point, final int count, final double maximumDistance) {
+		final double latitude = point.getLatitude().doubleValue();
+		final double longitude = point.getLongitude().doubleValue();
+		final int row = (int) Math.floor(latitude * CELLS_PER_DEGREE);
+		final int column = (int) Math.floor(longitude * CELLS_PER_DEGREE);
+		// Each ring of cells searched adds at least the width of a cell (narrower than its height away from the equator) to the distance already covered
+		final double cellSize = (StravaGeoKernels.EARTH_RADIUS * Math.PI) / (180.0 * CELLS_PER_DEGREE) * Math.cos(Math.toRadians(Math.min(Math.abs(latitude), 85)));
+		final List<StravaSegmentExplorerResponseSegment> found = new ArrayList<>();
+		final List<Double> distances = new ArrayList<>();
+		final Set<Integer> seen = new HashSet<>();
+		for (int ring = 0; ((ring - 1) * cellSize) <= maximumDistance; ring++) {
+			// Everything within (ring - 1) cells has been seen, so stop once enough segments are nearer than that
+			if ((found.size() >= count) && (distances.get(count - 1).doubleValue() <= ((ring - 1) * cellSize))) {
+				break;
+			}
+			for (int r = row - ring; r <= row + ring; r++) {
+				for (int c = column - ring; c <= column + ring; c++) {
+					if ((Math.abs(r - row) != ring) && (Math.abs(c - column) != ring)) {
+						continue;
+					}
+					final Set<Integer> ids = CELLS.get(Long.valueOf(cell(r, c)));
+					if (ids == null) {
+						continue;
+					}
+					for (final Integer id : ids) {
+						final Entry entry = ENTRIES.get(id);
+						if ((entry == null) || !seen.add(id)) {
+							continue;
+						}
+						final StravaMapPoint start = entry.segment.getStartLatlng();
+						final double distance = StravaGeoKernels.haversine(latitude, longitude, start.getLatitude().doubleValue(), start.getLongitude().doubleValue());
+						if (distance > maximumDistance) {
+							continue;
+						}
+						int position = 0;
+						while ((position < distances.size()) && (distances.get(position).doubleValue() <= distance)) {
+							position++;
+						}
+						if (position < count) {
+							distances.add(position, Double.valueOf(distance));
+							found.add(position, entry.segment);
+							if (found.size() > count) {
+								distances.remove(count);
+								found.remove(count);
+							}
+						}
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * <p>
+	 * Finds the indexed segments whose bounding box overlaps an area, whether or not the area has been crawled
+	 * </p>
+	 *
+	 * @param southwestCorner
+	 *            South-west corner of the area
+	 * @param northeastCorner
+	 *            North-east corner of the area
+	 * @return The segments
+	 */
+	public static List<StravaSegmentExplorerResponseSegment> segments(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner) {
+		final float south = southwestCorner.getLatitude().floatValue();
+		final float west = southwestCorner.getLongitude().floatValue();
+		final float north = northeastCorner.getLatitude().floatValue();
+		final float east = northeastCorner.getLongitude().floatValue();
+		final int[] cells = cells(south, west, north, east);
+		final Set<Integer> seen = new HashSet<>();
+		final List<StravaSegmentExplorerResponseSegment> segments = new ArrayList<>();
+		for (int row = cells[0]; row <= cells[2]; row++) {
+			for (int column = cells[1]; column <= cells[3]; column++) {
+				final Set<Integer> ids = CELLS.get(Long.valueOf(cell(row, column)));
+				if (ids == null) {
+					continue;
+				}
+				for (final Integer id : ids) {
+					final Entry entry = ENTRIES.get(id);
+					if ((entry != null) && seen.add(id) && (entry.box[0] <= north) && (entry.box[2] >= south) && (entry.box[1] <= east) && (entry.box[3] >= west)) {
+						segments.add(entry.segment);
+					}
+				}
+			}
+		}
+		return segments;
+	}
+
+	/**
+	 * @return Number of segments indexed
+	 */
+	public static int size() {
+		return ENTRIES.size();
+	}
+
+	/**
+	 * @param segment
+	 *            Segment to index
+	 * @param activityType
+	 *            Activity type it is for, or <code>null</code> if not known
+	 */
+	private static void add(final StravaSegmentExplorerResponseSegment segment, final StravaSegmentExplorerActivityType activityType) {
+		if ((segment == null) || (segment.getId() == null) || (segment.getStartLatlng() == null) || (segment.getEndLatlng() == null)) {
+			return;
+		}
+		final float[] box = new float[4];
+		if (!StravaPolylineUtils.boundingBox(segment.getPoints(), box)) {
+			final StravaMapPoint start = segment.getStartLatlng();
+			final StravaMapPoint end = segment.getEndLatlng();
+			box[0] = Math.min(start.getLatitude().floatValue(), end.getLatitude().floatValue());
+			box[1] = Math.min(start.getLongitude().floatValue(), end.getLongitude().floatValue());
+			box[2] = Math.max(start.getLatitude().floatValue(), end.getLatitude().floatValue());
+			box[3] = Math.max(start.getLongitude().floatValue(), end.getLongitude().floatValue());
+		}
+		// Replace the entry (rather than change it) while holding the map's lock for the id, so that readers see the old or the new and concurrent adds don't lose activity types
+		ENTRIES.compute(segment.getId(), (id, previous) -> {
+			final Set<StravaSegmentExplorerActivityType> activityTypes = EnumSet.noneOf(StravaSegmentExplorerActivityType.class);
+			if (previous != null) {
+				activityTypes.addAll(previous.activityTypes);
+				removeFromCells(id, previous.box);
+			}
+			if ((activityType != null) && (activityType != StravaSegmentExplorerActivityType.UNKNOWN)) {
+				activityTypes.add(activityType);
+			}
+			final int[] cells = cells(box[0], box[1], box[2], box[3]);
+			for (int row = cells[0]; row <= cells[2]; row++) {
+				for (int column = cells[1]; column <= cells[3]; column++) {
+					CELLS.compute(Long.valueOf(cell(row, column)), (c, ids) -> {
+						final Set<Integer> updated = (ids == null ? ConcurrentHashMap.newKeySet() : ids);
+						updated.add(id);
+						return updated;
+					});
+				}
+			}
+			return new Entry(segment, box, activityTypes);
+		});
+		sweep();
+	}
+
+	/**
+	 * @param segmentActivityType
+	 *            Activity type of a segment
+	 * @return The equivalent segment explorer activity type, or <code>null</code> if there is none
+	 */
+	private static StravaSegmentExplorerActivityType activityType(final StravaSegmentActivityType segmentActivityType) {
+		if (segmentActivityType == StravaSegmentActivityType.RIDE) {
+			return StravaSegmentExplorerActivityType.RIDING;
+		}
+		if ((segmentActivityType == StravaSegmentActivityType.RUN) || (segmentActivityType == StravaSegmentActivityType.WALK)) {
+			return StravaSegmentExplorerActivityType.RUNNING;
+		}
+		return null;
+	}
+
+	/**
+	 * @param row
+	 *            Row of the grid
+	 * @param column
+	 *            Column of the grid
+	 * @return Key of the cell
+	 */
+	private static long cell(final int row, final int column) {
+		return ((long) row << 32) | (column & 0xffffffffL);
+	}
+
+	/**
+	 * @param south
+	 *            South edge, in degrees
+	 * @param west
+	 *            West edge, in degrees
+	 * @param north
+	 *            North edge, in degrees
+	 * @param east
+	 *            East edge, in degrees
+	 * @return First row and column and last row and column of the cells the area touches
+	 */
+	private static int[] cells(final float south, final float west, final float north, final float east) {
+		return new int[] { (int) Math.floor(south * CELLS_PER_DEGREE), (int) Math.floor(west * CELLS_PER_DEGREE), (int) Math.floor(north * CELLS_PER_DEGREE),
+				(int) Math.floor(east * CELLS_PER_DEGREE) };
+	}
+
+	/**
+	 * @param category
+	 *            Climb category of a segment
+	 * @param minCat
+	 *            Minimum climb category, or <code>null</code>
+	 * @param maxCat
+	 *            Maximum climb category, or <code>null</code>
+	 * @return <code>true</code> if the category is within the range
+	 */
+	private static boolean inCategories(final StravaClimbCategory category, final StravaClimbCategory minCat, final StravaClimbCategory maxCat) {
+		if ((minCat == null) && (maxCat == null)) {
+			return true;
+		}
+		if ((category == null) || (category.getId() == null)) {
+			return false;
+		}
+		final int id = category.getId().intValue();
+		return ((minCat == null) || (id >= minCat.getId().intValue())) && ((maxCat == null) || (id <= maxCat.getId().intValue()));
+	}
+
+	/**
+	 * @param activityType
+	 *            Activity type, or <code>null</code>
+	 * @return The activity type the API uses when none is given (riding), or the one given
+	 */
+	private static StravaSegmentExplorerActivityType normalise(final StravaSegmentExplorerActivityType activityType) {
+		return (activityType == null ? StravaSegmentExplorerActivityType.RIDING : activityType);
+	}
+
+	/**
+	 * @param id
+	 *            Segment id
+	 * @param box
+	 *            The bounding box it was indexed under
+	 */
+	private static void removeFromCells(final Integer id, final float[] box) {
+		final int[] cells = cells(box[0], box[1], box[2], box[3]);
+		for (int row = cells[0]; row <= cells[2]; row++) {
+			for (int column = cells[1]; column <= cells[3]; column++) {
+				CELLS.computeIfPresent(Long.valueOf(cell(row, column)), (c, ids) -> {
+					ids.remove(id);
+					return (ids.isEmpty() ? null : ids);
+				});
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Drops a segment from the index, and stops counting the cells it overlaps as crawled, since explores of them would now miss it
+	 * </p>
+	 *
+	 * @param entry
+	 *            The segment's entry; nothing is dropped if the segment has been indexed again since
+	 */
+	private static void drop(final Entry entry) {
+		final Integer id = entry.segment.getId();
+		ENTRIES.computeIfPresent(id, (key, current) -> {
+			if (current != entry) {
+				return current;
+			}
+			removeFromCells(key, entry.box);
+			return null;
+		});
+		final int[] cells = cells(entry.box[0], entry.box[1], entry.box[2], entry.box[3]);
+		for (final Map<Long, Long> crawled : CRAWLED.values()) {
+			for (int row = cells[0]; row <= cells[2]; row++) {
+				for (int column = cells[1]; column <= cells[3]; column++) {
+					crawled.remove(Long.valueOf(cell(row, column)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Drops segments indexed longer ago than {@link StravaConfig#SEGMENT_INDEX_TTL_SECONDS} and cells crawled longer ago than that, and if more than
+	 * {@link StravaConfig#SEGMENT_INDEX_MAX_ENTRIES} segments are still indexed, drops the least recently indexed until a tenth of the room is free again. Only runs when the index is
+	 * full or the time to live has passed since the last sweep, and not at all if another thread is already sweeping.
+	 * </p>
+	 */
+	private static void sweep() {
+		final long now = System.currentTimeMillis();
+		if (((ENTRIES.size() <= StravaConfig.SEGMENT_INDEX_MAX_ENTRIES) && ((now - LAST_SWEEP.get()) < TTL)) || !SWEEP.tryLock()) {
+			return;
+		}
+		try {
+			LAST_SWEEP.set(now);
+			final long stale = now - TTL;
+			for (final Map<Long, Long> crawled : CRAWLED.values()) {
+				crawled.values().removeIf(time -> time.longValue() < stale);
+			}
+			final List<Entry> entries = new ArrayList<>(ENTRIES.values());
+			entries.sort(Comparator.comparingLong(entry -> entry.indexed));
+			final int excess = (entries.size() <= StravaConfig.SEGMENT_INDEX_MAX_ENTRIES ? 0 : entries.size() - ((StravaConfig.SEGMENT_INDEX_MAX_ENTRIES * 9) / 10));
+			for (int i = 0; i < entries.size(); i++) {
+				final Entry entry = entries.get(i);
+				if ((i >= excess) && (entry.indexed >= stale)) {
+					break;
+				}
+				drop(entry);
+			}
+		} finally {
+			SWEEP.unlock();
+		}
+	}
+}
@@ -0,0 +1,231 @@
+package javastrava.cache.impl;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import javastrava.model.StravaChallenge;
+import javastrava.model.StravaClub;
+import javastrava.model.StravaRunningRace;
+import javastrava.model.StravaSegment;
+import javastrava.model.reference.StravaResourceState;
+
+/**
+ * <p>
+ * Describes which objects of a class can be held in the cache tier shared by all tokens, and which of their fields depend on who is looking
+ * </p>
+ *
+ * <p>
+ * Only classes whose representation is (apart from a few viewer-specific fields) the same for every athlete have a policy. Shareable objects are split in two: the core, a copy with the
+ * viewer-specific fields cleared, is held once in the shared tier, and the token's own tier holds only an {@link #overlay(Object) overlay} of the viewer-specific fields (with the
+ * identifier and resource state). A read {@link #merge(Object, Object) merges} the two, so each token sees its own values of those fields on top of the shared core, and the core is
+ * updated for every token whenever any of them fetches the object. Objects which are private (private segments, private clubs) are never shared, so the rules in
+ * {@link javastrava.util.PrivacyUtils} still apply per token.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ * @param <T>
+ *            Class of the objects
+ */
+final class StravaSharedCachePolicy<T> {
+	/**
+	 * Policies by class
+	 */
+	private static final Map<Class<?>, StravaSharedCachePolicy<?>> POLICIES = new HashMap<>();
+
+	static {
+		register(new StravaSharedCachePolicy<>(StravaSegment.class, segment -> !Boolean.TRUE.equals(segment.getPrivateSegment()), "starred", "starredDate", "athletePrEffort", "prTime", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				"athleteSegmentStats")); //$NON-NLS-1$
+		register(new StravaSharedCachePolicy<>(StravaClub.class, club -> !Boolean.TRUE.equals(club.getPrivateClub()), "membership", "admin", "owner", "followingCount")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		register(new StravaSharedCachePolicy<>(StravaChallenge.class, challenge -> true, "joined")); //$NON-NLS-1$
+		register(new StravaSharedCachePolicy<>(StravaRunningRace.class, race -> true));
+	}
+
+	/**
+	 * @param class1
+	 *            Class of objects
+	 * @param <T>
+	 *            Class of objects
+	 * @return The policy for the class, or <code>null</code> if objects of the class are never shared between tokens
+	 */
+	@SuppressWarnings("unchecked")
+	static <T> StravaSharedCachePolicy<T> forClass(final Class<T> class1) {
+		return (StravaSharedCachePolicy<T>) POLICIES.get(class1);
+	}
+
+	/**
+	 * @param policy
+	 *            Policy to register
+	 */
+	private static void register(final StravaSharedCachePolicy<?> policy) {
+		POLICIES.put(policy.class1, policy);
+	}
+
+	/**
+	 * Class of objects
+	 */
+	private final Class<T> class1;
+
+	/**
+	 * Tests whether an object may be shared
+	 */
+	private final Predicate<T> shareable;
+
+	/**
+	 * Fields which depend on who is looking, cleared in the shared copy. They are cleared directly rather than through their setters, some of which are deprecated.
+	 */
+	private final List<Field> viewerFields = new ArrayList<>();
+
+	/**
+	 * Instance fields of the class, copied field by field
+	 */
+	private final List<Field> fields = new ArrayList<>();
+
+	/**
+	 * Fields held in an overlay: the identifier, the resource state and the viewer-specific fields
+	 */
+	private final List<Field> overlayFields = new ArrayList<>();
+
+	/**
+	 * The resource state field
+	 */
+	private final Field resourceState;
+
+	/**
+	 * @param class1
+	 *            Class of objects
+	 * @param shareable
+	 *            Tests whether an object may be shared
+	 * @param viewerFields
+	 *            Names of the fields which depend on who is looking
+	 */
+	private StravaSharedCachePolicy(final Class<T> class1, final Predicate<T> shareable, final String... viewerFields) {
+		this.class1 = class1;
+		this.shareable = shareable;
+		final List<String> names = Arrays.asList(viewerFields);
+		Field state = null;
+		for (final Field field : class1.getDeclaredFields()) {
+			if (!Modifier.isStatic(field.getModifiers())) {
+				field.setAccessible(true);
+				this.fields.add(field);
+				if (names.contains(field.getName())) {
+					this.viewerFields.add(field);
+					this.overlayFields.add(field);
+				} else if (field.getName().equals("id")) { //$NON-NLS-1$
+					this.overlayFields.add(field);
+				} else if (field.getName().equals("resourceState")) { //$NON-NLS-1$
+					this.overlayFields.add(field);
+					state = field;
+				}
+			}
+		}
+		if ((this.viewerFields.size() != names.size()) || (state == null)) {
+			throw new IllegalStateException(class1.getName() + " does not have all of the fields " + names); //$NON-NLS-1$
+		}
+		this.resourceState = state;
+	}
+
+	/**
+	 * <p>
+	 * Makes a shallow copy of an object, so that callers using different tokens never hold the same instance
+	 * </p>
+	 *
+	 * @param object
+	 *            The object
+	 * @return The copy
+	 */
+	T copy(final T object) {
+		try {
+			final T copy = this.class1.newInstance();
+			for (final Field field : this.fields) {
+				field.set(copy, field.get(object));
+			}
+			return copy;
+		} catch (final InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @return <code>true</code> if the shared copies have fields cleared, so can't stand in for the detailed representation a token would get
+	 */
+	boolean hasViewerFields() {
+		return !this.viewerFields.isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * Merges a token's overlay onto a copy of the shared core of an object. The result is only as complete as the less complete of the two: detailed if both are detailed, and
+	 * otherwise a summary.
+	 * </p>
+	 *
+	 * @param core
+	 *            The object from the shared tier
+	 * @param overlay
+	 *            The token's {@link #overlay(Object) overlay} of it
+	 * @return The object as the token sees it
+	 */
+	T merge(final T core, final T overlay) {
+		final T merged = copy(core);
+		try {
+			for (final Field field : this.viewerFields) {
+				field.set(merged, field.get(overlay));
+			}
+			if ((this.resourceState.get(core) != StravaResourceState.DETAILED) || (this.resourceState.get(overlay) != StravaResourceState.DETAILED)) {
+				this.resourceState.set(merged, StravaResourceState.SUMMARY);
+			}
+		} catch (final IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		return merged;
+	}
+
+	/**
+	 * @param object
+	 *            The object, as seen by one token
+	 * @return An object holding only the identifier, resource state and viewer-specific fields of the object, to be held in the token's own tier
+	 */
+	T overlay(final T object) {
+		try {
+			final T overlay = this.class1.newInstance();
+			for (final Field field : this.overlayFields) {
+				field.set(overlay, field.get(object));
+			}
+			return overlay;
+		} catch (final InstantiationException | IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param object
+	 *            The object
+	 * @return <code>true</code> if the object can be held in the shared tier
+	 */
+	boolean isShareable(final T object) {
+		return this.shareable.test(object);
+	}
+
+	/**
+	 * @param object
+	 *            The object, as seen by one token
+	 * @return A copy of the object without any viewer-specific fields, to be held in the shared tier
+	 */
+	T shared(final T object) {
+		final T copy = copy(object);
+		try {
+			for (final Field field : this.viewerFields) {
+				field.set(copy, null);
+			}
+		} catch (final IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+		return copy;
+	}
+}
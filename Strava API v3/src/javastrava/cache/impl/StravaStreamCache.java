@@ -0,0 +1,561 @@
+package javastrava.cache.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javastrava.auth.model.Token;
+import javastrava.config.StravaConfig;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaStreamResolutionType;
+import javastrava.model.reference.StravaStreamSeriesDownsamplingType;
+import javastrava.model.reference.StravaStreamType;
+import javastrava.util.StravaStreamResampler;
+
+/**
+ * <p>
+ * Cache of the streams belonging to activities, segment efforts and segments
+ * </p>
+ *
+ * <p>
+ * Streams are held per owner (activity, effort or segment), token, resolution and series type, one series per stream type. A request for some of the types already held at that
+ * resolution is served from the cache, and a request for a lower resolution is downsampled locally from streams held at full or a higher resolution (provided the series used for
+ * downsampling, distance or time, is held too). Types which were asked for but which the owner doesn't have (e.g. heart rate for an activity recorded without a monitor) are remembered as
+ * absent, so they don't cause the streams to be requested again.
+ * </p>
+ *
+ * <p>
+ * Ranges of full activity streams can be {@link #slice(Owner, Object, int, int, StravaStreamType...) sliced} out without copying, which is how the streams of segment efforts and laps
+ * are derived from those of their activity.
+ * </p>
+ *
+ * <p>
+ * Segment streams are kept until evicted; activity and effort streams, which can change if the activity is cropped, expire after {@link StravaConfig#CACHE_STREAMS_TTL_SECONDS} or when a
+ * webhook event about the activity is received. Once the cache holds more than {@link StravaConfig#CACHE_STREAMS_MAX_SAMPLES} samples in total, the least recently used streams are evicted,
+ * so eviction is weighted by the size of the streams rather than their number.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaStreamCache {
+	/**
+	 * Type of object streams belong to
+	 */
+	public enum Owner {
+		/**
+		 * Streams of an activity
+		 */
+		ACTIVITY,
+		/**
+		 * Streams of a segment effort
+		 */
+		EFFORT,
+		/**
+		 * Streams of a segment
+		 */
+		SEGMENT
+	}
+
+	/**
+	 * Streams held for an owner at one resolution and series type. The maps are only read or changed while holding the lock on {@link StravaStreamCache#ENTRIES}, but the streams in them
+	 * are never changed once cached (a stream cached again replaces the old one), so they can be read without it.
+	 */
+	private static final class Entry {
+		/**
+		 * The streams, by type
+		 */
+		final Map<StravaStreamType, StravaStream> streams = new EnumMap<>(StravaStreamType.class);
+
+		/**
+		 * Types which have been asked for, whether or not the owner has them
+		 */
+		final Set<StravaStreamType> known = EnumSet.noneOf(StravaStreamType.class);
+
+		/**
+		 * Time at which the streams were first cached
+		 */
+		final long created = System.currentTimeMillis();
+
+		/**
+		 * Total number of samples in the streams
+		 */
+		long samples;
+	}
+
+	/**
+	 * Identifies an entry
+	 */
+	private static final class Key {
+		/**
+		 * Type of owner
+		 */
+		final Owner owner;
+
+		/**
+		 * Identifier of the owner
+		 */
+		final Object id;
+
+		/**
+		 * {@link Token#getCacheKey() Cache key} of the token the streams were requested with, which (unlike the access token) stays the same when the token is refreshed
+		 */
+		final String cacheKey;
+
+		/**
+		 * Resolution, or <code>null</code> for the full streams
+		 */
+		final StravaStreamResolutionType resolution;
+
+		/**
+		 * Series type used for downsampling, or <code>null</code> for the full streams
+		 */
+		final StravaStreamSeriesDownsamplingType seriesType;
+
+		/**
+		 * @param owner
+		 *            Type of owner
+		 * @param id
+		 *            Identifier of the owner
+		 * @param cacheKey
+		 *            Cache key of the token
+		 * @param resolution
+		 *            Resolution, or <code>null</code> for the full streams
+		 * @param seriesType
+		 *            Series type; ignored for the full streams, and defaults to distance (as it does in the API) otherwise
+		 */
+		Key(final Owner owner, final Object id, final String cacheKey, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType) {
+			this.owner = owner;
+			this.id = id;
+			this.cacheKey = cacheKey;
+			this.resolution = resolution;
+			if (resolution == null) {
+				this.seriesType = null;
+			} else {
+				this.seriesType = (seriesType == null ? StravaStreamSeriesDownsamplingType.DISTANCE : seriesType);
+			}
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return (this.owner == other.owner) && this.id.equals(other.id) && this.cacheKey.equals(other.cacheKey) && (this.resolution == other.resolution)
+					&& (this.seriesType == other.seriesType);
+		}
+
+		@Override
+		public int hashCode() {
+			final int prime = 31;
+			int result = 1;
+			result = (prime * result) + this.owner.hashCode();
+			result = (prime * result) + this.id.hashCode();
+			result = (prime * result) + this.cacheKey.hashCode();
+			result = (prime * result) + ((this.resolution == null) ? 0 : this.resolution.hashCode());
+			result = (prime * result) + ((this.seriesType == null) ? 0 : this.seriesType.hashCode());
+			return result;
+		}
+	}
+
+	/**
+	 * Resolutions which may be downsampled from, best first: the full streams, then the highest resolution
+	 */
+	private static final StravaStreamResolutionType[] SOURCES = { null, StravaStreamResolutionType.HIGH, StravaStreamResolutionType.MEDIUM };
+
+	/**
+	 * Age after which activity and effort streams are discarded
+	 */
+	private static final long TTL = TimeUnit.SECONDS.toMillis(StravaConfig.CACHE_STREAMS_TTL_SECONDS);
+
+	/**
+	 * All entries, least recently used first
+	 */
+	private static final LinkedHashMap<Key, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+
+	/**
+	 * Total number of samples held
+	 */
+	private static long samples;
+
+	/**
+	 * @param stream
+	 *            A stream
+	 * @return A copy of the stream, so that callers can't change what's in the cache
+	 */
+	private static StravaStream copy(final StravaStream stream) {
+		final StravaStream copy = new StravaStream();
+		copy.setType(stream.getType());
+		copy.setData(stream.getData() == null ? null : new ArrayList<>(stream.getData()));
+		copy.setMapPoints(stream.getMapPoints() == null ? null : new ArrayList<>(stream.getMapPoints()));
+		copy.setMoving(stream.getMoving() == null ? null : new ArrayList<>(stream.getMoving()));
+		copy.setSeriesType(stream.getSeriesType());
+		copy.setOriginalSize(stream.getOriginalSize());
+		copy.setResolution(stream.getResolution());
+		return copy;
+	}
+
+	/**
+	 * <p>
+	 * Downsamples a set of streams, keeping the samples nearest to evenly spaced values of the series (distance or time) stream
+	 * </p>
+	 *
+	 * @param series
+	 *            The series (distance or time) stream to downsample by
+	 * @param streams
+	 *            The streams to downsample
+	 * @param resolution
+	 *            Resolution required
+	 * @param seriesType
+	 *            Series type required
+	 * @return The downsampled streams
+	 */
+	private static List<StravaStream> downsample(final StravaStream series, final List<StravaStream> streams, final StravaStreamResolutionType resolution,
+			final StravaStreamSeriesDownsamplingType seriesType) {
+		final int[] indices = StravaStreamResampler.nearestIndices(StravaStreamResampler.values(series), resolution.getSize());
+		return StravaStreamResampler.select(streams, indices, resolution, seriesType);
+	}
+
+	/**
+	 * @param entry
+	 *            An entry
+	 * @param key
+	 *            Its key
+	 * @return <code>true</code> if it has expired
+	 */
+	private static boolean expired(final Entry entry, final Key key) {
+		return (key.owner != Owner.SEGMENT) && ((System.currentTimeMillis() - entry.created) >= TTL);
+	}
+
+	/**
+	 * <p>
+	 * Removes the streams of an owner, whichever token they were requested with
+	 * </p>
+	 *
+	 * @param owner
+	 *            Type of owner
+	 * @param id
+	 *            Identifier of the owner
+	 */
+	public static void invalidate(final Owner owner, final Object id) {
+		synchronized (ENTRIES) {
+			final Iterator<Map.Entry<Key, Entry>> iterator = ENTRIES.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<Key, Entry> entry = iterator.next();
+				if ((entry.getKey().owner == owner) && entry.getKey().id.equals(id)) {
+					samples -= entry.getValue().samples;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param list
+	 *            Samples (which must never be changed once cached)
+	 * @param from
+	 *            Index of the first sample
+	 * @param to
+	 *            Index of the last sample
+	 * @param <E>
+	 *            Class of the samples
+	 * @return A read-only view of the samples in the range, or <code>null</code> if there were none
+	 */
+	private static <E> List<E> view(final List<E> list, final int from, final int to) {
+		if (list == null) {
+			return null;
+		}
+		return Collections.unmodifiableList(list.subList(Math.min(from, list.size()), Math.min(to + 1, list.size())));
+	}
+
+	/**
+	 * @param seriesType
+	 *            Series type
+	 * @return The type of stream holding the series
+	 */
+	private static StravaStreamType seriesStreamType(final StravaStreamSeriesDownsamplingType seriesType) {
+		return (seriesType == StravaStreamSeriesDownsamplingType.TIME ? StravaStreamType.TIME : StravaStreamType.DISTANCE);
+	}
+
+	/**
+	 * @param entry
+	 *            An entry; the lock on the entries must be held
+	 * @param types
+	 *            Types of stream required
+	 * @return Those of the streams the entry holds, in the order of the types
+	 */
+	private static List<StravaStream> held(final Entry entry, final StravaStreamType[] types) {
+		final List<StravaStream> streams = new ArrayList<>();
+		for (final StravaStreamType type : types) {
+			final StravaStream stream = entry.streams.get(type);
+			if (stream != null) {
+				streams.add(stream);
+			}
+		}
+		return streams;
+	}
+
+	/**
+	 * @param stream
+	 *            A stream
+	 * @return Number of samples in it
+	 */
+	private static int size(final StravaStream stream) {
+		if (stream.getData() != null) {
+			return stream.getData().size();
+		}
+		if (stream.getMapPoints() != null) {
+			return stream.getMapPoints().size();
+		}
+		return (stream.getMoving() == null ? 0 : stream.getMoving().size());
+	}
+
+	/**
+	 * @param entry
+	 *            An entry
+	 * @param key
+	 *            Its key
+	 * @param types
+	 *            Types of stream required
+	 * @return <code>true</code> if the entry is usable and all of the types have been asked for
+	 */
+	private static boolean usable(final Entry entry, final Key key, final StravaStreamType... types) {
+		if ((entry == null) || expired(entry, key)) {
+			return false;
+		}
+		for (final StravaStreamType type : types) {
+			if (!entry.known.contains(type)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Token the streams are requested with
+	 */
+	private final Token token;
+
+	/**
+	 * @param token
+	 *            Token the streams are requested with
+	 */
+	public StravaStreamCache(final Token token) {
+		this.token = token;
+	}
+
+	/**
+	 * <p>
+	 * Gets streams from the cache
+	 * </p>
+	 *
+	 * @param owner
+	 *            Type of owner
+	 * @param id
+	 *            Identifier of the owner
+	 * @param resolution
+	 *            Resolution required, or <code>null</code> for the full streams
+	 * @param seriesType
+	 *            Series type required
+	 * @param types
+	 *            Types of stream required
+	 * @return Those of the streams the owner has, or <code>null</code> if they can't be served from the cache
+	 */
+	public List<StravaStream> get(final Owner owner, final Object id, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType,
+			final StravaStreamType... types) {
+		if (id == null) {
+			return null;
+		}
+		final Key key = key(owner, id, resolution, seriesType);
+		final List<StravaStream> held;
+		StravaStream series = null;
+		// Only find the streams while holding the lock; copying or downsampling them is done after it is released
+		synchronized (ENTRIES) {
+			final Entry entry = ENTRIES.get(key);
+			if (usable(entry, key, types)) {
+				held = held(entry, types);
+			} else {
+				if (resolution == null) {
+					return null;
+				}
+
+				// Downsample from the full streams or a higher resolution, if the series to downsample by is held
+				Entry source = null;
+				for (final StravaStreamResolutionType sourceResolution : SOURCES) {
+					if ((sourceResolution == null) || (sourceResolution.getSize() > resolution.getSize())) {
+						final Key sourceKey = key(owner, id, sourceResolution, key.seriesType);
+						final Entry candidate = ENTRIES.get(sourceKey);
+						if (usable(candidate, sourceKey, types) && usable(candidate, sourceKey, seriesStreamType(key.seriesType))
+								&& (candidate.streams.get(seriesStreamType(key.seriesType)) != null)) {
+							source = candidate;
+							break;
+						}
+					}
+				}
+				if (source == null) {
+					return null;
+				}
+				held = held(source, types);
+				series = source.streams.get(seriesStreamType(key.seriesType));
+			}
+		}
+		if (series != null) {
+			return downsample(series, held, resolution, key.seriesType);
+		}
+		final List<StravaStream> streams = new ArrayList<>();
+		for (final StravaStream stream : held) {
+			streams.add(copy(stream));
+		}
+		return streams;
+	}
+
+	/**
+	 * @param owner
+	 *            Type of owner
+	 * @param id
+	 *            Identifier of the owner
+	 * @param resolution
+	 *            Resolution
+	 * @param seriesType
+	 *            Series type
+	 * @return Key for the token
+	 */
+	private Key key(final Owner owner, final Object id, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType) {
+		return new Key(owner, id, this.token.getCacheKey(), resolution, seriesType);
+	}
+
+	/**
+	 * <p>
+	 * Puts streams returned by the API in the cache
+	 * </p>
+	 *
+	 * @param owner
+	 *            Type of owner
+	 * @param id
+	 *            Identifier of the owner
+	 * @param resolution
+	 *            Resolution requested, or <code>null</code> for the full streams
+	 * @param seriesType
+	 *            Series type requested
+	 * @param types
+	 *            Types of stream requested
+	 * @param streams
+	 *            Streams returned
+	 */
+	public void put(final Owner owner, final Object id, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType, final StravaStreamType[] types,
+			final List<StravaStream> streams) {
+		if ((id == null) || (streams == null)) {
+			return;
+		}
+		final Key key = key(owner, id, resolution, seriesType);
+		final List<StravaStream> copies = new ArrayList<>();
+		for (final StravaStream stream : streams) {
+			if (stream.getType() != null) {
+				copies.add(copy(stream));
+			}
+		}
+		synchronized (ENTRIES) {
+			Entry entry = ENTRIES.get(key);
+			if ((entry == null) || expired(entry, key)) {
+				if (entry != null) {
+					samples -= entry.samples;
+				}
+				entry = new Entry();
+				ENTRIES.put(key, entry);
+			}
+			for (final StravaStreamType type : types) {
+				entry.known.add(type);
+			}
+			for (final StravaStream stream : copies) {
+				final StravaStream previous = entry.streams.put(stream.getType(), stream);
+				final int added = size(stream) - (previous == null ? 0 : size(previous));
+				entry.samples += added;
+				samples += added;
+				entry.known.add(stream.getType());
+			}
+
+			// Evict the least recently used streams (other than these) until back within budget
+			final Iterator<Map.Entry<Key, Entry>> iterator = ENTRIES.entrySet().iterator();
+			while ((samples > StravaConfig.CACHE_STREAMS_MAX_SAMPLES) && iterator.hasNext()) {
+				final Map.Entry<Key, Entry> eldest = iterator.next();
+				if (eldest.getValue() != entry) {
+					samples -= eldest.getValue().samples;
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Gets a range of samples from full streams held in the cache, as read-only views rather than copies
+	 * </p>
+	 *
+	 * @param owner
+	 *            Type of owner
+	 * @param id
+	 *            Identifier of the owner
+	 * @param from
+	 *            Index of the first sample
+	 * @param to
+	 *            Index of the last sample (inclusive, as for {@link javastrava.model.StravaSegmentEffort#getEndIndex()})
+	 * @param types
+	 *            Types of stream required
+	 * @return Those of the streams the owner has, restricted to the range, or <code>null</code> if the full streams aren't all held
+	 */
+	public List<StravaStream> slice(final Owner owner, final Object id, final int from, final int to, final StravaStreamType... types) {
+		if ((id == null) || (from < 0) || (to < from)) {
+			return null;
+		}
+		final Key key = key(owner, id, null, null);
+		final List<StravaStream> held;
+		synchronized (ENTRIES) {
+			final Entry entry = ENTRIES.get(key);
+			if (!usable(entry, key, types)) {
+				return null;
+			}
+			held = held(entry, types);
+		}
+		final List<StravaStream> streams = new ArrayList<>();
+		for (final StravaStream stream : held) {
+			final StravaStream slice = new StravaStream();
+			slice.setType(stream.getType());
+			slice.setData(view(stream.getData(), from, to));
+			slice.setMapPoints(view(stream.getMapPoints(), from, to));
+			slice.setMoving(view(stream.getMoving(), from, to));
+			slice.setOriginalSize(Integer.valueOf(size(slice)));
+			streams.add(slice);
+		}
+		return streams;
+	}
+
+	/**
+	 * <p>
+	 * Removes all the streams requested with the token
+	 * </p>
+	 */
+	public void removeAll() {
+		final String cacheKey = this.token.getCacheKey();
+		synchronized (ENTRIES) {
+			final Iterator<Map.Entry<Key, Entry>> iterator = ENTRIES.entrySet().iterator();
+			while (iterator.hasNext()) {
+				final Map.Entry<Key, Entry> entry = iterator.next();
+				if (entry.getKey().cacheKey.equals(cacheKey)) {
+					samples -= entry.getValue().samples;
+					iterator.remove();
+				}
+			}
+		}
+	}
+}
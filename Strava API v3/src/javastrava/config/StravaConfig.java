@@ -63,6 +63,186 @@ public class StravaConfig {
 	 */
 	public static final int PAGING_LIST_ALL_PARALLELISM = integer("strava.paging_list_all_parallelism"); 
 
+	/**
+	 * Whether listAll methods that can be asked for a window of time are got in windows of time, rather than by page
+	 */
+	public static final boolean PAGING_LIST_ALL_TIME_PARTITIONED = Boolean.parseBoolean(string("strava.paging_list_all_time_partitioned")); 
+
+	/**
+	 * Whether per-endpoint latency and throughput metrics are recorded (can be changed at runtime via {@link javastrava.api.metrics.StravaAPIMetrics#setEnabled(boolean)})
+	 */
+	public static final boolean METRICS_ENABLED = Boolean.parseBoolean(string("strava.metrics.enabled")); 
+
+	/**
+	 * The maximum number of requests to the Strava API which may be in flight at the same time
+	 */
+	public static final int HTTP_MAX_CONCURRENT_REQUESTS = integer("strava.http.max_concurrent_requests"); 
+
+	/**
+	 * Whether GET responses are cached and revalidated with conditional requests (see {@link javastrava.api.cache.StravaHTTPCache})
+	 */
+	public static final boolean HTTP_CACHE_ENABLED = Boolean.parseBoolean(string("strava.http_cache.enabled")); 
+
+	/**
+	 * Directory in which HTTP response bodies are cached; empty if they are not cached on disk
+	 */
+	public static final String HTTP_CACHE_DIRECTORY = string("strava.http_cache.directory"); 
+
+	/**
+	 * Maximum size in bytes of the on-disk HTTP cache for each token
+	 */
+	public static final long HTTP_CACHE_MAX_SIZE = Long.parseLong(string("strava.http_cache.max_size")); 
+
+	/**
+	 * Maximum number of response bodies held in memory for each token
+	 */
+	public static final int HTTP_CACHE_MAX_ENTRIES = integer("strava.http_cache.max_entries"); 
+
+	/**
+	 * Age in seconds after which cached objects are reloaded in the background, while still being returned; 0 if they aren't
+	 */
+	public static final int CACHE_SOFT_TTL_SECONDS = integer("strava.cache.soft_ttl_seconds"); 
+
+	/**
+	 * Age in seconds after which cached objects are discarded
+	 */
+	public static final int CACHE_HARD_TTL_SECONDS = integer("strava.cache.hard_ttl_seconds"); 
+
+	/**
+	 * Number of reads after which a cached object is considered hot, and is reloaded ahead of its soft TTL
+	 */
+	public static final int CACHE_REFRESH_AHEAD_HITS = integer("strava.cache.refresh_ahead_hits"); 
+
+	/**
+	 * Fraction of the soft TTL after which hot cached objects are reloaded
+	 */
+	public static final double CACHE_REFRESH_AHEAD_FRACTION = Double.parseDouble(string("strava.cache.refresh_ahead_fraction")); 
+
+	/**
+	 * Number of threads used to reload cached objects in the background
+	 */
+	public static final int CACHE_REFRESH_THREADS = integer("strava.cache.refresh_threads"); 
+
+	/**
+	 * Background reloads of cached objects are skipped while usage of either rate limit is at or above this percentage
+	 */
+	public static final int CACHE_REFRESH_MAX_RATE_LIMIT_PERCENT = integer("strava.cache.refresh_max_rate_limit_percent"); 
+
+	/**
+	 * Time for which negative results (not found or private) are cached, in seconds
+	 */
+	public static final int CACHE_NEGATIVE_TTL_SECONDS = integer("strava.cache.negative_ttl_seconds"); 
+
+	/**
+	 * Whether public, athlete-independent objects are also cached in a tier shared by all tokens
+	 */
+	public static final boolean CACHE_SHARED_TIER_ENABLED = Boolean.parseBoolean(string("strava.cache.shared_tier.enabled")); 
+
+	/**
+	 * Maximum number of objects cached for any one token
+	 */
+	public static final int CACHE_TOKEN_MAX_ENTRIES = integer("strava.cache.token_max_entries"); 
+
+	/**
+	 * Maximum estimated weight (bytes of heap) of the objects cached for any one token, or 0 for no limit
+	 */
+	public static final int CACHE_TOKEN_MAX_WEIGHT = integer("strava.cache.token_max_weight"); 
+
+	/**
+	 * Maximum number of objects cached across all tokens
+	 */
+	public static final int CACHE_MAX_ENTRIES = integer("strava.cache.max_entries"); 
+
+	/**
+	 * Whether the cache shrinks when the heap is under pressure
+	 */
+	public static final boolean CACHE_ADAPTIVE_ENABLED = Boolean.parseBoolean(string("strava.cache.adaptive.enabled")); 
+
+	/**
+	 * Percentage of the old generation which, if still in use after a garbage collection, causes the cache to shrink
+	 */
+	public static final int CACHE_ADAPTIVE_HIGH_WATERMARK_PERCENT = integer("strava.cache.adaptive.high_watermark_percent"); 
+
+	/**
+	 * Percentage of the cache's estimated weight released each time the heap is found to be under pressure
+	 */
+	public static final int CACHE_ADAPTIVE_SHRINK_PERCENT = integer("strava.cache.adaptive.shrink_percent"); 
+
+	/**
+	 * Whether objects released under memory pressure are demoted to soft references rather than evicted
+	 */
+	public static final boolean CACHE_ADAPTIVE_SOFT_REFERENCES = Boolean.parseBoolean(string("strava.cache.adaptive.soft_references")); 
+
+	/**
+	 * Directory holding the disk tier of the cache, or empty if there is no disk tier
+	 */
+	public static final String CACHE_DISK_DIRECTORY = string("strava.cache.disk.directory"); 
+
+	/**
+	 * Size of each segment file of the disk tier, in megabytes
+	 */
+	public static final int CACHE_DISK_SEGMENT_SIZE_MB = integer("strava.cache.disk.segment_size_mb"); 
+
+	/**
+	 * Maximum number of segment files kept by the disk tier
+	 */
+	public static final int CACHE_DISK_MAX_SEGMENTS = integer("strava.cache.disk.max_segments"); 
+
+	/**
+	 * Time for which activity and effort streams are cached, in seconds
+	 */
+	public static final int CACHE_STREAMS_TTL_SECONDS = integer("strava.cache.streams.ttl_seconds"); 
+
+	/**
+	 * Maximum number of stream samples cached across all tokens
+	 */
+	public static final int CACHE_STREAMS_MAX_SAMPLES = integer("strava.cache.streams.max_samples"); 
+
+	/**
+	 * Whether segment explorer queries are answered from the spatial index of segments where possible
+	 */
+	public static final boolean SEGMENT_INDEX_ENABLED = Boolean.parseBoolean(string("strava.cache.segment_index.enabled")); 
+
+	/**
+	 * Number of cells of the spatial index of segments to a degree of latitude or longitude
+	 */
+	public static final int SEGMENT_INDEX_CELLS_PER_DEGREE = integer("strava.cache.segment_index.cells_per_degree"); 
+
+	/**
+	 * Time for which an area crawled with the segment explorer is answered from the spatial index, in seconds
+	 */
+	public static final int SEGMENT_INDEX_TTL_SECONDS = integer("strava.cache.segment_index.ttl_seconds"); 
+
+	/**
+	 * Maximum number of segments held in the spatial index of segments
+	 */
+	public static final int SEGMENT_INDEX_MAX_ENTRIES = integer("strava.cache.segment_index.max_entries"); 
+
+	/**
+	 * Number of tiles the segment crawler explores at a time
+	 */
+	public static final int SEGMENT_CRAWLER_PARALLELISM = integer("strava.segment_crawler.parallelism"); 
+
+	/**
+	 * Percentage of the rate limits the segment crawler may use
+	 */
+	public static final int SEGMENT_CRAWLER_RATE_BUDGET_PERCENT = integer("strava.segment_crawler.rate_budget_percent"); 
+
+	/**
+	 * Height below which the segment crawler doesn't split a tile, in metres
+	 */
+	public static final int SEGMENT_CRAWLER_MINIMUM_TILE_METRES = integer("strava.segment_crawler.minimum_tile_metres"); 
+
+	/**
+	 * How far before the latest activity already seen each activity sync starts listing, in seconds
+	 */
+	public static final int SYNC_OVERLAP_SECONDS = integer("strava.sync.overlap_seconds"); 
+
+	/**
+	 * Directory in which the default store keeps activity sync checkpoints
+	 */
+	public static final String SYNC_DIRECTORY = string("strava.sync.directory"); 
+
 	/**
 	 * @param key
 	 *            The name of the property to return
@@ -0,0 +1,108 @@
+package javastrava.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * Flight Recorder event covering a single HTTP call to the Strava API, from sending the request until the response body has been read
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Name("javastrava.APICall")
+@Label("Strava API Call")
+@Category({ StravaFlightRecorder.CATEGORY, "API" })
+@Description("HTTP call to the Strava API")
+@StackTrace(false)
+public class StravaAPICallEvent extends Event {
+	/**
+	 * HTTP method
+	 */
+	@Label("Method")
+	private String method;
+
+	/**
+	 * Endpoint template, e.g. /segments/{id}
+	 */
+	@Label("Endpoint")
+	private String endpoint;
+
+	/**
+	 * HTTP status code, or -1 if the call failed without a response
+	 */
+	@Label("Status")
+	private int status;
+
+	/**
+	 * Size of the request body
+	 */
+	@Label("Request Bytes")
+	@DataAmount
+	private long requestBytes;
+
+	/**
+	 * Number of bytes read from the response body
+	 */
+	@Label("Response Bytes")
+	@DataAmount
+	private long responseBytes;
+
+	/**
+	 * @return A started event, or <code>null</code> if API call events are not being recorded
+	 */
+	public static StravaAPICallEvent start() {
+		final StravaAPICallEvent event = new StravaAPICallEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * @param method
+	 *            the HTTP method
+	 */
+	public void setMethod(final String method) {
+		this.method = method;
+	}
+
+	/**
+	 * @param endpoint
+	 *            the endpoint template
+	 */
+	public void setEndpoint(final String endpoint) {
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * @param status
+	 *            the HTTP status code
+	 */
+	public void setStatus(final int status) {
+		this.status = status;
+	}
+
+	/**
+	 * @param requestBytes
+	 *            the size of the request body
+	 */
+	public void setRequestBytes(final long requestBytes) {
+		this.requestBytes = requestBytes;
+	}
+
+	/**
+	 * @param responseBytes
+	 *            the number of bytes read from the response body
+	 */
+	public void setResponseBytes(final long responseBytes) {
+		this.responseBytes = responseBytes;
+	}
+}
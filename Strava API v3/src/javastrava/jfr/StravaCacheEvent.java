@@ -0,0 +1,72 @@
+package javastrava.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * Flight Recorder event for an operation on the entity cache
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Name("javastrava.Cache")
+@Label("Strava Cache Operation")
+@Category({ StravaFlightRecorder.CATEGORY, "Cache" })
+@Description("Get, put or evict in the javastrava entity cache")
+@StackTrace(false)
+public class StravaCacheEvent extends Event {
+	/**
+	 * Operation - get, put, remove or removeAll
+	 */
+	@Label("Operation")
+	private String operation;
+
+	/**
+	 * Class of entity
+	 */
+	@Label("Entity Class")
+	private Class<?> entityClass;
+
+	/**
+	 * Entity id (if the operation concerns a single entity)
+	 */
+	@Label("Id")
+	private String id;
+
+	/**
+	 * For a get, whether the entity was found
+	 */
+	@Label("Hit")
+	private boolean hit;
+
+	/**
+	 * <p>
+	 * Commits a cache event if cache events are being recorded
+	 * </p>
+	 *
+	 * @param operation
+	 *            Operation - get, put, remove or removeAll
+	 * @param entityClass
+	 *            Class of entity
+	 * @param id
+	 *            Entity id, or <code>null</code>
+	 * @param hit
+	 *            For a get, whether the entity was found
+	 */
+	public static void emit(final String operation, final Class<?> entityClass, final Object id, final boolean hit) {
+		final StravaCacheEvent event = new StravaCacheEvent();
+		if (event.shouldCommit()) {
+			event.operation = operation;
+			event.entityClass = entityClass;
+			event.id = (id == null ? null : id.toString());
+			event.hit = hit;
+			event.commit();
+		}
+	}
+}
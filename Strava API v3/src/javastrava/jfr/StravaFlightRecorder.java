@@ -0,0 +1,44 @@
+package javastrava.jfr;
+
+/**
+ * <p>
+ * Support for Java Flight Recorder events emitted by javastrava
+ * </p>
+ *
+ * <p>
+ * The event classes in this package depend on <code>jdk.jfr</code>, which is only present in Java 8 update 262 and later. Code outside this package must check {@link #AVAILABLE} before touching
+ * any of them, so that the library still runs on older JVMs. When JFR is available but not recording, the events are disabled and cost next to nothing.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaFlightRecorder {
+	/**
+	 * <code>true</code> if the running JVM supports Java Flight Recorder events
+	 */
+	public static final boolean AVAILABLE = jfrAvailable();
+
+	/**
+	 * Category under which all javastrava events are shown in JDK Mission Control
+	 */
+	static final String CATEGORY = "Javastrava";
+
+	/**
+	 * @return <code>true</code> if the jdk.jfr API can be loaded
+	 */
+	private static boolean jfrAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event");
+			return true;
+		} catch (final ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * No instances
+	 */
+	private StravaFlightRecorder() {
+	}
+}
@@ -0,0 +1,75 @@
+package javastrava.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * Flight Recorder event covering the retrieval of one page of data by the paging handler
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Name("javastrava.PageFetch")
+@Label("Strava Page Fetch")
+@Category({ StravaFlightRecorder.CATEGORY, "Paging" })
+@Description("One page of data retrieved from the Strava API by the paging handler")
+@StackTrace(false)
+public class StravaPageFetchEvent extends Event {
+	/**
+	 * Page number
+	 */
+	@Label("Page")
+	private int page;
+
+	/**
+	 * Page size requested
+	 */
+	@Label("Page Size")
+	private int pageSize;
+
+	/**
+	 * Number of records returned
+	 */
+	@Label("Records")
+	private int records;
+
+	/**
+	 * @return A started event, or <code>null</code> if page fetch events are not being recorded
+	 */
+	public static StravaPageFetchEvent start() {
+		final StravaPageFetchEvent event = new StravaPageFetchEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * <p>
+	 * Ends and commits the event
+	 * </p>
+	 *
+	 * @param page
+	 *            Page number
+	 * @param pageSize
+	 *            Page size requested
+	 * @param records
+	 *            Number of records returned (-1 if none were returned)
+	 */
+	public void finish(final int page, final int pageSize, final int records) {
+		end();
+		if (shouldCommit()) {
+			this.page = page;
+			this.pageSize = pageSize;
+			this.records = records;
+			commit();
+		}
+	}
+}
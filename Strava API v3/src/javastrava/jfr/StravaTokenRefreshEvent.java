@@ -0,0 +1,75 @@
+package javastrava.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * <p>
+ * Flight Recorder event covering the exchange of a refresh token for a new access token
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Name("javastrava.TokenRefresh")
+@Label("Strava Token Refresh")
+@Category({ StravaFlightRecorder.CATEGORY, "Authorisation" })
+@Description("Refresh of an expired or missing access token")
+@StackTrace(false)
+public class StravaTokenRefreshEvent extends Event {
+	/**
+	 * Id of the athlete the token belongs to
+	 */
+	@Label("Athlete Id")
+	private long athleteId;
+
+	/**
+	 * Whether the token was in the token manager (and expired) rather than missing
+	 */
+	@Label("Expired")
+	private boolean expired;
+
+	/**
+	 * Whether the refresh succeeded
+	 */
+	@Label("Success")
+	private boolean success;
+
+	/**
+	 * @return A started event, or <code>null</code> if token refresh events are not being recorded
+	 */
+	public static StravaTokenRefreshEvent start() {
+		final StravaTokenRefreshEvent event = new StravaTokenRefreshEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	/**
+	 * <p>
+	 * Ends and commits the event
+	 * </p>
+	 *
+	 * @param athleteId
+	 *            Id of the athlete the token belongs to
+	 * @param expired
+	 *            <code>true</code> if an expired token was being refreshed, <code>false</code> if there was no token
+	 * @param success
+	 *            Whether the refresh succeeded
+	 */
+	public void finish(final Integer athleteId, final boolean expired, final boolean success) {
+		end();
+		if (shouldCommit()) {
+			this.athleteId = (athleteId == null ? 0L : athleteId.longValue());
+			this.expired = expired;
+			this.success = success;
+			commit();
+		}
+	}
+}
@@ -4,6 +4,7 @@ import java.util.List;
 
 import com.google.gson.annotations.SerializedName;
 
+import javastrava.cache.StravaCacheableEntity;
 import javastrava.model.reference.StravaResourceState;
 import javastrava.model.reference.StravaRouteSubType;
 import javastrava.model.reference.StravaRouteType;
@@ -16,7 +17,7 @@ import javastrava.model.reference.StravaRouteType;
  * @author Dan Shannon
  *
  */
-public class StravaRoute implements StravaEntity {
+public class StravaRoute implements StravaCacheableEntity<Integer> {
 
 	/**
 	 * Identifier
@@ -237,6 +238,7 @@ public class StravaRoute implements StravaEntity {
 	/**
 	 * @return the id
 	 */
+	@Override
 	public Integer getId() {
 		return this.id;
 	}
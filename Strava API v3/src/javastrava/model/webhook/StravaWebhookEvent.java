@@ -0,0 +1,285 @@
+package javastrava.model.webhook;
+
+import java.util.Map;
+
+import javastrava.model.StravaEntity;
+import javastrava.model.reference.StravaResourceState;
+
+/**
+ * <p>
+ * An event POSTed by Strava to the callback URL of an {@link StravaEventSubscription event subscription}
+ * </p>
+ *
+ * <p>
+ * Can be deserialised from the body of the callback with {@link javastrava.json.JsonUtil#deserialise(String, Class)}
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaWebhookEvent implements StravaEntity {
+	/**
+	 * Object type for events about activities
+	 */
+	public static final String OBJECT_TYPE_ACTIVITY = "activity";
+
+	/**
+	 * Object type for events about athletes
+	 */
+	public static final String OBJECT_TYPE_ATHLETE = "athlete";
+
+	/**
+	 * Aspect type for creation of an object
+	 */
+	public static final String ASPECT_TYPE_CREATE = "create";
+
+	/**
+	 * Aspect type for an update to an object
+	 */
+	public static final String ASPECT_TYPE_UPDATE = "update";
+
+	/**
+	 * Aspect type for deletion of an object
+	 */
+	public static final String ASPECT_TYPE_DELETE = "delete";
+
+	/**
+	 * Type of object the event is about - {@link #OBJECT_TYPE_ACTIVITY} or {@link #OBJECT_TYPE_ATHLETE}
+	 */
+	private String objectType;
+
+	/**
+	 * Identifier of the activity or athlete
+	 */
+	private Long objectId;
+
+	/**
+	 * What happened to the object - {@link #ASPECT_TYPE_CREATE}, {@link #ASPECT_TYPE_UPDATE} or {@link #ASPECT_TYPE_DELETE}
+	 */
+	private String aspectType;
+
+	/**
+	 * For updates, the fields which changed and their new values (e.g. <code>"private" : "true"</code>, or <code>"authorized" : "false"</code> when an athlete revokes access)
+	 */
+	private Map<String, String> updates;
+
+	/**
+	 * Identifier of the athlete who owns the object
+	 */
+	private Integer ownerId;
+
+	/**
+	 * Identifier of the subscription the event was sent for
+	 */
+	private Integer subscriptionId;
+
+	/**
+	 * Time the event occurred (seconds since the epoch)
+	 */
+	private Long eventTime;
+
+	/**
+	 * No-argument constructor
+	 */
+	public StravaWebhookEvent() {
+		// No args constructor
+	}
+
+	/**
+	 * @see java.lang.Object#equals(java.lang.Object)
+	 */
+	@Override
+	public boolean equals(final Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null) {
+			return false;
+		}
+		if (!(obj instanceof StravaWebhookEvent)) {
+			return false;
+		}
+		final StravaWebhookEvent other = (StravaWebhookEvent) obj;
+		if (this.aspectType == null) {
+			if (other.aspectType != null) {
+				return false;
+			}
+		} else if (!this.aspectType.equals(other.aspectType)) {
+			return false;
+		}
+		if (this.eventTime == null) {
+			if (other.eventTime != null) {
+				return false;
+			}
+		} else if (!this.eventTime.equals(other.eventTime)) {
+			return false;
+		}
+		if (this.objectId == null) {
+			if (other.objectId != null) {
+				return false;
+			}
+		} else if (!this.objectId.equals(other.objectId)) {
+			return false;
+		}
+		if (this.objectType == null) {
+			if (other.objectType != null) {
+				return false;
+			}
+		} else if (!this.objectType.equals(other.objectType)) {
+			return false;
+		}
+		if (this.ownerId == null) {
+			if (other.ownerId != null) {
+				return false;
+			}
+		} else if (!this.ownerId.equals(other.ownerId)) {
+			return false;
+		}
+		if (this.subscriptionId == null) {
+			if (other.subscriptionId != null) {
+				return false;
+			}
+		} else if (!this.subscriptionId.equals(other.subscriptionId)) {
+			return false;
+		}
+		if (this.updates == null) {
+			return other.updates == null;
+		} else return this.updates.equals(other.updates);
+	}
+
+	/**
+	 * @return the aspectType
+	 */
+	public String getAspectType() {
+		return this.aspectType;
+	}
+
+	/**
+	 * @return the eventTime
+	 */
+	public Long getEventTime() {
+		return this.eventTime;
+	}
+
+	/**
+	 * @return the objectId
+	 */
+	public Long getObjectId() {
+		return this.objectId;
+	}
+
+	/**
+	 * @return the objectType
+	 */
+	public String getObjectType() {
+		return this.objectType;
+	}
+
+	/**
+	 * @return the ownerId
+	 */
+	public Integer getOwnerId() {
+		return this.ownerId;
+	}
+
+	@Override
+	public StravaResourceState getResourceState() {
+		return StravaResourceState.DETAILED;
+	}
+
+	/**
+	 * @return the subscriptionId
+	 */
+	public Integer getSubscriptionId() {
+		return this.subscriptionId;
+	}
+
+	/**
+	 * @return the updates
+	 */
+	public Map<String, String> getUpdates() {
+		return this.updates;
+	}
+
+	/**
+	 * @see java.lang.Object#hashCode()
+	 */
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = (prime * result) + ((this.aspectType == null) ? 0 : this.aspectType.hashCode());
+		result = (prime * result) + ((this.eventTime == null) ? 0 : this.eventTime.hashCode());
+		result = (prime * result) + ((this.objectId == null) ? 0 : this.objectId.hashCode());
+		result = (prime * result) + ((this.objectType == null) ? 0 : this.objectType.hashCode());
+		result = (prime * result) + ((this.ownerId == null) ? 0 : this.ownerId.hashCode());
+		result = (prime * result) + ((this.subscriptionId == null) ? 0 : this.subscriptionId.hashCode());
+		result = (prime * result) + ((this.updates == null) ? 0 : this.updates.hashCode());
+		return result;
+	}
+
+	/**
+	 * @param aspectType
+	 *            the aspectType to set
+	 */
+	public void setAspectType(final String aspectType) {
+		this.aspectType = aspectType;
+	}
+
+	/**
+	 * @param eventTime
+	 *            the eventTime to set
+	 */
+	public void setEventTime(final Long eventTime) {
+		this.eventTime = eventTime;
+	}
+
+	/**
+	 * @param objectId
+	 *            the objectId to set
+	 */
+	public void setObjectId(final Long objectId) {
+		this.objectId = objectId;
+	}
+
+	/**
+	 * @param objectType
+	 *            the objectType to set
+	 */
+	public void setObjectType(final String objectType) {
+		this.objectType = objectType;
+	}
+
+	/**
+	 * @param ownerId
+	 *            the ownerId to set
+	 */
+	public void setOwnerId(final Integer ownerId) {
+		this.ownerId = ownerId;
+	}
+
+	/**
+	 * @param subscriptionId
+	 *            the subscriptionId to set
+	 */
+	public void setSubscriptionId(final Integer subscriptionId) {
+		this.subscriptionId = subscriptionId;
+	}
+
+	/**
+	 * @param updates
+	 *            the updates to set
+	 */
+	public void setUpdates(final Map<String, String> updates) {
+		this.updates = updates;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaWebhookEvent [objectType=" + this.objectType + ", objectId=" + this.objectId + ", aspectType=" + this.aspectType + ", updates=" + this.updates + ", ownerId="
+				+ this.ownerId + ", subscriptionId=" + this.subscriptionId + ", eventTime=" + this.eventTime + "]";
+	}
+}
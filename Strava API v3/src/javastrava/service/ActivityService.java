@@ -11,6 +11,7 @@ import javastrava.model.StravaAthlete;
 import javastrava.model.StravaComment;
 import javastrava.model.StravaLap;
 import javastrava.model.StravaPhoto;
+import javastrava.model.reference.StravaResourceState;
 import javastrava.service.exception.BadRequestException;
 import javastrava.service.exception.NotFoundException;
 import javastrava.util.Paging;
@@ -399,6 +400,24 @@ public interface ActivityService extends StravaService {
 	 */
     StravaActivity getActivity(final Long activityId, final Boolean includeAllEfforts);
 
+	/**
+	 * <p>
+	 * Returns an activity from the cache if a representation at least as complete as <code>minimumState</code> is held there, and otherwise behaves as {@link #getActivity(Long)}
+	 * </p>
+	 *
+	 * <p>
+	 * The summaries returned by the activity list endpoints are cached, so callers which only need summary fields can ask for {@link StravaResourceState#SUMMARY} and avoid a request for
+	 * the detailed representation.
+	 * </p>
+	 *
+	 * @param activityId
+	 *            The id of the {@link StravaActivity activity} to be returned
+	 * @param minimumState
+	 *            {@link StravaResourceState#SUMMARY} or {@link StravaResourceState#DETAILED}
+	 * @return The activity, or <code>null</code> if it does not exist
+	 */
+    StravaActivity getActivity(final Long activityId, final StravaResourceState minimumState);
+
 	/**
 	 * <p>
 	 * StravaActivity details, including segment efforts, splits and best efforts, are only available to the owner of the activity.
@@ -473,6 +492,19 @@ public interface ActivityService extends StravaService {
 	 */
     CompletableFuture<StravaActivity> getActivityAsync(final Long activityId, final Boolean includeAllEfforts);
 
+	/**
+	 * <p>
+	 * Returns an activity from the cache if a representation at least as complete as <code>minimumState</code> is held there, and otherwise behaves as {@link #getActivityAsync(Long)}
+	 * </p>
+	 *
+	 * @param activityId
+	 *            The id of the {@link StravaActivity activity} to be returned
+	 * @param minimumState
+	 *            {@link StravaResourceState#SUMMARY} or {@link StravaResourceState#DETAILED}
+	 * @return (A {@link CompletableFuture} which returns) The activity, or <code>null</code> if it does not exist
+	 */
+    CompletableFuture<StravaActivity> getActivityAsync(final Long activityId, final StravaResourceState minimumState);
+
 	/**
 	 * <p>
 	 * Kudo an activity (kudo is given by the authenticated athlete). You can do this multiple times, but the activity only receives one kudos.
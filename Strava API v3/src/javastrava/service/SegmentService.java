@@ -204,6 +204,24 @@ public interface SegmentService extends StravaService {
 	 */
     StravaSegment getSegment(final Integer segmentId);
 
+	/**
+	 * <p>
+	 * Returns a segment from the cache if a representation at least as complete as <code>minimumState</code> is held there, and otherwise behaves as {@link #getSegment(Integer)}
+	 * </p>
+	 *
+	 * <p>
+	 * The summaries returned by the starred segment list endpoints are cached, so callers which only need summary fields can ask for {@link StravaResourceState#SUMMARY} and avoid a
+	 * request for the detailed representation.
+	 * </p>
+	 *
+	 * @param segmentId
+	 *            The id of the {@link StravaSegment} to be retrieved
+	 * @param minimumState
+	 *            {@link StravaResourceState#SUMMARY} or {@link StravaResourceState#DETAILED}
+	 * @return The segment, or <code>null</code> if it does not exist
+	 */
+    StravaSegment getSegment(final Integer segmentId, final StravaResourceState minimumState);
+
 	/**
 	 * <p>
 	 * Retrieve details about a specific {@link StravaSegment segment}.
@@ -227,6 +245,19 @@ public interface SegmentService extends StravaService {
 	 */
     CompletableFuture<StravaSegment> getSegmentAsync(final Integer segmentId);
 
+	/**
+	 * <p>
+	 * Returns a segment from the cache if a representation at least as complete as <code>minimumState</code> is held there, and otherwise behaves as {@link #getSegmentAsync(Integer)}
+	 * </p>
+	 *
+	 * @param segmentId
+	 *            The id of the {@link StravaSegment} to be retrieved
+	 * @param minimumState
+	 *            {@link StravaResourceState#SUMMARY} or {@link StravaResourceState#DETAILED}
+	 * @return (A {@link CompletableFuture} which returns) The segment, or <code>null</code> if it does not exist
+	 */
+    CompletableFuture<StravaSegment> getSegmentAsync(final Integer segmentId, final StravaResourceState minimumState);
+
 	/**
 	 * <p>
 	 * {@link StravaSegmentLeaderboard Leaderboards} represent the ranking of {@link StravaAthlete athletes} on specific {@link StravaSegment segments}.
@@ -435,6 +435,14 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.activityService.getActivity(activityId, includeAllEfforts);
     }
 
+    /**
+     * @see javastrava.service.ActivityService#getActivity(java.lang.Long, javastrava.model.reference.StravaResourceState)
+     */
+    @Override
+    public StravaActivity getActivity(final Long activityId, final StravaResourceState minimumState) {
+        return this.activityService.getActivity(activityId, minimumState);
+    }
+
     /**
      * @see javastrava.service.ActivityService#getActivityAsync(java.lang.Long)
      */
@@ -454,6 +462,14 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.activityService.getActivityAsync(activityId, includeAllEfforts);
     }
 
+    /**
+     * @see javastrava.service.ActivityService#getActivityAsync(java.lang.Long, javastrava.model.reference.StravaResourceState)
+     */
+    @Override
+    public CompletableFuture<StravaActivity> getActivityAsync(final Long activityId, final StravaResourceState minimumState) {
+        return this.activityService.getActivityAsync(activityId, minimumState);
+    }
+
     /**
      * @param activityId Activity identifier
      * @return List of streams for the activity, or <code>null</code> if the activity does not exist
@@ -714,6 +730,28 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.streamService.getEffortStreamsAsync(effortId, resolution, seriesType, types);
     }
 
+    /**
+     * @param effort The segment effort
+     * @param types  List of types, if the effort does not have that stream it will not be included in the response
+     * @return List of streams for the segment effort, or <code>null</code> if the effort does not exist
+     * @see javastrava.service.StreamService#getEffortStreams(javastrava.model.StravaSegmentEffort, javastrava.model.reference.StravaStreamType[])
+     */
+    @Override
+    public List<StravaStream> getEffortStreams(final StravaSegmentEffort effort, final StravaStreamType... types) {
+        return this.streamService.getEffortStreams(effort, types);
+    }
+
+    /**
+     * @param effort The segment effort
+     * @param types  List of types, if the effort does not have that stream it will not be included in the response
+     * @return List of streams for the segment effort, or <code>null</code> if the effort does not exist
+     * @see javastrava.service.StreamService#getEffortStreamsAsync(javastrava.model.StravaSegmentEffort, javastrava.model.reference.StravaStreamType[])
+     */
+    @Override
+    public CompletableFuture<List<StravaStream>> getEffortStreamsAsync(final StravaSegmentEffort effort, final StravaStreamType... types) {
+        return this.streamService.getEffortStreamsAsync(effort, types);
+    }
+
     @Override
     public StravaClubEvent getEvent(Integer id) {
         return this.clubGroupEventService.getEvent(id);
@@ -744,6 +782,28 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.gearService.getGearAsync(gearId);
     }
 
+    /**
+     * @param lap   The lap
+     * @param types List of types, if the activity does not have that stream it will not be included in the response
+     * @return List of streams for the lap, or <code>null</code> if the activity does not exist or the lap can't be located in its streams
+     * @see javastrava.service.StreamService#getLapStreams(javastrava.model.StravaLap, javastrava.model.reference.StravaStreamType[])
+     */
+    @Override
+    public List<StravaStream> getLapStreams(final StravaLap lap, final StravaStreamType... types) {
+        return this.streamService.getLapStreams(lap, types);
+    }
+
+    /**
+     * @param lap   The lap
+     * @param types List of types, if the activity does not have that stream it will not be included in the response
+     * @return List of streams for the lap, or <code>null</code> if the activity does not exist or the lap can't be located in its streams
+     * @see javastrava.service.StreamService#getLapStreamsAsync(javastrava.model.StravaLap, javastrava.model.reference.StravaStreamType[])
+     */
+    @Override
+    public CompletableFuture<List<StravaStream>> getLapStreamsAsync(final StravaLap lap, final StravaStreamType... types) {
+        return this.streamService.getLapStreamsAsync(lap, types);
+    }
+
     /**
      * <p>
      * Get details of a specific running race
@@ -808,6 +868,14 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.segmentService.getSegment(segmentId);
     }
 
+    /**
+     * @see javastrava.service.SegmentService#getSegment(java.lang.Integer, javastrava.model.reference.StravaResourceState)
+     */
+    @Override
+    public StravaSegment getSegment(final Integer segmentId, final StravaResourceState minimumState) {
+        return this.segmentService.getSegment(segmentId, minimumState);
+    }
+
     /**
      * @param segmentId Segment identifier
      * @return Segment details, or <code>null</code> if the segment does not exist
@@ -818,6 +886,14 @@ public class Strava implements ActivityService, AthleteService, ChallengeService
         return this.segmentService.getSegmentAsync(segmentId);
     }
 
+    /**
+     * @see javastrava.service.SegmentService#getSegmentAsync(java.lang.Integer, javastrava.model.reference.StravaResourceState)
+     */
+    @Override
+    public CompletableFuture<StravaSegment> getSegmentAsync(final Integer segmentId, final StravaResourceState minimumState) {
+        return this.segmentService.getSegmentAsync(segmentId, minimumState);
+    }
+
     /**
      * @param segmentEffortId Segment effort identifier
      * @return Segment effort, or <code>null</code> if the effort does not exist
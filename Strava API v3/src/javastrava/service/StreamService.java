@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.model.StravaActivity;
+import javastrava.model.StravaLap;
 import javastrava.model.StravaSegment;
 import javastrava.model.StravaSegmentEffort;
 import javastrava.model.StravaStream;
@@ -318,6 +319,75 @@ public interface StreamService extends StravaService {
     CompletableFuture<List<StravaStream>> getEffortStreamsAsync(final Long effortId, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType,
                                                                 final StravaStreamType... types);
 
+	/**
+	 * <p>
+	 * Returns the full-resolution streams of a {@link StravaSegmentEffort segment effort}, derived from the streams of its activity using the effort's start and end indices
+	 * </p>
+	 *
+	 * <p>
+	 * The activity's streams are requested once and cached, so getting the streams of every effort in an activity costs a single request rather than one per effort. The streams
+	 * returned are read-only views over the cached activity streams. If the effort doesn't have its activity and indices (e.g. it is a summary representation), or the activity's streams
+	 * aren't available, the streams are requested for the effort itself as in {@link #getEffortStreams(Long, StravaStreamResolutionType, StravaStreamSeriesDownsamplingType, StravaStreamType...)}.
+	 * </p>
+	 *
+	 * @param effort
+	 *            The segment effort
+	 * @param types
+	 *            List of types, if the effort does not have that stream it will not be included in the response
+	 * @return Returns an array of unordered stream objects, or <code>null</code> if the effort does not exist
+	 */
+    List<StravaStream> getEffortStreams(final StravaSegmentEffort effort, final StravaStreamType... types);
+
+	/**
+	 * <p>
+	 * Returns the full-resolution streams of a {@link StravaSegmentEffort segment effort}, derived from the streams of its activity using the effort's start and end indices
+	 * </p>
+	 *
+	 * @see #getEffortStreams(StravaSegmentEffort, StravaStreamType...)
+	 *
+	 * @param effort
+	 *            The segment effort
+	 * @param types
+	 *            List of types, if the effort does not have that stream it will not be included in the response
+	 * @return (A {@link CompletableFuture} which returns) an array of unordered stream objects, or <code>null</code> if the effort does not exist
+	 */
+    CompletableFuture<List<StravaStream>> getEffortStreamsAsync(final StravaSegmentEffort effort, final StravaStreamType... types);
+
+	/**
+	 * <p>
+	 * Returns the full-resolution streams of a {@link StravaLap lap}, derived from the streams of its activity using the lap's start and end indices
+	 * </p>
+	 *
+	 * <p>
+	 * The API has no endpoint for the streams of a lap. The activity's streams are requested once and cached, and the streams returned are read-only views over them. If the lap doesn't
+	 * have its indices, the range is found from the lap's start date and elapsed time in the activity's time stream instead.
+	 * </p>
+	 *
+	 * @param lap
+	 *            The lap, as returned by {@link ActivityService#listActivityLaps(Long)}
+	 * @param types
+	 *            List of types, if the activity does not have that stream it will not be included in the response
+	 * @return Returns an array of unordered stream objects, an empty list if the activity is private, or <code>null</code> if the activity does not exist or the lap can't be located
+	 *         in its streams
+	 */
+    List<StravaStream> getLapStreams(final StravaLap lap, final StravaStreamType... types);
+
+	/**
+	 * <p>
+	 * Returns the full-resolution streams of a {@link StravaLap lap}, derived from the streams of its activity using the lap's start and end indices
+	 * </p>
+	 *
+	 * @see #getLapStreams(StravaLap, StravaStreamType...)
+	 *
+	 * @param lap
+	 *            The lap, as returned by {@link ActivityService#listActivityLaps(Long)}
+	 * @param types
+	 *            List of types, if the activity does not have that stream it will not be included in the response
+	 * @return (A {@link CompletableFuture} which returns) an array of unordered stream objects, an empty list if the activity is private, or <code>null</code> if the activity does not
+	 *         exist or the lap can't be located in its streams
+	 */
+    CompletableFuture<List<StravaStream>> getLapStreamsAsync(final StravaLap lap, final StravaStreamType... types);
+
 	/**
 	 * <p>
 	 * Retrieve detailed geographical information streams about a specific {@link StravaSegment}.
@@ -1,16 +1,24 @@
 package javastrava.service.impl;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.ActivityAPI;
 import javastrava.cache.StravaCache;
+import javastrava.cache.StravaNegativeResult;
 import javastrava.cache.impl.StravaCacheImpl;
 import javastrava.config.JavastravaApplicationConfig;
 import javastrava.config.Messages;
+import javastrava.config.StravaConfig;
 import javastrava.model.StravaActivity;
 import javastrava.model.StravaActivityUpdate;
 import javastrava.model.StravaActivityZone;
@@ -26,6 +34,7 @@ import javastrava.service.exception.StravaUnknownAPIException;
 import javastrava.service.exception.UnauthorizedException;
 import javastrava.util.Paging;
 import javastrava.util.PagingHandler;
+import javastrava.util.PagingTimeRangeHandler;
 import javastrava.util.PrivacyUtils;
 import javastrava.util.StravaDateUtils;
 
@@ -83,6 +92,12 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	private final StravaCache<StravaPhoto, Integer> photoCache;
 
+	/**
+	 * Identifiers of the cached activities which were loaded with all their segment efforts, so that a background reload gets them the same way; no more are remembered than the token
+	 * can have cached
+	 */
+	private final Set<Long> allEffortsLoaded;
+
 	/**
 	 * <p>
 	 * Private constructor requires a valid access token
@@ -94,17 +109,51 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	private ActivityServiceImpl(final Token token) {
 		super(token);
 		this.activityCache = new StravaCacheImpl<>(StravaActivity.class, token);
+		final int maxEntries = StravaConfig.CACHE_TOKEN_MAX_ENTRIES;
+		this.allEffortsLoaded = Collections.synchronizedSet(Collections.newSetFromMap(new LinkedHashMap<Long, Boolean>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Long, Boolean> eldest) {
+				return size() > maxEntries;
+			}
+		}));
+		this.activityCache.setRefresher(activityId -> loadActivity(activityId, Boolean.valueOf(this.allEffortsLoaded.contains(activityId))));
 		this.commentCache = new StravaCacheImpl<>(StravaComment.class, token);
 		this.lapCache = new StravaCacheImpl<>(StravaLap.class, token);
 		this.photoCache = new StravaCacheImpl<>(StravaPhoto.class, token);
 	}
 
+	/**
+	 * @param activity
+	 *            Activity returned by the API
+	 * @return The activity, which has been put in cache unless it's UPDATING
+	 */
+	private StravaActivity cacheActivity(final StravaActivity activity) {
+		if (activity.getResourceState() != StravaResourceState.UPDATING) {
+			this.activityCache.put(activity);
+		}
+		return activity;
+	}
+
+	/**
+	 * @param activities
+	 *            Activities returned by the API, or <code>null</code>
+	 * @return The activities, with Strava's privacy weirdnesses handled, which have been put in cache
+	 */
+	private List<StravaActivity> cacheActivities(final List<StravaActivity> activities) {
+		final List<StravaActivity> handled = PrivacyUtils.handlePrivateActivities(activities, this.getToken());
+		this.activityCache.putAll(handled);
+		return handled;
+	}
+
 	/**
 	 * @see javastrava.service.StravaService#clearCache()
 	 */
 	@Override
 	public void clearCache() {
 		this.activityCache.removeAll();
+		this.allEffortsLoaded.clear();
 		this.commentCache.removeAll();
 		this.lapCache.removeAll();
 		this.photoCache.removeAll();
@@ -368,24 +417,39 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 			return cachedActivity;
 		}
 
-		// If it wasn't in cache, then get it from the API
-		final StravaActivity stravaResponse;
-		try {
-			stravaResponse = this.api.getActivity(activityId, includeAllEfforts);
-		} catch (final NotFoundException e) {
-			// Activity doesn't exist - return null
-			return null;
-		} catch (final UnauthorizedException e) {
-			return PrivacyUtils.privateActivity(activityId);
+		// Don't ask the API again about an activity it recently said doesn't exist or is private
+		final StravaNegativeResult<StravaActivity> negative = this.activityCache.getNegative(activityId);
+		if (negative != null) {
+			return negative.getValue();
 		}
 
-		// Put the activity in cache unless it's UPDATING
-		if (stravaResponse.getResourceState() != StravaResourceState.UPDATING) {
-			this.activityCache.put(stravaResponse);
+		// If it wasn't in cache, then get it from the API
+		final StravaActivity stravaResponse = loadActivity(activityId, includeAllEfforts);
+		if ((stravaResponse == null) || (stravaResponse.getResourceState() == StravaResourceState.PRIVATE)) {
+			// Activity doesn't exist (null) or is private
+			this.activityCache.putNegative(activityId, stravaResponse);
+			return stravaResponse;
+		}
+		if (Boolean.TRUE.equals(includeAllEfforts)) {
+			this.allEffortsLoaded.add(activityId);
+		} else {
+			this.allEffortsLoaded.remove(activityId);
 		}
 
-		// And return it
-		return stravaResponse;
+		return cacheActivity(stravaResponse);
+	}
+
+	/**
+	 * @see javastrava.service.ActivityService#getActivity(java.lang.Long, javastrava.model.reference.StravaResourceState)
+	 */
+	@Override
+	public StravaActivity getActivity(final Long activityId, final StravaResourceState minimumState) {
+		// A summary from one of the list endpoints will do if that's all the caller needs
+		final StravaActivity cachedActivity = this.activityCache.get(activityId, minimumState);
+		if (cachedActivity != null) {
+			return cachedActivity;
+		}
+		return getActivity(activityId);
 	}
 
 	/**
@@ -393,7 +457,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<StravaActivity> getActivityAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> getActivity(activityId));
+		return getActivityAsync(activityId, Boolean.FALSE);
 	}
 
 	/**
@@ -401,7 +465,48 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<StravaActivity> getActivityAsync(final Long activityId, final Boolean includeAllEfforts) {
-		return StravaServiceImpl.future(() -> getActivity(activityId, includeAllEfforts));
+		if (activityId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Attempt to get the activity from cache
+		final StravaActivity cachedActivity = this.activityCache.get(activityId);
+		if (cachedActivity != null) {
+			return CompletableFuture.completedFuture(cachedActivity);
+		}
+		final StravaNegativeResult<StravaActivity> negative = this.activityCache.getNegative(activityId);
+		if (negative != null) {
+			return CompletableFuture.completedFuture(negative.getValue());
+		}
+
+		// If it wasn't in cache, then get it from the API without blocking
+		return StravaServiceImpl.handle(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.getActivity(activityId, includeAllEfforts)), (activity, error) -> {
+			if (error instanceof NotFoundException) {
+				this.activityCache.putNegative(activityId, null);
+				return null;
+			}
+			if (error instanceof UnauthorizedException) {
+				final StravaActivity privateActivity = PrivacyUtils.privateActivity(activityId);
+				this.activityCache.putNegative(activityId, privateActivity);
+				return privateActivity;
+			}
+			if (error != null) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+			return cacheActivity(activity);
+		});
+	}
+
+	/**
+	 * @see javastrava.service.ActivityService#getActivityAsync(java.lang.Long, javastrava.model.reference.StravaResourceState)
+	 */
+	@Override
+	public CompletableFuture<StravaActivity> getActivityAsync(final Long activityId, final StravaResourceState minimumState) {
+		final StravaActivity cachedActivity = this.activityCache.get(activityId, minimumState);
+		if (cachedActivity != null) {
+			return CompletableFuture.completedFuture(cachedActivity);
+		}
+		return getActivityAsync(activityId);
 	}
 
 	/**
@@ -503,7 +608,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaComment>> listActivityCommentsAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listActivityComments(activityId));
+		return listActivityCommentsAsync(activityId, Boolean.FALSE, null);
 	}
 
 	/**
@@ -511,7 +616,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaComment>> listActivityCommentsAsync(final Long activityId, final Boolean markdown) {
-		return StravaServiceImpl.future(() -> listActivityComments(activityId, markdown));
+		return listActivityCommentsAsync(activityId, markdown, null);
 	}
 
 	/**
@@ -519,7 +624,19 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaComment>> listActivityCommentsAsync(final Long activityId, final Boolean markdown, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listActivityComments(activityId, markdown, pagingInstruction));
+		return StravaServiceImpl.compose(getActivityAsync(activityId), activity -> {
+			// If the activity doesn't exist, then neither do the comments; if it's private and not accessible, don't return them
+			if ((activity == null) || (activity.getResourceState() == StravaResourceState.PRIVATE)) {
+				return CompletableFuture.completedFuture(activity == null ? null : new ArrayList<StravaComment>());
+			}
+
+			// Get the comments from Strava, and put them in the cache when they arrive
+			return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+					thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listActivityComments(activityId, markdown, thisPage.getPage(), thisPage.getPageSize())))), comments -> {
+						this.commentCache.putAll(comments);
+						return comments;
+					});
+		});
 	}
 
 	/**
@@ -527,7 +644,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaComment>> listActivityCommentsAsync(final Long activityId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listActivityComments(activityId, pagingInstruction));
+		return listActivityCommentsAsync(activityId, Boolean.FALSE, pagingInstruction);
 	}
 
 	/**
@@ -563,7 +680,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listActivityKudoersAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listActivityKudoers(activityId));
+		return listActivityKudoersAsync(activityId, null);
 	}
 
 	/**
@@ -571,7 +688,14 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listActivityKudoersAsync(final Long activityId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listActivityKudoers(activityId, pagingInstruction));
+		return StravaServiceImpl.compose(getActivityAsync(activityId), activity -> {
+			// If the activity doesn't exist, then neither do the kudoers; if it's private and inaccessible, return an empty list
+			if ((activity == null) || (activity.getResourceState() == StravaResourceState.PRIVATE)) {
+				return CompletableFuture.completedFuture(activity == null ? null : new ArrayList<StravaAthlete>());
+			}
+			return PagingHandler.handlePagingAsync(pagingInstruction,
+					thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listActivityKudoers(activityId, thisPage.getPage(), thisPage.getPageSize()))));
+		});
 	}
 
 	/**
@@ -622,7 +746,32 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaLap>> listActivityLapsAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listActivityLaps(activityId));
+		return StravaServiceImpl.compose(getActivityAsync(activityId), activity -> {
+			// If the activity doesn't exist, return null; if it's private and inaccessible, return an empty list
+			if ((activity == null) || (activity.getResourceState() == StravaResourceState.PRIVATE)) {
+				return CompletableFuture.completedFuture(activity == null ? null : new ArrayList<StravaLap>());
+			}
+
+			// Try to get the laps from cache
+			final List<StravaLap> laps = new ArrayList<>();
+			for (final StravaLap lap : this.lapCache.list()) {
+				if (lap.getActivity().getId().equals(activityId)) {
+					laps.add(lap);
+				}
+			}
+			if (!laps.isEmpty()) {
+				return CompletableFuture.completedFuture(laps);
+			}
+
+			// Get the laps from Strava, and put them in the cache when they arrive
+			return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listActivityLaps(activityId))), (result, error) -> {
+				if (error != null) {
+					return StravaServiceImpl.notFound(error);
+				}
+				this.lapCache.putAll(result);
+				return result;
+			});
+		});
 	}
 
 	/**
@@ -672,7 +821,21 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaPhoto>> listActivityPhotosAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listActivityPhotos(activityId));
+		return StravaServiceImpl.compose(getActivityAsync(activityId), activity -> {
+			// If the activity doesn't exist, return null; if it's private and inaccessible, return an empty list
+			if ((activity == null) || (activity.getResourceState() == StravaResourceState.PRIVATE)) {
+				return CompletableFuture.completedFuture(activity == null ? null : new ArrayList<StravaPhoto>());
+			}
+
+			// Get the photos from Strava, and put them in the cache when they arrive
+			return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listActivityPhotos(activityId))), (result, error) -> {
+				if (error != null) {
+					return StravaServiceImpl.notFound(error);
+				}
+				this.photoCache.putAll(result);
+				return result;
+			});
+		});
 	}
 
 	/**
@@ -703,7 +866,14 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivityZone>> listActivityZonesAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listActivityZones(activityId));
+		return StravaServiceImpl.compose(getActivityAsync(activityId), activity -> {
+			// If the activity doesn't exist, return null; if it's private and inaccessible, return an empty list
+			if ((activity == null) || (activity.getResourceState() == StravaResourceState.PRIVATE)) {
+				return CompletableFuture.completedFuture(activity == null ? null : new ArrayList<StravaActivityZone>());
+			}
+			return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listActivityZones(activityId))),
+					(result, error) -> (error == null ? result : StravaServiceImpl.<List<StravaActivityZone>> notFound(error)));
+		});
 	}
 
 	/**
@@ -719,7 +889,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaComment>> listAllActivityCommentsAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listAllActivityComments(activityId));
+		return PagingHandler.handleListAllAsync(thisPage -> listActivityCommentsAsync(activityId, thisPage));
 	}
 
 	/**
@@ -735,7 +905,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllActivityKudoersAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listAllActivityKudoers(activityId));
+		return PagingHandler.handleListAllAsync(thisPage -> listActivityKudoersAsync(activityId, thisPage));
 	}
 
 	/**
@@ -743,6 +913,9 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public List<StravaActivity> listAllAuthenticatedAthleteActivities() {
+		if (StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			return listAllAuthenticatedAthleteActivities(null, null);
+		}
 		return PagingHandler.handleListAll(this::listAuthenticatedAthleteActivities);
 
 	}
@@ -752,8 +925,21 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public List<StravaActivity> listAllAuthenticatedAthleteActivities(final LocalDateTime before, final LocalDateTime after) {
+		if (!StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			return PagingHandler.handleListAll(thisPage -> listAuthenticatedAthleteActivities(before, after, thisPage));
+		}
+
+		// Get the activities in windows of time, which don't shift if the athlete uploads or deletes an activity meanwhile
+		final List<StravaActivity> activities = PagingTimeRangeHandler.handleListAll(
+				(windowAfter, windowBefore, thisPage) -> listAuthenticatedAthleteActivities(windowBefore, windowAfter, thisPage), StravaActivity::getId,
+				activity -> (activity.getStartDate() == null ? null : LocalDateTime.ofInstant(activity.getStartDate().toInstant(), ZoneOffset.UTC)),
+				(after == null ? LocalDateTime.ofEpochSecond(1, 0, ZoneOffset.UTC) : after.plusSeconds(1)), (before == null ? LocalDateTime.now(ZoneOffset.UTC).plusDays(1) : before));
 
-		return PagingHandler.handleListAll(thisPage -> listAuthenticatedAthleteActivities(before, after, thisPage));
+		// Strava returns activities newest first, unless asked for those after a date
+		if ((activities != null) && (after == null)) {
+			Collections.reverse(activities);
+		}
+		return activities;
 	}
 
 	/**
@@ -761,7 +947,10 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAllAuthenticatedAthleteActivitiesAsync() {
-		return StravaServiceImpl.future(this::listAllAuthenticatedAthleteActivities);
+		if (StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			return listAllAuthenticatedAthleteActivitiesAsync(null, null);
+		}
+		return PagingHandler.handleListAllAsync(this::listAuthenticatedAthleteActivitiesAsync);
 	}
 
 	/**
@@ -769,6 +958,11 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAllAuthenticatedAthleteActivitiesAsync(final LocalDateTime before, final LocalDateTime after) {
+		if (!StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			return PagingHandler.handleListAllAsync(thisPage -> listAuthenticatedAthleteActivitiesAsync(before, after, thisPage));
+		}
+
+		// The time-partitioned walk decides each window from the one before, so it still runs on a thread of its own
 		return StravaServiceImpl.future(() -> listAllAuthenticatedAthleteActivities(before, after));
 	}
 
@@ -785,7 +979,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAllFriendsActivitiesAsync() {
-		return StravaServiceImpl.future(this::listAllFriendsActivities);
+		return PagingHandler.handleListAllAsync(this::listFriendsActivitiesAsync);
 	}
 
 	/**
@@ -801,7 +995,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAllRelatedActivitiesAsync(final Long activityId) {
-		return StravaServiceImpl.future(() -> listAllRelatedActivities(activityId));
+		return PagingHandler.handleListAllAsync(thisPage -> listRelatedActivitiesAsync(activityId, thisPage));
 	}
 
 	/**
@@ -829,17 +1023,11 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 		final Integer secondsAfter = StravaDateUtils.secondsSinceUnixEpoch(after);
 
 		// Get the activities from Strava
-		List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction,
+		final List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction,
 				thisPage -> Arrays.asList(this.api.listAuthenticatedAthleteActivities(secondsBefore, secondsAfter, thisPage.getPage(), thisPage.getPageSize())));
 
-		// Handle Strava's slight weirdnesses with privacy
-		activities = PrivacyUtils.handlePrivateActivities(activities, this.getToken());
-
-		// Put the activities in the cache
-		this.activityCache.putAll(activities);
-
-		// Return them
-		return activities;
+		// Handle Strava's slight weirdnesses with privacy, and put the activities in the cache
+		return cacheActivities(activities);
 	}
 
 	/**
@@ -855,7 +1043,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAuthenticatedAthleteActivitiesAsync() {
-		return StravaServiceImpl.future(this::listAuthenticatedAthleteActivities);
+		return listAuthenticatedAthleteActivitiesAsync(null, null, null);
 	}
 
 	/**
@@ -863,7 +1051,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAuthenticatedAthleteActivitiesAsync(final LocalDateTime before, final LocalDateTime after) {
-		return StravaServiceImpl.future(() -> listAuthenticatedAthleteActivities(before, after));
+		return listAuthenticatedAthleteActivitiesAsync(before, after, null);
 	}
 
 	/**
@@ -871,7 +1059,11 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAuthenticatedAthleteActivitiesAsync(final LocalDateTime before, final LocalDateTime after, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAuthenticatedAthleteActivities(before, after, pagingInstruction));
+		final Integer secondsBefore = StravaDateUtils.secondsSinceUnixEpoch(before);
+		final Integer secondsAfter = StravaDateUtils.secondsSinceUnixEpoch(after);
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction, thisPage -> StravaServiceImpl
+				.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listAuthenticatedAthleteActivities(secondsBefore, secondsAfter, thisPage.getPage(), thisPage.getPageSize())))),
+				this::cacheActivities);
 	}
 
 	/**
@@ -879,7 +1071,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAuthenticatedAthleteActivitiesAsync(final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAuthenticatedAthleteActivities(pagingInstruction));
+		return listAuthenticatedAthleteActivitiesAsync(null, null, pagingInstruction);
 	}
 
 	/**
@@ -896,16 +1088,10 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	@Override
 	public List<StravaActivity> listFriendsActivities(final Paging pagingInstruction) {
 		// Attempt to get the activities from Strava
-		List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction, thisPage -> Arrays.asList(this.api.listFriendsActivities(thisPage.getPage(), thisPage.getPageSize())));
-
-		// Handle any privacy errors
-		activities = PrivacyUtils.handlePrivateActivities(activities, this.getToken());
+		final List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction, thisPage -> Arrays.asList(this.api.listFriendsActivities(thisPage.getPage(), thisPage.getPageSize())));
 
-		// Put the activities in the cache
-		this.activityCache.putAll(activities);
-
-		// Return the activities
-		return activities;
+		// Handle any privacy errors, and put the activities in the cache
+		return cacheActivities(activities);
 	}
 
 	/**
@@ -913,7 +1099,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listFriendsActivitiesAsync() {
-		return StravaServiceImpl.future(this::listFriendsActivities);
+		return listFriendsActivitiesAsync(null);
 	}
 
 	/**
@@ -921,7 +1107,8 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listFriendsActivitiesAsync(final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listFriendsActivities(pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listFriendsActivities(thisPage.getPage(), thisPage.getPageSize())))), this::cacheActivities);
 	}
 
 	/**
@@ -938,17 +1125,11 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	@Override
 	public List<StravaActivity> listRelatedActivities(final Long id, final Paging pagingInstruction) {
 		// Attempt to get the activities from Strava
-		List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction,
+		final List<StravaActivity> activities = PagingHandler.handlePaging(pagingInstruction,
 				thisPage -> Arrays.asList(ActivityServiceImpl.this.api.listRelatedActivities(id, thisPage.getPage(), thisPage.getPageSize())));
 
-		// Handle any privacy errors
-		activities = PrivacyUtils.handlePrivateActivities(activities, this.getToken());
-
-		// Put all the activities in cache
-		this.activityCache.putAll(activities);
-
-		// Return the activities
-		return activities;
+		// Handle any privacy errors, and put the activities in the cache
+		return cacheActivities(activities);
 	}
 
 	/**
@@ -956,7 +1137,7 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listRelatedActivitiesAsync(final Long id) {
-		return StravaServiceImpl.future(() -> listRelatedActivities(id));
+		return listRelatedActivitiesAsync(id, null);
 	}
 
 	/**
@@ -964,7 +1145,29 @@ public class ActivityServiceImpl extends StravaServiceImpl implements ActivitySe
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listRelatedActivitiesAsync(final Long id, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listRelatedActivities(id, pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ActivityAPI.class, api -> api.listRelatedActivities(id, thisPage.getPage(), thisPage.getPageSize())))), this::cacheActivities);
+	}
+
+	/**
+	 * <p>
+	 * Gets an activity from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param activityId
+	 *            The id of the activity to be returned
+	 * @param includeAllEfforts
+	 *            Whether to return all segment efforts
+	 * @return The activity, or <code>null</code> if it does not exist
+	 */
+	private StravaActivity loadActivity(final Long activityId, final Boolean includeAllEfforts) {
+		try {
+			return this.api.getActivity(activityId, includeAllEfforts);
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return PrivacyUtils.privateActivity(activityId);
+		}
 	}
 
 	/**
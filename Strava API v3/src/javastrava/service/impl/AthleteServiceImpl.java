@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.AthleteAPI;
 import javastrava.cache.StravaCache;
 import javastrava.cache.impl.StravaCacheImpl;
 import javastrava.model.StravaAthlete;
@@ -75,6 +76,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	private AthleteServiceImpl(final Token token) {
 		super(token);
 		this.athleteCache = new StravaCacheImpl<>(StravaAthlete.class, token);
+		this.athleteCache.setRefresher(this::loadAthlete);
 		this.effortCache = new StravaCacheImpl<>(StravaSegmentEffort.class, token);
 	}
 
@@ -94,25 +96,14 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 			return null;
 		}
 
-		// Attempt to get the athlete from the cache
-		StravaAthlete athlete = this.athleteCache.get(id);
+		// Attempt to get the athlete from the cache - Strava only ever returns a summary of an athlete here, so that's all that's needed
+		StravaAthlete athlete = this.athleteCache.get(id, StravaResourceState.SUMMARY);
 		if ((athlete != null) && (athlete.getResourceState() != StravaResourceState.META)) {
 			return athlete;
 		}
 
 		// Attempt to get the athlete from the API if it's not in cache
-		try {
-			athlete = this.api.getAthlete(id);
-		} catch (final NotFoundException e) {
-			return null;
-		} catch (final UnauthorizedException e) {
-			if (accessTokenIsValid()) {
-				athlete = new StravaAthlete();
-				athlete.setId(id);
-				return athlete;
-			}
-			throw e;
-		}
+		athlete = loadAthlete(id);
 
 		// Put the athlete in the cache
 		this.athleteCache.put(athlete);
@@ -124,7 +115,44 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<StravaAthlete> getAthleteAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> getAthlete(athleteId));
+		// If the id is null, return null
+		if (athleteId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Attempt to get the athlete from the cache
+		final StravaAthlete athlete = this.athleteCache.get(athleteId, StravaResourceState.SUMMARY);
+		if ((athlete != null) && (athlete.getResourceState() != StravaResourceState.META)) {
+			return CompletableFuture.completedFuture(athlete);
+		}
+
+		// Attempt to get the athlete from the API without blocking
+		return StravaServiceImpl.handleCompose(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.getAthlete(athleteId)), (result, error) -> {
+			if (error instanceof NotFoundException) {
+				return CompletableFuture.completedFuture(null);
+			}
+			if (error instanceof UnauthorizedException) {
+				// Only return an empty athlete if the token itself is still valid
+				return StravaServiceImpl.handle(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.getAuthenticatedAthlete()), (authenticatedAthlete, tokenError) -> {
+					if (tokenError instanceof UnauthorizedException) {
+						throw StravaServiceImpl.rethrow(error);
+					}
+					if (tokenError != null) {
+						throw StravaServiceImpl.rethrow(tokenError);
+					}
+					final StravaAthlete privateAthlete = new StravaAthlete();
+					privateAthlete.setId(athleteId);
+					return privateAthlete;
+				});
+			}
+			if (error != null) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+
+			// Put the athlete in the cache
+			this.athleteCache.put(result);
+			return CompletableFuture.completedFuture(result);
+		});
 	}
 
 	/**
@@ -190,7 +218,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllAthleteFriendsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAllAthleteFriends(athleteId));
+		return PagingHandler.handleListAllAsync(thisPage -> listAthleteFriendsAsync(athleteId, thisPage));
 	}
 
 	/**
@@ -206,7 +234,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listAllAthleteKOMsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAllAthleteKOMs(athleteId));
+		return PagingHandler.handleListAllAsync(thisPage -> listAthleteKOMsAsync(athleteId, thisPage));
 	}
 
 	/**
@@ -223,7 +251,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllAthletesBothFollowingAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAllAthletesBothFollowing(athleteId));
+		return PagingHandler.handleListAllAsync(thisPage -> listAthletesBothFollowingAsync(athleteId, thisPage));
 	}
 
 	/**
@@ -239,7 +267,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllAuthenticatedAthleteFriendsAsync() {
-		return StravaServiceImpl.future(this::listAllAuthenticatedAthleteFriends);
+		return PagingHandler.handleListAllAsync(this::listAuthenticatedAthleteFriendsAsync);
 	}
 
 	/**
@@ -276,7 +304,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAthleteFriendsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAthleteFriends(athleteId));
+		return listAthleteFriendsAsync(athleteId, null);
 	}
 
 	/**
@@ -284,7 +312,11 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAthleteFriendsAsync(final Integer athleteId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAthleteFriends(athleteId, pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.listAthleteFriends(athleteId, thisPage.getPage(), thisPage.getPageSize())))), athletes -> {
+					this.athleteCache.putAll(athletes);
+					return athletes;
+				});
 	}
 
 	/**
@@ -319,7 +351,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listAthleteKOMsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAthleteKOMs(athleteId));
+		return listAthleteKOMsAsync(athleteId, null);
 	}
 
 	/**
@@ -327,7 +359,11 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listAthleteKOMsAsync(final Integer athleteId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAthleteKOMs(athleteId, pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.listAthleteKOMs(athleteId, thisPage.getPage(), thisPage.getPageSize())))), efforts -> {
+					this.effortCache.putAll(efforts);
+					return efforts;
+				});
 	}
 
 	/**
@@ -362,7 +398,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAthletesBothFollowingAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAthletesBothFollowing(athleteId));
+		return listAthletesBothFollowingAsync(athleteId, null);
 	}
 
 	/**
@@ -370,7 +406,11 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAthletesBothFollowingAsync(final Integer athleteId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAthletesBothFollowing(athleteId, pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.listAthletesBothFollowing(athleteId, thisPage.getPage(), thisPage.getPageSize())))), athletes -> {
+					this.athleteCache.putAll(athletes);
+					return athletes;
+				});
 	}
 
 	/**
@@ -399,7 +439,7 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAuthenticatedAthleteFriendsAsync() {
-		return StravaServiceImpl.future(this::listAuthenticatedAthleteFriends);
+		return listAuthenticatedAthleteFriendsAsync(null);
 	}
 
 	/**
@@ -407,7 +447,35 @@ public class AthleteServiceImpl extends StravaServiceImpl implements AthleteServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAuthenticatedAthleteFriendsAsync(final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAuthenticatedAthleteFriends(pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(AthleteAPI.class, api -> api.listAuthenticatedAthleteFriends(thisPage.getPage(), thisPage.getPageSize())))), athletes -> {
+					this.athleteCache.putAll(athletes);
+					return athletes;
+				});
+	}
+
+	/**
+	 * <p>
+	 * Gets an athlete from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param athleteId
+	 *            The athlete's unique identifier
+	 * @return The athlete, or <code>null</code> if they do not exist
+	 */
+	private StravaAthlete loadAthlete(final Integer athleteId) {
+		try {
+			return this.api.getAthlete(athleteId);
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			if (accessTokenIsValid()) {
+				final StravaAthlete athlete = new StravaAthlete();
+				athlete.setId(athleteId);
+				return athlete;
+			}
+			throw e;
+		}
 	}
 
 	/**
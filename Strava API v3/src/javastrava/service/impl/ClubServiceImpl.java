@@ -6,7 +6,9 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.ClubAPI;
 import javastrava.cache.StravaCache;
+import javastrava.cache.StravaNegativeResult;
 import javastrava.cache.impl.StravaCacheImpl;
 import javastrava.model.StravaActivity;
 import javastrava.model.StravaAthlete;
@@ -84,6 +86,23 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	private ClubServiceImpl(final Token token) {
 		super(token);
 		this.clubCache = new StravaCacheImpl<>(StravaClub.class, token);
+		this.clubCache.setRefresher(this::loadClub);
+	}
+
+	/**
+	 * @param clubId
+	 *            Identifier of the club
+	 * @param club
+	 *            Club to put in cache; if it is <code>null</code> (doesn't exist) or private, a negative result is cached instead
+	 * @return The club
+	 */
+	private StravaClub cacheClub(final Integer clubId, final StravaClub club) {
+		if ((club == null) || (club.getResourceState() == StravaResourceState.PRIVATE)) {
+			this.clubCache.putNegative(clubId, club);
+		} else {
+			this.clubCache.put(club);
+		}
+		return club;
 	}
 
 	/**
@@ -110,18 +129,17 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 			return club;
 		}
 
-		// If it wasn't in cache, get it from Strava
-		try {
-			club = this.api.getClub(id);
-		} catch (final NotFoundException e) {
-			return null;
-		} catch (final UnauthorizedException e) {
-			club = PrivacyUtils.privateClubRepresentation(id);
+		// Don't ask Strava again about a club it recently said doesn't exist or is private
+		final StravaNegativeResult<StravaClub> negative = this.clubCache.getNegative(id);
+		if (negative != null) {
+			return negative.getValue();
 		}
 
+		// If it wasn't in cache, get it from Strava
+		club = loadClub(id);
+
 		// Put it in the cache and return it
-		this.clubCache.put(club);
-		return club;
+		return cacheClub(id, club);
 	}
 
 	/**
@@ -129,7 +147,31 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<StravaClub> getClubAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> getClub(clubId));
+		// If the id is null, return null
+		if (clubId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Attempt to get the club from the cache
+		final StravaClub club = this.clubCache.get(clubId);
+		if ((club != null) && (club.getResourceState() != StravaResourceState.META)) {
+			return CompletableFuture.completedFuture(club);
+		}
+		final StravaNegativeResult<StravaClub> negative = this.clubCache.getNegative(clubId);
+		if (negative != null) {
+			return CompletableFuture.completedFuture(negative.getValue());
+		}
+
+		// If it wasn't in cache, get it from Strava without blocking
+		return StravaServiceImpl.handle(this.api.getAsyncClient().call(ClubAPI.class, api -> api.getClub(clubId)), (result, error) -> {
+			if (error instanceof NotFoundException) {
+				return cacheClub(clubId, null);
+			}
+			if ((error != null) && !(error instanceof UnauthorizedException)) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+			return cacheClub(clubId, (error == null ? result : PrivacyUtils.privateClubRepresentation(clubId)));
+		});
 	}
 
 	/**
@@ -195,7 +237,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllClubAdminsAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listAllClubAdmins(clubId));
+		return PagingHandler.handleListAllAsync(thisPage -> listClubAdminsAsync(clubId, thisPage));
 	}
 
 	/**
@@ -212,7 +254,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listAllClubMembersAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listAllClubMembers(clubId));
+		return PagingHandler.handleListAllAsync(thisPage -> listClubMembersAsync(clubId, thisPage));
 	}
 
 	/**
@@ -228,7 +270,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listAllRecentClubActivitiesAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listAllRecentClubActivities(clubId));
+		return PagingHandler.handleListAllAsync(thisPage -> listRecentClubActivitiesAsync(clubId, thisPage));
 	}
 
 	/**
@@ -244,7 +286,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaClub>> listAuthenticatedAthleteClubsAsync() {
-		return StravaServiceImpl.future(this::listAuthenticatedAthleteClubs);
+		return StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listAuthenticatedAthleteClubs()));
 	}
 
 	/**
@@ -274,7 +316,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listClubAdminsAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listClubAdmins(clubId));
+		return listClubAdminsAsync(clubId, null);
 	}
 
 	/**
@@ -282,7 +324,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listClubAdminsAsync(final Integer clubId, final Paging paging) {
-		return StravaServiceImpl.future(() -> listClubAdmins(clubId, paging));
+		return PagingHandler.handlePagingAsync(paging, thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listClubAdmins(clubId, thisPage.getPage(), thisPage.getPageSize()))));
 	}
 
 	/**
@@ -306,7 +348,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaClubAnnouncement>> listClubAnnouncementsAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listClubAnnouncements(clubId));
+		return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listClubAnnouncements(clubId))), (result, error) -> (error == null ? result : StravaServiceImpl.inaccessible(error)));
 	}
 
 	/**
@@ -330,7 +372,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaClubEvent>> listClubGroupEventsAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> Arrays.asList(this.api.listClubGroupEvents(clubId)));
+		return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listClubGroupEvents(clubId))), (result, error) -> (error == null ? result : StravaServiceImpl.inaccessible(error)));
 	}
 
 	/**
@@ -360,7 +402,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listClubMembersAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listClubMembers(clubId));
+		return listClubMembersAsync(clubId, null);
 	}
 
 	/**
@@ -368,7 +410,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaAthlete>> listClubMembersAsync(final Integer clubId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listClubMembers(clubId, pagingInstruction));
+		return PagingHandler.handlePagingAsync(pagingInstruction, thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listClubMembers(clubId, thisPage.getPage(), thisPage.getPageSize()))));
 
 	}
 
@@ -422,7 +464,7 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listRecentClubActivitiesAsync(final Integer clubId) {
-		return StravaServiceImpl.future(() -> listRecentClubActivities(clubId));
+		return listRecentClubActivitiesAsync(clubId, null);
 	}
 
 	/**
@@ -430,7 +472,45 @@ public class ClubServiceImpl extends StravaServiceImpl implements ClubService {
 	 */
 	@Override
 	public CompletableFuture<List<StravaActivity>> listRecentClubActivitiesAsync(final Integer clubId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listRecentClubActivities(clubId, pagingInstruction));
+		if (clubId == null) {
+			return StravaServiceImpl.failed(new IllegalArgumentException("Club id is required"));
+		}
+
+		// Check that the club exists
+		return StravaServiceImpl.handleCompose(this.api.getAsyncClient().call(ClubAPI.class, api -> api.getClub(clubId)), (club, error) -> {
+			if (error != null) {
+				return CompletableFuture.completedFuture(StravaServiceImpl.<List<StravaActivity>> notFound(error));
+			}
+			final CompletableFuture<List<StravaActivity>> activities;
+			if (pagingInstruction == null) {
+				activities = StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listRecentClubActivities(clubId, null, null))), (result, listError) -> (listError == null ? result : StravaServiceImpl.inaccessible(listError)));
+			} else {
+				activities = PagingHandler.handlePagingAsync(pagingInstruction,
+						thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(ClubAPI.class, api -> api.listRecentClubActivities(clubId, thisPage.getPage(), thisPage.getPageSize()))));
+			}
+
+			// Strava API returns NULL instead of an empty array
+			return StravaServiceImpl.then(activities,
+					result -> PrivacyUtils.handlePrivateActivities((result == null ? new ArrayList<>() : result), this.getToken()));
+		});
 	}
 
+	/**
+	 * <p>
+	 * Gets a club from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param clubId
+	 *            The club's unique identifier
+	 * @return The club, or <code>null</code> if it does not exist
+	 */
+	private StravaClub loadClub(final Integer clubId) {
+		try {
+			return this.api.getClub(clubId);
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return PrivacyUtils.privateClubRepresentation(clubId);
+		}
+	}
 }
@@ -3,6 +3,7 @@ package javastrava.service.impl;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.GearAPI;
 import javastrava.cache.StravaCache;
 import javastrava.cache.impl.StravaCacheImpl;
 import javastrava.model.StravaGear;
@@ -65,6 +66,7 @@ public class GearServiceImpl extends StravaServiceImpl implements GearService {
 	private GearServiceImpl(final Token token) {
 		super(token);
 		this.gearCache = new StravaCacheImpl<>(StravaGear.class, token);
+		this.gearCache.setRefresher(this::loadGear);
 	}
 
 	/**
@@ -92,13 +94,7 @@ public class GearServiceImpl extends StravaServiceImpl implements GearService {
 		}
 
 		// If it wasn't in cache, try to get it from the API
-		try {
-			gear = this.api.getGear(gearId);
-		} catch (final NotFoundException e) {
-			return null;
-		} catch (final UnauthorizedException e) {
-			gear = PrivacyUtils.privateGear(gearId);
-		}
+		gear = loadGear(gearId);
 
 		// Put the gear in cache and return it
 		this.gearCache.put(gear);
@@ -110,7 +106,47 @@ public class GearServiceImpl extends StravaServiceImpl implements GearService {
 	 */
 	@Override
 	public CompletableFuture<StravaGear> getGearAsync(final String gearId) {
-		return StravaServiceImpl.future(() -> getGear(gearId));
+		// If the id is null, return null
+		if (gearId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Attempt to get the gear from cache
+		final StravaGear gear = this.gearCache.get(gearId);
+		if ((gear != null) && (gear.getResourceState() != StravaResourceState.META)) {
+			return CompletableFuture.completedFuture(gear);
+		}
+
+		// If it wasn't in cache, get it from the API without blocking
+		return StravaServiceImpl.handle(this.api.getAsyncClient().call(GearAPI.class, api -> api.getGear(gearId)), (result, error) -> {
+			if (error instanceof NotFoundException) {
+				return null;
+			}
+			if ((error != null) && !(error instanceof UnauthorizedException)) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+			final StravaGear response = (error == null ? result : PrivacyUtils.privateGear(gearId));
+			this.gearCache.put(response);
+			return response;
+		});
 	}
 
+	/**
+	 * <p>
+	 * Gets gear from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param gearId
+	 *            The id of the gear to be returned
+	 * @return The gear, or <code>null</code> if it does not exist
+	 */
+	private StravaGear loadGear(final String gearId) {
+		try {
+			return this.api.getGear(gearId);
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return PrivacyUtils.privateGear(gearId);
+		}
+	}
 }
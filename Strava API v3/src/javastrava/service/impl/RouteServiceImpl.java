@@ -1,101 +1,155 @@
-package javastrava.service.impl;
-
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.concurrent.CompletableFuture;
-
-import javastrava.auth.model.Token;
-import javastrava.model.StravaRoute;
-import javastrava.service.RouteService;
-import javastrava.service.exception.NotFoundException;
-import javastrava.service.exception.UnauthorizedException;
-
-/**
- * <p>
- * Routes are manually-created paths made up of sections called legs. Currently it is only possible to create routes using the Routebuilder web interface.
- * </p>
- *
- * @author Dan Shannon
- *
- */
-public class RouteServiceImpl extends StravaServiceImpl implements RouteService {
-
-	/**
-	 * <p>
-	 * Returns an instance of {@link RouteService route services}
-	 * </p>
-	 *
-	 * <p>
-	 * Instances are cached so that if 2 requests are made for the same token, the same instance is returned
-	 * </p>
-	 *
-	 * @param token
-	 *            The Strava access token to be used in requests to the Strava API
-	 * @return An instance of the stream services
-	 */
-	public static RouteService instance(final Token token) {
-		// Get the service from the token's cache
-		RouteService service = token.getService(RouteService.class);
-
-		// If it's not already there, create a new one and put it in the token
-		if (service == null) {
-			service = new RouteServiceImpl(token);
-			token.addService(RouteService.class, service);
-		}
-		return service;
-	}
-
-	/**
-	 * <p>
-	 * Private constructor prevents anyone from getting an instance without a valid access token
-	 * </p>
-	 *
-	 * @param token
-	 *            The access token to be used to authenticate to the Strava API
-	 */
-	private RouteServiceImpl(final Token token) {
-		super(token);
-	}
-
-	@Override
-	public void clearCache() {
-		// Nothing to do - not cached
-
-	}
-
-	@Override
-	public StravaRoute getRoute(Integer routeId) {
-		if (routeId == null) {
-			return null;
-		}
-
-		try {
-			return this.api.getRoute(routeId);
-		} catch (final NotFoundException e) {
-			return null;
-		}
-	}
-
-	@Override
-	public CompletableFuture<StravaRoute> getRouteAsync(Integer routeId) {
-		return StravaServiceImpl.future(() -> getRoute(routeId));
-	}
-
-	@Override
-	public List<StravaRoute> listAthleteRoutes(Integer id) {
-		try {
-			return Arrays.asList(this.api.listAthleteRoutes(id, null, null));
-		} catch (final NotFoundException e) {
-			return null;
-		} catch (final UnauthorizedException e) {
-			return new ArrayList<>();
-		}
-	}
-
-	@Override
-	public CompletableFuture<List<StravaRoute>> listAthleteRoutesAsync(Integer id) {
-		return StravaServiceImpl.future(() -> listAthleteRoutes(id));
-	}
-
-}
+package javastrava.service.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javastrava.api.RouteAPI;
+import javastrava.auth.model.Token;
+import javastrava.cache.StravaCache;
+import javastrava.cache.StravaNegativeResult;
+import javastrava.cache.impl.StravaCacheImpl;
+import javastrava.config.Messages;
+import javastrava.model.StravaRoute;
+import javastrava.service.RouteService;
+import javastrava.service.exception.NotFoundException;
+import javastrava.service.exception.UnauthorizedException;
+import javastrava.util.PrivacyUtils;
+
+/**
+ * <p>
+ * Routes are manually-created paths made up of sections called legs. Currently it is only possible to create routes using the Routebuilder web interface.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class RouteServiceImpl extends StravaServiceImpl implements RouteService {
+
+	/**
+	 * <p>
+	 * Returns an instance of {@link RouteService route services}
+	 * </p>
+	 *
+	 * <p>
+	 * Instances are cached so that if 2 requests are made for the same token, the same instance is returned
+	 * </p>
+	 *
+	 * @param token
+	 *            The Strava access token to be used in requests to the Strava API
+	 * @return An instance of the stream services
+	 */
+	public static RouteService instance(final Token token) {
+		// Get the service from the token's cache
+		RouteService service = token.getService(RouteService.class);
+
+		// If it's not already there, create a new one and put it in the token
+		if (service == null) {
+			service = new RouteServiceImpl(token);
+			token.addService(RouteService.class, service);
+		}
+		return service;
+	}
+
+	/**
+	 * Cache of routes
+	 */
+	private final StravaCache<StravaRoute, Integer> routeCache;
+
+	/**
+	 * <p>
+	 * Private constructor prevents anyone from getting an instance without a valid access token
+	 * </p>
+	 *
+	 * @param token
+	 *            The access token to be used to authenticate to the Strava API
+	 */
+	private RouteServiceImpl(final Token token) {
+		super(token);
+		this.routeCache = new StravaCacheImpl<>(StravaRoute.class, token);
+		this.routeCache.setRefresher(this::loadRoute);
+	}
+
+	@Override
+	public void clearCache() {
+		this.routeCache.removeAll();
+	}
+
+	@Override
+	public StravaRoute getRoute(Integer routeId) {
+		if (routeId == null) {
+			return null;
+		}
+
+		// Attempt to get the route from cache
+		final StravaRoute cachedRoute = this.routeCache.get(routeId);
+		if (cachedRoute != null) {
+			return cachedRoute;
+		}
+
+		// Don't ask the API again about a route it recently said doesn't exist or is private
+		final StravaNegativeResult<StravaRoute> negative = this.routeCache.getNegative(routeId);
+		if (negative != null) {
+			if (negative.isNotFound()) {
+				return null;
+			}
+			throw new UnauthorizedException(Messages.string("RouteServiceImpl.privateRoute") + routeId);
+		}
+
+		final StravaRoute route;
+		try {
+			route = this.api.getRoute(routeId);
+		} catch (final NotFoundException e) {
+			this.routeCache.putNegative(routeId, null);
+			return null;
+		} catch (final UnauthorizedException e) {
+			this.routeCache.putNegative(routeId, PrivacyUtils.privateRoute(routeId));
+			throw e;
+		}
+		this.routeCache.put(route);
+		return route;
+	}
+
+	@Override
+	public CompletableFuture<StravaRoute> getRouteAsync(Integer routeId) {
+		return StravaServiceImpl.future(() -> getRoute(routeId));
+	}
+
+	@Override
+	public List<StravaRoute> listAthleteRoutes(Integer id) {
+		try {
+			return Arrays.asList(this.api.listAthleteRoutes(id, null, null));
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return new ArrayList<>();
+		}
+	}
+
+	@Override
+	public CompletableFuture<List<StravaRoute>> listAthleteRoutesAsync(Integer id) {
+		return StravaServiceImpl.handle(StravaServiceImpl.list(this.api.getAsyncClient().call(RouteAPI.class, api -> api.listAthleteRoutes(id, null, null))),
+				(routes, error) -> (error == null ? routes : StravaServiceImpl.inaccessible(error)));
+	}
+
+	/**
+	 * <p>
+	 * Gets a route from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param routeId
+	 *            The identifier of the route
+	 * @return The route, <code>null</code> if it does not exist, or a private representation if it can't be read with the token
+	 */
+	private StravaRoute loadRoute(final Integer routeId) {
+		try {
+			return this.api.getRoute(routeId);
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return PrivacyUtils.privateRoute(routeId);
+		}
+	}
+
+}
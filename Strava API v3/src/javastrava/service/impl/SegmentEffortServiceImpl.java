@@ -3,7 +3,9 @@ package javastrava.service.impl;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.SegmentEffortAPI;
 import javastrava.cache.StravaCache;
+import javastrava.cache.StravaNegativeResult;
 import javastrava.cache.impl.StravaCacheImpl;
 import javastrava.model.StravaSegment;
 import javastrava.model.StravaSegmentEffort;
@@ -62,6 +64,22 @@ public class SegmentEffortServiceImpl extends StravaServiceImpl implements Segme
 		this.effortCache = new StravaCacheImpl<>(StravaSegmentEffort.class, token);
 	}
 
+	/**
+	 * @param segmentEffortId
+	 *            Identifier of the segment effort
+	 * @param effort
+	 *            Segment effort to put in cache; if it is <code>null</code> (doesn't exist) or private, a negative result is cached instead
+	 * @return The segment effort
+	 */
+	private StravaSegmentEffort cacheEffort(final Long segmentEffortId, final StravaSegmentEffort effort) {
+		if ((effort == null) || (effort.getResourceState() == StravaResourceState.PRIVATE)) {
+			this.effortCache.putNegative(segmentEffortId, effort);
+		} else {
+			this.effortCache.put(effort);
+		}
+		return effort;
+	}
+
 	/**
 	 * @see javastrava.service.StravaService#clearCache()
 	 */
@@ -86,12 +104,18 @@ public class SegmentEffortServiceImpl extends StravaServiceImpl implements Segme
 			return effort;
 		}
 
+		// Don't ask the API again about an effort it recently said doesn't exist or is private
+		final StravaNegativeResult<StravaSegmentEffort> negative = this.effortCache.getNegative(segmentEffortId);
+		if (negative != null) {
+			return negative.getValue();
+		}
+
 		// If it wasn't in cache, get it from the API
 		try {
 			effort = this.api.getSegmentEffort(segmentEffortId);
 		} catch (final NotFoundException e) {
 			// Segment effort doesn't exist
-			return null;
+			return cacheEffort(segmentEffortId, null);
 		} catch (final UnauthorizedException e) {
 			effort = PrivacyUtils.privateSegmentEffort(segmentEffortId);
 		}
@@ -107,8 +131,7 @@ public class SegmentEffortServiceImpl extends StravaServiceImpl implements Segme
 		// End of workaround
 
 		// Put the effort into cache and return it
-		this.effortCache.put(effort);
-		return effort;
+		return cacheEffort(segmentEffortId, effort);
 	}
 
 	/**
@@ -116,7 +139,44 @@ public class SegmentEffortServiceImpl extends StravaServiceImpl implements Segme
 	 */
 	@Override
 	public CompletableFuture<StravaSegmentEffort> getSegmentEffortAsync(final Long segmentEffortId) {
-		return StravaServiceImpl.future(() -> getSegmentEffort(segmentEffortId));
+		// If id is null, return null
+		if (segmentEffortId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Try to get the effort from cache
+		final StravaSegmentEffort effort = this.effortCache.get(segmentEffortId);
+		if ((effort != null) && (effort.getResourceState() != StravaResourceState.META)) {
+			return CompletableFuture.completedFuture(effort);
+		}
+		final StravaNegativeResult<StravaSegmentEffort> negative = this.effortCache.getNegative(segmentEffortId);
+		if (negative != null) {
+			return CompletableFuture.completedFuture(negative.getValue());
+		}
+
+		// If it wasn't in cache, get it from the API without blocking
+		return StravaServiceImpl.handleCompose(this.api.getAsyncClient().call(SegmentEffortAPI.class, api -> api.getSegmentEffort(segmentEffortId)), (result, error) -> {
+			if (error instanceof NotFoundException) {
+				// Segment effort doesn't exist
+				return CompletableFuture.completedFuture(cacheEffort(segmentEffortId, null));
+			}
+			if (error instanceof UnauthorizedException) {
+				return CompletableFuture.completedFuture(cacheEffort(segmentEffortId, PrivacyUtils.privateSegmentEffort(segmentEffortId)));
+			}
+			if (error != null) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+
+			// TODO This is a workaround for issue javastrava-api #78
+			// See https://github.com/danshannon/javastravav3api/issues/78
+			if (result.getResourceState() == StravaResourceState.DETAILED) {
+				return this.getToken().getService(SegmentService.class).getSegmentAsync(result.getSegment().getId())
+						.thenApply(segment -> cacheEffort(segmentEffortId, segment.getResourceState() == StravaResourceState.PRIVATE ? PrivacyUtils.privateSegmentEffort(segmentEffortId) : result));
+			}
+			// End of workaround
+
+			return CompletableFuture.completedFuture(cacheEffort(segmentEffortId, result));
+		});
 	}
 
 }
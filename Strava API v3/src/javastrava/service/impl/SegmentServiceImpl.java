@@ -2,14 +2,19 @@ package javastrava.service.impl;
 
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.api.SegmentAPI;
 import javastrava.cache.StravaCache;
+import javastrava.cache.StravaNegativeResult;
 import javastrava.cache.impl.StravaCacheImpl;
+import javastrava.cache.impl.StravaSegmentIndex;
 import javastrava.config.Messages;
 import javastrava.config.StravaConfig;
 import javastrava.model.StravaMapPoint;
@@ -32,6 +37,7 @@ import javastrava.service.exception.NotFoundException;
 import javastrava.service.exception.UnauthorizedException;
 import javastrava.util.Paging;
 import javastrava.util.PagingHandler;
+import javastrava.util.PagingTimeRangeHandler;
 import javastrava.util.PagingUtils;
 import javastrava.util.PrivacyUtils;
 
@@ -89,6 +95,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	private SegmentServiceImpl(final Token token) {
 		super(token);
 		this.segmentCache = new StravaCacheImpl<>(StravaSegment.class, token);
+		this.segmentCache.setRefresher(this::loadSegment);
 	}
 
 	/**
@@ -151,6 +158,101 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 
 	}
 
+	/**
+	 * <p>
+	 * Puts a segment in the cache, or records a negative result if it doesn't exist or is private
+	 * </p>
+	 *
+	 * @param segmentId
+	 *            The unique identifier of the segment
+	 * @param segment
+	 *            The segment as it should be returned to the caller, or <code>null</code> if it doesn't exist
+	 * @return The segment
+	 */
+	private StravaSegment cacheSegment(final Integer segmentId, final StravaSegment segment) {
+		if ((segment == null) || (segment.getResourceState() == StravaResourceState.PRIVATE)) {
+			this.segmentCache.putNegative(segmentId, segment);
+		} else {
+			this.segmentCache.put(segment);
+			StravaSegmentIndex.add(segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * @param segments
+	 *            Starred segments returned by the API, or <code>null</code>
+	 * @return The segments as they should be returned to the caller, which have been put in cache
+	 */
+	private List<StravaSegment> cacheStarredSegments(final List<StravaSegment> segments) {
+		// TODO This is a workaround for issues javastrava-api #25 and #81
+		// (https://github.com/danshannon/javastravav3api/issues/25 and
+		// https://github.com/danshannon/javastravav3api/issues/81)
+		if (segments != null) {
+			for (final StravaSegment segment : segments) {
+				if ((segment.getAthletePrEffort() != null) && (segment.getAthletePrEffort().getResourceState() == null)) {
+					segment.getAthletePrEffort().setResourceState(StravaResourceState.SUMMARY);
+				}
+			}
+		}
+
+		final List<StravaSegment> result = PrivacyUtils.handlePrivateSegments(segments, this.getToken());
+
+		// Keep the summaries in cache
+		this.segmentCache.putAll(result);
+		StravaSegmentIndex.addAll(result);
+		return result;
+	}
+
+	/**
+	 * @param segmentId
+	 *            The unique identifier of the segment
+	 * @param segment
+	 *            Segment returned by the API
+	 * @return The segment as it should be returned to the caller
+	 */
+	private StravaSegment checkPrivacy(final Integer segmentId, final StravaSegment segment) {
+		// TODO Workaround for javastrava-api #70
+		// If the segment is private and the token doesn't have view_private
+		// scope, then return an empty segment
+		if ((segment.getResourceState() != StravaResourceState.PRIVATE) && segment.getPrivateSegment().equals(Boolean.TRUE) && !getToken().hasViewPrivate()) {
+			return PrivacyUtils.privateSegment(segmentId);
+		}
+		// End of workaround
+
+		return segment;
+	}
+
+	/**
+	 * <p>
+	 * Strava likes both ends of the date range for segment efforts to be set if either is
+	 * </p>
+	 *
+	 * @param startDateLocal
+	 *            Start of the range, or <code>null</code>
+	 * @param endDateLocal
+	 *            End of the range, or <code>null</code>
+	 * @return The start and end of the range to send to Strava
+	 */
+	private static String[] effortDates(final LocalDateTime startDateLocal, final LocalDateTime endDateLocal) {
+		LocalDateTime end = endDateLocal;
+		LocalDateTime start = startDateLocal;
+
+		// If start date is set, but end date isn't, then Strava likes it to be
+		// set to something high
+		if ((endDateLocal == null) && (startDateLocal != null)) {
+			end = LocalDateTime.of(9999, Month.DECEMBER, 31, 23, 59, 59);
+		}
+
+		// Similarly if the end date is set but start date isn't, Strava likes
+		// it to be set to something low
+		if ((startDateLocal == null) && (endDateLocal != null)) {
+			start = LocalDateTime.of(1900, Month.JANUARY, 1, 0, 0, 0);
+		}
+
+		return new String[] { (start == null ? null : start.toString()), (end == null ? null : end.toString()) };
+	}
+
 	/**
 	 * @see javastrava.service.StravaService#clearCache()
 	 */
@@ -237,26 +339,29 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 			return segment;
 		}
 
-		try {
-			segment = this.api.getSegment(segmentId);
-		} catch (final NotFoundException e) {
-			return null;
-		} catch (final UnauthorizedException e) {
-			segment = PrivacyUtils.privateSegment(segmentId);
-		}
-
-		// TODO Workaround for javastrava-api #70
-		// If the segment is private and the token doesn't have view_private
-		// scope, then return an empty segment
-		if ((segment.getResourceState() != StravaResourceState.PRIVATE) && segment.getPrivateSegment().equals(Boolean.TRUE) && !getToken().hasViewPrivate()) {
-			segment = PrivacyUtils.privateSegment(segmentId);
+		// Don't ask the API again about a segment it recently said doesn't exist or is private
+		final StravaNegativeResult<StravaSegment> negative = this.segmentCache.getNegative(segmentId);
+		if (negative != null) {
+			return negative.getValue();
 		}
-		// End of workaround
 
 		// Put the segment in cache and return it
-		this.segmentCache.put(segment);
-		return segment;
+		segment = loadSegment(segmentId);
+		return cacheSegment(segmentId, segment);
+
+	}
 
+	/**
+	 * @see javastrava.service.SegmentService#getSegment(java.lang.Integer, javastrava.model.reference.StravaResourceState)
+	 */
+	@Override
+	public StravaSegment getSegment(final Integer segmentId, final StravaResourceState minimumState) {
+		// A summary from one of the list endpoints will do if that's all the caller needs
+		final StravaSegment segment = this.segmentCache.get(segmentId, minimumState);
+		if (segment != null) {
+			return segment;
+		}
+		return getSegment(segmentId);
 	}
 
 	/**
@@ -264,7 +369,46 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<StravaSegment> getSegmentAsync(final Integer segmentId) {
-		return StravaServiceImpl.future(() -> getSegment(segmentId));
+		// If the id is null, return null
+		if (segmentId == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+
+		// Try to get the segment from cache
+		final StravaSegment segment = this.segmentCache.get(segmentId);
+		if ((segment != null) && (segment.getResourceState() != StravaResourceState.META)) {
+			return CompletableFuture.completedFuture(segment);
+		}
+		final StravaNegativeResult<StravaSegment> negative = this.segmentCache.getNegative(segmentId);
+		if (negative != null) {
+			return CompletableFuture.completedFuture(negative.getValue());
+		}
+
+		// Otherwise get it from the API without blocking
+		return StravaServiceImpl.handle(this.api.getAsyncClient().call(SegmentAPI.class, api -> api.getSegment(segmentId)), (result, error) -> {
+			if (error instanceof NotFoundException) {
+				return cacheSegment(segmentId, null);
+			}
+			if (error instanceof UnauthorizedException) {
+				return cacheSegment(segmentId, PrivacyUtils.privateSegment(segmentId));
+			}
+			if (error != null) {
+				throw StravaServiceImpl.rethrow(error);
+			}
+			return cacheSegment(segmentId, checkPrivacy(segmentId, result));
+		});
+	}
+
+	/**
+	 * @see javastrava.service.SegmentService#getSegmentAsync(java.lang.Integer, javastrava.model.reference.StravaResourceState)
+	 */
+	@Override
+	public CompletableFuture<StravaSegment> getSegmentAsync(final Integer segmentId, final StravaResourceState minimumState) {
+		final StravaSegment segment = this.segmentCache.get(segmentId, minimumState);
+		if (segment != null) {
+			return CompletableFuture.completedFuture(segment);
+		}
+		return getSegmentAsync(segmentId);
 	}
 
 	/**
@@ -400,7 +544,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listAllAuthenticatedAthleteStarredSegmentsAsync() {
-		return StravaServiceImpl.future(this::listAllAuthenticatedAthleteStarredSegments);
+		return PagingHandler.handleListAllAsync(this::listAuthenticatedAthleteStarredSegmentsAsync);
 	}
 
 	/**
@@ -429,8 +573,6 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 			return null;
 		}
 
-		final int parallelism = StravaConfig.PAGING_LIST_ALL_PARALLELISM;
-
 		// TODO This is the workaround for issue #45
 		if (segment.getResourceState() == StravaResourceState.META) {
 			return new ArrayList<>();
@@ -441,7 +583,21 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 			return new ArrayList<>();
 		}
 		// End of workaround
-		return PagingHandler.handleListAll(thisPage -> listSegmentEfforts(segmentId, athleteId, startDate, endDate, thisPage), parallelism);
+		if (!StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			final int parallelism = StravaConfig.PAGING_LIST_ALL_PARALLELISM;
+			return PagingHandler.handleListAll(thisPage -> listSegmentEfforts(segmentId, athleteId, startDate, endDate, thisPage), parallelism);
+		}
+
+		// Get the efforts in windows of time, which don't shift if efforts are added or removed meanwhile; the windows are got on a pool of PAGING_LIST_ALL_PARALLELISM threads
+		final List<StravaSegmentEffort> efforts = PagingTimeRangeHandler.handleListAll((after, before, thisPage) -> listSegmentEfforts(segmentId, athleteId, after, before, thisPage),
+				StravaSegmentEffort::getId, StravaSegmentEffort::getStartDateLocal, (startDate == null ? LocalDateTime.ofEpochSecond(1, 0, ZoneOffset.UTC) : startDate),
+				(endDate == null ? LocalDateTime.now(ZoneOffset.UTC).plusDays(1) : endDate));
+
+		// Strava sorts one athlete's efforts by elapsed time
+		if ((efforts != null) && (athleteId != null)) {
+			efforts.sort(Comparator.comparing(StravaSegmentEffort::getElapsedTime, Comparator.nullsLast(Comparator.naturalOrder())));
+		}
+		return efforts;
 	}
 
 	/**
@@ -449,7 +605,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listAllSegmentEffortsAsync(final Integer segmentId) {
-		return StravaServiceImpl.future(() -> listAllSegmentEfforts(segmentId));
+		return listAllSegmentEffortsAsync(segmentId, null, null, null);
 	}
 
 	/**
@@ -457,7 +613,18 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listAllSegmentEffortsAsync(final Integer segmentId, final Integer athleteId, final LocalDateTime startDate, final LocalDateTime endDate) {
-		return StravaServiceImpl.future(() -> listAllSegmentEfforts(segmentId));
+		if (StravaConfig.PAGING_LIST_ALL_TIME_PARTITIONED) {
+			// The time-partitioned walk runs its windows on a pool of its own, so it still runs on a thread of its own
+			return StravaServiceImpl.future(() -> listAllSegmentEfforts(segmentId, athleteId, startDate, endDate));
+		}
+
+		// TODO Workaround for issues javastrava-api #33 and #45: if the segment doesn't exist return null, and if it's hazardous return an empty list
+		return StravaServiceImpl.compose(getSegmentAsync(segmentId), segment -> {
+			if ((segment == null) || (segment.getResourceState() == StravaResourceState.META) || (segment.getHazardous() == Boolean.TRUE)) {
+				return CompletableFuture.completedFuture(segment == null ? null : new ArrayList<StravaSegmentEffort>());
+			}
+			return PagingHandler.handleListAllAsync(thisPage -> listSegmentEffortsAsync(segmentId, athleteId, startDate, endDate, thisPage), StravaConfig.PAGING_LIST_ALL_PARALLELISM);
+		});
 	}
 
 	/**
@@ -473,7 +640,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listAllStarredSegmentsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listAllStarredSegments(athleteId));
+		return PagingHandler.handleListAllAsync(thisPage -> listStarredSegmentsAsync(athleteId, thisPage));
 	}
 
 	/**
@@ -492,17 +659,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 		final List<StravaSegment> segments = PagingHandler.handlePaging(pagingInstruction,
 				thisPage -> Arrays.asList(SegmentServiceImpl.this.api.listAuthenticatedAthleteStarredSegments(thisPage.getPage(), thisPage.getPageSize())));
 
-		// TODO This is a workaround for issue javastrava-api #81
-		// (https://github.com/danshannon/javastravav3api/issues/81)
-		if (segments != null) {
-			for (final StravaSegment segment : segments) {
-				if ((segment.getAthletePrEffort() != null) && (segment.getAthletePrEffort().getResourceState() == null)) {
-					segment.getAthletePrEffort().setResourceState(StravaResourceState.SUMMARY);
-				}
-			}
-		}
-
-		return PrivacyUtils.handlePrivateSegments(segments, this.getToken());
+		return cacheStarredSegments(segments);
 	}
 
 	/**
@@ -510,7 +667,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listAuthenticatedAthleteStarredSegmentsAsync() {
-		return StravaServiceImpl.future(this::listAuthenticatedAthleteStarredSegments);
+		return listAuthenticatedAthleteStarredSegmentsAsync(null);
 	}
 
 	/**
@@ -518,7 +675,8 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listAuthenticatedAthleteStarredSegmentsAsync(final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listAuthenticatedAthleteStarredSegments(pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(SegmentAPI.class, api -> api.listAuthenticatedAthleteStarredSegments(thisPage.getPage(), thisPage.getPageSize())))), this::cacheStarredSegments);
 	}
 
 	/**
@@ -564,23 +722,9 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 		}
 		// End of workaround
 
-		LocalDateTime endDateLocal = endDateLocalTZ;
-		LocalDateTime startDateLocal = startDateLocalTZ;
-
-		// If start date is set, but end date isn't, then Strava likes it to be
-		// set to something high
-		if ((endDateLocalTZ == null) && (startDateLocalTZ != null)) {
-			endDateLocal = LocalDateTime.of(9999, Month.DECEMBER, 31, 23, 59, 59);
-		}
-
-		// Similarly if the end date is set but start date isn't, Strava likes
-		// it to be set to something low
-		if ((startDateLocalTZ == null) && (endDateLocalTZ != null)) {
-			startDateLocal = LocalDateTime.of(1900, Month.JANUARY, 1, 0, 0, 0);
-		}
-
-		final String start = (startDateLocal == null ? null : startDateLocal.toString());
-		final String end = (endDateLocal == null ? null : endDateLocal.toString());
+		final String[] dates = effortDates(startDateLocalTZ, endDateLocalTZ);
+		final String start = dates[0];
+		final String end = dates[1];
 
 		final List<StravaSegmentEffort> efforts;
 
@@ -609,7 +753,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listSegmentEffortsAsync(final Integer segmentId) {
-		return StravaServiceImpl.future(() -> listSegmentEfforts(segmentId));
+		return listSegmentEffortsAsync(segmentId, null, null, null, null);
 	}
 
 	/**
@@ -618,7 +762,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listSegmentEffortsAsync(final Integer segmentId, final Integer athleteId, final LocalDateTime startDateLocal,
 			final LocalDateTime endDateLocal) {
-		return StravaServiceImpl.future(() -> listSegmentEfforts(segmentId, athleteId, startDateLocal, endDateLocal));
+		return listSegmentEffortsAsync(segmentId, athleteId, startDateLocal, endDateLocal, null);
 	}
 
 	/**
@@ -627,7 +771,16 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listSegmentEffortsAsync(final Integer segmentId, final Integer athleteId, final LocalDateTime startDateLocal, final LocalDateTime endDateLocal,
 			final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listSegmentEfforts(segmentId, athleteId, startDateLocal, endDateLocal, pagingInstruction));
+		// TODO Workaround for issues javastrava-api #33 and #45: if the segment doesn't exist return null, and if it's private or hazardous return an empty list
+		return StravaServiceImpl.compose(getSegmentAsync(segmentId), segment -> {
+			if ((segment == null) || (segment.getResourceState() == StravaResourceState.PRIVATE) || (segment.getHazardous() == Boolean.TRUE)) {
+				return CompletableFuture.completedFuture(segment == null ? null : new ArrayList<StravaSegmentEffort>());
+			}
+			final String[] dates = effortDates(startDateLocal, endDateLocal);
+			return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+					thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(SegmentAPI.class, api -> api.listSegmentEfforts(segmentId, athleteId, dates[0], dates[1], thisPage.getPage(), thisPage.getPageSize())))),
+					efforts -> PrivacyUtils.handlePrivateSegmentEfforts(efforts, this.getToken()));
+		});
 	}
 
 	/**
@@ -635,7 +788,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegmentEffort>> listSegmentEffortsAsync(final Integer segmentId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listSegmentEfforts(segmentId, pagingInstruction));
+		return listSegmentEffortsAsync(segmentId, null, null, null, pagingInstruction);
 	}
 
 	/**
@@ -661,17 +814,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 			return new ArrayList<>();
 		}
 
-		// TODO This is a workaround for issue javastrava-api #25
-		// (https://github.com/danshannon/javastravav3api/issues/25)
-		if (segments != null) {
-			for (final StravaSegment segment : segments) {
-				if ((segment.getAthletePrEffort() != null) && (segment.getAthletePrEffort().getResourceState() == null)) {
-					segment.getAthletePrEffort().setResourceState(StravaResourceState.SUMMARY);
-				}
-			}
-		}
-
-		return PrivacyUtils.handlePrivateSegments(segments, this.getToken());
+		return cacheStarredSegments(segments);
 	}
 
 	/**
@@ -679,7 +822,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listStarredSegmentsAsync(final Integer athleteId) {
-		return StravaServiceImpl.future(() -> listStarredSegments(athleteId));
+		return listStarredSegmentsAsync(athleteId, null);
 	}
 
 	/**
@@ -687,7 +830,27 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	 */
 	@Override
 	public CompletableFuture<List<StravaSegment>> listStarredSegmentsAsync(final Integer athleteId, final Paging pagingInstruction) {
-		return StravaServiceImpl.future(() -> listStarredSegments(athleteId, pagingInstruction));
+		return StravaServiceImpl.then(PagingHandler.handlePagingAsync(pagingInstruction,
+				thisPage -> StravaServiceImpl.list(this.api.getAsyncClient().call(SegmentAPI.class, api -> api.listStarredSegments(athleteId, thisPage.getPage(), thisPage.getPageSize())))), this::cacheStarredSegments);
+	}
+
+	/**
+	 * <p>
+	 * Gets a segment from the API, bypassing the cache
+	 * </p>
+	 *
+	 * @param segmentId
+	 *            The unique identifier of the segment
+	 * @return The segment, or <code>null</code> if it does not exist
+	 */
+	private StravaSegment loadSegment(final Integer segmentId) {
+		try {
+			return checkPrivacy(segmentId, this.api.getSegment(segmentId));
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException e) {
+			return PrivacyUtils.privateSegment(segmentId);
+		}
 	}
 
 	/**
@@ -696,6 +859,12 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 	@Override
 	public StravaSegmentExplorerResponse segmentExplore(final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner, final StravaSegmentExplorerActivityType activityType,
 			final StravaClimbCategory minCat, final StravaClimbCategory maxCat) {
+		// Areas which have been crawled recently are answered from the spatial index
+		final StravaSegmentExplorerResponse indexed = StravaSegmentIndex.explore(southwestCorner, northeastCorner, activityType, minCat, maxCat);
+		if (indexed != null) {
+			return indexed;
+		}
+
 		final String bounds = southwestCorner.getLatitude() + "," + southwestCorner.getLongitude() + ","
 				+ northeastCorner.getLatitude() + "," 
 				+ northeastCorner.getLongitude();
@@ -703,6 +872,7 @@ public class SegmentServiceImpl extends StravaServiceImpl implements SegmentServ
 		for (final StravaSegmentExplorerResponseSegment segment : response.getSegments()) {
 			segment.setResourceState(StravaResourceState.SUMMARY);
 		}
+		StravaSegmentIndex.explored(southwestCorner, northeastCorner, activityType, minCat, maxCat, response);
 		return response;
 	}
 
@@ -1,10 +1,19 @@
 package javastrava.service.impl;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 import javastrava.api.API;
+import javastrava.api.async.StravaAPICall;
 import javastrava.auth.model.Token;
 import javastrava.service.async.AsyncCallback;
+import javastrava.service.exception.NotFoundException;
 import javastrava.service.exception.UnauthorizedException;
 
 /**
@@ -25,6 +34,141 @@ public abstract class StravaServiceImpl {
         return CompletableFuture.supplyAsync(callback::run);
     }
 
+    /**
+     * @param error Exception thrown by a non-blocking call, possibly wrapped by a dependent stage
+     * @return The exception the call threw
+     */
+    protected static Throwable cause(final Throwable error) {
+        return ((error instanceof CompletionException) && (error.getCause() != null) ? error.getCause() : error);
+    }
+
+    /**
+     * <p>
+     * Runs a further non-blocking step once a stage has completed normally; exceptions are passed on unchanged
+     * </p>
+     *
+     * @param <T>   Type returned by the stage
+     * @param <R>   Type which will be returned by the future
+     * @param stage The stage (an API call, or a future returned by another non-blocking service method)
+     * @param next  Called with the result of the stage; returns the stage which will provide the eventual result
+     * @return A {@link CompletableFuture}; cancelling it cancels whichever of the two stages is in progress
+     */
+    protected static <T, R> CompletableFuture<R> compose(final CompletableFuture<T> stage, final Function<? super T, ? extends CompletionStage<R>> next) {
+        return handleCompose(stage, (result, error) -> {
+            if (error != null) {
+                throw rethrow(error);
+            }
+            return next.apply(result);
+        });
+    }
+
+    /**
+     * @param <T>   Type which would have been returned by the future
+     * @param error Exception to complete the future with
+     * @return A {@link CompletableFuture} which has already failed
+     */
+    protected static <T> CompletableFuture<T> failed(final Throwable error) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    /**
+     * <p>
+     * Handles the outcome of a non-blocking API call without tying up a thread while it is in flight; cancelling the returned future cancels the HTTP call
+     * </p>
+     *
+     * @param <T>     Type returned by the API call
+     * @param <R>     Type which will be returned by the future
+     * @param call    The API call (see {@link javastrava.api.async.StravaAPIAsyncClient}), or a future returned by another non-blocking service method
+     * @param handler Called with either the result or the exception thrown by the API; should use {@link #rethrow(Throwable)} for exceptions it does not handle
+     * @return A {@link CompletableFuture}
+     */
+    protected static <T, R> CompletableFuture<R> handle(final CompletableFuture<T> call, final BiFunction<? super T, Throwable, ? extends R> handler) {
+        return StravaAPICall.cancelling(call, call.handle(handler));
+    }
+
+    /**
+     * <p>
+     * As {@link #handle(CompletableFuture, BiFunction)}, for handlers which need to make further non-blocking calls before the result is known
+     * </p>
+     *
+     * @param <T>     Type returned by the API call
+     * @param <R>     Type which will be returned by the future
+     * @param call    The API call (see {@link javastrava.api.async.StravaAPIAsyncClient}), or a future returned by another non-blocking service method
+     * @param handler Called with either the result or the exception thrown by the API; returns the stage which will provide the eventual result
+     * @return A {@link CompletableFuture}; cancelling it cancels the API call, or the stage returned by the handler if the call has already completed
+     */
+    protected static <T, R> CompletableFuture<R> handleCompose(final CompletableFuture<T> call, final BiFunction<? super T, Throwable, ? extends CompletionStage<R>> handler) {
+        final CompletableFuture<CompletionStage<R>> handled = handle(call, handler);
+        final CompletableFuture<R> result = handled.thenCompose(stage -> stage);
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                handled.cancel(true);
+                handled.thenAccept(stage -> stage.toCompletableFuture().cancel(true));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @param <T>   Class of object which would have been in the list
+     * @param error Exception thrown by a non-blocking API call which returns a list
+     * @return <code>null</code> if the exception is a {@link NotFoundException}, or an empty list if it is an {@link UnauthorizedException}
+     * @throws CompletionException Wrapping any other exception, so that it is passed on unchanged
+     */
+    protected static <T> List<T> inaccessible(final Throwable error) {
+        if (cause(error) instanceof UnauthorizedException) {
+            return new ArrayList<>();
+        }
+        return notFound(error);
+    }
+
+    /**
+     * @param <T>  Class of object in the list
+     * @param call Non-blocking API call which returns an array
+     * @return The same call, returning a list; cancelling it cancels the HTTP call
+     */
+    protected static <T> CompletableFuture<List<T>> list(final CompletableFuture<T[]> call) {
+        return StravaAPICall.cancelling(call, call.thenApply(array -> (array == null ? null : Arrays.asList(array))));
+    }
+
+    /**
+     * <p>
+     * Transforms the result of a non-blocking call once it has completed normally, without losing the ability to cancel it
+     * </p>
+     *
+     * @param <T>       Type returned by the call
+     * @param <R>       Type which will be returned by the future
+     * @param call      The API call, or a future returned by another non-blocking service method
+     * @param transform Called with the result of the call
+     * @return A {@link CompletableFuture}; cancelling it cancels the call
+     */
+    protected static <T, R> CompletableFuture<R> then(final CompletableFuture<T> call, final Function<? super T, ? extends R> transform) {
+        return StravaAPICall.cancelling(call, call.thenApply(transform));
+    }
+
+    /**
+     * @param <T>   Type which would have been returned
+     * @param error Exception thrown by a non-blocking API call
+     * @return <code>null</code> if the exception is a {@link NotFoundException}
+     * @throws CompletionException Wrapping any other exception, so that it is passed on unchanged
+     */
+    protected static <T> T notFound(final Throwable error) {
+        if (cause(error) instanceof NotFoundException) {
+            return null;
+        }
+        throw rethrow(error);
+    }
+
+    /**
+     * @param error Exception which is to be passed on to dependent stages unchanged
+     * @return The exception, wrapped so that it can be thrown from a completion stage
+     */
+    protected static CompletionException rethrow(final Throwable error) {
+        return (error instanceof CompletionException ? (CompletionException) error : new CompletionException(error));
+    }
+
     private final Token token;
     protected final API api;
 
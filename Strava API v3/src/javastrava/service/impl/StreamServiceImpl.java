@@ -1,13 +1,16 @@
 package javastrava.service.impl;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 import javastrava.auth.model.Token;
+import javastrava.cache.impl.StravaStreamCache;
 import javastrava.config.Messages;
 import javastrava.model.StravaActivity;
+import javastrava.model.StravaLap;
 import javastrava.model.StravaSegment;
 import javastrava.model.StravaSegmentEffort;
 import javastrava.model.StravaStream;
@@ -112,6 +115,11 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 		}
 	}
 
+	/**
+	 * Cache of streams
+	 */
+	private final StravaStreamCache streamCache;
+
 	/**
 	 * <p>
 	 * Private constructor prevents anyone from getting an instance without a valid access token
@@ -122,6 +130,7 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 	 */
 	private StreamServiceImpl(final Token token) {
 		super(token);
+		this.streamCache = new StravaStreamCache(token);
 	}
 
 	/**
@@ -129,7 +138,7 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 	 */
 	@Override
 	public void clearCache() {
-		// Nothing to do - there is no cache
+		this.streamCache.removeAll();
 	}
 
 	/**
@@ -165,7 +174,12 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 			return new ArrayList<>();
 		}
 
-		List<StravaStream> streams;
+		// Serve from the cache if possible
+		List<StravaStream> streams = this.streamCache.get(StravaStreamCache.Owner.ACTIVITY, activityId, resolution, seriesType, typesToGet);
+		if (streams != null) {
+			return streams;
+		}
+
 		try {
 			streams = Arrays.asList(this.api.getActivityStreams(activityId, typeString(typesToGet), resolution, seriesType));
 		} catch (final NotFoundException e) {
@@ -185,6 +199,7 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 		}
 		// End of workaround
 
+		this.streamCache.put(StravaStreamCache.Owner.ACTIVITY, activityId, resolution, seriesType, typesToGet, streams);
 		return streams;
 	}
 
@@ -238,8 +253,24 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 			return new ArrayList<>();
 		}
 
+		// Serve from the cache if possible
+		List<StravaStream> streams = this.streamCache.get(StravaStreamCache.Owner.EFFORT, effortId, resolution, seriesType, typesToGet);
+		if (streams != null) {
+			return streams;
+		}
+
+		// Full-resolution streams can be sliced out of the activity's streams
+		if (resolution == null) {
+			streams = sliceEffortStreams(effort, typesToGet);
+			if (streams != null) {
+				return streams;
+			}
+		}
+
 		try {
-			return Arrays.asList(this.api.getEffortStreams(effortId, typeString(typesToGet), resolution, seriesType));
+			streams = Arrays.asList(this.api.getEffortStreams(effortId, typeString(typesToGet), resolution, seriesType));
+			this.streamCache.put(StravaStreamCache.Owner.EFFORT, effortId, resolution, seriesType, typesToGet, streams);
+			return streams;
 		} catch (final NotFoundException e) {
 			return null;
 		} catch (final BadRequestException e) {
@@ -265,6 +296,83 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 		return StravaServiceImpl.future(() -> getEffortStreams(effortId, resolution, seriesType, types));
 	}
 
+	/**
+	 * @see javastrava.service.StreamService#getEffortStreams(javastrava.model.StravaSegmentEffort, javastrava.model.reference.StravaStreamType[])
+	 */
+	@Override
+	public List<StravaStream> getEffortStreams(final StravaSegmentEffort effort, final StravaStreamType... types) {
+		if (effort == null) {
+			return null;
+		}
+		validateArguments(null, null, types);
+		final StravaStreamType[] typesToGet = ((types == null) || (types.length == 0) ? getAllStreamTypes() : types);
+		final List<StravaStream> streams = sliceEffortStreams(effort, typesToGet);
+		if (streams != null) {
+			return streams;
+		}
+		return getEffortStreams(effort.getId(), null, null, typesToGet);
+	}
+
+	/**
+	 * @see javastrava.service.StreamService#getEffortStreamsAsync(javastrava.model.StravaSegmentEffort, javastrava.model.reference.StravaStreamType[])
+	 */
+	@Override
+	public CompletableFuture<List<StravaStream>> getEffortStreamsAsync(final StravaSegmentEffort effort, final StravaStreamType... types) {
+		return StravaServiceImpl.future(() -> getEffortStreams(effort, types));
+	}
+
+	/**
+	 * @see javastrava.service.StreamService#getLapStreams(javastrava.model.StravaLap, javastrava.model.reference.StravaStreamType[])
+	 */
+	@Override
+	public List<StravaStream> getLapStreams(final StravaLap lap, final StravaStreamType... types) {
+		if ((lap == null) || (lap.getActivity() == null) || (lap.getActivity().getId() == null)) {
+			return null;
+		}
+		validateArguments(null, null, types);
+		final StravaStreamType[] typesToGet = ((types == null) || (types.length == 0) ? getAllStreamTypes() : types);
+		final Long activityId = lap.getActivity().getId();
+		if ((lap.getStartIndex() != null) && (lap.getEndIndex() != null)) {
+			return sliceActivityStreams(activityId, lap.getStartIndex().intValue(), lap.getEndIndex().intValue(), typesToGet);
+		}
+
+		// No indices, so find the lap in the activity's time stream from its start date and elapsed time
+		final StravaActivity activity = this.getToken().getService(ActivityService.class).getActivity(activityId);
+		if ((activity == null) || (activity.getStartDate() == null) || (lap.getStartDate() == null) || (lap.getElapsedTime() == null)) {
+			return null;
+		}
+		final List<StravaStream> timeStreams = getActivityStreams(activityId, null, null, StravaStreamType.TIME);
+		if ((timeStreams == null) || timeStreams.isEmpty()) {
+			return timeStreams;
+		}
+		final List<Float> time = timeStreams.get(0).getData();
+		final long start = Duration.between(activity.getStartDate(), lap.getStartDate()).getSeconds();
+		final long end = start + lap.getElapsedTime().longValue();
+		int from = -1;
+		int to = -1;
+		for (int i = 0; i < time.size(); i++) {
+			final float t = time.get(i).floatValue();
+			if ((from < 0) && (t >= start)) {
+				from = i;
+			}
+			if (t <= end) {
+				to = i;
+			}
+		}
+		if ((from < 0) || (to < from)) {
+			return null;
+		}
+		return sliceActivityStreams(activityId, from, to, typesToGet);
+	}
+
+	/**
+	 * @see javastrava.service.StreamService#getLapStreamsAsync(javastrava.model.StravaLap, javastrava.model.reference.StravaStreamType[])
+	 */
+	@Override
+	public CompletableFuture<List<StravaStream>> getLapStreamsAsync(final StravaLap lap, final StravaStreamType... types) {
+		return StravaServiceImpl.future(() -> getLapStreams(lap, types));
+	}
+
 	/**
 	 * @see javastrava.service.StreamService#getSegmentStreams(java.lang.Integer)
 	 */
@@ -301,8 +409,16 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 			return new ArrayList<>();
 		}
 
+		// Serve from the cache if possible
+		List<StravaStream> streams = this.streamCache.get(StravaStreamCache.Owner.SEGMENT, segmentId, resolution, seriesType, typesToGet);
+		if (streams != null) {
+			return streams;
+		}
+
 		try {
-			return Arrays.asList(this.api.getSegmentStreams(segmentId, typeString(typesToGet), resolution, seriesType));
+			streams = Arrays.asList(this.api.getSegmentStreams(segmentId, typeString(typesToGet), resolution, seriesType));
+			this.streamCache.put(StravaStreamCache.Owner.SEGMENT, segmentId, resolution, seriesType, typesToGet, streams);
+			return streams;
 		} catch (final NotFoundException e) {
 			return null;
 		} catch (final BadRequestException e) {
@@ -328,4 +444,46 @@ public class StreamServiceImpl extends StravaServiceImpl implements StreamServic
 		return StravaServiceImpl.future(() -> getSegmentStreams(segmentId, resolution, seriesType, types));
 	}
 
+	/**
+	 * <p>
+	 * Slices a range out of an activity's full streams, requesting (and caching) the activity's streams if they aren't already cached
+	 * </p>
+	 *
+	 * @param activityId
+	 *            The activity
+	 * @param from
+	 *            Index of the first sample
+	 * @param to
+	 *            Index of the last sample
+	 * @param types
+	 *            Stream types requested
+	 * @return Read-only views of the streams over the range, an empty list if the activity is private, or <code>null</code> if the activity does not exist
+	 */
+	private List<StravaStream> sliceActivityStreams(final Long activityId, final int from, final int to, final StravaStreamType[] types) {
+		List<StravaStream> streams = this.streamCache.slice(StravaStreamCache.Owner.ACTIVITY, activityId, from, to, types);
+		if (streams == null) {
+			final List<StravaStream> activityStreams = getActivityStreams(activityId, null, null, types);
+			if ((activityStreams == null) || activityStreams.isEmpty()) {
+				return activityStreams;
+			}
+			streams = this.streamCache.slice(StravaStreamCache.Owner.ACTIVITY, activityId, from, to, types);
+		}
+		return streams;
+	}
+
+	/**
+	 * @param effort
+	 *            A segment effort
+	 * @param types
+	 *            Stream types requested
+	 * @return The effort's streams, sliced out of its activity's, or <code>null</code> if that isn't possible (the effort has no activity or indices, or the activity's streams can't
+	 *         be read)
+	 */
+	private List<StravaStream> sliceEffortStreams(final StravaSegmentEffort effort, final StravaStreamType[] types) {
+		if ((effort.getActivity() == null) || (effort.getActivity().getId() == null) || (effort.getStartIndex() == null) || (effort.getEndIndex() == null)) {
+			return null;
+		}
+		final List<StravaStream> streams = sliceActivityStreams(effort.getActivity().getId(), effort.getStartIndex().intValue(), effort.getEndIndex().intValue(), types);
+		return (((streams == null) || streams.isEmpty()) ? null : streams);
+	}
 }
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
+import javastrava.api.WebhookAPI;
 import javastrava.auth.model.Token;
 import javastrava.model.webhook.StravaEventSubscription;
 import javastrava.service.WebhookService;
@@ -74,7 +75,7 @@ public class WebhookServiceImpl extends StravaServiceImpl implements WebhookServ
 
 	@Override
 	public CompletableFuture<List<StravaEventSubscription>> listSubscriptionsAsync(final Integer clientId, final String clientSecret) {
-		return StravaServiceImpl.future(() -> Arrays.asList(this.api.listSubscriptions(clientId, clientSecret)));
+		return StravaServiceImpl.list(this.api.getAsyncClient().call(WebhookAPI.class, api -> api.listSubscriptions(clientId, clientSecret)));
 	}
 
 }
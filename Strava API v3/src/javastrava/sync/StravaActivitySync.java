@@ -0,0 +1,174 @@
+package javastrava.sync;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import javastrava.auth.model.Token;
+import javastrava.config.StravaConfig;
+import javastrava.model.StravaActivity;
+import javastrava.service.ActivityService;
+import javastrava.service.impl.ActivityServiceImpl;
+import javastrava.sync.StravaSyncCheckpoint.Entry;
+import javastrava.sync.impl.StravaFileSyncStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Keeps track of an athlete's activities without listing their whole history each time
+ * </p>
+ *
+ * <p>
+ * Each {@link #sync()} lists only the activities started after the latest one seen by the previous sync, less {@link StravaConfig#SYNC_OVERLAP_SECONDS}, so the number of calls to the API
+ * depends on how much has happened since rather than on how many activities the athlete has. Activities in that window are compared with what was seen before: new identifiers are reported
+ * as added, activities whose editable fields have changed as updated, and identifiers seen before but no longer listed as deleted. The overlap catches activities uploaded some time after they
+ * were recorded; edits and deletions of activities older than the overlap are only found by {@link #resync()}, which lists everything.
+ * </p>
+ *
+ * <p>
+ * The start date of the latest activity and the activities seen are kept in a {@link StravaSyncCheckpoint} in a {@link StravaSyncStore}, which is only updated once the listing has
+ * succeeded; if a sync fails, the next one finds the same changes again.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Slf4j
+public class StravaActivitySync {
+	/**
+	 * Identifier of the athlete
+	 */
+	private final Integer			athleteId;
+
+	/**
+	 * Service used to list the athlete's activities
+	 */
+	private final ActivityService	service;
+
+	/**
+	 * Store the checkpoint is kept in
+	 */
+	private final StravaSyncStore	store;
+
+	/**
+	 * @param athleteId
+	 *            Identifier of the athlete; must be the authenticated athlete of the service's token
+	 * @param service
+	 *            Service used to list the athlete's activities
+	 * @param store
+	 *            Store the checkpoint is kept in
+	 */
+	public StravaActivitySync(final Integer athleteId, final ActivityService service, final StravaSyncStore store) {
+		this.athleteId = athleteId;
+		this.service = service;
+		this.store = store;
+	}
+
+	/**
+	 * <p>
+	 * Synchronises the token's athlete, keeping checkpoints in files in {@link StravaConfig#SYNC_DIRECTORY}
+	 * </p>
+	 *
+	 * @param token
+	 *            The athlete's token
+	 */
+	public StravaActivitySync(final Token token) {
+		this(token.getAthlete().getId(), ActivityServiceImpl.instance(token), new StravaFileSyncStore(Paths.get(StravaConfig.SYNC_DIRECTORY)));
+	}
+
+	/**
+	 * <p>
+	 * Hash of the fields of an activity that change when it is edited, cropped or made private; kudos, comments and other counts are left out so that they don't make an activity look updated
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity
+	 * @return The hash; the same from one run to the next
+	 */
+	private static int fingerprint(final StravaActivity activity) {
+		return Objects.hash(activity.getName(), String.valueOf(activity.getType()), String.valueOf(activity.getWorkoutType()), activity.getDistance(), activity.getMovingTime(),
+				activity.getElapsedTime(), activity.getTotalElevationGain(), activity.getGearId(), activity.getPrivateActivity(), activity.getCommute(), activity.getTrainer(),
+				(activity.getMap() == null ? null : activity.getMap().getSummaryPolyline()));
+	}
+
+	/**
+	 * <p>
+	 * Lists all of the athlete's activities and compares them with the checkpoint, finding edits and deletions of activities of any age. The first sync of an athlete does this anyway.
+	 * </p>
+	 *
+	 * @return The changes since the previous sync
+	 */
+	public synchronized StravaSyncChanges resync() {
+		return sync(true);
+	}
+
+	/**
+	 * <p>
+	 * Lists the activities started since the previous sync (less the overlap) and compares them with the checkpoint
+	 * </p>
+	 *
+	 * @return The changes since the previous sync
+	 */
+	public synchronized StravaSyncChanges sync() {
+		return sync(false);
+	}
+
+	/**
+	 * @param full
+	 *            Whether to list all the athlete's activities, rather than just those since the high-water mark
+	 * @return The changes since the previous sync
+	 */
+	private StravaSyncChanges sync(final boolean full) {
+		StravaSyncCheckpoint checkpoint = this.store.load(this.athleteId);
+		if (checkpoint == null) {
+			checkpoint = new StravaSyncCheckpoint(this.athleteId);
+		}
+		final Long after = ((full || (checkpoint.getHighWaterMark() == null)) ? null : Long.valueOf(checkpoint.getHighWaterMark().longValue() - StravaConfig.SYNC_OVERLAP_SECONDS));
+		final List<StravaActivity> activities = this.service.listAllAuthenticatedAthleteActivities(null,
+				(after == null ? null : LocalDateTime.ofEpochSecond(after.longValue(), 0, ZoneOffset.UTC)));
+
+		final StravaSyncChanges changes = new StravaSyncChanges();
+		final Map<Long, Entry> seen = checkpoint.getSeen();
+		final Set<Long> listed = new HashSet<Long>();
+		for (final StravaActivity activity : activities) {
+			if ((activity.getId() == null) || (activity.getStartDate() == null)) {
+				continue;
+			}
+			listed.add(activity.getId());
+			final Entry entry = new Entry(activity.getStartDate().toEpochSecond(), fingerprint(activity));
+			final Entry previous = seen.put(activity.getId(), entry);
+			if (previous == null) {
+				changes.getAdded().add(activity.getId());
+				changes.getActivities().add(activity);
+			} else if (previous.getFingerprint() != entry.getFingerprint()) {
+				changes.getUpdated().add(activity.getId());
+				changes.getActivities().add(activity);
+			}
+		}
+
+		// Anything seen before in the listed window that wasn't listed this time has gone
+		long highWaterMark = Long.MIN_VALUE;
+		for (final Iterator<Map.Entry<Long, Entry>> i = seen.entrySet().iterator(); i.hasNext();) {
+			final Map.Entry<Long, Entry> seenEntry = i.next();
+			final long startDate = seenEntry.getValue().getStartDate();
+			if (!listed.contains(seenEntry.getKey()) && ((after == null) || (startDate > after.longValue()))) {
+				changes.getDeleted().add(seenEntry.getKey());
+				i.remove();
+			} else {
+				highWaterMark = Math.max(highWaterMark, startDate);
+			}
+		}
+		checkpoint.setHighWaterMark(seen.isEmpty() ? null : Long.valueOf(highWaterMark));
+
+		this.store.save(checkpoint);
+		log.info("Synchronised activities of athlete " + this.athleteId + ": " + changes.getAdded().size() + " added, " + changes.getUpdated().size() + " updated, "
+				+ changes.getDeleted().size() + " deleted, " + activities.size() + " listed");
+		return changes;
+	}
+}
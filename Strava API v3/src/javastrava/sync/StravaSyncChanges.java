@@ -0,0 +1,79 @@
+package javastrava.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javastrava.model.StravaActivity;
+
+/**
+ * <p>
+ * What changed in an athlete's activities since the previous {@link StravaActivitySync#sync() sync}
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSyncChanges {
+	/**
+	 * Identifiers of activities not seen before
+	 */
+	private final List<Long>			added		= new ArrayList<Long>();
+
+	/**
+	 * Identifiers of activities that have been edited since they were last seen
+	 */
+	private final List<Long>			updated		= new ArrayList<Long>();
+
+	/**
+	 * Identifiers of activities that have been deleted
+	 */
+	private final List<Long>			deleted		= new ArrayList<Long>();
+
+	/**
+	 * Summary representations of the added and updated activities
+	 */
+	private final List<StravaActivity>	activities	= new ArrayList<StravaActivity>();
+
+	/**
+	 * @return Summary representations of the added and updated activities, as listed by the sync
+	 */
+	public List<StravaActivity> getActivities() {
+		return this.activities;
+	}
+
+	/**
+	 * @return Identifiers of activities not seen before
+	 */
+	public List<Long> getAdded() {
+		return this.added;
+	}
+
+	/**
+	 * @return Identifiers of activities that have been deleted
+	 */
+	public List<Long> getDeleted() {
+		return this.deleted;
+	}
+
+	/**
+	 * @return Identifiers of activities that have been edited since they were last seen
+	 */
+	public List<Long> getUpdated() {
+		return this.updated;
+	}
+
+	/**
+	 * @return <code>true</code> if nothing has changed
+	 */
+	public boolean isEmpty() {
+		return this.added.isEmpty() && this.updated.isEmpty() && this.deleted.isEmpty();
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaSyncChanges [added=" + this.added + ", updated=" + this.updated + ", deleted=" + this.deleted + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
@@ -0,0 +1,123 @@
+package javastrava.sync;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * How far an athlete's activities have been synchronised by {@link StravaActivitySync}: the start date of the latest activity seen, and every activity seen so far
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSyncCheckpoint {
+	/**
+	 * What was seen of one activity
+	 */
+	public static class Entry {
+		/**
+		 * Start date of the activity, in seconds since the epoch
+		 */
+		private long	startDate;
+
+		/**
+		 * Hash of the fields of the activity that change when it is edited
+		 */
+		private int		fingerprint;
+
+		/**
+		 * No-args constructor, for deserialisation
+		 */
+		public Entry() {
+			super();
+		}
+
+		/**
+		 * @param startDate
+		 *            Start date of the activity, in seconds since the epoch
+		 * @param fingerprint
+		 *            Hash of the fields of the activity that change when it is edited
+		 */
+		public Entry(final long startDate, final int fingerprint) {
+			this.startDate = startDate;
+			this.fingerprint = fingerprint;
+		}
+
+		/**
+		 * @return Hash of the fields of the activity that change when it is edited
+		 */
+		public int getFingerprint() {
+			return this.fingerprint;
+		}
+
+		/**
+		 * @return Start date of the activity, in seconds since the epoch
+		 */
+		public long getStartDate() {
+			return this.startDate;
+		}
+	}
+
+	/**
+	 * Identifier of the athlete
+	 */
+	private Integer				athleteId;
+
+	/**
+	 * Start date of the latest activity seen, in seconds since the epoch, or <code>null</code> if none has been seen
+	 */
+	private Long				highWaterMark;
+
+	/**
+	 * Activities seen, by identifier
+	 */
+	private Map<Long, Entry>	seen	= new HashMap<Long, Entry>();
+
+	/**
+	 * No-args constructor, for deserialisation
+	 */
+	public StravaSyncCheckpoint() {
+		super();
+	}
+
+	/**
+	 * @param athleteId
+	 *            Identifier of the athlete
+	 */
+	public StravaSyncCheckpoint(final Integer athleteId) {
+		this.athleteId = athleteId;
+	}
+
+	/**
+	 * @return Identifier of the athlete
+	 */
+	public Integer getAthleteId() {
+		return this.athleteId;
+	}
+
+	/**
+	 * @return Start date of the latest activity seen, in seconds since the epoch, or <code>null</code> if none has been seen
+	 */
+	public Long getHighWaterMark() {
+		return this.highWaterMark;
+	}
+
+	/**
+	 * @return Activities seen, by identifier
+	 */
+	public Map<Long, Entry> getSeen() {
+		if (this.seen == null) {
+			this.seen = new HashMap<Long, Entry>();
+		}
+		return this.seen;
+	}
+
+	/**
+	 * @param highWaterMark
+	 *            Start date of the latest activity seen, in seconds since the epoch
+	 */
+	public void setHighWaterMark(final Long highWaterMark) {
+		this.highWaterMark = highWaterMark;
+	}
+}
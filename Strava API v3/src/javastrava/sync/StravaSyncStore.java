@@ -0,0 +1,30 @@
+package javastrava.sync;
+
+/**
+ * <p>
+ * Where {@link StravaActivitySync} keeps its {@link StravaSyncCheckpoint checkpoints} between syncs. {@link javastrava.sync.impl.StravaFileSyncStore} keeps them in files; other implementations
+ * might keep them in a database shared by several processes.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public interface StravaSyncStore {
+	/**
+	 * @param athleteId
+	 *            Identifier of the athlete
+	 * @return The athlete's checkpoint, or <code>null</code> if they have never been synchronised
+	 */
+	StravaSyncCheckpoint load(final Integer athleteId);
+
+	/**
+	 * <p>
+	 * Stores a checkpoint, replacing any previous one for the same athlete. If this fails the next sync repeats the changes found by this one, so implementations should throw rather than fail
+	 * silently.
+	 * </p>
+	 *
+	 * @param checkpoint
+	 *            The checkpoint
+	 */
+	void save(final StravaSyncCheckpoint checkpoint);
+}
@@ -0,0 +1,91 @@
+package javastrava.sync.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import javastrava.json.JsonUtil;
+import javastrava.json.exception.JsonSerialisationException;
+import javastrava.json.impl.JsonUtilImpl;
+import javastrava.sync.StravaSyncCheckpoint;
+import javastrava.sync.StravaSyncStore;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Keeps sync checkpoints as JSON, one file per athlete in a directory. Files are written to a temporary file which is then renamed over the old one, so a checkpoint is never left half
+ * written.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Slf4j
+public class StravaFileSyncStore implements StravaSyncStore {
+	/**
+	 * Directory the checkpoints are kept in
+	 */
+	private final Path directory;
+
+	/**
+	 * JSON serialiser for the checkpoints
+	 */
+	private final JsonUtil json = new JsonUtilImpl();
+
+	/**
+	 * @param directory
+	 *            Directory the checkpoints are kept in; created when the first checkpoint is saved
+	 */
+	public StravaFileSyncStore(final Path directory) {
+		this.directory = directory;
+	}
+
+	/**
+	 * <p>
+	 * If the athlete's file can't be read it is treated as missing, so the next sync lists all of their activities again and reports them all as added
+	 * </p>
+	 *
+	 * @see javastrava.sync.StravaSyncStore#load(java.lang.Integer)
+	 */
+	@Override
+	public StravaSyncCheckpoint load(final Integer athleteId) {
+		final Path file = file(athleteId);
+		if (!Files.exists(file)) {
+			return null;
+		}
+		try {
+			return this.json.deserialise(new String(Files.readAllBytes(file), StandardCharsets.UTF_8), StravaSyncCheckpoint.class);
+		} catch (final IOException | JsonSerialisationException e) {
+			log.warn("Could not read sync checkpoint " + file + ", starting again", e);
+			return null;
+		}
+	}
+
+	/**
+	 * @see javastrava.sync.StravaSyncStore#save(javastrava.sync.StravaSyncCheckpoint)
+	 */
+	@Override
+	public void save(final StravaSyncCheckpoint checkpoint) {
+		final Path file = file(checkpoint.getAthleteId());
+		try {
+			Files.createDirectories(this.directory);
+			final Path temporary = file.resolveSibling(file.getFileName() + ".tmp"); //$NON-NLS-1$
+			Files.write(temporary, this.json.serialise(checkpoint).getBytes(StandardCharsets.UTF_8));
+			Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * @param athleteId
+	 *            Identifier of the athlete
+	 * @return The file the athlete's checkpoint is kept in
+	 */
+	private Path file(final Integer athleteId) {
+		return this.directory.resolve("activities-" + athleteId + ".json"); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+}
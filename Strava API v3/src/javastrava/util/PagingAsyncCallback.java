@@ -0,0 +1,22 @@
+package javastrava.util;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>
+ * Non-blocking counterpart of {@link PagingCallback}, used by {@link PagingHandler#handlePagingAsync(Paging, PagingAsyncCallback)}
+ * </p>
+ *
+ * @author Dan Shannon
+ * @param <T>
+ *            Class of the object in the list to be returned
+ *
+ */
+public interface PagingAsyncCallback<T> {
+	/**
+	 * @param thisPage The page of data to be returned
+	 * @return Future which is completed with the page of data, or with the exception the Strava API threw; cancelling it should cancel the call to the API
+	 */
+	CompletableFuture<List<T>> getPageOfData(final Paging thisPage);
+}
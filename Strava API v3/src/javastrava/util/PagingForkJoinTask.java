@@ -46,11 +46,7 @@ public class PagingForkJoinTask<T> extends RecursiveTask<List<T>> {
 		}
 		if (this.pages.size() == 1) {
 			try {
-				final Paging pagingInstruction = this.pages.get(0);
-				List<T> pageOfData = this.callback.getPageOfData(pagingInstruction);
-				pageOfData = PagingUtils.ignoreLastN(pageOfData, pagingInstruction.getIgnoreLastN());
-				pageOfData = PagingUtils.ignoreFirstN(pageOfData, pagingInstruction.getIgnoreFirstN());
-				return pageOfData;
+				return PagingHandler.fetchPage(this.callback, this.pages.get(0));
 			} catch (final NotFoundException | BadRequestException e) {
 				return null;
 			}
@@ -2,9 +2,15 @@ package javastrava.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 
+import javastrava.api.async.StravaAPICall;
 import javastrava.config.StravaConfig;
+import javastrava.jfr.StravaFlightRecorder;
+import javastrava.jfr.StravaPageFetchEvent;
 import javastrava.service.exception.BadRequestException;
 import javastrava.service.exception.NotFoundException;
 import javastrava.service.exception.UnauthorizedException;
@@ -19,6 +25,11 @@ import javastrava.service.impl.ActivityServiceImpl;
  * Example - see {@link ActivityServiceImpl#listActivityComments(Long, Paging)}
  * </p>
  *
+ * <p>
+ * The <code>*Async</code> methods do the same without blocking: the pages are requested together and the returned future is completed when the last of them arrives. Cancelling it
+ * cancels the calls still in flight.
+ * </p>
+ *
  * @author Dan Shannon
  *
  */
@@ -27,6 +38,77 @@ public class PagingHandler {
 	 * A ForkJoinPool used for parallel processing of large paging requests
 	 */
 	private static ForkJoinPool pool = new ForkJoinPool();
+
+	/**
+	 * <p>
+	 * Handles a failed call the same way as {@link #handlePaging(Paging, PagingCallback)} does
+	 * </p>
+	 *
+	 * @param error The exception the call failed with, possibly wrapped in a {@link CompletionException}
+	 * @param <T> the parameterised type of list to be returned
+	 * @return <code>null</code> if the thing being paged doesn't exist, or an empty list if it can't be seen
+	 * @throws CompletionException If the exception is one that should be passed on
+	 */
+	private static <T> List<T> failed(final Throwable error) {
+		final Throwable cause = ((error instanceof CompletionException) && (error.getCause() != null) ? error.getCause() : error);
+		if (cause instanceof NotFoundException) {
+			return null;
+		}
+		if ((cause instanceof UnauthorizedException) || (cause instanceof BadRequestException)) {
+			return new ArrayList<>();
+		}
+		throw (error instanceof CompletionException ? (CompletionException) error : new CompletionException(error));
+	}
+
+	/**
+	 * <p>
+	 * Gets a single Strava-compatible page of data and trims it according to the paging instruction
+	 * </p>
+	 *
+	 * @param callback The callback function that returns one page of data
+	 * @param paging A Strava-compatible paging instruction
+	 * @param <T> the parameterised type of list to be returned
+	 * @return The page of data
+	 */
+	static <T> List<T> fetchPage(final PagingCallback<T> callback, final Paging paging) {
+		final StravaPageFetchEvent event = (StravaFlightRecorder.AVAILABLE ? StravaPageFetchEvent.start() : null);
+		List<T> records = null;
+		try {
+			records = callback.getPageOfData(paging);
+		} finally {
+			if (event != null) {
+				event.finish(paging.getPage(), paging.getPageSize(), (records == null ? -1 : records.size()));
+			}
+		}
+		records = PagingUtils.ignoreLastN(records, paging.getIgnoreLastN());
+		records = PagingUtils.ignoreFirstN(records, paging.getIgnoreFirstN());
+		return records;
+	}
+
+	/**
+	 * <p>
+	 * As {@link #fetchPage(PagingCallback, Paging)}, without waiting for the page to arrive
+	 * </p>
+	 *
+	 * @param callback The callback function that returns one page of data
+	 * @param paging A Strava-compatible paging instruction
+	 * @param <T> the parameterised type of list to be returned
+	 * @return Future which is completed with the page of data
+	 */
+	static <T> CompletableFuture<List<T>> fetchPageAsync(final PagingAsyncCallback<T> callback, final Paging paging) {
+		final StravaPageFetchEvent event = (StravaFlightRecorder.AVAILABLE ? StravaPageFetchEvent.start() : null);
+		final CompletableFuture<List<T>> page = callback.getPageOfData(paging);
+		return StravaAPICall.cancelling(page, page.handle((records, error) -> {
+			if (event != null) {
+				event.finish(paging.getPage(), paging.getPageSize(), (records == null ? -1 : records.size()));
+			}
+			if (error != null) {
+				throw (error instanceof CompletionException ? (CompletionException) error : new CompletionException(error));
+			}
+			return PagingUtils.ignoreFirstN(PagingUtils.ignoreLastN(records, paging.getIgnoreLastN()), paging.getIgnoreFirstN());
+		}));
+	}
+
 	/**
 	 * <p>
 	 * Returns ALL the data from a Strava service that would normally only return a page of data, by simply getting pages 1..n until there's no more data to retrieve
@@ -98,6 +180,43 @@ public class PagingHandler {
 
 	}
 
+	/**
+	 * <p>
+	 * As {@link #handleListAll(PagingCallback)}, without blocking
+	 * </p>
+	 *
+	 * @param callback The callback function that returns one page of data
+	 * @param <T> the parameterised type of list to be returned
+	 * @return Future which is completed with the list containing all the records
+	 */
+	public static <T> CompletableFuture<List<T>> handleListAllAsync(final PagingAsyncCallback<T> callback) {
+		return handleListAllAsync(callback, StravaConfig.PAGING_LIST_ALL_PARALLELISM);
+	}
+
+	/**
+	 * <p>
+	 * As {@link #handleListAll(PagingCallback, int)}, without blocking; each set of pages is requested once the one before it has arrived
+	 * </p>
+	 *
+	 * @param callback The callback function that returns one page of data
+	 * @param parallelism How many pages should be requested at once
+	 * @param <T> the parameterised type of list to be returned
+	 * @return Future which is completed with the list containing all the records; cancelling it cancels the calls in flight and stops any more being made
+	 */
+	public static <T> CompletableFuture<List<T>> handleListAllAsync(final PagingAsyncCallback<T> callback, final int parallelism) {
+		final int pageSize = StravaConfig.MAX_PAGE_SIZE * (parallelism == 0 ? StravaConfig.PAGING_LIST_ALL_PARALLELISM : parallelism);
+		final CompletableFuture<List<T>> records = new CompletableFuture<>();
+		final AtomicReference<CompletableFuture<List<T>>> current = new AtomicReference<>();
+		records.whenComplete((result, error) -> {
+			final CompletableFuture<List<T>> inFlight = current.get();
+			if (records.isCancelled() && (inFlight != null)) {
+				inFlight.cancel(true);
+			}
+		});
+		listAllFrom(1, pageSize, callback, new ArrayList<>(), records, current);
+		return records;
+	}
+
 	/**
 	 * <p>
 	 * Validates paging instructions and converts them to Strava-compatible paging instructions, then gets the whole lot for you
@@ -123,11 +242,7 @@ public class PagingHandler {
 
 			// If there's only the one page to get, don't bother going all parallel!
 			if (pages.size() == 1) {
-				final Paging paging = pages.get(0);
-				records = callback.getPageOfData(paging);
-				records = PagingUtils.ignoreLastN(records, paging.getIgnoreLastN());
-				records = PagingUtils.ignoreFirstN(records, paging.getIgnoreFirstN());
-				return records;
+				return fetchPage(callback, pages.get(0));
 			}
 
 			// But if there is more than one, get them in parallel
@@ -140,4 +255,99 @@ public class PagingHandler {
 		return records;
 
 	}
+
+	/**
+	 * <p>
+	 * As {@link #handlePaging(Paging, PagingCallback)}, without blocking
+	 * </p>
+	 *
+	 * @param pagingInstruction
+	 *            The overarching paging instruction to be managed
+	 * @param callback
+	 *            Gets the relevant page of data from the Strava API without blocking
+	 * @param <T>
+	 *            The class of objects which will be returned in the list
+	 * @return Future which is completed with the list of strava objects as per the paging instruction
+	 */
+	public static <T> CompletableFuture<List<T>> handlePagingAsync(final Paging pagingInstruction, final PagingAsyncCallback<T> callback) {
+		final List<CompletableFuture<List<T>>> fetches = new ArrayList<>();
+		try {
+			for (final Paging page : PagingUtils.convertToStravaPaging(pagingInstruction)) {
+				fetches.add(fetchPageAsync(callback, page));
+			}
+		} catch (final RuntimeException e) {
+			for (final CompletableFuture<List<T>> fetch : fetches) {
+				fetch.cancel(true);
+			}
+			final CompletableFuture<List<T>> failure = new CompletableFuture<>();
+			failure.completeExceptionally(e);
+			return failure;
+		}
+
+		final CompletableFuture<List<T>> records = CompletableFuture.allOf(fetches.toArray(new CompletableFuture<?>[fetches.size()])).handle((ignored, error) -> {
+			if (error != null) {
+				return failed(error);
+			}
+			if (fetches.size() == 1) {
+				return fetches.get(0).join();
+			}
+			final List<T> pages = new ArrayList<>();
+			for (final CompletableFuture<List<T>> fetch : fetches) {
+				final List<T> page = fetch.join();
+				if (page != null) {
+					pages.addAll(page);
+				}
+			}
+			return pages;
+		});
+		records.whenComplete((result, error) -> {
+			if (records.isCancelled()) {
+				for (final CompletableFuture<List<T>> fetch : fetches) {
+					fetch.cancel(true);
+				}
+			}
+		});
+		return records;
+	}
+
+	/**
+	 * <p>
+	 * Requests the next set of pages for {@link #handleListAllAsync(PagingAsyncCallback, int)}, and the one after that when it arrives, until a short page shows there are no more
+	 * </p>
+	 *
+	 * @param page Page to request
+	 * @param pageSize Size of each page
+	 * @param callback The callback function that returns one page of data
+	 * @param records Records retrieved so far
+	 * @param result Future to complete with all the records
+	 * @param current Set to the request in flight, so that it can be cancelled
+	 * @param <T> the parameterised type of list to be returned
+	 */
+	private static <T> void listAllFrom(final int page, final int pageSize, final PagingAsyncCallback<T> callback, final List<T> records, final CompletableFuture<List<T>> result,
+			final AtomicReference<CompletableFuture<List<T>>> current) {
+		final CompletableFuture<List<T>> fetch = handlePagingAsync(new Paging(page, pageSize), callback);
+		current.set(fetch);
+		if (result.isDone()) {
+			fetch.cancel(true);
+			return;
+		}
+		fetch.whenComplete((currentPage, error) -> {
+			if (error != null) {
+				try {
+					result.complete(failed(error));
+				} catch (final CompletionException e) {
+					result.completeExceptionally(e.getCause());
+				}
+			} else if (currentPage == null) {
+				result.complete(null); // Activity doesn't exist
+			} else {
+				records.addAll(currentPage);
+				if (currentPage.size() < pageSize) {
+					result.complete(records);
+				} else {
+					listAllFrom(page + 1, pageSize, callback, records, result, current);
+				}
+			}
+		});
+	}
 }
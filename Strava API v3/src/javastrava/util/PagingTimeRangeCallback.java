@@ -0,0 +1,34 @@
+package javastrava.util;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import javastrava.service.exception.BadRequestException;
+import javastrava.service.exception.NotFoundException;
+
+/**
+ * <p>
+ * Returns a page of the data that falls within a window of time, for {@link PagingTimeRangeHandler}
+ * </p>
+ *
+ * @author Dan Shannon
+ * @param <T>
+ *            Class of the object in the list to be returned
+ *
+ */
+public interface PagingTimeRangeCallback<T> {
+	/**
+	 * @param after
+	 *            Start of the window
+	 * @param before
+	 *            End of the window
+	 * @param thisPage
+	 *            The page of data to be returned
+	 * @return Page of data; should be sorted oldest first for the windows to be chosen well, but needn't be
+	 * @throws NotFoundException
+	 *             If the thing being paged itself throws a {@link NotFoundException}
+	 * @throws BadRequestException
+	 *             If the paging instructions are invalid
+	 */
+	List<T> getPageOfData(final LocalDateTime after, final LocalDateTime before, final Paging thisPage) throws NotFoundException, BadRequestException;
+}
@@ -0,0 +1,284 @@
+package javastrava.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+import javastrava.config.StravaConfig;
+import javastrava.service.exception.BadRequestException;
+import javastrava.service.exception.NotFoundException;
+import javastrava.service.exception.UnauthorizedException;
+
+/**
+ * <p>
+ * Returns ALL the data from a Strava service that can be asked for a window of time, by splitting the time range into windows small enough to fit in a single page and getting them in
+ * parallel
+ * </p>
+ *
+ * <p>
+ * Unlike {@link PagingHandler#handleListAll(PagingCallback)}, which asks for pages 1..n, the windows don't move if something is uploaded or deleted while the list is being got, so nothing is
+ * returned twice or missed; and the number of calls needed is worked out as it goes rather than guessed. The first page is got for the whole range. If it is full, the rest of the range is
+ * divided into as many windows as the density of that first page suggests will be needed, which are got in parallel; any window that still comes back full is divided again. If a page isn't
+ * sorted oldest first, so that the time it reaches can't be known, the window is simply halved. Windows overlap by a second so that nothing on a boundary is missed, and the results are
+ * de-duplicated by identifier.
+ * </p>
+ *
+ * <p>
+ * USE WITH CAUTION! THIS WILL VERY RAPIDLY EAT THROUGH YOUR STRAVA QUOTA!
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class PagingTimeRangeHandler {
+	/**
+	 * Gets the pages of one window, and divides the rest of it if the page is full
+	 *
+	 * @param <T>
+	 *            Class of objects being listed
+	 */
+	private static class WindowTask<T> extends RecursiveAction {
+		/**
+		 * Default
+		 */
+		private static final long	serialVersionUID	= 1L;
+
+		/**
+		 * Shared state of the listing
+		 */
+		private final Listing<T>	listing;
+
+		/**
+		 * Start of the window, in seconds since the epoch
+		 */
+		private final long			start;
+
+		/**
+		 * End of the window, in seconds since the epoch
+		 */
+		private final long			end;
+
+		/**
+		 * @param listing
+		 *            Shared state of the listing
+		 * @param start
+		 *            Start of the window, in seconds since the epoch
+		 * @param end
+		 *            End of the window, in seconds since the epoch
+		 */
+		WindowTask(final Listing<T> listing, final long start, final long end) {
+			this.listing = listing;
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			final int pageSize = StravaConfig.MAX_PAGE_SIZE.intValue();
+			final List<T> page = this.listing.fetch(this.start, this.end, new Paging(1, pageSize));
+			if ((page == null) || (page.size() < pageSize)) {
+				return;
+			}
+
+			// The page is full. If it's sorted oldest first, everything before the last time it reaches has been got
+			long first = Long.MIN_VALUE;
+			long last = Long.MIN_VALUE;
+			for (final T item : page) {
+				final LocalDateTime time = this.listing.time.apply(item);
+				if ((time == null) || (time.toEpochSecond(ZoneOffset.UTC) < last)) {
+					last = Long.MIN_VALUE;
+					break;
+				}
+				last = time.toEpochSecond(ZoneOffset.UTC);
+				if (first == Long.MIN_VALUE) {
+					first = last;
+				}
+			}
+
+			if ((last == Long.MIN_VALUE) || (last >= this.end)) {
+				// No idea how far the page reaches, so halve the window
+				if ((this.end - this.start) <= 1) {
+					this.listing.fetchAll(this.start, this.end);
+				} else {
+					final long middle = this.start + ((this.end - this.start) / 2);
+					invokeAll(new WindowTask<>(this.listing, this.start, middle), new WindowTask<>(this.listing, middle, this.end));
+				}
+				return;
+			}
+
+			if ((last == first) || (last <= this.start)) {
+				// A whole page within one second, so no progress; page through that second, then carry on after it
+				final long second = Math.max(last, this.start);
+				this.listing.fetchAll(second, second + 1);
+				if ((second + 1) < this.end) {
+					new WindowTask<>(this.listing, second + 1, this.end).compute();
+				}
+				return;
+			}
+
+			// Divide the rest of the window into as many windows as the density of this page suggests will each be three quarters full
+			final double expected = ((double) page.size() * (this.end - last)) / (last - first);
+			final int windows = (int) Math.max(1, Math.min(MAXIMUM_SPLIT, Math.ceil(expected / (pageSize * 0.75))));
+			final List<WindowTask<T>> tasks = new ArrayList<>();
+			final long length = this.end - last;
+			for (int i = 0; i < windows; i++) {
+				final long windowStart = last + ((length * i) / windows);
+				final long windowEnd = last + ((length * (i + 1)) / windows);
+				if (windowEnd > windowStart) {
+					tasks.add(new WindowTask<>(this.listing, windowStart, windowEnd));
+				}
+			}
+			invokeAll(tasks);
+		}
+	}
+
+	/**
+	 * State shared by the windows of one listing
+	 *
+	 * @param <T>
+	 *            Class of objects being listed
+	 */
+	private static class Listing<T> {
+		/**
+		 * Callback which returns a page of data for a window
+		 */
+		final PagingTimeRangeCallback<T>		callback;
+
+		/**
+		 * Gets the identifier of an object, for de-duplication
+		 */
+		final Function<T, ?>					id;
+
+		/**
+		 * Gets the time of an object, in the same time zone as the windows
+		 */
+		final Function<T, LocalDateTime>		time;
+
+		/**
+		 * Objects got so far, by identifier
+		 */
+		final ConcurrentHashMap<Object, T>	results	= new ConcurrentHashMap<>();
+
+		/**
+		 * Set if the callback returned <code>null</code>, meaning the thing being listed doesn't exist
+		 */
+		volatile boolean						notFound;
+
+		/**
+		 * @param callback
+		 *            Callback which returns a page of data for a window
+		 * @param id
+		 *            Gets the identifier of an object
+		 * @param time
+		 *            Gets the time of an object
+		 */
+		Listing(final PagingTimeRangeCallback<T> callback, final Function<T, ?> id, final Function<T, LocalDateTime> time) {
+			this.callback = callback;
+			this.id = id;
+			this.time = time;
+		}
+
+		/**
+		 * @param start
+		 *            Start of the window, in seconds since the epoch
+		 * @param end
+		 *            End of the window, in seconds since the epoch
+		 * @param paging
+		 *            Page to get
+		 * @return The page, which has also been added to the results
+		 */
+		List<T> fetch(final long start, final long end, final Paging paging) {
+			final LocalDateTime after = LocalDateTime.ofEpochSecond(start - 1, 0, ZoneOffset.UTC);
+			final LocalDateTime before = LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC);
+			final List<T> page = PagingHandler.fetchPage(thisPage -> this.callback.getPageOfData(after, before, thisPage), paging);
+			add(page);
+			return page;
+		}
+
+		/**
+		 * <p>
+		 * Gets every page of a window that can't be divided any further
+		 * </p>
+		 *
+		 * @param start
+		 *            Start of the window, in seconds since the epoch
+		 * @param end
+		 *            End of the window, in seconds since the epoch
+		 */
+		void fetchAll(final long start, final long end) {
+			final LocalDateTime after = LocalDateTime.ofEpochSecond(start - 1, 0, ZoneOffset.UTC);
+			final LocalDateTime before = LocalDateTime.ofEpochSecond(end, 0, ZoneOffset.UTC);
+			add(PagingHandler.handleListAll(thisPage -> this.callback.getPageOfData(after, before, thisPage)));
+		}
+
+		/**
+		 * @param page
+		 *            Objects to add to the results
+		 */
+		private void add(final List<T> page) {
+			if (page == null) {
+				this.notFound = true;
+				return;
+			}
+			for (final T item : page) {
+				this.results.putIfAbsent(this.id.apply(item), item);
+			}
+		}
+	}
+
+	/**
+	 * Most windows the rest of a full window is divided into at once
+	 */
+	private static final int	MAXIMUM_SPLIT	= 16;
+
+	/**
+	 * A ForkJoinPool used to get windows in parallel
+	 */
+	private static ForkJoinPool	pool			= new ForkJoinPool(StravaConfig.PAGING_LIST_ALL_PARALLELISM);
+
+	/**
+	 * <p>
+	 * Returns ALL the data between two times from a Strava service that would normally only return a page of data
+	 * </p>
+	 *
+	 * @param callback
+	 *            The callback function that returns one page of data for a window of time
+	 * @param id
+	 *            Gets the identifier of an object, by which the results are de-duplicated
+	 * @param time
+	 *            Gets the time of an object that the service compares with the window, in the same time zone
+	 * @param start
+	 *            Start of the range
+	 * @param end
+	 *            End of the range
+	 * @param <T>
+	 *            the parameterised type of list to be returned
+	 * @return The list containing all the records, sorted oldest first; <code>null</code> if the thing being listed doesn't exist
+	 */
+	public static <T> List<T> handleListAll(final PagingTimeRangeCallback<T> callback, final Function<T, ?> id, final Function<T, LocalDateTime> time, final LocalDateTime start,
+			final LocalDateTime end) {
+		final Listing<T> listing = new Listing<>(callback, id, time);
+		try {
+			pool.invoke(new WindowTask<>(listing, start.toEpochSecond(ZoneOffset.UTC), end.toEpochSecond(ZoneOffset.UTC)));
+		} catch (final NotFoundException e) {
+			return null;
+		} catch (final UnauthorizedException | BadRequestException e) {
+			return new ArrayList<>();
+		}
+		if (listing.notFound) {
+			return null;
+		}
+		final List<T> records = new ArrayList<>(listing.results.values());
+		records.sort(Comparator.comparing(time, Comparator.nullsLast(Comparator.naturalOrder())));
+		return records;
+	}
+}
@@ -8,6 +8,7 @@ import javastrava.model.StravaActivity;
 import javastrava.model.StravaChallenge;
 import javastrava.model.StravaClub;
 import javastrava.model.StravaGear;
+import javastrava.model.StravaRoute;
 import javastrava.model.StravaSegment;
 import javastrava.model.StravaSegmentEffort;
 import javastrava.model.StravaSegmentLeaderboard;
@@ -238,6 +239,22 @@ public class PrivacyUtils {
 		return gear;
 	}
 
+	/**
+	 * <p>
+	 * Creates a {@link StravaRoute} with resourceState = {@link StravaResourceState#PRIVATE}
+	 * </p>
+	 * 
+	 * @param id
+	 *            The id of the route to create
+	 * @return The private route
+	 */
+	public static StravaRoute privateRoute(final Integer id) {
+		final StravaRoute route = new StravaRoute();
+		route.setId(id);
+		route.setResourceState(StravaResourceState.PRIVATE);
+		return route;
+	}
+
 	/**
 	 * <p>
 	 * Creates a {@link StravaSegment} with resourceState = {@link StravaResourceState#PRIVATE}
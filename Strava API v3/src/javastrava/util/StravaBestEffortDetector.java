@@ -0,0 +1,250 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javastrava.model.StravaActivity;
+import javastrava.model.StravaBestRunningEffort;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaResourceState;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * Finds the fastest time over standard distances within an activity, from its {@link StravaStreamType#TIME time} and {@link StravaStreamType#DISTANCE distance} streams
+ * </p>
+ *
+ * <p>
+ * Strava only returns {@link StravaActivity#getBestEfforts() best efforts} for runs, and only on the detailed representation of each activity. This produces the same
+ * {@link StravaBestRunningEffort} results locally, for any sport and from cached streams, in a single linear pass per distance: the end of the window advances one sample at a time and the
+ * start follows it, so each sample is visited at most twice. The start of the best window is interpolated to exactly the target distance, as Strava does.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaBestEffortDetector {
+	/**
+	 * Distances, in metres, for which Strava reports best efforts
+	 */
+	public static final float[] STANDARD_DISTANCES = { 400f, 804.672f, 1000f, 1609.344f, 3218.688f, 5000f, 10000f, 15000f, 16093.44f, 20000f, 21097.5f, 30000f, 42195f, 50000f };
+
+	/**
+	 * Names Strava gives to the {@link #STANDARD_DISTANCES}
+	 */
+	public static final String[] STANDARD_NAMES = { "400m", "1/2 mile", "1k", "1 mile", "2 mile", "5k", "10k", "15k", "10 mile", "20k", "Half-Marathon", "30k", "Marathon", "50k" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$ //$NON-NLS-7$ //$NON-NLS-8$ //$NON-NLS-9$ //$NON-NLS-10$ //$NON-NLS-11$ //$NON-NLS-12$ //$NON-NLS-13$ //$NON-NLS-14$
+
+	/**
+	 * <p>
+	 * Finds the fastest time over a distance
+	 * </p>
+	 *
+	 * @param time
+	 *            Seconds from the start of the activity, non-decreasing
+	 * @param distance
+	 *            Distance from the start of the activity in metres, non-decreasing
+	 * @param length
+	 *            Number of samples
+	 * @param target
+	 *            The distance, in metres
+	 * @param window
+	 *            Receives the index of the sample at or before which the best effort starts, and the index of the sample at which it ends
+	 * @return The elapsed time of the best effort, in seconds, or <code>NaN</code> if the activity is shorter than the distance
+	 */
+	public static float bestEffort(final float[] time, final float[] distance, final int length, final float target, final int[] window) {
+		float best = Float.NaN;
+		int start = 0;
+		for (int end = 1; end < length; end++) {
+			final float reach = distance[end] - target;
+			if (reach < distance[0]) {
+				continue;
+			}
+			// Advance the start while the window would still cover the target distance without it
+			while (distance[start + 1] <= reach) {
+				start++;
+			}
+			// Interpolate the time at which the window starts, between samples start and start + 1
+			final float span = distance[start + 1] - distance[start];
+			final float fraction = (span > 0 ? (reach - distance[start]) / span : 0);
+			final float elapsed = time[end] - (time[start] + (fraction * (time[start + 1] - time[start])));
+			if (!(elapsed >= best)) {
+				best = elapsed;
+				window[0] = start;
+				window[1] = end;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * <p>
+	 * Finds the best efforts in an activity over each of the {@link #STANDARD_DISTANCES} it covers
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity, which supplies the start date and athlete
+	 * @param streams
+	 *            The activity's streams, which must include {@link StravaStreamType#TIME} and {@link StravaStreamType#DISTANCE}
+	 * @return The best efforts, shortest distance first; empty if the streams don't include time and distance
+	 */
+	public static List<StravaBestRunningEffort> bestEfforts(final StravaActivity activity, final List<StravaStream> streams) {
+		return bestEfforts(activity, streams, STANDARD_DISTANCES, STANDARD_NAMES);
+	}
+
+	/**
+	 * <p>
+	 * Finds the best efforts in an activity over each of the given distances it covers
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity, which supplies the start date and athlete
+	 * @param streams
+	 *            The activity's streams, which must include {@link StravaStreamType#TIME} and {@link StravaStreamType#DISTANCE}
+	 * @param distances
+	 *            The distances, in metres
+	 * @param names
+	 *            Names for the distances, in the same order
+	 * @return The best efforts, in the order of the distances; empty if the streams don't include time and distance
+	 */
+	public static List<StravaBestRunningEffort> bestEfforts(final StravaActivity activity, final List<StravaStream> streams, final float[] distances, final String[] names) {
+		StravaStream timeStream = null;
+		StravaStream distanceStream = null;
+		for (final StravaStream stream : streams) {
+			if (stream.getType() == StravaStreamType.TIME) {
+				timeStream = stream;
+			} else if (stream.getType() == StravaStreamType.DISTANCE) {
+				distanceStream = stream;
+			}
+		}
+		final List<StravaBestRunningEffort> efforts = new ArrayList<StravaBestRunningEffort>();
+		if ((timeStream == null) || (distanceStream == null)) {
+			return efforts;
+		}
+		final float[] time = StravaStreamResampler.values(timeStream);
+		final float[] distance = StravaStreamResampler.values(distanceStream);
+		final int length = Math.min(time.length, distance.length);
+		fillGaps(time, length);
+		fillGaps(distance, length);
+
+		final int[] window = new int[2];
+		for (int i = 0; i < distances.length; i++) {
+			if ((length < 2) || (distance[length - 1] - distance[0] < distances[i])) {
+				break;
+			}
+			final float elapsed = bestEffort(time, distance, length, distances[i], window);
+			if (Float.isNaN(elapsed)) {
+				continue;
+			}
+			efforts.add(effort(activity, names[i], distances[i], Math.round(elapsed), time[window[1]] - elapsed));
+		}
+		return efforts;
+	}
+
+	/**
+	 * <p>
+	 * Finds the best efforts in each of an athlete's activities, in parallel on the common fork-join pool
+	 * </p>
+	 *
+	 * @param activities
+	 *            The activities
+	 * @param streams
+	 *            Supplies the streams of each activity, for example from the {@link javastrava.cache.impl.StravaStreamCache stream cache}; may return <code>null</code> for activities
+	 *            without streams
+	 * @return The best efforts in each activity, by activity id
+	 */
+	public static Map<Long, List<StravaBestRunningEffort>> bestEfforts(final Collection<StravaActivity> activities, final Function<StravaActivity, List<StravaStream>> streams) {
+		final Map<Long, List<StravaBestRunningEffort>> efforts = new ConcurrentHashMap<Long, List<StravaBestRunningEffort>>();
+		activities.parallelStream().forEach(activity -> {
+			final List<StravaStream> activityStreams = streams.apply(activity);
+			if ((activityStreams != null) && (activity.getId() != null)) {
+				efforts.put(activity.getId(), bestEfforts(activity, activityStreams));
+			}
+		});
+		return efforts;
+	}
+
+	/**
+	 * <p>
+	 * Ranks best efforts across activities, setting the {@link StravaBestRunningEffort#getPrRank() PR rank} of the three fastest efforts over each distance
+	 * </p>
+	 *
+	 * @param efforts
+	 *            Best efforts from {@link #bestEfforts(Collection, Function)}
+	 * @return The fastest effort over each distance, shortest distance first
+	 */
+	public static List<StravaBestRunningEffort> personalRecords(final Collection<List<StravaBestRunningEffort>> efforts) {
+		final Map<String, List<StravaBestRunningEffort>> byName = new HashMap<String, List<StravaBestRunningEffort>>();
+		for (final List<StravaBestRunningEffort> activityEfforts : efforts) {
+			for (final StravaBestRunningEffort effort : activityEfforts) {
+				byName.computeIfAbsent(effort.getName(), name -> new ArrayList<StravaBestRunningEffort>()).add(effort);
+			}
+		}
+		final List<StravaBestRunningEffort> records = new ArrayList<StravaBestRunningEffort>();
+		for (final List<StravaBestRunningEffort> ranked : byName.values()) {
+			ranked.sort(Comparator.comparing(StravaBestRunningEffort::getElapsedTime).thenComparing(StravaBestRunningEffort::getStartDate,
+					Comparator.nullsLast(Comparator.naturalOrder())));
+			for (int i = 0; i < ranked.size(); i++) {
+				ranked.get(i).setPrRank(i < 3 ? Integer.valueOf(i + 1) : null);
+			}
+			records.add(ranked.get(0));
+		}
+		records.sort(Comparator.comparing(StravaBestRunningEffort::getDistance));
+		return records;
+	}
+
+	/**
+	 * @param activity
+	 *            The activity
+	 * @param name
+	 *            Name of the distance
+	 * @param distance
+	 *            The distance, in metres
+	 * @param elapsed
+	 *            Elapsed time, in seconds
+	 * @param start
+	 *            Seconds from the start of the activity to the start of the effort
+	 * @return The effort
+	 */
+	private static StravaBestRunningEffort effort(final StravaActivity activity, final String name, final float distance, final int elapsed, final float start) {
+		final StravaBestRunningEffort effort = new StravaBestRunningEffort();
+		effort.setResourceState(StravaResourceState.SUMMARY);
+		effort.setName(name);
+		effort.setActivity(activity);
+		effort.setAthlete(activity.getAthlete());
+		effort.setDistance(Float.valueOf(distance));
+		effort.setElapsedTime(Integer.valueOf(elapsed));
+		effort.setMovingTime(Integer.valueOf(elapsed));
+		final long offset = Math.round(start);
+		if (activity.getStartDate() != null) {
+			effort.setStartDate(activity.getStartDate().plusSeconds(offset));
+		}
+		if (activity.getStartDateLocal() != null) {
+			effort.setStartDateLocal(activity.getStartDateLocal().plusSeconds(offset));
+		}
+		return effort;
+	}
+
+	/**
+	 * Replaces missing samples with the previous value (or 0 at the start), so that the series is non-decreasing
+	 *
+	 * @param values
+	 *            Cumulative values with <code>NaN</code> where there is no sample
+	 * @param length
+	 *            Number of values
+	 */
+	private static void fillGaps(final float[] values, final int length) {
+		float previous = 0;
+		for (int i = 0; i < length; i++) {
+			if (Float.isNaN(values[i]) || (values[i] < previous)) {
+				values[i] = previous;
+			}
+			previous = values[i];
+		}
+	}
+}
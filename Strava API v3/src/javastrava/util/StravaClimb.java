@@ -0,0 +1,128 @@
+package javastrava.util;
+
+import javastrava.model.reference.StravaClimbCategory;
+
+/**
+ * <p>
+ * A climb found in an activity's altitude profile by {@link StravaClimbDetector}
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaClimb {
+	/**
+	 * Index of the sample at the foot of the climb
+	 */
+	private final int startIndex;
+
+	/**
+	 * Index of the sample at the top of the climb
+	 */
+	private final int endIndex;
+
+	/**
+	 * Length of the climb, in metres
+	 */
+	private final float distance;
+
+	/**
+	 * Height gained from the foot to the top, in metres (of the smoothed profile)
+	 */
+	private final float elevationGain;
+
+	/**
+	 * Average gradient, in percent
+	 */
+	private final float averageGrade;
+
+	/**
+	 * Steepest gradient, in percent (of the smoothed profile)
+	 */
+	private final float maximumGrade;
+
+	/**
+	 * Category, from {@link StravaClimbDetector#categorise(float, float)}
+	 */
+	private final StravaClimbCategory climbCategory;
+
+	/**
+	 * @param startIndex
+	 *            Index of the sample at the foot of the climb
+	 * @param endIndex
+	 *            Index of the sample at the top of the climb
+	 * @param distance
+	 *            Length of the climb, in metres
+	 * @param elevationGain
+	 *            Height gained, in metres
+	 * @param maximumGrade
+	 *            Steepest gradient, in percent
+	 */
+	public StravaClimb(final int startIndex, final int endIndex, final float distance, final float elevationGain, final float maximumGrade) {
+		this.startIndex = startIndex;
+		this.endIndex = endIndex;
+		this.distance = distance;
+		this.elevationGain = elevationGain;
+		this.averageGrade = (distance > 0 ? (100 * elevationGain) / distance : 0);
+		this.maximumGrade = maximumGrade;
+		this.climbCategory = StravaClimbDetector.categorise(distance, this.averageGrade);
+	}
+
+	/**
+	 * @return Average gradient, in percent
+	 */
+	public float getAverageGrade() {
+		return this.averageGrade;
+	}
+
+	/**
+	 * @return Category of the climb
+	 */
+	public StravaClimbCategory getClimbCategory() {
+		return this.climbCategory;
+	}
+
+	/**
+	 * @return Length of the climb, in metres
+	 */
+	public float getDistance() {
+		return this.distance;
+	}
+
+	/**
+	 * @return Height gained from the foot to the top, in metres
+	 */
+	public float getElevationGain() {
+		return this.elevationGain;
+	}
+
+	/**
+	 * @return Index of the sample at the top of the climb
+	 */
+	public int getEndIndex() {
+		return this.endIndex;
+	}
+
+	/**
+	 * @return Steepest gradient, in percent
+	 */
+	public float getMaximumGrade() {
+		return this.maximumGrade;
+	}
+
+	/**
+	 * @return Index of the sample at the foot of the climb
+	 */
+	public int getStartIndex() {
+		return this.startIndex;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaClimb [startIndex=" + this.startIndex + ", endIndex=" + this.endIndex + ", distance=" + this.distance + ", elevationGain=" + this.elevationGain //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ ", averageGrade=" + this.averageGrade + ", maximumGrade=" + this.maximumGrade + ", climbCategory=" + this.climbCategory + "]"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
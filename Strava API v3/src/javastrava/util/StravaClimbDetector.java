@@ -0,0 +1,346 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaClimbCategory;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * Finds and categorises climbs in an activity from its {@link StravaStreamType#ALTITUDE altitude} and {@link StravaStreamType#DISTANCE distance} streams, without having to explore and
+ * fetch segments to get their {@link javastrava.model.StravaSegment#getClimbCategory() climb category}
+ * </p>
+ *
+ * <p>
+ * The profile is first smoothed with a moving average over a fixed distance, then scanned once: a climb starts at the lowest point reached, continues while the profile stays within the
+ * tolerated dip of its highest point, and is kept if it is long and steep enough. Both passes are linear in the number of samples, and the array kernels allocate nothing, so they can be run
+ * over every activity as it is ingested, reusing the caller's buffers.
+ * </p>
+ *
+ * <p>
+ * Climbs are categorised by the usual points formula: length in metres multiplied by average gradient in percent. 8000 points is category 4, doubling for each category up to 64000 for
+ * category 1, and 80000 or more is hors catégorie.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaClimbDetector {
+	/**
+	 * Default minimum average gradient of a climb, in percent
+	 */
+	public static final float DEFAULT_MINIMUM_GRADE = 3.0f;
+
+	/**
+	 * Default minimum length of a climb, in metres
+	 */
+	public static final float DEFAULT_MINIMUM_LENGTH = 500.0f;
+
+	/**
+	 * Default fall from the highest point that ends a climb, in metres
+	 */
+	public static final float DEFAULT_MAXIMUM_DIP = 10.0f;
+
+	/**
+	 * Default length of the smoothing window, in metres
+	 */
+	public static final float DEFAULT_SMOOTHING = 100.0f;
+
+	/**
+	 * Points needed for each category, hardest first, in the order of {@link #CATEGORIES}
+	 */
+	private static final float[] CATEGORY_POINTS = { 80000f, 64000f, 32000f, 16000f, 8000f };
+
+	/**
+	 * Categories matching {@link #CATEGORY_POINTS}
+	 */
+	private static final StravaClimbCategory[] CATEGORIES = { StravaClimbCategory.HORS_CATEGORIE, StravaClimbCategory.CATEGORY1, StravaClimbCategory.CATEGORY2,
+			StravaClimbCategory.CATEGORY3, StravaClimbCategory.CATEGORY4 };
+
+	/**
+	 * <p>
+	 * Categorises a climb
+	 * </p>
+	 *
+	 * @param distance
+	 *            Length of the climb, in metres
+	 * @param averageGrade
+	 *            Average gradient, in percent
+	 * @return The category; {@link StravaClimbCategory#FLAT} if the climb scores too few points to be categorised
+	 */
+	public static StravaClimbCategory categorise(final float distance, final float averageGrade) {
+		final float points = distance * averageGrade;
+		for (int i = 0; i < CATEGORY_POINTS.length; i++) {
+			if (points >= CATEGORY_POINTS[i]) {
+				return CATEGORIES[i];
+			}
+		}
+		return StravaClimbCategory.FLAT;
+	}
+
+	/**
+	 * <p>
+	 * Finds the climbs in an activity with the default thresholds
+	 * </p>
+	 *
+	 * @param streams
+	 *            The activity's streams, which must include {@link StravaStreamType#ALTITUDE} and {@link StravaStreamType#DISTANCE}
+	 * @return The climbs, in the order they occur; empty if the streams don't include altitude and distance
+	 */
+	public static List<StravaClimb> climbs(final List<StravaStream> streams) {
+		return climbs(streams, DEFAULT_SMOOTHING, DEFAULT_MINIMUM_GRADE, DEFAULT_MINIMUM_LENGTH, DEFAULT_MAXIMUM_DIP);
+	}
+
+	/**
+	 * <p>
+	 * Finds the climbs in an activity
+	 * </p>
+	 *
+	 * @param streams
+	 *            The activity's streams, which must include {@link StravaStreamType#ALTITUDE} and {@link StravaStreamType#DISTANCE}
+	 * @param smoothing
+	 *            Length of the smoothing window, in metres
+	 * @param minimumGrade
+	 *            Minimum average gradient of a climb, in percent
+	 * @param minimumLength
+	 *            Minimum length of a climb, in metres
+	 * @param maximumDip
+	 *            Fall from the highest point that ends a climb, in metres
+	 * @return The climbs, in the order they occur; empty if the streams don't include altitude and distance
+	 */
+	public static List<StravaClimb> climbs(final List<StravaStream> streams, final float smoothing, final float minimumGrade, final float minimumLength, final float maximumDip) {
+		final List<StravaClimb> climbs = new ArrayList<StravaClimb>();
+		final StravaGeoTrack track = StravaGeoTrack.of(streams);
+		final int length = track.getLength();
+		final float[] distance = track.getDistances();
+		final float[] altitude = track.getAltitudes();
+		if ((length < 2) || Float.isNaN(distance[0])) {
+			return climbs;
+		}
+		final float[] smoothed = new float[length];
+		smooth(distance, altitude, length, smoothing, smoothed);
+		if (Float.isNaN(smoothed[0])) {
+			// No altitude at all
+			return climbs;
+		}
+		final int[] starts = new int[length / 2];
+		final int[] ends = new int[length / 2];
+		final int count = detect(distance, smoothed, length, minimumGrade, minimumLength, maximumDip, smoothing, starts, ends);
+		for (int i = 0; i < count; i++) {
+			final int start = starts[i];
+			final int end = ends[i];
+			climbs.add(new StravaClimb(start, end, distance[end] - distance[start], smoothed[end] - smoothed[start], maximumGrade(distance, smoothed, start, end, smoothing)));
+		}
+		return climbs;
+	}
+
+	/**
+	 * <p>
+	 * Finds the climbs in a smoothed altitude profile
+	 * </p>
+	 *
+	 * @param distance
+	 *            Distance from the start, in metres, non-decreasing
+	 * @param altitude
+	 *            Smoothed altitude, in metres
+	 * @param length
+	 *            Number of samples
+	 * @param minimumGrade
+	 *            Minimum average gradient of a climb, in percent
+	 * @param minimumLength
+	 *            Minimum length of a climb, in metres
+	 * @param maximumDip
+	 *            Fall from the highest point that ends a climb, in metres
+	 * @param trim
+	 *            Distance over which the gradient at each end of a climb is measured, in metres; ends shallower than the minimum gradient over this distance are trimmed off
+	 * @param starts
+	 *            Receives the index of the foot of each climb
+	 * @param ends
+	 *            Receives the index of the top of each climb
+	 * @return The number of climbs found (at most the length of <code>starts</code>)
+	 */
+	public static int detect(final float[] distance, final float[] altitude, final int length, final float minimumGrade, final float minimumLength, final float maximumDip,
+			final float trim, final int[] starts, final int[] ends) {
+		int count = 0;
+		int low = 0;
+		int high = 0;
+		for (int i = 1; i <= length; i++) {
+			final boolean finished = (i == length);
+			if (!finished && (altitude[i] >= altitude[high])) {
+				high = i;
+				continue;
+			}
+			if (!finished && (altitude[high] - altitude[i] <= maximumDip) && (altitude[i] >= altitude[low])) {
+				continue;
+			}
+			// The profile has dropped away from the top or below the foot (or ended): decide whether low..high was a climb
+			if ((high > low) && (count < starts.length)) {
+				// Trim shallow ends, so that a gentle drag into or out of the climb doesn't dilute its gradient
+				int foot = low;
+				int ahead = low;
+				while (foot < high) {
+					while ((ahead < high) && (distance[ahead] - distance[foot] < trim)) {
+						ahead++;
+					}
+					if (grade(distance, altitude, foot, ahead) >= minimumGrade) {
+						break;
+					}
+					foot++;
+				}
+				int top = high;
+				int behind = high;
+				while (top > foot) {
+					while ((behind > foot) && (distance[top] - distance[behind] < trim)) {
+						behind--;
+					}
+					if (grade(distance, altitude, behind, top) >= minimumGrade) {
+						break;
+					}
+					top--;
+				}
+				if ((foot < top) && (distance[top] - distance[foot] >= minimumLength) && (grade(distance, altitude, foot, top) >= minimumGrade)) {
+					starts[count] = foot;
+					ends[count] = top;
+					count++;
+				}
+			}
+			if (finished) {
+				break;
+			}
+			low = i;
+			high = i;
+		}
+		return count;
+	}
+
+	/**
+	 * <p>
+	 * Smooths an altitude profile with a moving average over a fixed distance centred on each sample, in one pass using a running sum
+	 * </p>
+	 *
+	 * <p>
+	 * Samples without an altitude (<code>NaN</code>) are left out of the average. Where a gap is wider than the window, so that there is no altitude to average, the smoothed profile is
+	 * interpolated linearly by distance across the gap (and held level before the first altitude and after the last). If there is no altitude at all, the smoothed profile is all
+	 * <code>NaN</code>.
+	 * </p>
+	 *
+	 * @param distance
+	 *            Distance from the start, in metres, non-decreasing
+	 * @param altitude
+	 *            Altitude, in metres
+	 * @param length
+	 *            Number of samples
+	 * @param window
+	 *            Length of the window, in metres
+	 * @param smoothed
+	 *            Receives the smoothed altitude; must not be the same array as <code>altitude</code>
+	 */
+	public static void smooth(final float[] distance, final float[] altitude, final int length, final float window, final float[] smoothed) {
+		final float half = window / 2;
+		int from = 0;
+		int to = 0;
+		double sum = 0;
+		int valid = 0;
+		for (int i = 0; i < length; i++) {
+			while ((to < length) && (distance[to] - distance[i] <= half)) {
+				if (!Float.isNaN(altitude[to])) {
+					sum += altitude[to];
+					valid++;
+				}
+				to++;
+			}
+			while (distance[i] - distance[from] > half) {
+				if (!Float.isNaN(altitude[from])) {
+					sum -= altitude[from];
+					valid--;
+				}
+				from++;
+			}
+			smoothed[i] = (valid == 0 ? Float.NaN : (float) (sum / valid));
+		}
+		fillGaps(distance, smoothed, length);
+	}
+
+	/**
+	 * <p>
+	 * Fills the <code>NaN</code> values in a profile by linear interpolation by distance between the values either side, holding the first and last values level at the ends
+	 * </p>
+	 *
+	 * @param distance
+	 *            Distance from the start, in metres
+	 * @param values
+	 *            The profile, filled in place
+	 * @param length
+	 *            Number of samples
+	 */
+	private static void fillGaps(final float[] distance, final float[] values, final int length) {
+		int previous = -1;
+		for (int i = 0; i < length; i++) {
+			if (Float.isNaN(values[i])) {
+				continue;
+			}
+			if (previous < 0) {
+				for (int j = 0; j < i; j++) {
+					values[j] = values[i];
+				}
+			} else if (i > (previous + 1)) {
+				final float run = distance[i] - distance[previous];
+				for (int j = previous + 1; j < i; j++) {
+					final float fraction = (run > 0 ? (distance[j] - distance[previous]) / run : 0);
+					values[j] = values[previous] + (fraction * (values[i] - values[previous]));
+				}
+			}
+			previous = i;
+		}
+		if (previous >= 0) {
+			for (int j = previous + 1; j < length; j++) {
+				values[j] = values[previous];
+			}
+		}
+	}
+
+	/**
+	 * @param distance
+	 *            Distance from the start, in metres
+	 * @param altitude
+	 *            Altitude, in metres
+	 * @param from
+	 *            Index of the first sample
+	 * @param to
+	 *            Index of the last sample
+	 * @return Average gradient between the samples, in percent
+	 */
+	private static float grade(final float[] distance, final float[] altitude, final int from, final int to) {
+		final float run = distance[to] - distance[from];
+		return (run > 0 ? (100 * (altitude[to] - altitude[from])) / run : 0);
+	}
+
+	/**
+	 * @param distance
+	 *            Distance from the start, in metres
+	 * @param altitude
+	 *            Smoothed altitude, in metres
+	 * @param start
+	 *            Index of the foot of the climb
+	 * @param end
+	 *            Index of the top of the climb
+	 * @param run
+	 *            Shortest distance over which to measure a gradient, in metres
+	 * @return The steepest gradient over at least the given distance, in percent
+	 */
+	private static float maximumGrade(final float[] distance, final float[] altitude, final int start, final int end, final float run) {
+		float maximum = 0;
+		int from = start;
+		for (int to = start + 1; to <= end; to++) {
+			while ((from < to) && (distance[to] - distance[from + 1] >= run)) {
+				from++;
+			}
+			if (distance[to] - distance[from] >= run) {
+				maximum = Math.max(maximum, grade(distance, altitude, from, to));
+			}
+		}
+		return (maximum == 0 ? grade(distance, altitude, start, end) : maximum);
+	}
+}
@@ -0,0 +1,410 @@
+package javastrava.util;
+
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.IntStream;
+
+import javastrava.model.StravaActivity;
+
+/**
+ * <p>
+ * Geographic kernels over the packed location, altitude and distance samples of a {@link StravaGeoTrack}: haversine distance, bounding box, elevation gain and gradient
+ * </p>
+ *
+ * <p>
+ * The hot loops are simple counted loops over primitive arrays with no object access, so that the JIT can unroll and (where there are no transcendental functions) vectorise them. Distance is
+ * computed in a single pass which carries the previous position and its cosine forward, so it allocates nothing. Kernels write into arrays supplied by the caller where they produce one value
+ * per sample, so buffers can be reused across activities. The batch variants run a kernel over many tracks in parallel on the common fork-join pool.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaGeoKernels {
+	/**
+	 * Mean radius of the Earth, in metres
+	 */
+	public static final double EARTH_RADIUS = 6371008.8;
+
+	/**
+	 * Default hysteresis for {@link #elevationGain(float[], int, float)}, in metres; close to the threshold Strava applies to barometric altimeter data
+	 */
+	public static final float DEFAULT_HYSTERESIS = 2.0f;
+
+	/**
+	 * Degrees to radians
+	 */
+	private static final double RADIANS = Math.PI / 180;
+
+	/**
+	 * Shortest horizontal run used as the divisor of a gradient, in metres, so that stationary samples don't produce infinite gradients
+	 */
+	private static final float MINIMUM_RUN = 1.0f;
+
+	/**
+	 * <p>
+	 * Runs a kernel over many tracks in parallel on the common fork-join pool
+	 * </p>
+	 *
+	 * @param tracks
+	 *            The tracks
+	 * @param kernel
+	 *            The kernel, for example <code>StravaGeoKernels::distance</code>
+	 * @return The kernel's result for each track, in the same order
+	 */
+	public static double[] batch(final List<StravaGeoTrack> tracks, final ToDoubleFunction<StravaGeoTrack> kernel) {
+		final double[] results = new double[tracks.size()];
+		IntStream.range(0, results.length).parallel().forEach(i -> results[i] = kernel.applyAsDouble(tracks.get(i)));
+		return results;
+	}
+
+	/**
+	 * <p>
+	 * Computes the bounding box of the located samples of a track
+	 * </p>
+	 *
+	 * @param latitudes
+	 *            Latitudes, in degrees
+	 * @param longitudes
+	 *            Longitudes, in degrees
+	 * @param length
+	 *            Number of samples
+	 * @param box
+	 *            Receives the south-west latitude and longitude and north-east latitude and longitude, in that order; all <code>NaN</code> if there are no located samples
+	 * @return <code>true</code> if there was at least one located sample
+	 */
+	public static boolean boundingBox(final float[] latitudes, final float[] longitudes, final int length, final float[] box) {
+		float south = Float.POSITIVE_INFINITY;
+		float west = Float.POSITIVE_INFINITY;
+		float north = Float.NEGATIVE_INFINITY;
+		float east = Float.NEGATIVE_INFINITY;
+		// Math.min/max would propagate NaN; comparisons are false for NaN so missing samples are skipped
+		for (int i = 0; i < length; i++) {
+			final float latitude = latitudes[i];
+			final float longitude = longitudes[i];
+			south = (latitude < south ? latitude : south);
+			north = (latitude > north ? latitude : north);
+			west = (longitude < west ? longitude : west);
+			east = (longitude > east ? longitude : east);
+		}
+		if (south > north) {
+			box[0] = box[1] = box[2] = box[3] = Float.NaN;
+			return false;
+		}
+		box[0] = south;
+		box[1] = west;
+		box[2] = north;
+		box[3] = east;
+		return true;
+	}
+
+	/**
+	 * @param track
+	 *            The track
+	 * @return The bounding box, as south-west latitude and longitude and north-east latitude and longitude
+	 * @see #boundingBox(float[], float[], int, float[])
+	 */
+	public static float[] boundingBox(final StravaGeoTrack track) {
+		final float[] box = new float[4];
+		boundingBox(track.getLatitudes(), track.getLongitudes(), track.getLength(), box);
+		return box;
+	}
+
+	/**
+	 * <p>
+	 * Computes the cumulative distance along a track from its location samples
+	 * </p>
+	 *
+	 * @param latitudes
+	 *            Latitudes, in degrees
+	 * @param longitudes
+	 *            Longitudes, in degrees
+	 * @param length
+	 *            Number of samples
+	 * @param cumulative
+	 *            Receives the distance from the first sample to each sample, in metres
+	 * @return The total distance, in metres
+	 */
+	public static double cumulativeDistance(final float[] latitudes, final float[] longitudes, final int length, final double[] cumulative) {
+		stepDistances(latitudes, longitudes, length, cumulative);
+		double total = 0;
+		for (int i = 0; i < length; i++) {
+			total += cumulative[i];
+			cumulative[i] = total;
+		}
+		return total;
+	}
+
+	/**
+	 * @param track
+	 *            The track
+	 * @return The distance along the track, in metres, computed from its location samples
+	 * @see #distance(float[], float[], int)
+	 */
+	public static double distance(final StravaGeoTrack track) {
+		return distance(track.getLatitudes(), track.getLongitudes(), track.getLength());
+	}
+
+	/**
+	 * <p>
+	 * Computes the distance along a track from its location samples, using the haversine formula between consecutive samples. Samples without a location are skipped over.
+	 * </p>
+	 *
+	 * @param latitudes
+	 *            Latitudes, in degrees
+	 * @param longitudes
+	 *            Longitudes, in degrees
+	 * @param length
+	 *            Number of samples
+	 * @return The total distance, in metres
+	 */
+	public static double distance(final float[] latitudes, final float[] longitudes, final int length) {
+		double total = 0;
+		double lastLatitude = Double.NaN;
+		double lastLongitude = Double.NaN;
+		double lastCosLatitude = Double.NaN;
+		for (int i = 0; i < length; i++) {
+			if (!Float.isNaN(latitudes[i]) && !Float.isNaN(longitudes[i])) {
+				final double latitude = latitudes[i] * RADIANS;
+				final double longitude = longitudes[i] * RADIANS;
+				final double cosLatitude = Math.cos(latitude);
+				total += step(lastLatitude, lastLongitude, lastCosLatitude, latitude, longitude, cosLatitude);
+				lastLatitude = latitude;
+				lastLongitude = longitude;
+				lastCosLatitude = cosLatitude;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * <p>
+	 * Relative difference between the distance computed from an activity's location samples and the {@link StravaActivity#getDistance() distance} Strava reports
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity
+	 * @param track
+	 *            The activity's track
+	 * @return (computed - reported) / reported, or <code>NaN</code> if Strava doesn't report a distance
+	 */
+	public static double distanceError(final StravaActivity activity, final StravaGeoTrack track) {
+		return error(distance(track), activity.getDistance());
+	}
+
+	/**
+	 * @param track
+	 *            The track
+	 * @return The elevation gain, in metres, with the {@link #DEFAULT_HYSTERESIS default hysteresis}
+	 * @see #elevationGain(float[], int, float)
+	 */
+	public static double elevationGain(final StravaGeoTrack track) {
+		return elevationGain(track.getAltitudes(), track.getLength(), DEFAULT_HYSTERESIS);
+	}
+
+	/**
+	 * <p>
+	 * Computes the elevation gain of a track from its altitude samples. A climb only starts counting once the altitude has risen by more than the hysteresis from the lowest point, and
+	 * only ends once the altitude has fallen by more than the hysteresis from the highest point, so that altimeter noise on flat ground doesn't accumulate.
+	 * </p>
+	 *
+	 * @param altitudes
+	 *            Altitudes, in metres; <code>NaN</code> samples are skipped
+	 * @param length
+	 *            Number of samples
+	 * @param hysteresis
+	 *            Minimum change in altitude that counts as a climb or a descent, in metres
+	 * @return The elevation gain, in metres
+	 */
+	public static double elevationGain(final float[] altitudes, final int length, final float hysteresis) {
+		double gain = 0;
+		// Lowest point since the last descent while not climbing, highest point of the current climb while climbing
+		float reference = Float.NaN;
+		boolean climbing = false;
+		for (int i = 0; i < length; i++) {
+			final float altitude = altitudes[i];
+			if (Float.isNaN(altitude)) {
+				continue;
+			}
+			if (Float.isNaN(reference)) {
+				reference = altitude;
+			} else if (climbing) {
+				if (altitude > reference) {
+					gain += altitude - reference;
+					reference = altitude;
+				} else if ((reference - altitude) > hysteresis) {
+					climbing = false;
+					reference = altitude;
+				}
+			} else if (altitude < reference) {
+				reference = altitude;
+			} else if ((altitude - reference) > hysteresis) {
+				gain += altitude - reference;
+				reference = altitude;
+				climbing = true;
+			}
+		}
+		return gain;
+	}
+
+	/**
+	 * <p>
+	 * Relative difference between the elevation gain computed from an activity's altitude samples and the {@link StravaActivity#getTotalElevationGain() total elevation gain} Strava reports
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity
+	 * @param track
+	 *            The activity's track
+	 * @param hysteresis
+	 *            Minimum change in altitude that counts as a climb or a descent, in metres
+	 * @return (computed - reported) / reported, or <code>NaN</code> if Strava doesn't report a (non-zero) elevation gain
+	 */
+	public static double elevationGainError(final StravaActivity activity, final StravaGeoTrack track, final float hysteresis) {
+		return error(elevationGain(track.getAltitudes(), track.getLength(), hysteresis), activity.getTotalElevationGain());
+	}
+
+	/**
+	 * <p>
+	 * Recomputes the gradient at each sample from the altitude and distance samples, as the central difference over the neighbouring samples. This is the same quantity as the
+	 * {@link javastrava.model.reference.StravaStreamType#GRADE grade stream}, which can't be requested at every resolution and isn't sliced consistently from downsampled data.
+	 * </p>
+	 *
+	 * @param distances
+	 *            Distances from the start, in metres
+	 * @param altitudes
+	 *            Altitudes, in metres
+	 * @param length
+	 *            Number of samples
+	 * @param gradients
+	 *            Receives the gradient at each sample, in percent; <code>NaN</code> where either neighbour is missing
+	 */
+	public static void gradients(final float[] distances, final float[] altitudes, final int length, final float[] gradients) {
+		if (length < 2) {
+			for (int i = 0; i < length; i++) {
+				gradients[i] = 0;
+			}
+			return;
+		}
+		// Branch-free body so the loop vectorises; NaN propagates through the arithmetic
+		for (int i = 1; i < length - 1; i++) {
+			final float run = Math.max(distances[i + 1] - distances[i - 1], MINIMUM_RUN);
+			gradients[i] = (100 * (altitudes[i + 1] - altitudes[i - 1])) / run;
+		}
+		gradients[0] = (100 * (altitudes[1] - altitudes[0])) / Math.max(distances[1] - distances[0], MINIMUM_RUN);
+		gradients[length - 1] = (100 * (altitudes[length - 1] - altitudes[length - 2])) / Math.max(distances[length - 1] - distances[length - 2], MINIMUM_RUN);
+	}
+
+	/**
+	 * @param track
+	 *            The track
+	 * @return The gradient at each sample, in percent
+	 * @see #gradients(float[], float[], int, float[])
+	 */
+	public static float[] gradients(final StravaGeoTrack track) {
+		final float[] gradients = new float[track.getLength()];
+		gradients(track.getDistances(), track.getAltitudes(), track.getLength(), gradients);
+		return gradients;
+	}
+
+	/**
+	 * <p>
+	 * Great-circle distance between two points
+	 * </p>
+	 *
+	 * @param latitude1
+	 *            Latitude of the first point, in degrees
+	 * @param longitude1
+	 *            Longitude of the first point, in degrees
+	 * @param latitude2
+	 *            Latitude of the second point, in degrees
+	 * @param longitude2
+	 *            Longitude of the second point, in degrees
+	 * @return The distance, in metres
+	 */
+	public static double haversine(final double latitude1, final double longitude1, final double latitude2, final double longitude2) {
+		final double sinLatitude = Math.sin((latitude2 - latitude1) * RADIANS * 0.5);
+		final double sinLongitude = Math.sin((longitude2 - longitude1) * RADIANS * 0.5);
+		final double a = (sinLatitude * sinLatitude) + (Math.cos(latitude1 * RADIANS) * Math.cos(latitude2 * RADIANS) * sinLongitude * sinLongitude);
+		return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(a, 1)));
+	}
+
+	/**
+	 * <p>
+	 * Computes the haversine distance from the previous located sample to each sample
+	 * </p>
+	 *
+	 * @param latitudes
+	 *            Latitudes, in degrees
+	 * @param longitudes
+	 *            Longitudes, in degrees
+	 * @param length
+	 *            Number of samples
+	 * @param steps
+	 *            Receives the distance from the previous located sample to each sample, in metres; 0 for the first sample and for samples without a location
+	 */
+	public static void stepDistances(final float[] latitudes, final float[] longitudes, final int length, final double[] steps) {
+		// The last located position is carried forward over gaps; cos(latitude) is reused by both ends of each step
+		double lastLatitude = Double.NaN;
+		double lastLongitude = Double.NaN;
+		double lastCosLatitude = Double.NaN;
+		for (int i = 0; i < length; i++) {
+			if (Float.isNaN(latitudes[i]) || Float.isNaN(longitudes[i])) {
+				steps[i] = 0;
+				continue;
+			}
+			final double latitude = latitudes[i] * RADIANS;
+			final double longitude = longitudes[i] * RADIANS;
+			final double cosLatitude = Math.cos(latitude);
+			steps[i] = step(lastLatitude, lastLongitude, lastCosLatitude, latitude, longitude, cosLatitude);
+			lastLatitude = latitude;
+			lastLongitude = longitude;
+			lastCosLatitude = cosLatitude;
+		}
+	}
+
+	/**
+	 * <p>
+	 * Haversine distance of one step, with sin(x/2) taken as x/2 (consecutive samples are a tiny fraction of a radian apart, so the error is below a millimetre even for samples kilometres
+	 * apart). The difference in longitude is first wrapped into [-&pi;, &pi;], so that a step across the antimeridian is measured the short way round.
+	 * </p>
+	 *
+	 * @param latitude1
+	 *            Latitude of the previous position, in radians, or <code>NaN</code> if there is none
+	 * @param longitude1
+	 *            Longitude of the previous position, in radians
+	 * @param cosLatitude1
+	 *            Cosine of the previous latitude
+	 * @param latitude2
+	 *            Latitude of this position, in radians
+	 * @param longitude2
+	 *            Longitude of this position, in radians
+	 * @param cosLatitude2
+	 *            Cosine of this latitude
+	 * @return The distance, in metres; 0 if there is no previous position
+	 */
+	private static double step(final double latitude1, final double longitude1, final double cosLatitude1, final double latitude2, final double longitude2,
+			final double cosLatitude2) {
+		final double halfLatitude = (latitude2 - latitude1) * 0.5;
+		double longitudeDifference = longitude2 - longitude1;
+		longitudeDifference -= (2 * Math.PI) * Math.rint(longitudeDifference / (2 * Math.PI));
+		final double halfLongitude = longitudeDifference * 0.5;
+		final double a = (halfLatitude * halfLatitude) + (cosLatitude1 * cosLatitude2 * halfLongitude * halfLongitude);
+		// NaN (no previous position) fails the comparison too
+		return (a > 0 ? 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(a, 1))) : 0);
+	}
+
+	/**
+	 * @param computed
+	 *            Computed value
+	 * @param reported
+	 *            Value reported by Strava
+	 * @return Relative difference, or <code>NaN</code> if there is no reported value to compare with
+	 */
+	private static double error(final double computed, final Float reported) {
+		if ((reported == null) || (reported.floatValue() == 0)) {
+			return Double.NaN;
+		}
+		return (computed - reported.doubleValue()) / reported.doubleValue();
+	}
+}
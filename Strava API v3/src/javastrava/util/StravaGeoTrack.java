@@ -0,0 +1,153 @@
+package javastrava.util;
+
+import java.util.List;
+
+import javastrava.model.StravaMapPoint;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * The location, altitude and distance streams of an activity, effort or segment packed into primitive arrays for {@link StravaGeoKernels}
+ * </p>
+ *
+ * <p>
+ * Samples which are missing from a stream (or streams which weren't requested) are <code>NaN</code>.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaGeoTrack {
+	/**
+	 * <p>
+	 * Packs streams returned by {@link javastrava.service.StreamService}
+	 * </p>
+	 *
+	 * @param streams
+	 *            Streams, which should include {@link StravaStreamType#MAPPOINT} and may include {@link StravaStreamType#ALTITUDE} and {@link StravaStreamType#DISTANCE}
+	 * @return The packed track
+	 */
+	public static StravaGeoTrack of(final List<StravaStream> streams) {
+		StravaStream location = null;
+		StravaStream altitude = null;
+		StravaStream distance = null;
+		for (final StravaStream stream : streams) {
+			if (stream.getType() == StravaStreamType.MAPPOINT) {
+				location = stream;
+			} else if (stream.getType() == StravaStreamType.ALTITUDE) {
+				altitude = stream;
+			} else if (stream.getType() == StravaStreamType.DISTANCE) {
+				distance = stream;
+			}
+		}
+		int length = 0;
+		if ((location != null) && (location.getMapPoints() != null)) {
+			length = location.getMapPoints().size();
+		} else if ((altitude != null) && (altitude.getData() != null)) {
+			length = altitude.getData().size();
+		} else if ((distance != null) && (distance.getData() != null)) {
+			length = distance.getData().size();
+		}
+		final StravaGeoTrack track = new StravaGeoTrack(length);
+		if ((location != null) && (location.getMapPoints() != null)) {
+			final List<StravaMapPoint> points = location.getMapPoints();
+			for (int i = 0; i < Math.min(length, points.size()); i++) {
+				final StravaMapPoint point = points.get(i);
+				track.latitudes[i] = ((point == null) || (point.getLatitude() == null) ? Float.NaN : point.getLatitude().floatValue());
+				track.longitudes[i] = ((point == null) || (point.getLongitude() == null) ? Float.NaN : point.getLongitude().floatValue());
+			}
+		}
+		unbox(altitude, track.altitudes, length);
+		unbox(distance, track.distances, length);
+		return track;
+	}
+
+	/**
+	 * @param stream
+	 *            A stream of numbers, or <code>null</code>
+	 * @param values
+	 *            Receives the values, or <code>NaN</code> where there is none
+	 * @param length
+	 *            Number of values
+	 */
+	private static void unbox(final StravaStream stream, final float[] values, final int length) {
+		final List<Float> data = (stream == null ? null : stream.getData());
+		for (int i = 0; i < length; i++) {
+			final Float value = ((data == null) || (i >= data.size()) ? null : data.get(i));
+			values[i] = (value == null ? Float.NaN : value.floatValue());
+		}
+	}
+
+	/**
+	 * Number of samples
+	 */
+	private final int length;
+
+	/**
+	 * Latitudes, in degrees
+	 */
+	private final float[] latitudes;
+
+	/**
+	 * Longitudes, in degrees
+	 */
+	private final float[] longitudes;
+
+	/**
+	 * Altitudes, in metres
+	 */
+	private final float[] altitudes;
+
+	/**
+	 * Distances from the start, in metres, as recorded
+	 */
+	private final float[] distances;
+
+	/**
+	 * @param length
+	 *            Number of samples
+	 */
+	public StravaGeoTrack(final int length) {
+		this.length = length;
+		this.latitudes = new float[length];
+		this.longitudes = new float[length];
+		this.altitudes = new float[length];
+		this.distances = new float[length];
+	}
+
+	/**
+	 * @return Altitudes, in metres
+	 */
+	public float[] getAltitudes() {
+		return this.altitudes;
+	}
+
+	/**
+	 * @return Distances from the start, in metres, as recorded
+	 */
+	public float[] getDistances() {
+		return this.distances;
+	}
+
+	/**
+	 * @return Latitudes, in degrees
+	 */
+	public float[] getLatitudes() {
+		return this.latitudes;
+	}
+
+	/**
+	 * @return Number of samples
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * @return Longitudes, in degrees
+	 */
+	public float[] getLongitudes() {
+		return this.longitudes;
+	}
+}
@@ -0,0 +1,412 @@
+package javastrava.util;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.imageio.ImageIO;
+
+import javastrava.config.Messages;
+import javastrava.model.StravaActivity;
+import javastrava.model.StravaMapPoint;
+
+/**
+ * <p>
+ * Rasterises the {@link javastrava.model.StravaMap#getSummaryPolyline() summary polylines} of activities into Web Mercator tiles of density counts, for athlete and club heatmaps
+ * </p>
+ *
+ * <p>
+ * Each tile is a {@value #TILE_SIZE} x {@value #TILE_SIZE} grid of counts, one per pixel, held in an {@link AtomicIntegerArray}. An activity is drawn into a private buffer of pixel coordinates
+ * first, which is sorted so that each pixel it crosses is counted once however often the activity passes over it, and then merged into the shared tiles with atomic increments. Activities can
+ * therefore be added from many threads at once without locking, and {@link #addAll(Collection)} does so on the common fork-join pool. Adding is incremental: new activities can be added at any
+ * time, and an activity that has already been added is ignored.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaHeatmap {
+	/**
+	 * Width and height of a tile, in pixels
+	 */
+	public static final int TILE_SIZE = 256;
+
+	/**
+	 * Highest zoom level supported; at this zoom a pixel is a few centimetres across at the equator
+	 */
+	public static final int MAXIMUM_ZOOM = 22;
+
+	/**
+	 * Bits of a pixel coordinate that give its position within a tile
+	 */
+	private static final int TILE_BITS = 8;
+
+	/**
+	 * Latitude at which the Web Mercator projection becomes square, in degrees; latitudes beyond it are clamped to it
+	 */
+	private static final double MAXIMUM_LATITUDE = 85.05112878;
+
+	/**
+	 * Longest step between consecutive points of a polyline that is drawn, in metres; a longer step is a gap in the recording (or bad data) rather than a line anyone travelled, and
+	 * drawing it would cross most of the map at high zoom
+	 */
+	private static final double MAXIMUM_JUMP = 100000;
+
+	/**
+	 * Zoom level
+	 */
+	private final int zoom;
+
+	/**
+	 * Width and height of the whole map at this zoom, in pixels
+	 */
+	private final long size;
+
+	/**
+	 * Tiles that have been drawn on, keyed by {@link #tileKey(int, int)}
+	 */
+	private final ConcurrentHashMap<Long, AtomicIntegerArray> tiles = new ConcurrentHashMap<Long, AtomicIntegerArray>();
+
+	/**
+	 * Identifiers of the activities that have been added
+	 */
+	private final Set<Long> activities = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param zoom
+	 *            Zoom level, from 0 (the whole world in one tile) to {@value #MAXIMUM_ZOOM}
+	 * @throws IllegalArgumentException
+	 *             If the zoom level is out of range
+	 */
+	public StravaHeatmap(final int zoom) {
+		if ((zoom < 0) || (zoom > MAXIMUM_ZOOM)) {
+			throw new IllegalArgumentException(Messages.string("StravaHeatmap.invalidZoom") + zoom); //$NON-NLS-1$
+		}
+		this.zoom = zoom;
+		this.size = (long) TILE_SIZE << zoom;
+	}
+
+	/**
+	 * @param key
+	 *            Key returned by {@link #tileKey(int, int)}
+	 * @return The x (column) index of the tile
+	 */
+	public static int tileX(final long key) {
+		return (int) (key >>> 32);
+	}
+
+	/**
+	 * @param key
+	 *            Key returned by {@link #tileKey(int, int)}
+	 * @return The y (row) index of the tile
+	 */
+	public static int tileY(final long key) {
+		return (int) key;
+	}
+
+	/**
+	 * @param x
+	 *            Column index of the tile, counting east from the antimeridian
+	 * @param y
+	 *            Row index of the tile, counting south from the top of the map
+	 * @return The key of the tile in {@link #getTileKeys()}
+	 */
+	public static long tileKey(final int x, final int y) {
+		return ((long) x << 32) | (y & 0xffffffffL);
+	}
+
+	/**
+	 * <p>
+	 * Adds an activity's summary polyline to the heatmap
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity
+	 * @return <code>true</code> if the activity was drawn; <code>false</code> if it has no map or has already been added
+	 */
+	public boolean add(final StravaActivity activity) {
+		if ((activity == null) || (activity.getMap() == null) || (activity.getMap().getSummaryPolyline() == null)) {
+			return false;
+		}
+		if ((activity.getId() != null) && !this.activities.add(activity.getId())) {
+			return false;
+		}
+		draw(activity.getMap().getSummaryPolyline());
+		return true;
+	}
+
+	/**
+	 * <p>
+	 * Adds many activities to the heatmap in parallel on the common fork-join pool
+	 * </p>
+	 *
+	 * @param activities
+	 *            The activities, for example from {@link javastrava.service.ActivityService#listAllAuthenticatedAthleteActivities()} or
+	 *            {@link javastrava.service.ClubService#listAllRecentClubActivities(Integer)}
+	 * @return The number of activities drawn
+	 */
+	public int addAll(final Collection<StravaActivity> activities) {
+		return (int) activities.parallelStream().filter(this::add).count();
+	}
+
+	/**
+	 * <p>
+	 * Adds an encoded polyline to the heatmap, for example the polyline of a segment or of a route. Polylines are not remembered, so adding the same one twice counts it twice.
+	 * </p>
+	 *
+	 * @param polyline
+	 *            The encoded polyline
+	 */
+	public void addPolyline(final String polyline) {
+		if (polyline != null) {
+			draw(polyline);
+		}
+	}
+
+	/**
+	 * @return The number of activities that have been added
+	 */
+	public int getActivityCount() {
+		return this.activities.size();
+	}
+
+	/**
+	 * @return The keys of the tiles that have been drawn on; use {@link #tileX(long)} and {@link #tileY(long)} to get their indices. The set is a live view.
+	 */
+	public Set<Long> getTileKeys() {
+		return Collections.unmodifiableSet(this.tiles.keySet());
+	}
+
+	/**
+	 * @return The zoom level
+	 */
+	public int getZoom() {
+		return this.zoom;
+	}
+
+	/**
+	 * @param x
+	 *            Column index of the tile
+	 * @param y
+	 *            Row index of the tile
+	 * @return The highest count in the tile, or 0 if it has not been drawn on
+	 */
+	public int maximum(final int x, final int y) {
+		final AtomicIntegerArray tile = this.tiles.get(Long.valueOf(tileKey(x, y)));
+		int maximum = 0;
+		if (tile != null) {
+			for (int i = 0; i < tile.length(); i++) {
+				maximum = Math.max(maximum, tile.get(i));
+			}
+		}
+		return maximum;
+	}
+
+	/**
+	 * <p>
+	 * Renders a tile as a greyscale PNG, with the brightness of each pixel proportional to the logarithm of its count so that rarely used roads remain visible next to popular ones
+	 * </p>
+	 *
+	 * @param x
+	 *            Column index of the tile
+	 * @param y
+	 *            Row index of the tile
+	 * @return The PNG image, or <code>null</code> if the tile has not been drawn on
+	 * @throws IOException
+	 *             If the image cannot be encoded
+	 */
+	public byte[] png(final int x, final int y) throws IOException {
+		final int[] counts = tile(x, y);
+		if (counts == null) {
+			return null;
+		}
+		int maximum = 0;
+		for (final int count : counts) {
+			maximum = Math.max(maximum, count);
+		}
+		final double scale = 255 / Math.log1p(Math.max(maximum, 1));
+		final BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_BYTE_GRAY);
+		final byte[] pixels = new byte[counts.length];
+		for (int i = 0; i < counts.length; i++) {
+			pixels[i] = (byte) Math.round(Math.log1p(counts[i]) * scale);
+		}
+		image.getRaster().setDataElements(0, 0, TILE_SIZE, TILE_SIZE, pixels);
+		final ByteArrayOutputStream output = new ByteArrayOutputStream();
+		ImageIO.write(image, "png", output); //$NON-NLS-1$
+		return output.toByteArray();
+	}
+
+	/**
+	 * @param x
+	 *            Column index of the tile
+	 * @param y
+	 *            Row index of the tile
+	 * @return A copy of the counts of the tile, row by row from the top left, or <code>null</code> if the tile has not been drawn on
+	 */
+	public int[] tile(final int x, final int y) {
+		final AtomicIntegerArray tile = this.tiles.get(Long.valueOf(tileKey(x, y)));
+		if (tile == null) {
+			return null;
+		}
+		final int[] counts = new int[tile.length()];
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = tile.get(i);
+		}
+		return counts;
+	}
+
+	/**
+	 * <p>
+	 * Draws a polyline into a private buffer of pixel keys, then counts each distinct pixel once in the shared tiles
+	 * </p>
+	 *
+	 * <p>
+	 * Each step is drawn the short way round, so a track that crosses the antimeridian wraps from one edge of the map to the other instead of crossing the whole world. Steps longer
+	 * than {@link #MAXIMUM_JUMP} are left as gaps.
+	 * </p>
+	 *
+	 * @param polyline
+	 *            The encoded polyline
+	 */
+	private void draw(final String polyline) {
+		final List<StravaMapPoint> points = StravaPolylineUtils.decode(polyline);
+		if (points.isEmpty()) {
+			return;
+		}
+		long[] pixels = new long[Math.max(64, points.size() * 4)];
+		int count = 0;
+		StravaMapPoint previousPoint = points.get(0);
+		long x0 = pixelX(previousPoint.getLongitude().floatValue());
+		long y0 = pixelY(previousPoint.getLatitude().floatValue());
+		pixels[count++] = (x0 << 32) | y0;
+		for (int i = 1; i < points.size(); i++) {
+			final StravaMapPoint point = points.get(i);
+			final long wrappedX = pixelX(point.getLongitude().floatValue());
+			final long y1 = pixelY(point.getLatitude().floatValue());
+			final boolean jump = (distance(previousPoint, point) > MAXIMUM_JUMP);
+			previousPoint = point;
+			if (jump) {
+				// Start again from here without drawing the step
+				if (count == pixels.length) {
+					pixels = Arrays.copyOf(pixels, count * 2);
+				}
+				pixels[count++] = (wrappedX << 32) | y1;
+				x0 = wrappedX;
+				y0 = y1;
+				continue;
+			}
+
+			// Go the short way round; x1 may then be off either edge of the map, and pixels are wrapped back onto it as they are written
+			long x1 = wrappedX;
+			if ((x1 - x0) > (this.size / 2)) {
+				x1 -= this.size;
+			} else if ((x0 - x1) > (this.size / 2)) {
+				x1 += this.size;
+			}
+
+			// Bresenham's line, excluding the first pixel which was written by the previous step
+			final long dx = Math.abs(x1 - x0);
+			final long dy = -Math.abs(y1 - y0);
+			final long sx = (x0 < x1 ? 1 : -1);
+			final long sy = (y0 < y1 ? 1 : -1);
+			long error = dx + dy;
+			long x = x0;
+			long y = y0;
+			while ((x != x1) || (y != y1)) {
+				final long doubled = 2 * error;
+				if (doubled >= dy) {
+					error += dy;
+					x += sx;
+				}
+				if (doubled <= dx) {
+					error += dx;
+					y += sy;
+				}
+				if (count == pixels.length) {
+					pixels = Arrays.copyOf(pixels, count * 2);
+				}
+				pixels[count++] = (Math.floorMod(x, this.size) << 32) | y;
+			}
+			x0 = wrappedX;
+			y0 = y1;
+		}
+
+		Arrays.sort(pixels, 0, count);
+		long previous = -1;
+		long previousTile = -1;
+		AtomicIntegerArray tile = null;
+		for (int i = 0; i < count; i++) {
+			final long pixel = pixels[i];
+			if (pixel == previous) {
+				continue;
+			}
+			previous = pixel;
+			final int x = (int) (pixel >>> 32);
+			final int y = (int) pixel;
+			final long tileKey = tileKey(x >>> TILE_BITS, y >>> TILE_BITS);
+			if (tileKey != previousTile) {
+				tile = tile(tileKey);
+				previousTile = tileKey;
+			}
+			tile.incrementAndGet(((y & (TILE_SIZE - 1)) * TILE_SIZE) + (x & (TILE_SIZE - 1)));
+		}
+	}
+
+	/**
+	 * @param from
+	 *            A point
+	 * @param to
+	 *            Another point
+	 * @return The approximate distance between them, in metres, going the short way round in longitude; accurate enough to tell a step along a track from a jump
+	 */
+	private static double distance(final StravaMapPoint from, final StravaMapPoint to) {
+		final double latitude = Math.toRadians(to.getLatitude().doubleValue() - from.getLatitude().doubleValue());
+		double longitude = Math.toRadians(to.getLongitude().doubleValue() - from.getLongitude().doubleValue());
+		longitude -= 2 * Math.PI * Math.rint(longitude / (2 * Math.PI));
+		longitude *= Math.cos(Math.toRadians((to.getLatitude().doubleValue() + from.getLatitude().doubleValue()) / 2));
+		return StravaGeoKernels.EARTH_RADIUS * Math.sqrt((latitude * latitude) + (longitude * longitude));
+	}
+
+	/**
+	 * @param longitude
+	 *            Longitude, in degrees
+	 * @return The x coordinate of the pixel containing the longitude, counting east from the antimeridian
+	 */
+	private long pixelX(final double longitude) {
+		final long x = (long) Math.floor(((longitude + 180) / 360) * this.size);
+		return Math.min(Math.max(x, 0), this.size - 1);
+	}
+
+	/**
+	 * @param latitude
+	 *            Latitude, in degrees
+	 * @return The y coordinate of the pixel containing the latitude, counting south from the top of the map
+	 */
+	private long pixelY(final double latitude) {
+		final double radians = Math.toRadians(Math.min(Math.max(latitude, -MAXIMUM_LATITUDE), MAXIMUM_LATITUDE));
+		final double mercator = Math.log(Math.tan((Math.PI / 4) + (radians / 2)));
+		final long y = (long) Math.floor(((1 - (mercator / Math.PI)) / 2) * this.size);
+		return Math.min(Math.max(y, 0), this.size - 1);
+	}
+
+	/**
+	 * @param key
+	 *            Key of the tile
+	 * @return The tile, created if it has not been drawn on before
+	 */
+	private AtomicIntegerArray tile(final long key) {
+		final Long boxed = Long.valueOf(key);
+		final AtomicIntegerArray tile = this.tiles.get(boxed);
+		if (tile != null) {
+			return tile;
+		}
+		return this.tiles.computeIfAbsent(boxed, k -> new AtomicIntegerArray(TILE_SIZE * TILE_SIZE));
+	}
+}
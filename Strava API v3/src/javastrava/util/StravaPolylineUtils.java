@@ -0,0 +1,111 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javastrava.model.StravaMapPoint;
+
+/**
+ * <p>
+ * Decodes the encoded polylines Strava returns for {@link javastrava.model.StravaMap maps} and {@link javastrava.model.StravaSegmentExplorerResponseSegment explored segments}
+ * </p>
+ *
+ * <p>
+ * The encoding is Google's: each coordinate is a signed difference from the previous one in units of 10<sup>-5</sup> degrees, written as 5-bit chunks offset by 63.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaPolylineUtils {
+	/**
+	 * Units of the encoded coordinates, per degree
+	 */
+	private static final double PRECISION = 1e5;
+
+	/**
+	 * <p>
+	 * Computes the bounding box of an encoded polyline without decoding it into points
+	 * </p>
+	 *
+	 * @param polyline
+	 *            The encoded polyline
+	 * @param box
+	 *            Receives the south-west latitude and longitude and north-east latitude and longitude, in that order
+	 * @return <code>true</code> if the polyline has at least one point
+	 */
+	public static boolean boundingBox(final String polyline, final float[] box) {
+		if ((polyline == null) || polyline.isEmpty()) {
+			return false;
+		}
+		final int[] position = new int[1];
+		int latitude = 0;
+		int longitude = 0;
+		int south = Integer.MAX_VALUE;
+		int west = Integer.MAX_VALUE;
+		int north = Integer.MIN_VALUE;
+		int east = Integer.MIN_VALUE;
+		while (position[0] < polyline.length()) {
+			latitude += next(polyline, position);
+			if (position[0] >= polyline.length()) {
+				break;
+			}
+			longitude += next(polyline, position);
+			south = Math.min(south, latitude);
+			north = Math.max(north, latitude);
+			west = Math.min(west, longitude);
+			east = Math.max(east, longitude);
+		}
+		if (south > north) {
+			return false;
+		}
+		box[0] = (float) (south / PRECISION);
+		box[1] = (float) (west / PRECISION);
+		box[2] = (float) (north / PRECISION);
+		box[3] = (float) (east / PRECISION);
+		return true;
+	}
+
+	/**
+	 * @param polyline
+	 *            The encoded polyline
+	 * @return The points of the polyline; empty if it is <code>null</code>
+	 */
+	public static List<StravaMapPoint> decode(final String polyline) {
+		final List<StravaMapPoint> points = new ArrayList<StravaMapPoint>();
+		if (polyline == null) {
+			return points;
+		}
+		final int[] position = new int[1];
+		int latitude = 0;
+		int longitude = 0;
+		while (position[0] < polyline.length()) {
+			latitude += next(polyline, position);
+			if (position[0] >= polyline.length()) {
+				break;
+			}
+			longitude += next(polyline, position);
+			points.add(new StravaMapPoint(Float.valueOf((float) (latitude / PRECISION)), Float.valueOf((float) (longitude / PRECISION))));
+		}
+		return points;
+	}
+
+	/**
+	 * @param polyline
+	 *            The encoded polyline
+	 * @param position
+	 *            Position in the polyline of the next value; updated to the position of the one after
+	 * @return The next value
+	 */
+	private static int next(final String polyline, final int[] position) {
+		int result = 0;
+		int shift = 0;
+		int chunk;
+		do {
+			chunk = polyline.charAt(position[0]++) - 63;
+			result |= (chunk & 0x1f) << shift;
+			shift += 5;
+		} while ((chunk >= 0x20) && (position[0] < polyline.length()));
+		return ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
+	}
+}
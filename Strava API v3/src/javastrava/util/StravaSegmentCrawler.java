@@ -0,0 +1,619 @@
+package javastrava.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javastrava.cache.impl.StravaSegmentIndex;
+import javastrava.config.StravaConfig;
+import javastrava.json.JsonUtil;
+import javastrava.json.exception.JsonSerialisationException;
+import javastrava.json.impl.JsonUtilImpl;
+import javastrava.model.StravaMapPoint;
+import javastrava.model.StravaSegmentExplorerResponse;
+import javastrava.model.StravaSegmentExplorerResponseSegment;
+import javastrava.model.reference.StravaSegmentExplorerActivityType;
+import javastrava.service.SegmentService;
+import javastrava.service.Strava;
+import javastrava.service.exception.StravaAPIRateLimitException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * <p>
+ * Discovers every segment in a region by exploring it as a quadtree: the region is explored with {@link SegmentService#segmentExplore(StravaMapPoint, StravaMapPoint,
+ * StravaSegmentExplorerActivityType, javastrava.model.reference.StravaClimbCategory, javastrava.model.reference.StravaClimbCategory) segmentExplore}, and any tile which returns the
+ * maximum of {@value StravaSegmentIndex#EXPLORE_LIMIT} segments (and so may have more) is split into quarters and explored again. Tiles which return fewer are not split, so sparse areas
+ * cost one call, and the quarters of a tile don't overlap, so no area is explored twice. A full tile smaller than {@link StravaConfig#SEGMENT_CRAWLER_MINIMUM_TILE_METRES} isn't split;
+ * it is reported by {@link #getSaturatedTiles()}, and the cells of the segment index it touches aren't marked as crawled.
+ * </p>
+ *
+ * <p>
+ * Tiles are explored in parallel, {@link StravaConfig#SEGMENT_CRAWLER_PARALLELISM} at a time. Before each call the crawler checks the usage Strava last reported: if more than
+ * {@link StravaConfig#SEGMENT_CRAWLER_RATE_BUDGET_PERCENT} of the 15-minute allowance has been used, it waits for the next 15-minute window, and if that much of the daily allowance has
+ * been used, it stops. The usage Strava reports is only read, never changed; once the crawler has waited for a window, it keeps track itself of whether the new window's usage has been
+ * reported yet. Each segment found is appended to a log beside the checkpoint file as soon as its tile has been explored, and the tiles still to be explored are written to the
+ * checkpoint file every {@value #CHECKPOINT_INTERVAL} tiles, so a crawl which stops (or is killed) can be resumed by creating a crawler with the same checkpoint file; at worst the last few
+ * tiles are explored again. Segments are de-duplicated by id.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+@Slf4j
+public class StravaSegmentCrawler {
+	/**
+	 * State of a crawl, as written to the checkpoint file; the segments found are in the log beside it
+	 */
+	private static class Checkpoint {
+		/**
+		 * Tiles still to be explored, each as south-west latitude and longitude and north-east latitude and longitude
+		 */
+		List<float[]>	pending;
+
+		/**
+		 * Tiles which returned the maximum number of segments but were too small to split
+		 */
+		List<float[]>	saturated;
+
+		/**
+		 * Calls made so far
+		 */
+		int				calls;
+	}
+
+	/**
+	 * Explores one tile, and its quarters if it is full
+	 */
+	private class TileTask extends RecursiveAction {
+		/**
+		 * Default
+		 */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * South-west latitude and longitude and north-east latitude and longitude
+		 */
+		private final float[] tile;
+
+		/**
+		 * @param tile
+		 *            The tile
+		 */
+		TileTask(final float[] tile) {
+			this.tile = tile;
+		}
+
+		/**
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			final StravaMapPoint southwest = new StravaMapPoint(Float.valueOf(this.tile[0]), Float.valueOf(this.tile[1]));
+			final StravaMapPoint northeast = new StravaMapPoint(Float.valueOf(this.tile[2]), Float.valueOf(this.tile[3]));
+			// Tiles crawled recently are answered in full from the index, without using the budget, and need no splitting
+			final boolean indexed = StravaSegmentIndex.isCrawled(southwest, northeast, StravaSegmentCrawler.this.activityType);
+			final List<StravaSegmentExplorerResponseSegment> explored = explore(southwest, northeast, indexed);
+			if (explored == null) {
+				// Out of budget; the tile stays pending in the checkpoint
+				return;
+			}
+			final List<StravaSegmentExplorerResponseSegment> found = new ArrayList<>();
+			for (final StravaSegmentExplorerResponseSegment segment : explored) {
+				if (StravaSegmentCrawler.this.segments.putIfAbsent(segment.getId(), segment) == null) {
+					found.add(segment);
+				}
+			}
+			append(found);
+			final List<TileTask> quarters = new ArrayList<>();
+			if (!indexed && (explored.size() >= StravaSegmentIndex.EXPLORE_LIMIT)) {
+				if (isSplittable(this.tile)) {
+					for (final float[] quarter : quarter(this.tile)) {
+						StravaSegmentCrawler.this.pending.add(key(quarter));
+						quarters.add(new TileTask(quarter));
+					}
+				} else {
+					// May hold more segments than were returned, but can't be split any further
+					StravaSegmentCrawler.this.saturated.add(key(this.tile));
+				}
+			}
+			StravaSegmentCrawler.this.pending.remove(key(this.tile));
+			if ((StravaSegmentCrawler.this.tiles.incrementAndGet() % CHECKPOINT_INTERVAL) == 0) {
+				checkpoint(false);
+			}
+			invokeAll(quarters);
+		}
+	}
+
+	/**
+	 * Metres in a degree of latitude
+	 */
+	private static final double METRES_PER_DEGREE = (StravaGeoKernels.EARTH_RADIUS * Math.PI) / 180;
+
+	/**
+	 * Number of tiles explored between writes of the checkpoint file
+	 */
+	private static final int CHECKPOINT_INTERVAL = 25;
+
+	/**
+	 * Length of Strava's short-term rate limit window
+	 */
+	private static final Duration RATE_LIMIT_WINDOW = Duration.ofMinutes(15);
+
+	/**
+	 * @param tile
+	 *            A tile
+	 * @return The tile as a string, for use as a key
+	 */
+	private static String key(final float[] tile) {
+		return Arrays.toString(tile);
+	}
+
+	/**
+	 * @param tile
+	 *            A tile
+	 * @return The four quarters of the tile
+	 */
+	private static float[][] quarter(final float[] tile) {
+		final float latitude = (tile[0] + tile[2]) / 2;
+		final float longitude = (tile[1] + tile[3]) / 2;
+		return new float[][] { { tile[0], tile[1], latitude, longitude }, { tile[0], longitude, latitude, tile[3] }, { latitude, tile[1], tile[2], longitude },
+				{ latitude, longitude, tile[2], tile[3] } };
+	}
+
+	/**
+	 * Service used to explore tiles
+	 */
+	private final SegmentService service;
+
+	/**
+	 * The region, as south-west latitude and longitude and north-east latitude and longitude
+	 */
+	private final float[] region;
+
+	/**
+	 * Activity type to explore for
+	 */
+	private final StravaSegmentExplorerActivityType activityType;
+
+	/**
+	 * Checkpoint file, or <code>null</code> if the crawl isn't to be checkpointed
+	 */
+	private final Path checkpointFile;
+
+	/**
+	 * Log of the segments found, beside the checkpoint file, or <code>null</code> if the crawl isn't to be checkpointed
+	 */
+	private final Path segmentLog;
+
+	/**
+	 * Writer appending to the segment log while a crawl is running
+	 */
+	private BufferedWriter segmentWriter;
+
+	/**
+	 * Held while the checkpoint file is written
+	 */
+	private final ReentrantLock checkpointLock = new ReentrantLock();
+
+	/**
+	 * JSON serialiser for the checkpoint
+	 */
+	private final JsonUtil json = new JsonUtilImpl();
+
+	/**
+	 * Segments found, by id
+	 */
+	private final Map<Integer, StravaSegmentExplorerResponseSegment> segments = new ConcurrentHashMap<>();
+
+	/**
+	 * Keys of the tiles still to be explored
+	 */
+	private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Keys of the tiles which returned the maximum number of segments but were too small to split
+	 */
+	private final Set<String> saturated = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Calls made to the API
+	 */
+	private final AtomicInteger calls = new AtomicInteger();
+
+	/**
+	 * Tiles explored by this crawler
+	 */
+	private final AtomicInteger tiles = new AtomicInteger();
+
+	/**
+	 * Set once the daily rate budget is used up
+	 */
+	private volatile boolean exhausted;
+
+	/**
+	 * The last 15-minute window (counted from the epoch) whose rate budget the crawler found used up, or -1 if none
+	 */
+	private volatile long blockedWindow = -1;
+
+	/**
+	 * The 15-minute window (counted from the epoch) in which the crawler last had a response from the API, or -1 if none
+	 */
+	private volatile long lastCallWindow = -1;
+
+	/**
+	 * @param service
+	 *            Service used to explore tiles
+	 * @param southwestCorner
+	 *            South-west corner of the region
+	 * @param northeastCorner
+	 *            North-east corner of the region
+	 * @param activityType
+	 *            Activity type to explore for (<code>null</code> is riding)
+	 * @param checkpointFile
+	 *            File in which progress is saved, and from which it is resumed if it exists; <code>null</code> if the crawl isn't to be checkpointed
+	 */
+	public StravaSegmentCrawler(final SegmentService service, final StravaMapPoint southwestCorner, final StravaMapPoint northeastCorner,
+			final StravaSegmentExplorerActivityType activityType, final Path checkpointFile) {
+		this.service = service;
+		this.region = new float[] { southwestCorner.getLatitude().floatValue(), southwestCorner.getLongitude().floatValue(), northeastCorner.getLatitude().floatValue(),
+				northeastCorner.getLongitude().floatValue() };
+		this.activityType = activityType;
+		this.checkpointFile = checkpointFile;
+		this.segmentLog = (checkpointFile == null ? null : checkpointFile.resolveSibling(checkpointFile.getFileName() + ".segments")); //$NON-NLS-1$
+	}
+
+	/**
+	 * <p>
+	 * Crawls the region, resuming from the checkpoint file if there is one
+	 * </p>
+	 *
+	 * @return The segments found, including those found before resuming; if the crawl stopped because the daily rate budget ran out, {@link #isComplete()} is <code>false</code> and
+	 *         calling this again (on this or a new crawler with the same checkpoint file) carries on
+	 */
+	public List<StravaSegmentExplorerResponseSegment> crawl() {
+		final List<float[]> tiles = resume();
+		this.exhausted = false;
+		if (this.segmentLog != null) {
+			try {
+				this.segmentWriter = Files.newBufferedWriter(this.segmentLog, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+			} catch (final IOException e) {
+				log.warn("Could not open segment crawl log " + this.segmentLog + ", segments found won't be checkpointed", e);
+			}
+		}
+		checkpoint(true);
+		final ForkJoinPool pool = new ForkJoinPool(StravaConfig.SEGMENT_CRAWLER_PARALLELISM);
+		try {
+			final List<TileTask> tasks = new ArrayList<>();
+			for (final float[] tile : tiles) {
+				tasks.add(new TileTask(tile));
+			}
+			pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+		} finally {
+			pool.shutdown();
+			closeSegmentLog();
+		}
+		if (isComplete()) {
+			// Every tile other than the saturated ones returned fewer than the maximum, so the index now holds everything in the rest of the region
+			if (!this.saturated.isEmpty()) {
+				log.warn("Segment crawl complete, but " + this.saturated.size() + " tiles returned the maximum and could not be split; they may be missing segments");
+			}
+			StravaSegmentIndex.markCrawled(new StravaMapPoint(Float.valueOf(this.region[0]), Float.valueOf(this.region[1])),
+					new StravaMapPoint(Float.valueOf(this.region[2]), Float.valueOf(this.region[3])), this.activityType, getSaturatedTiles());
+		}
+		checkpoint(true);
+		return new ArrayList<>(this.segments.values());
+	}
+
+	/**
+	 * @return Number of calls made to the API, including those made before resuming
+	 */
+	public int getCalls() {
+		return this.calls.get();
+	}
+
+	/**
+	 * @return Tiles which returned the maximum number of segments but were too small to split, so may hold segments that weren't found, each as its south-west and north-east corners.
+	 *         The cells of the segment index they touch aren't marked as crawled.
+	 */
+	public List<StravaMapPoint[]> getSaturatedTiles() {
+		final List<StravaMapPoint[]> tiles = new ArrayList<>();
+		for (final String key : this.saturated) {
+			final float[] tile = parse(key);
+			tiles.add(new StravaMapPoint[] { new StravaMapPoint(Float.valueOf(tile[0]), Float.valueOf(tile[1])), new StravaMapPoint(Float.valueOf(tile[2]), Float.valueOf(tile[3])) });
+		}
+		return tiles;
+	}
+
+	/**
+	 * @return <code>true</code> if there are no tiles left to explore
+	 */
+	public boolean isComplete() {
+		return this.pending.isEmpty();
+	}
+
+	/**
+	 * <p>
+	 * Waits until there is room in the rate budget for a call
+	 * </p>
+	 *
+	 * @return <code>false</code> if the daily budget is used up
+	 */
+	private boolean awaitBudget() {
+		while (true) {
+			if (this.exhausted || (percent(Strava.REQUEST_RATE_DAILY, Strava.RATE_LIMIT_DAILY) >= StravaConfig.SEGMENT_CRAWLER_RATE_BUDGET_PERCENT)) {
+				if (!this.exhausted) {
+					log.info("Daily rate budget used up, stopping segment crawl with " + this.pending.size() + " tiles to go");
+				}
+				this.exhausted = true;
+				return false;
+			}
+			// Strava's 15-minute windows start on the quarter hour
+			final long window = RATE_LIMIT_WINDOW.toMillis();
+			final long now = System.currentTimeMillis();
+			final long current = now / window;
+			if (current != this.blockedWindow) {
+				if ((this.blockedWindow >= 0) && (this.lastCallWindow < current)) {
+					// The usage reported is from the window that was used up, and nothing has been reported since; the new window starts empty
+					return true;
+				}
+				if (percent(Strava.REQUEST_RATE_CURRENT, Strava.RATE_LIMIT_CURRENT) < StravaConfig.SEGMENT_CRAWLER_RATE_BUDGET_PERCENT) {
+					return true;
+				}
+				this.blockedWindow = current;
+			}
+			final long wait = window - (now % window);
+			log.info("Rate budget used up, segment crawl waiting " + (wait / 1000) + "s for the next window");
+			try {
+				Thread.sleep(wait);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				this.exhausted = true;
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Appends newly found segments to the segment log, one JSON object to a line
+	 * </p>
+	 *
+	 * @param found
+	 *            Segments not found before
+	 */
+	private void append(final List<StravaSegmentExplorerResponseSegment> found) {
+		if (found.isEmpty()) {
+			return;
+		}
+		final StringBuilder lines = new StringBuilder();
+		for (final StravaSegmentExplorerResponseSegment segment : found) {
+			lines.append(this.json.serialise(segment)).append('\n');
+		}
+		synchronized (this.segments) {
+			if (this.segmentWriter == null) {
+				return;
+			}
+			try {
+				this.segmentWriter.write(lines.toString());
+				this.segmentWriter.flush();
+			} catch (final IOException e) {
+				log.warn("Could not write segment crawl log " + this.segmentLog, e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the crawl's progress to the checkpoint file
+	 *
+	 * @param wait
+	 *            Whether to wait if another thread is writing it; if not, this write is skipped, as the other has the same or later progress
+	 */
+	private void checkpoint(final boolean wait) {
+		if (this.checkpointFile == null) {
+			return;
+		}
+		if (wait) {
+			this.checkpointLock.lock();
+		} else if (!this.checkpointLock.tryLock()) {
+			return;
+		}
+		try {
+			writeCheckpoint();
+		} finally {
+			this.checkpointLock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the segment log at the end of a crawl
+	 */
+	private void closeSegmentLog() {
+		synchronized (this.segments) {
+			if (this.segmentWriter != null) {
+				try {
+					this.segmentWriter.close();
+				} catch (final IOException e) {
+					log.warn("Could not close segment crawl log " + this.segmentLog, e);
+				}
+				this.segmentWriter = null;
+			}
+		}
+	}
+
+	/**
+	 * Writes the crawl's progress to the checkpoint file, replacing it atomically
+	 */
+	private void writeCheckpoint() {
+		final Checkpoint checkpoint = new Checkpoint();
+		checkpoint.pending = new ArrayList<>();
+		for (final String key : this.pending) {
+			checkpoint.pending.add(parse(key));
+		}
+		checkpoint.saturated = new ArrayList<>();
+		for (final String key : this.saturated) {
+			checkpoint.saturated.add(parse(key));
+		}
+		checkpoint.calls = this.calls.get();
+		try {
+			final Path temporary = this.checkpointFile.resolveSibling(this.checkpointFile.getFileName() + ".tmp"); //$NON-NLS-1$
+			Files.write(temporary, this.json.serialise(checkpoint).getBytes(StandardCharsets.UTF_8));
+			Files.move(temporary, this.checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (final IOException e) {
+			log.warn("Could not write segment crawl checkpoint " + this.checkpointFile, e);
+		}
+	}
+
+	/**
+	 * @param southwest
+	 *            South-west corner of a tile
+	 * @param northeast
+	 *            North-east corner of the tile
+	 * @param indexed
+	 *            Whether the tile will be answered from the index rather than the API
+	 * @return The segments in the tile, or <code>null</code> if the rate budget is used up
+	 */
+	private List<StravaSegmentExplorerResponseSegment> explore(final StravaMapPoint southwest, final StravaMapPoint northeast, final boolean indexed) {
+		while (true) {
+			if (!indexed && !awaitBudget()) {
+				return null;
+			}
+			try {
+				final StravaSegmentExplorerResponse response = this.service.segmentExplore(southwest, northeast, this.activityType, null, null);
+				if (!indexed) {
+					this.calls.incrementAndGet();
+					this.lastCallWindow = System.currentTimeMillis() / RATE_LIMIT_WINDOW.toMillis();
+				}
+				return ((response == null) || (response.getSegments() == null) ? new ArrayList<>() : response.getSegments());
+			} catch (final StravaAPIRateLimitException e) {
+				// Strava's count is ahead of the last one we saw; wait for the next window
+				this.blockedWindow = System.currentTimeMillis() / RATE_LIMIT_WINDOW.toMillis();
+			}
+		}
+	}
+
+	/**
+	 * @param tile
+	 *            A tile
+	 * @return <code>true</code> if the tile is big enough to split
+	 */
+	private boolean isSplittable(final float[] tile) {
+		return ((tile[2] - tile[0]) * METRES_PER_DEGREE) >= (2 * StravaConfig.SEGMENT_CRAWLER_MINIMUM_TILE_METRES);
+	}
+
+	/**
+	 * @param key
+	 *            Key of a tile
+	 * @return The tile
+	 */
+	private static float[] parse(final String key) {
+		final String[] values = key.substring(1, key.length() - 1).split(","); //$NON-NLS-1$
+		final float[] tile = new float[values.length];
+		for (int i = 0; i < values.length; i++) {
+			tile[i] = Float.parseFloat(values[i].trim());
+		}
+		return tile;
+	}
+
+	/**
+	 * @param used
+	 *            Requests used
+	 * @param limit
+	 *            Requests allowed
+	 * @return Percentage of the allowance used
+	 */
+	private static float percent(final int used, final int limit) {
+		return (limit == 0 ? 0 : (100 * (float) used) / limit);
+	}
+
+	/**
+	 * <p>
+	 * Reads the segments found so far from the segment log. A line which can't be read (the last one, if the crawl was killed while writing it) is skipped; the segment is found again
+	 * when its tile is.
+	 * </p>
+	 *
+	 * @throws IOException
+	 *             If the log can't be read
+	 */
+	private void readSegmentLog() throws IOException {
+		if (!Files.exists(this.segmentLog)) {
+			return;
+		}
+		try (BufferedReader reader = Files.newBufferedReader(this.segmentLog, StandardCharsets.UTF_8)) {
+			for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+				if (line.isEmpty()) {
+					continue;
+				}
+				try {
+					final StravaSegmentExplorerResponseSegment segment = this.json.deserialise(line, StravaSegmentExplorerResponseSegment.class);
+					if ((segment != null) && (segment.getId() != null)) {
+						this.segments.put(segment.getId(), segment);
+					}
+				} catch (final JsonSerialisationException e) {
+					log.warn("Skipping unreadable line of segment crawl log " + this.segmentLog);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The tiles to explore: those left in the checkpoint file, or the whole region if there is none
+	 */
+	private List<float[]> resume() {
+		final List<float[]> tiles = new ArrayList<>();
+		if (this.pending.isEmpty() && (this.checkpointFile != null) && Files.exists(this.checkpointFile)) {
+			try {
+				final Checkpoint checkpoint = this.json.deserialise(new String(Files.readAllBytes(this.checkpointFile), StandardCharsets.UTF_8), Checkpoint.class);
+				if ((checkpoint != null) && (checkpoint.pending != null)) {
+					readSegmentLog();
+					this.calls.set(checkpoint.calls);
+					for (final float[] tile : checkpoint.pending) {
+						this.pending.add(key(tile));
+					}
+					if (checkpoint.saturated != null) {
+						for (final float[] tile : checkpoint.saturated) {
+							this.saturated.add(key(tile));
+						}
+					}
+					log.info("Resuming segment crawl with " + this.segments.size() + " segments found and " + this.pending.size() + " tiles to go");
+					if (this.pending.isEmpty()) {
+						return tiles;
+					}
+				}
+			} catch (final IOException | JsonSerialisationException e) {
+				log.warn("Could not read segment crawl checkpoint " + this.checkpointFile + ", starting again", e);
+			}
+		}
+		if (this.pending.isEmpty() && this.segments.isEmpty()) {
+			this.pending.add(key(this.region));
+			if (this.segmentLog != null) {
+				try {
+					// Left by a crawl whose checkpoint is missing or unreadable
+					Files.deleteIfExists(this.segmentLog);
+				} catch (final IOException e) {
+					log.warn("Could not delete segment crawl log " + this.segmentLog, e);
+				}
+			}
+		}
+		for (final String key : this.pending) {
+			tiles.add(parse(key));
+		}
+		return tiles;
+	}
+}
@@ -0,0 +1,85 @@
+package javastrava.util;
+
+/**
+ * <p>
+ * A pass over a segment found in an activity's location stream by {@link StravaSegmentMatcher}
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSegmentMatch {
+	/**
+	 * Identifier of the segment
+	 */
+	private final Integer segmentId;
+
+	/**
+	 * Index of the sample of the activity's streams closest to the start of the segment
+	 */
+	private final int startIndex;
+
+	/**
+	 * Index of the sample of the activity's streams closest to the end of the segment
+	 */
+	private final int endIndex;
+
+	/**
+	 * Discrete Fréchet distance between the activity's track and the segment, in metres
+	 */
+	private final float frechetDistance;
+
+	/**
+	 * @param segmentId
+	 *            Identifier of the segment
+	 * @param startIndex
+	 *            Index of the sample closest to the start of the segment
+	 * @param endIndex
+	 *            Index of the sample closest to the end of the segment
+	 * @param frechetDistance
+	 *            Discrete Fréchet distance between the track and the segment, in metres
+	 */
+	public StravaSegmentMatch(final Integer segmentId, final int startIndex, final int endIndex, final float frechetDistance) {
+		this.segmentId = segmentId;
+		this.startIndex = startIndex;
+		this.endIndex = endIndex;
+		this.frechetDistance = frechetDistance;
+	}
+
+	/**
+	 * @return Index of the sample of the activity's streams closest to the end of the segment
+	 */
+	public int getEndIndex() {
+		return this.endIndex;
+	}
+
+	/**
+	 * @return Discrete Fréchet distance between the activity's track and the segment, in metres
+	 */
+	public float getFrechetDistance() {
+		return this.frechetDistance;
+	}
+
+	/**
+	 * @return Identifier of the segment
+	 */
+	public Integer getSegmentId() {
+		return this.segmentId;
+	}
+
+	/**
+	 * @return Index of the sample of the activity's streams closest to the start of the segment
+	 */
+	public int getStartIndex() {
+		return this.startIndex;
+	}
+
+	/**
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "StravaSegmentMatch [segmentId=" + this.segmentId + ", startIndex=" + this.startIndex + ", endIndex=" + this.endIndex + ", frechetDistance=" + this.frechetDistance //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+				+ "]"; //$NON-NLS-1$
+	}
+}
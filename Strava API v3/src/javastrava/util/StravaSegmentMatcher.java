@@ -0,0 +1,613 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javastrava.cache.impl.StravaSegmentIndex;
+import javastrava.model.StravaActivity;
+import javastrava.model.StravaMapPoint;
+import javastrava.model.StravaSegment;
+import javastrava.model.StravaSegmentEffort;
+import javastrava.model.StravaSegmentExplorerResponseSegment;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaResourceState;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * Finds where an activity passes over segments, from its {@link StravaStreamType#MAPPOINT location} stream and the polylines of the segments, without a detailed fetch of the activity
+ * with all its efforts (and for segments Strava wouldn't report, such as ones tracked privately)
+ * </p>
+ *
+ * <p>
+ * The track is projected once onto a local plane in metres, with points added wherever its samples are more than half the tolerance apart, and its points hashed into a grid of cells
+ * the size of the tolerance. For each candidate segment, points near its start and end are looked up in the grid; only if both exist is the polyline decoded. From each point near the
+ * start, the track is then followed forward while every point stays within the
+ * tolerance of the segment (the corridor test, which moves a pointer along the segment's edges as the track progresses), until it reaches the end. A pass which stays in the corridor is
+ * confirmed by the discrete Fréchet distance between the two (with the segment's edges first divided to half the tolerance), which must also be within the tolerance; this rules out a track which stays near the segment but goes the wrong way or
+ * doubles back. Most segments are rejected by the grid lookup in constant time, so thousands of candidates can be tested against an activity in a few milliseconds.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSegmentMatcher {
+	/**
+	 * Default tolerance, in metres
+	 */
+	public static final float DEFAULT_TOLERANCE = 25f;
+
+	/**
+	 * Number of edges of a segment beyond the current one considered when following a track along it
+	 */
+	private static final int LOOKAHEAD = 8;
+
+	/**
+	 * Metres in a degree of latitude
+	 */
+	private static final double METRES_PER_DEGREE = (StravaGeoKernels.EARTH_RADIUS * Math.PI) / 180;
+
+	/**
+	 * <p>
+	 * Finds segment efforts in an activity
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity, which supplies the start date and athlete of each effort
+	 * @param streams
+	 *            The activity's streams, which must include {@link StravaStreamType#MAPPOINT} and should include {@link StravaStreamType#TIME}
+	 * @param segments
+	 *            Candidate segments, with their {@link StravaSegment#getMap() map}
+	 * @param tolerance
+	 *            Furthest the track may stray from a segment, in metres
+	 * @return The efforts found, with start and end indices, in the order of the segments
+	 */
+	public static List<StravaSegmentEffort> efforts(final StravaActivity activity, final List<StravaStream> streams, final Collection<StravaSegment> segments, final float tolerance) {
+		final StravaSegmentMatcher matcher = new StravaSegmentMatcher(StravaGeoTrack.of(streams), tolerance);
+		float[] time = null;
+		for (final StravaStream stream : streams) {
+			if (stream.getType() == StravaStreamType.TIME) {
+				time = StravaStreamResampler.values(stream);
+			}
+		}
+		final float[] distance = matcher.track.getDistances();
+		final List<StravaSegmentEffort> efforts = new ArrayList<>();
+		for (final StravaSegment segment : segments) {
+			for (final StravaSegmentMatch match : matcher.match(segment)) {
+				final StravaSegmentEffort effort = new StravaSegmentEffort();
+				effort.setResourceState(StravaResourceState.SUMMARY);
+				effort.setName(segment.getName());
+				effort.setSegment(segment);
+				effort.setActivity(activity);
+				effort.setAthlete(activity.getAthlete());
+				effort.setStartIndex(Integer.valueOf(match.getStartIndex()));
+				effort.setEndIndex(Integer.valueOf(match.getEndIndex()));
+				if (!Float.isNaN(distance[match.getStartIndex()]) && !Float.isNaN(distance[match.getEndIndex()])) {
+					effort.setDistance(Float.valueOf(distance[match.getEndIndex()] - distance[match.getStartIndex()]));
+				}
+				if (time != null) {
+					final int elapsed = Math.round(time[match.getEndIndex()] - time[match.getStartIndex()]);
+					effort.setElapsedTime(Integer.valueOf(elapsed));
+					effort.setMovingTime(Integer.valueOf(elapsed));
+					final long offset = Math.round(time[match.getStartIndex()] - time[0]);
+					if (activity.getStartDate() != null) {
+						effort.setStartDate(activity.getStartDate().plusSeconds(offset));
+					}
+					if (activity.getStartDateLocal() != null) {
+						effort.setStartDateLocal(activity.getStartDateLocal().plusSeconds(offset));
+					}
+				}
+				efforts.add(effort);
+			}
+		}
+		return efforts;
+	}
+
+	/**
+	 * <p>
+	 * Matches an activity against every segment in the {@link StravaSegmentIndex spatial index of segments} that its bounding box overlaps. The index is only filled if
+	 * {@link javastrava.config.StravaConfig#SEGMENT_INDEX_ENABLED} is set; otherwise nothing is matched.
+	 * </p>
+	 *
+	 * @param track
+	 *            The activity's track
+	 * @param tolerance
+	 *            Furthest the track may stray from a segment, in metres
+	 * @return The matches
+	 */
+	public static List<StravaSegmentMatch> matchIndexed(final StravaGeoTrack track, final float tolerance) {
+		final float[] box = StravaGeoKernels.boundingBox(track);
+		if (Float.isNaN(box[0])) {
+			return new ArrayList<>();
+		}
+		final StravaSegmentMatcher matcher = new StravaSegmentMatcher(track, tolerance);
+		return matcher.matchAll(StravaSegmentIndex.segments(new StravaMapPoint(Float.valueOf(box[0]), Float.valueOf(box[1])),
+				new StravaMapPoint(Float.valueOf(box[2]), Float.valueOf(box[3]))));
+	}
+
+	/**
+	 * <p>
+	 * Adds points along the edges of a segment or track so that none is longer than the spacing, so that every point of a pass is near a point of the segment when the discrete Fréchet
+	 * distance pairs them, and the other way round; segment polylines are simplified, and on straight stretches their points can be hundreds of metres apart
+	 * </p>
+	 *
+	 * @param sx
+	 *            Projected x of the points
+	 * @param sy
+	 *            Projected y of the points
+	 * @param spacing
+	 *            Longest edge to leave, in metres
+	 * @return The x and y of the densified points
+	 */
+	private static double[][] densify(final double[] sx, final double[] sy, final double spacing) {
+		if (sx.length == 0) {
+			return new double[][] { sx, sy };
+		}
+		int count = 1;
+		for (int j = 1; j < sx.length; j++) {
+			count += steps(sx[j - 1], sy[j - 1], sx[j], sy[j], spacing);
+		}
+		final double[] dx = new double[count];
+		final double[] dy = new double[count];
+		dx[0] = sx[0];
+		dy[0] = sy[0];
+		int k = 1;
+		for (int j = 1; j < sx.length; j++) {
+			final int steps = steps(sx[j - 1], sy[j - 1], sx[j], sy[j], spacing);
+			for (int step = 1; step <= steps; step++) {
+				final double t = (double) step / steps;
+				dx[k] = sx[j - 1] + (t * (sx[j] - sx[j - 1]));
+				dy[k] = sy[j - 1] + (t * (sy[j] - sy[j - 1]));
+				k++;
+			}
+		}
+		return new double[][] { dx, dy };
+	}
+
+	/**
+	 * @param ax
+	 *            x of the start of an edge
+	 * @param ay
+	 *            y of the start of the edge
+	 * @param bx
+	 *            x of the end of the edge
+	 * @param by
+	 *            y of the end of the edge
+	 * @param spacing
+	 *            Longest step, in metres
+	 * @return Number of steps {@link #densify(double[], double[], double)} divides the edge into
+	 */
+	private static int steps(final double ax, final double ay, final double bx, final double by, final double spacing) {
+		return Math.max(1, (int) Math.ceil(Math.hypot(bx - ax, by - ay) / spacing));
+	}
+
+	/**
+	 * @param ax
+	 *            x of the start of the edge
+	 * @param ay
+	 *            y of the start of the edge
+	 * @param bx
+	 *            x of the end of the edge
+	 * @param by
+	 *            y of the end of the edge
+	 * @param px
+	 *            x of the point
+	 * @param py
+	 *            y of the point
+	 * @return Square of the distance from the point to the edge
+	 */
+	private static double edgeDistanceSquared(final double ax, final double ay, final double bx, final double by, final double px, final double py) {
+		final double dx = bx - ax;
+		final double dy = by - ay;
+		final double length = (dx * dx) + (dy * dy);
+		double t = (length > 0 ? (((px - ax) * dx) + ((py - ay) * dy)) / length : 0);
+		t = (t < 0 ? 0 : (t > 1 ? 1 : t));
+		final double x = (ax + (t * dx)) - px;
+		final double y = (ay + (t * dy)) - py;
+		return (x * x) + (y * y);
+	}
+
+	/**
+	 * The activity's track
+	 */
+	private final StravaGeoTrack track;
+
+	/**
+	 * Furthest the track may stray from a segment, in metres
+	 */
+	private final float tolerance;
+
+	/**
+	 * Latitude of the origin of the projection
+	 */
+	private final double originLatitude;
+
+	/**
+	 * Longitude of the origin of the projection
+	 */
+	private final double originLongitude;
+
+	/**
+	 * Metres in a degree of longitude at the origin
+	 */
+	private final double metresPerDegreeLongitude;
+
+	/**
+	 * Projected x of each point of the densified track, in metres east of the origin
+	 */
+	private final double[] x;
+
+	/**
+	 * Projected y of each point of the densified track, in metres north of the origin
+	 */
+	private final double[] y;
+
+	/**
+	 * Index of the sample at or before each point of the densified track
+	 */
+	private final int[] before;
+
+	/**
+	 * Index of the sample at or after each point of the densified track
+	 */
+	private final int[] after;
+
+	/**
+	 * Indices of the points of the densified track in each cell of the grid, in order
+	 */
+	private final Map<Long, int[]> grid = new HashMap<>();
+
+	/**
+	 * <p>
+	 * Prepares an activity's track for matching
+	 * </p>
+	 *
+	 * <p>
+	 * Samples without a location are dropped, and points are added along the track wherever consecutive samples are further apart than half the tolerance (as they are for a track
+	 * recorded at a long interval, or across a gap in the recording), so that a pass isn't missed because no sample happens to fall near the start or end of a segment or near one of
+	 * its points. Matching works on these points, and the indices of the matches are mapped back to the samples.
+	 * </p>
+	 *
+	 * @param track
+	 *            The activity's track
+	 * @param tolerance
+	 *            Furthest the track may stray from a segment, in metres
+	 */
+	public StravaSegmentMatcher(final StravaGeoTrack track, final float tolerance) {
+		this.track = track;
+		this.tolerance = tolerance;
+		final int length = track.getLength();
+		final float[] latitudes = track.getLatitudes();
+		final float[] longitudes = track.getLongitudes();
+		int first = 0;
+		while ((first < length) && Float.isNaN(latitudes[first])) {
+			first++;
+		}
+		this.originLatitude = (first < length ? latitudes[first] : 0);
+		this.originLongitude = (first < length ? longitudes[first] : 0);
+		this.metresPerDegreeLongitude = METRES_PER_DEGREE * Math.cos(Math.toRadians(this.originLatitude));
+
+		// Project the located samples, then divide the steps between them
+		final double[] sampleX = new double[length];
+		final double[] sampleY = new double[length];
+		final int[] samples = new int[length];
+		int located = 0;
+		for (int i = 0; i < length; i++) {
+			sampleX[located] = (longitudes[i] - this.originLongitude) * this.metresPerDegreeLongitude;
+			sampleY[located] = (latitudes[i] - this.originLatitude) * METRES_PER_DEGREE;
+			if (!Double.isNaN(sampleX[located]) && !Double.isNaN(sampleY[located])) {
+				samples[located++] = i;
+			}
+		}
+		final double[][] dense = densify(Arrays.copyOf(sampleX, located), Arrays.copyOf(sampleY, located), tolerance / 2.0);
+		this.x = dense[0];
+		this.y = dense[1];
+		this.before = new int[this.x.length];
+		this.after = new int[this.x.length];
+		if (located > 0) {
+			this.before[0] = samples[0];
+			this.after[0] = samples[0];
+		}
+		int k = 1;
+		for (int j = 1; j < located; j++) {
+			final int steps = steps(sampleX[j - 1], sampleY[j - 1], sampleX[j], sampleY[j], tolerance / 2.0);
+			for (int step = 1; step <= steps; step++) {
+				this.before[k] = (step == steps ? samples[j] : samples[j - 1]);
+				this.after[k] = samples[j];
+				k++;
+			}
+		}
+		final Map<Long, List<Integer>> cells = new HashMap<>();
+		for (int i = 0; i < this.x.length; i++) {
+			cells.computeIfAbsent(Long.valueOf(cell(this.x[i], this.y[i])), c -> new ArrayList<>()).add(Integer.valueOf(i));
+		}
+		for (final Map.Entry<Long, List<Integer>> entry : cells.entrySet()) {
+			final int[] indices = new int[entry.getValue().size()];
+			for (int i = 0; i < indices.length; i++) {
+				indices[i] = entry.getValue().get(i).intValue();
+			}
+			this.grid.put(entry.getKey(), indices);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Finds passes over a segment
+	 * </p>
+	 *
+	 * @param segmentId
+	 *            Identifier of the segment
+	 * @param polyline
+	 *            The segment's encoded polyline
+	 * @return The passes found, in the order they occur
+	 */
+	public List<StravaSegmentMatch> match(final Integer segmentId, final String polyline) {
+		final List<StravaSegmentMatch> matches = new ArrayList<>();
+		final List<StravaMapPoint> points = StravaPolylineUtils.decode(polyline);
+		if (points.size() < 2) {
+			return matches;
+		}
+		double[] sx = new double[points.size()];
+		double[] sy = new double[points.size()];
+		int m = 0;
+		for (final StravaMapPoint point : points) {
+			final double px = (point.getLongitude().doubleValue() - this.originLongitude) * this.metresPerDegreeLongitude;
+			final double py = (point.getLatitude().doubleValue() - this.originLatitude) * METRES_PER_DEGREE;
+
+			// Repeated points (the encoding rounds to about a metre) would make zero-length edges that use up the corridor test's lookahead
+			if ((m == 0) || (px != sx[m - 1]) || (py != sy[m - 1])) {
+				sx[m] = px;
+				sy[m] = py;
+				m++;
+			}
+		}
+		if (m < 2) {
+			return matches;
+		}
+		sx = Arrays.copyOf(sx, m);
+		sy = Arrays.copyOf(sy, m);
+		final int[] starts = near(sx[0], sy[0]);
+		if ((starts.length == 0) || (near(sx[m - 1], sy[m - 1]).length == 0)) {
+			return matches;
+		}
+		final double toleranceSquared = (double) this.tolerance * this.tolerance;
+		double[][] dense = null;
+		int after = -1;
+		for (int s = 0; s < starts.length; s++) {
+			int start = starts[s];
+			if (start <= after) {
+				continue;
+			}
+			// Of a run of consecutive points near the start, begin from the closest
+			while (((s + 1) < starts.length) && (starts[s + 1] == (starts[s] + 1))) {
+				s++;
+				if (distanceSquared(starts[s], sx[0], sy[0]) < distanceSquared(start, sx[0], sy[0])) {
+					start = starts[s];
+				}
+			}
+			final int end = follow(start, sx, sy, toleranceSquared);
+			if (end < 0) {
+				continue;
+			}
+			if (dense == null) {
+				dense = densify(sx, sy, this.tolerance / 2.0);
+			}
+			final double frechet = frechet(start, end, dense[0], dense[1]);
+			if (frechet <= this.tolerance) {
+				matches.add(new StravaSegmentMatch(segmentId, this.before[start], this.after[end], (float) frechet));
+				after = end;
+			}
+		}
+		return matches;
+	}
+
+	/**
+	 * @param segment
+	 *            A segment from the segment explorer or the spatial index
+	 * @return The passes found, in the order they occur
+	 */
+	public List<StravaSegmentMatch> match(final StravaSegmentExplorerResponseSegment segment) {
+		if (!isNear(segment.getStartLatlng()) || !isNear(segment.getEndLatlng())) {
+			return new ArrayList<>();
+		}
+		return match(segment.getId(), segment.getPoints());
+	}
+
+	/**
+	 * @param segment
+	 *            A segment, with its {@link StravaSegment#getMap() map}
+	 * @return The passes found, in the order they occur
+	 */
+	public List<StravaSegmentMatch> match(final StravaSegment segment) {
+		if ((segment.getMap() == null) || !isNear(segment.getStartLatlng()) || !isNear(segment.getEndLatlng())) {
+			return new ArrayList<>();
+		}
+		return match(segment.getId(), segment.getMap().getPolyline() != null ? segment.getMap().getPolyline() : segment.getMap().getSummaryPolyline());
+	}
+
+	/**
+	 * @param segments
+	 *            Segments from the segment explorer or the spatial index
+	 * @return The passes found over all of them
+	 */
+	public List<StravaSegmentMatch> matchAll(final Collection<StravaSegmentExplorerResponseSegment> segments) {
+		final List<StravaSegmentMatch> matches = new ArrayList<>();
+		for (final StravaSegmentExplorerResponseSegment segment : segments) {
+			matches.addAll(match(segment));
+		}
+		return matches;
+	}
+
+	/**
+	 * @param px
+	 *            Projected x, in metres
+	 * @param py
+	 *            Projected y, in metres
+	 * @return Key of the grid cell
+	 */
+	private long cell(final double px, final double py) {
+		final long column = (long) Math.floor(px / this.tolerance);
+		final long row = (long) Math.floor(py / this.tolerance);
+		return (row << 32) | (column & 0xffffffffL);
+	}
+
+	/**
+	 * @param i
+	 *            Index of a point of the track
+	 * @param px
+	 *            Projected x of a point
+	 * @param py
+	 *            Projected y of the point
+	 * @return Square of the distance between the points
+	 */
+	private double distanceSquared(final int i, final double px, final double py) {
+		final double dx = this.x[i] - px;
+		final double dy = this.y[i] - py;
+		return (dx * dx) + (dy * dy);
+	}
+
+	/**
+	 * <p>
+	 * Follows the track from a point near the start of a segment while it stays within the tolerance of the segment
+	 * </p>
+	 *
+	 * @param start
+	 *            Index of the point of the track to start from
+	 * @param sx
+	 *            Projected x of the segment's points
+	 * @param sy
+	 *            Projected y of the segment's points
+	 * @param toleranceSquared
+	 *            Square of the tolerance
+	 * @return Index of the point of the track closest to the end of the segment, or -1 if the track leaves the corridor before reaching it
+	 */
+	private int follow(final int start, final double[] sx, final double[] sy, final double toleranceSquared) {
+		final int lastEdge = sx.length - 2;
+		int edge = 0;
+		int end = -1;
+		double endDistance = Double.MAX_VALUE;
+		for (int i = start; i < this.x.length; i++) {
+			double best = edgeDistanceSquared(sx[edge], sy[edge], sx[edge + 1], sy[edge + 1], this.x[i], this.y[i]);
+			final int limit = Math.min(edge + LOOKAHEAD, lastEdge);
+			for (int e = edge + 1; e <= limit; e++) {
+				final double d = edgeDistanceSquared(sx[e], sy[e], sx[e + 1], sy[e + 1], this.x[i], this.y[i]);
+				if (d < best) {
+					best = d;
+					edge = e;
+				}
+			}
+			if (best > toleranceSquared) {
+				// Left the corridor: a match if the end had already been reached
+				return end;
+			}
+			if (edge == lastEdge) {
+				final double d = distanceSquared(i, sx[lastEdge + 1], sy[lastEdge + 1]);
+				if (d <= toleranceSquared) {
+					if (d > endDistance) {
+						// Moving away from the end again
+						return end;
+					}
+					endDistance = d;
+					end = i;
+				} else if (end >= 0) {
+					return end;
+				}
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * <p>
+	 * Discrete Fréchet distance between part of the densified track and a segment, computed a row at a time
+	 * </p>
+	 *
+	 * @param start
+	 *            Index of the first point of the track
+	 * @param end
+	 *            Index of the last point of the track
+	 * @param sx
+	 *            Projected x of the segment's points
+	 * @param sy
+	 *            Projected y of the segment's points
+	 * @return The distance, in metres
+	 */
+	private double frechet(final int start, final int end, final double[] sx, final double[] sy) {
+		final int m = sx.length;
+		double[] previous = new double[m];
+		double[] current = new double[m];
+		boolean first = true;
+		for (int i = start; i <= end; i++) {
+			for (int j = 0; j < m; j++) {
+				final double d = distanceSquared(i, sx[j], sy[j]);
+				double reach;
+				if (first) {
+					reach = (j == 0 ? d : current[j - 1]);
+				} else if (j == 0) {
+					reach = previous[0];
+				} else {
+					reach = Math.min(previous[j], Math.min(previous[j - 1], current[j - 1]));
+				}
+				current[j] = Math.max(reach, d);
+			}
+			first = false;
+			final double[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return Math.sqrt(previous[m - 1]);
+	}
+
+	/**
+	 * @param point
+	 *            A point, or <code>null</code>
+	 * @return <code>false</code> if the point is known and no point of the track is within the tolerance of it
+	 */
+	private boolean isNear(final StravaMapPoint point) {
+		if ((point == null) || (point.getLatitude() == null) || (point.getLongitude() == null)) {
+			return true;
+		}
+		return near((point.getLongitude().doubleValue() - this.originLongitude) * this.metresPerDegreeLongitude,
+				(point.getLatitude().doubleValue() - this.originLatitude) * METRES_PER_DEGREE).length > 0;
+	}
+
+	/**
+	 * @param px
+	 *            Projected x of a point
+	 * @param py
+	 *            Projected y of the point
+	 * @return Indices of the points of the track within the tolerance of the point, in order
+	 */
+	private int[] near(final double px, final double py) {
+		final double toleranceSquared = (double) this.tolerance * this.tolerance;
+		final List<int[]> cells = new ArrayList<>(9);
+		int count = 0;
+		final long column = (long) Math.floor(px / this.tolerance);
+		final long row = (long) Math.floor(py / this.tolerance);
+		for (long r = row - 1; r <= (row + 1); r++) {
+			for (long c = column - 1; c <= (column + 1); c++) {
+				final int[] indices = this.grid.get(Long.valueOf((r << 32) | (c & 0xffffffffL)));
+				if (indices != null) {
+					cells.add(indices);
+					count += indices.length;
+				}
+			}
+		}
+		final int[] near = new int[count];
+		int found = 0;
+		for (final int[] indices : cells) {
+			for (final int i : indices) {
+				if (distanceSquared(i, px, py) <= toleranceSquared) {
+					near[found++] = i;
+				}
+			}
+		}
+		final int[] result = Arrays.copyOf(near, found);
+		Arrays.sort(result);
+		return result;
+	}
+}
@@ -0,0 +1,368 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javastrava.model.StravaActivity;
+import javastrava.model.StravaLap;
+import javastrava.model.StravaSplit;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaResourceState;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * Computes metric and imperial {@link StravaSplit splits} and distance- or time-based auto-laps from an activity's streams, so they don't need a detailed fetch of the activity or a call
+ * to list its laps
+ * </p>
+ *
+ * <p>
+ * Uses the {@link StravaStreamType#TIME time} and {@link StravaStreamType#DISTANCE distance} streams, and where they're present {@link StravaStreamType#MOVING moving},
+ * {@link StravaStreamType#VELOCITY velocity}, {@link StravaStreamType#HEARTRATE heart rate} and {@link StravaStreamType#ALTITUDE altitude}. The samples are walked once, accumulating
+ * each interval until the next boundary is crossed; a split or lap ends at the first sample at or beyond the boundary, and the last one holds whatever is left over.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaSplitCalculator {
+	/**
+	 * Length of a metric split, in metres
+	 */
+	public static final float METRIC_SPLIT = 1000f;
+
+	/**
+	 * Length of an imperial split, in metres
+	 */
+	public static final float STANDARD_SPLIT = 1609.344f;
+
+	/**
+	 * Speed below which a sample counts as stopped when there is no {@link StravaStreamType#MOVING moving} stream, in metres per second
+	 */
+	private static final float MOVING_SPEED = 0.5f;
+
+	/**
+	 * Totals accumulated over one split or lap
+	 */
+	private static class Interval {
+		/**
+		 * Index of the first sample
+		 */
+		int		start;
+
+		/**
+		 * Index of the last sample
+		 */
+		int		end;
+
+		/**
+		 * Elapsed seconds
+		 */
+		double	elapsed;
+
+		/**
+		 * Moving seconds
+		 */
+		double	moving;
+
+		/**
+		 * Metres covered
+		 */
+		double	distance;
+
+		/**
+		 * Metres climbed
+		 */
+		double	gain;
+
+		/**
+		 * Difference in altitude from the first to the last sample
+		 */
+		float	rise			= Float.NaN;
+
+		/**
+		 * Sum of heart rate weighted by seconds
+		 */
+		double	heartbeats;
+
+		/**
+		 * Seconds with a heart rate
+		 */
+		double	heartrateTime;
+
+		/**
+		 * Highest heart rate
+		 */
+		float	maxHeartrate	= Float.NaN;
+
+		/**
+		 * Highest speed
+		 */
+		float	maxSpeed		= Float.NaN;
+
+		/**
+		 * @param start
+		 *            Index of the first sample
+		 */
+		Interval(final int start) {
+			this.start = start;
+			this.end = start;
+		}
+
+		/**
+		 * @return Average moving speed, in metres per second
+		 */
+		Float averageSpeed() {
+			return Float.valueOf((float) (this.moving > 0 ? this.distance / this.moving : 0));
+		}
+
+		/**
+		 * @return Average heart rate, or <code>null</code> if there was none
+		 */
+		Float averageHeartrate() {
+			return (this.heartrateTime > 0 ? Float.valueOf((float) (this.heartbeats / this.heartrateTime)) : null);
+		}
+	}
+
+	/**
+	 * <p>
+	 * Computes auto-laps of a fixed distance
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity, which supplies the start date and athlete of each lap
+	 * @param streams
+	 *            The activity's streams
+	 * @param distance
+	 *            Length of each lap, in metres
+	 * @return The laps; empty if the streams don't include time and distance
+	 */
+	public static List<StravaLap> distanceLaps(final StravaActivity activity, final List<StravaStream> streams, final float distance) {
+		return laps(activity, streams, StravaStreamType.DISTANCE, distance);
+	}
+
+	/**
+	 * @param streams
+	 *            The activity's streams
+	 * @return Splits of a kilometre; empty if the streams don't include time and distance
+	 * @see StravaActivity#getSplitsMetric()
+	 */
+	public static List<StravaSplit> metricSplits(final List<StravaStream> streams) {
+		return splits(streams, METRIC_SPLIT);
+	}
+
+	/**
+	 * <p>
+	 * Computes splits of a fixed distance
+	 * </p>
+	 *
+	 * @param streams
+	 *            The activity's streams
+	 * @param distance
+	 *            Length of each split, in metres
+	 * @return The splits, numbered from 1; empty if the streams don't include time and distance
+	 */
+	public static List<StravaSplit> splits(final List<StravaStream> streams, final float distance) {
+		final List<StravaSplit> splits = new ArrayList<StravaSplit>();
+		int number = 1;
+		for (final Interval interval : intervals(streams, StravaStreamType.DISTANCE, distance)) {
+			final StravaSplit split = new StravaSplit();
+			split.setSplit(Integer.valueOf(number++));
+			split.setDistance(Float.valueOf((float) interval.distance));
+			split.setElapsedTime(Integer.valueOf((int) Math.round(interval.elapsed)));
+			split.setMovingTime(Integer.valueOf((int) Math.round(interval.moving)));
+			split.setElevationDifference(Float.isNaN(interval.rise) ? null : Float.valueOf(interval.rise));
+			split.setAverageSpeed(interval.averageSpeed());
+			split.setAverageHeartrate(interval.averageHeartrate());
+			splits.add(split);
+		}
+		return splits;
+	}
+
+	/**
+	 * @param streams
+	 *            The activity's streams
+	 * @return Splits of a mile; empty if the streams don't include time and distance
+	 * @see StravaActivity#getSplitsStandard()
+	 */
+	public static List<StravaSplit> standardSplits(final List<StravaStream> streams) {
+		return splits(streams, STANDARD_SPLIT);
+	}
+
+	/**
+	 * <p>
+	 * Computes auto-laps of a fixed elapsed time
+	 * </p>
+	 *
+	 * @param activity
+	 *            The activity, which supplies the start date and athlete of each lap
+	 * @param streams
+	 *            The activity's streams
+	 * @param seconds
+	 *            Length of each lap, in seconds
+	 * @return The laps; empty if the streams don't include time and distance
+	 */
+	public static List<StravaLap> timeLaps(final StravaActivity activity, final List<StravaStream> streams, final int seconds) {
+		return laps(activity, streams, StravaStreamType.TIME, seconds);
+	}
+
+	/**
+	 * @param interval
+	 *            An interval whose last sample has been reached
+	 * @param altitude
+	 *            Altitudes, or <code>null</code> if there is no altitude stream
+	 */
+	private static void close(final Interval interval, final float[] altitude) {
+		if (altitude != null) {
+			interval.rise = altitude[interval.end] - altitude[interval.start];
+		}
+	}
+
+	/**
+	 * <p>
+	 * Walks the samples once, accumulating totals for each interval of the given stream
+	 * </p>
+	 *
+	 * @param streams
+	 *            The activity's streams
+	 * @param axis
+	 *            {@link StravaStreamType#DISTANCE} or {@link StravaStreamType#TIME}
+	 * @param length
+	 *            Length of each interval, in metres or seconds
+	 * @return The intervals; empty if the streams don't include time and distance
+	 */
+	private static List<Interval> intervals(final List<StravaStream> streams, final StravaStreamType axis, final float length) {
+		final List<Interval> intervals = new ArrayList<Interval>();
+		final StravaStream timeStream = stream(streams, StravaStreamType.TIME);
+		final StravaStream distanceStream = stream(streams, StravaStreamType.DISTANCE);
+		if ((timeStream == null) || (distanceStream == null) || (length <= 0)) {
+			return intervals;
+		}
+		final float[] time = StravaStreamResampler.values(timeStream);
+		final float[] distance = StravaStreamResampler.values(distanceStream);
+		final float[] moving = values(streams, StravaStreamType.MOVING);
+		final float[] velocity = values(streams, StravaStreamType.VELOCITY);
+		final float[] heartrate = values(streams, StravaStreamType.HEARTRATE);
+		final float[] altitude = values(streams, StravaStreamType.ALTITUDE);
+		final float[] boundary = (axis == StravaStreamType.TIME ? time : distance);
+		final int samples = Math.min(time.length, distance.length);
+		if (samples < 2) {
+			return intervals;
+		}
+
+		float next = boundary[0] + length;
+		Interval interval = new Interval(0);
+		for (int i = 1; i < samples; i++) {
+			final float seconds = time[i] - time[i - 1];
+			final float metres = distance[i] - distance[i - 1];
+			if (!Float.isNaN(seconds)) {
+				interval.elapsed += seconds;
+				final boolean isMoving = (moving != null ? moving[i] > 0 : (seconds > 0) && ((metres / seconds) >= MOVING_SPEED));
+				if (isMoving) {
+					interval.moving += seconds;
+				}
+				if ((heartrate != null) && !Float.isNaN(heartrate[i])) {
+					interval.heartbeats += heartrate[i] * seconds;
+					interval.heartrateTime += seconds;
+					interval.maxHeartrate = (Float.isNaN(interval.maxHeartrate) ? heartrate[i] : Math.max(interval.maxHeartrate, heartrate[i]));
+				}
+				final float speed = (velocity != null ? velocity[i] : (seconds > 0 ? metres / seconds : Float.NaN));
+				if (!Float.isNaN(speed)) {
+					interval.maxSpeed = (Float.isNaN(interval.maxSpeed) ? speed : Math.max(interval.maxSpeed, speed));
+				}
+			}
+			if (!Float.isNaN(metres)) {
+				interval.distance += metres;
+			}
+			if ((altitude != null) && (altitude[i] > altitude[i - 1])) {
+				interval.gain += altitude[i] - altitude[i - 1];
+			}
+			interval.end = i;
+			if (boundary[i] >= next) {
+				close(interval, altitude);
+				intervals.add(interval);
+				interval = new Interval(i);
+				while (boundary[i] >= next) {
+					next += length;
+				}
+			}
+		}
+		if (interval.end > interval.start) {
+			close(interval, altitude);
+			intervals.add(interval);
+		}
+		return intervals;
+	}
+
+	/**
+	 * @param activity
+	 *            The activity
+	 * @param streams
+	 *            The activity's streams
+	 * @param axis
+	 *            {@link StravaStreamType#DISTANCE} or {@link StravaStreamType#TIME}
+	 * @param length
+	 *            Length of each lap, in metres or seconds
+	 * @return The laps
+	 */
+	private static List<StravaLap> laps(final StravaActivity activity, final List<StravaStream> streams, final StravaStreamType axis, final float length) {
+		final List<StravaLap> laps = new ArrayList<StravaLap>();
+		final float[] time = values(streams, StravaStreamType.TIME);
+		int number = 1;
+		for (final Interval interval : intervals(streams, axis, length)) {
+			final StravaLap lap = new StravaLap();
+			lap.setResourceState(StravaResourceState.SUMMARY);
+			lap.setName("Lap " + number); //$NON-NLS-1$
+			lap.setLapIndex(Integer.valueOf(number++));
+			lap.setActivity(activity);
+			lap.setAthlete(activity.getAthlete());
+			lap.setStartIndex(Integer.valueOf(interval.start));
+			lap.setEndIndex(Integer.valueOf(interval.end));
+			lap.setDistance(Float.valueOf((float) interval.distance));
+			lap.setElapsedTime(Integer.valueOf((int) Math.round(interval.elapsed)));
+			lap.setMovingTime(Integer.valueOf((int) Math.round(interval.moving)));
+			lap.setTotalElevationGain(Float.valueOf((float) interval.gain));
+			lap.setAverageSpeed(interval.averageSpeed());
+			lap.setMaxSpeed(Float.isNaN(interval.maxSpeed) ? null : Float.valueOf(interval.maxSpeed));
+			lap.setAverageHeartrate(interval.averageHeartrate());
+			lap.setMaxHeartrate(Float.isNaN(interval.maxHeartrate) ? null : Float.valueOf(interval.maxHeartrate));
+			final long offset = Math.round(time[interval.start] - time[0]);
+			if (activity.getStartDate() != null) {
+				lap.setStartDate(activity.getStartDate().plusSeconds(offset));
+			}
+			if (activity.getStartDateLocal() != null) {
+				lap.setStartDateLocal(activity.getStartDateLocal().plusSeconds(offset));
+			}
+			laps.add(lap);
+		}
+		return laps;
+	}
+
+	/**
+	 * @param streams
+	 *            Streams
+	 * @param type
+	 *            Type of stream
+	 * @return The first stream of the type, or <code>null</code> if there is none
+	 */
+	private static StravaStream stream(final List<StravaStream> streams, final StravaStreamType type) {
+		for (final StravaStream stream : streams) {
+			if (stream.getType() == type) {
+				return stream;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param streams
+	 *            Streams
+	 * @param type
+	 *            Type of stream
+	 * @return The values of the stream of the type, or <code>null</code> if there is none
+	 */
+	private static float[] values(final List<StravaStream> streams, final StravaStreamType type) {
+		final StravaStream stream = stream(streams, type);
+		return (stream == null ? null : StravaStreamResampler.values(stream));
+	}
+}
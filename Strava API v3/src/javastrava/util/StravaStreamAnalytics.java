@@ -0,0 +1,380 @@
+package javastrava.util;
+
+import java.util.List;
+
+import javastrava.model.StravaAthleteZone;
+import javastrava.model.StravaStream;
+import javastrava.model.StravaZone;
+
+/**
+ * <p>
+ * Power and heart rate analytics over the samples of activity streams: mean-maximal curves, Normalized Power, variability index, training load and time in zone
+ * </p>
+ *
+ * <p>
+ * The kernels work on primitive arrays and write their results into arrays supplied by the caller, so they allocate nothing and can be run over many activities reusing the same buffers.
+ * Most of them expect values sampled once a second, which {@link #toOneSecond(float[], float[], float[])} produces from a {@link javastrava.model.reference.StravaStreamType#TIME time}
+ * stream and a value stream (devices often record less often, or pause). Convenience methods taking {@link StravaStream streams} do the conversion and allocate the arrays they need.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaStreamAnalytics {
+	/**
+	 * Length of the rolling average used for Normalized Power, in seconds
+	 */
+	public static final int NORMALIZED_POWER_WINDOW = 30;
+
+	/**
+	 * Maximum step between consecutive durations in {@link #curveDurations(int)}, as a fraction of the duration
+	 */
+	private static final double CURVE_STEP = 0.01;
+
+	/**
+	 * Durations up to which every whole second is included in {@link #curveDurations(int)}
+	 */
+	private static final int CURVE_EVERY_SECOND = 120;
+
+	/**
+	 * @param values
+	 *            Values sampled once a second
+	 * @param length
+	 *            Number of values to use
+	 * @return The mean of the values (ignoring <code>NaN</code>s, which count as 0)
+	 */
+	public static double average(final float[] values, final int length) {
+		if (length <= 0) {
+			return 0;
+		}
+		double sum = 0;
+		for (int i = 0; i < length; i++) {
+			final float value = values[i];
+			if (!Float.isNaN(value)) {
+				sum += value;
+			}
+		}
+		return sum / length;
+	}
+
+	/**
+	 * <p>
+	 * Durations for which a mean-maximal curve is worth computing: every second up to two minutes, then steps of at most 1% up to the whole activity
+	 * </p>
+	 *
+	 * @param length
+	 *            Length of the activity, in seconds
+	 * @return The durations, in increasing order
+	 */
+	public static int[] curveDurations(final int length) {
+		int count = 0;
+		for (int duration = 1; duration <= length; duration = nextDuration(duration)) {
+			count++;
+		}
+		final int[] durations = new int[count];
+		int i = 0;
+		for (int duration = 1; duration <= length; duration = nextDuration(duration)) {
+			durations[i++] = duration;
+		}
+		return durations;
+	}
+
+	/**
+	 * @param normalizedPower
+	 *            Normalized Power
+	 * @param ftp
+	 *            Functional threshold power
+	 * @return Intensity factor
+	 */
+	public static double intensityFactor(final double normalizedPower, final double ftp) {
+		return (ftp <= 0 ? 0 : normalizedPower / ftp);
+	}
+
+	/**
+	 * <p>
+	 * Computes the mean-maximal curve of a stream: for each duration, the highest average over any window of that length
+	 * </p>
+	 *
+	 * <p>
+	 * Each duration is computed with a single sliding-window pass, so the cost is linear in the length of the stream for each duration, and with {@link #curveDurations(int)} (whose
+	 * durations grow geometrically) far less than computing every possible duration. The curve is then made non-increasing, as a longer best effort can never have a higher average than
+	 * a shorter one.
+	 * </p>
+	 *
+	 * @param values
+	 *            Values sampled once a second (missing values should be 0 for power)
+	 * @param length
+	 *            Number of values to use
+	 * @param durations
+	 *            Window lengths, in seconds, in increasing order
+	 * @param curve
+	 *            Receives the highest average for each duration (0 for durations longer than the stream); must be at least as long as <code>durations</code>
+	 */
+	public static void meanMaximal(final float[] values, final int length, final int[] durations, final float[] curve) {
+		for (int d = 0; d < durations.length; d++) {
+			final int duration = durations[d];
+			if ((duration <= 0) || (duration > length)) {
+				curve[d] = 0;
+				continue;
+			}
+			double sum = 0;
+			for (int i = 0; i < duration; i++) {
+				sum += values[i];
+			}
+			double best = sum;
+			for (int i = duration; i < length; i++) {
+				sum += values[i] - values[i - duration];
+				if (sum > best) {
+					best = sum;
+				}
+			}
+			curve[d] = (float) (best / duration);
+		}
+		for (int d = durations.length - 2; d >= 0; d--) {
+			if (curve[d] < curve[d + 1]) {
+				curve[d] = curve[d + 1];
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Computes the mean-maximal curve of a stream, over the durations given by {@link #curveDurations(int)}
+	 * </p>
+	 *
+	 * @param time
+	 *            Time stream
+	 * @param values
+	 *            Power or heart rate stream
+	 * @return For each duration in <code>[0]</code>, the highest average in <code>[1]</code>
+	 */
+	public static float[][] meanMaximal(final StravaStream time, final StravaStream values) {
+		final float[] oneSecond = toOneSecond(time, values);
+		final int[] durations = curveDurations(oneSecond.length);
+		final float[] curve = new float[durations.length];
+		meanMaximal(oneSecond, oneSecond.length, durations, curve);
+		final float[] seconds = new float[durations.length];
+		for (int i = 0; i < durations.length; i++) {
+			seconds[i] = durations[i];
+		}
+		return new float[][] { seconds, curve };
+	}
+
+	/**
+	 * <p>
+	 * Computes Normalized Power: the fourth root of the mean of the fourth powers of the 30 second rolling average of power
+	 * </p>
+	 *
+	 * @param power
+	 *            Power sampled once a second (0 while stopped)
+	 * @param length
+	 *            Number of values to use
+	 * @return Normalized Power, or 0 if the stream is shorter than the rolling average
+	 */
+	public static double normalizedPower(final float[] power, final int length) {
+		if (length < NORMALIZED_POWER_WINDOW) {
+			return 0;
+		}
+		double sum = 0;
+		for (int i = 0; i < NORMALIZED_POWER_WINDOW; i++) {
+			sum += power[i];
+		}
+		double total = 0;
+		for (int i = NORMALIZED_POWER_WINDOW - 1; i < length; i++) {
+			if (i >= NORMALIZED_POWER_WINDOW) {
+				sum += power[i] - power[i - NORMALIZED_POWER_WINDOW];
+			}
+			final double rolling = sum / NORMALIZED_POWER_WINDOW;
+			final double squared = rolling * rolling;
+			total += squared * squared;
+		}
+		return Math.pow(total / ((length - NORMALIZED_POWER_WINDOW) + 1), 0.25);
+	}
+
+	/**
+	 * @param time
+	 *            Time stream
+	 * @param power
+	 *            Power stream
+	 * @return Normalized Power
+	 */
+	public static double normalizedPower(final StravaStream time, final StravaStream power) {
+		final float[] oneSecond = toOneSecond(time, power);
+		return normalizedPower(oneSecond, oneSecond.length);
+	}
+
+	/**
+	 * <p>
+	 * Distributes the time of a stream between zones
+	 * </p>
+	 *
+	 * <p>
+	 * Each sample is held for the time until the next one, up to <code>maxGap</code> seconds (so that time spent paused isn't counted). A value belongs to a zone if it is at least the
+	 * zone's minimum and below its maximum (a maximum of -1, as Strava uses for the top zone, is unbounded).
+	 * </p>
+	 *
+	 * @param time
+	 *            Times of the samples, in seconds
+	 * @param values
+	 *            Power or heart rate values
+	 * @param length
+	 *            Number of samples to use
+	 * @param zoneMin
+	 *            Minimum of each zone
+	 * @param zoneMax
+	 *            Maximum of each zone, or -1 if unbounded
+	 * @param maxGap
+	 *            Longest time a sample is held for, in seconds
+	 * @param seconds
+	 *            Receives the time spent in each zone, in seconds; must be at least as long as <code>zoneMin</code>
+	 */
+	public static void timeInZones(final float[] time, final float[] values, final int length, final int[] zoneMin, final int[] zoneMax, final float maxGap, final float[] seconds) {
+		for (int z = 0; z < zoneMin.length; z++) {
+			seconds[z] = 0;
+		}
+		for (int i = 0; i < (length - 1); i++) {
+			final float value = values[i];
+			if (Float.isNaN(value)) {
+				continue;
+			}
+			final float held = Math.min(time[i + 1] - time[i], maxGap);
+			if (held <= 0) {
+				continue;
+			}
+			for (int z = 0; z < zoneMin.length; z++) {
+				if ((value >= zoneMin[z]) && ((zoneMax[z] < 0) || (value < zoneMax[z]))) {
+					seconds[z] += held;
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * <p>
+	 * Distributes the time of a stream between an athlete's heart rate or power zones
+	 * </p>
+	 *
+	 * @param time
+	 *            Time stream
+	 * @param values
+	 *            Heart rate or power stream
+	 * @param zones
+	 *            The athlete's heart rate or power zones (see {@link javastrava.service.AthleteService#getAuthenticatedAthleteZones()})
+	 * @param maxGap
+	 *            Longest time a sample is held for, in seconds
+	 * @return Time spent in each zone, in seconds
+	 */
+	public static float[] timeInZones(final StravaStream time, final StravaStream values, final StravaAthleteZone zones, final float maxGap) {
+		final List<StravaZone> zoneList = zones.getZones();
+		final int[] zoneMin = new int[zoneList.size()];
+		final int[] zoneMax = new int[zoneList.size()];
+		for (int z = 0; z < zoneMin.length; z++) {
+			final StravaZone zone = zoneList.get(z);
+			zoneMin[z] = (zone.getMin() == null ? 0 : zone.getMin().intValue());
+			zoneMax[z] = (zone.getMax() == null ? -1 : zone.getMax().intValue());
+		}
+		final float[] t = StravaStreamResampler.values(time);
+		final float[] v = StravaStreamResampler.values(values);
+		final float[] seconds = new float[zoneMin.length];
+		timeInZones(t, v, Math.min(t.length, v.length), zoneMin, zoneMax, maxGap, seconds);
+		return seconds;
+	}
+
+	/**
+	 * <p>
+	 * Spreads samples onto a once-a-second grid starting at the first sample, holding each value until the next sample (for gaps of up to 5 seconds, as left by devices recording
+	 * less often) and filling longer gaps, where recording was paused, with 0
+	 * </p>
+	 *
+	 * @param time
+	 *            Times of the samples, in seconds
+	 * @param values
+	 *            Values of the samples; <code>NaN</code>s become 0
+	 * @param oneSecond
+	 *            Receives the values, one per second; must be longer than the time from the first sample to the last
+	 * @return Number of values written
+	 */
+	public static int toOneSecond(final float[] time, final float[] values, final float[] oneSecond) {
+		final int samples = Math.min(time.length, values.length);
+		if (samples == 0) {
+			return 0;
+		}
+		final float start = time[0];
+		int written = 0;
+		for (int i = 0; i < samples; i++) {
+			final float value = (Float.isNaN(values[i]) ? 0 : values[i]);
+			final int from = (int) (time[i] - start);
+			final int to = (i + 1 < samples ? (int) (time[i + 1] - start) : from + 1);
+			final boolean paused = (to - from) > 5;
+			for (int s = Math.max(from, written); s < to; s++) {
+				oneSecond[s] = ((paused && (s > from)) ? 0 : value);
+			}
+			written = Math.max(written, to);
+		}
+		return written;
+	}
+
+	/**
+	 * @param normalizedPower
+	 *            Normalized Power
+	 * @param seconds
+	 *            Duration of the activity, in seconds
+	 * @param ftp
+	 *            Functional threshold power
+	 * @return Training Stress Score: 100 for an hour at FTP
+	 */
+	public static double trainingStressScore(final double normalizedPower, final double seconds, final double ftp) {
+		if (ftp <= 0) {
+			return 0;
+		}
+		final double intensity = intensityFactor(normalizedPower, ftp);
+		return ((seconds * normalizedPower * intensity) / (ftp * 3600)) * 100;
+	}
+
+	/**
+	 * @param normalizedPower
+	 *            Normalized Power
+	 * @param averagePower
+	 *            Average power
+	 * @return Variability index: how much more the effort cost than a steady one of the same average
+	 */
+	public static double variabilityIndex(final double normalizedPower, final double averagePower) {
+		return (averagePower <= 0 ? 0 : normalizedPower / averagePower);
+	}
+
+	/**
+	 * @param duration
+	 *            A duration
+	 * @return The next duration in {@link #curveDurations(int)}
+	 */
+	private static int nextDuration(final int duration) {
+		if (duration < CURVE_EVERY_SECOND) {
+			return duration + 1;
+		}
+		return duration + Math.max(1, (int) (duration * CURVE_STEP));
+	}
+
+	/**
+	 * @param time
+	 *            Time stream
+	 * @param values
+	 *            Value stream
+	 * @return The values, once a second
+	 */
+	private static float[] toOneSecond(final StravaStream time, final StravaStream values) {
+		final float[] t = StravaStreamResampler.values(time);
+		final float[] v = StravaStreamResampler.values(values);
+		if (t.length == 0) {
+			return t;
+		}
+		final float[] oneSecond = new float[(int) (t[t.length - 1] - t[0]) + 1];
+		final int length = toOneSecond(t, v, oneSecond);
+		if (length == oneSecond.length) {
+			return oneSecond;
+		}
+		final float[] trimmed = new float[length];
+		System.arraycopy(oneSecond, 0, trimmed, 0, length);
+		return trimmed;
+	}
+}
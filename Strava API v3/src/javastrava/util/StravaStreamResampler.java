@@ -0,0 +1,448 @@
+package javastrava.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javastrava.config.Messages;
+import javastrava.model.StravaMapPoint;
+import javastrava.model.StravaStream;
+import javastrava.model.reference.StravaStreamResolutionType;
+import javastrava.model.reference.StravaStreamSeriesDownsamplingType;
+import javastrava.model.reference.StravaStreamType;
+
+/**
+ * <p>
+ * Resamples and downsamples streams locally, so that one full or {@link StravaStreamResolutionType#HIGH high} resolution fetch can serve every resolution
+ * </p>
+ *
+ * <p>
+ * All the streams passed to a method must belong to the same activity, effort or segment (so they have the same length and index <i>i</i> of each corresponds to the same point), and must
+ * include the stream used as the axis: {@link StravaStreamType#TIME} or {@link StravaStreamType#DISTANCE}, according to the {@link StravaStreamSeriesDownsamplingType series type}. The
+ * axis is assumed not to decrease. Every method works on primitive arrays and runs in time linear in the length of the streams; the streams passed in are not changed.
+ * </p>
+ *
+ * @author Dan Shannon
+ *
+ */
+public class StravaStreamResampler {
+	/**
+	 * <p>
+	 * Downsamples streams the way the API does for a given resolution, keeping the points nearest to evenly spaced values of the axis
+	 * </p>
+	 *
+	 * @param streams
+	 *            Streams, including the axis
+	 * @param resolution
+	 *            Resolution required
+	 * @param seriesType
+	 *            Axis to downsample by (distance if <code>null</code>, as in the API)
+	 * @return The downsampled streams
+	 */
+	public static List<StravaStream> downsample(final List<StravaStream> streams, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType) {
+		final StravaStreamSeriesDownsamplingType axisType = axisType(seriesType);
+		final int[] indices = nearestIndices(values(axis(streams, axisType)), resolution.getSize());
+		return select(streams, indices, resolution, axisType);
+	}
+
+	/**
+	 * <p>
+	 * Downsamples streams for charting with the Largest-Triangle-Three-Buckets algorithm, which keeps the points that best preserve the shape of one stream plotted against the axis
+	 * </p>
+	 *
+	 * <p>
+	 * The same points are kept from every stream, so they remain aligned.
+	 * </p>
+	 *
+	 * @param streams
+	 *            Streams, including the axis and the stream whose shape is to be preserved
+	 * @param seriesType
+	 *            Axis to plot against
+	 * @param valueType
+	 *            Type of stream whose shape is to be preserved (e.g. {@link StravaStreamType#ALTITUDE})
+	 * @param points
+	 *            Number of points to keep
+	 * @return The downsampled streams
+	 */
+	public static List<StravaStream> downsampleLttb(final List<StravaStream> streams, final StravaStreamSeriesDownsamplingType seriesType, final StravaStreamType valueType,
+			final int points) {
+		final StravaStreamSeriesDownsamplingType axisType = axisType(seriesType);
+		final StravaStream value = find(streams, valueType);
+		if (value == null) {
+			throw new IllegalArgumentException(Messages.string("StravaStreamResampler.missingStream") + valueType);
+		}
+		final int[] indices = lttb(values(axis(streams, axisType)), values(value), points);
+		return select(streams, indices, null, axisType);
+	}
+
+	/**
+	 * <p>
+	 * Chooses the points to keep using the Largest-Triangle-Three-Buckets algorithm
+	 * </p>
+	 *
+	 * <p>
+	 * The first and last points are always kept. The points in between are divided into <code>points - 2</code> buckets, and from each bucket the point forming the largest triangle with
+	 * the point kept from the previous bucket and the average of the next bucket is kept. Points with no value (<code>NaN</code>) are never preferred.
+	 * </p>
+	 *
+	 * @param x
+	 *            Axis values
+	 * @param y
+	 *            Values
+	 * @param points
+	 *            Number of points to keep
+	 * @return Indices of the points to keep, in order
+	 */
+	public static int[] lttb(final float[] x, final float[] y, final int points) {
+		final int length = Math.min(x.length, y.length);
+		if ((points >= length) || (points < 3)) {
+			return allIndices(points < 3 ? Math.min(length, Math.max(points, 0)) : length, length);
+		}
+		final int[] kept = new int[points];
+		final double bucketSize = (double) (length - 2) / (points - 2);
+		int a = 0;
+		kept[0] = 0;
+		for (int i = 0; i < (points - 2); i++) {
+			// Average of the next bucket (or the last point, for the last bucket)
+			final int nextStart = (int) Math.floor((i + 1) * bucketSize) + 1;
+			final int nextEnd = Math.min((int) Math.floor((i + 2) * bucketSize) + 1, length);
+			double averageX = 0;
+			double averageY = 0;
+			int count = 0;
+			for (int j = nextStart; j < nextEnd; j++) {
+				if (!Float.isNaN(y[j])) {
+					averageX += x[j];
+					averageY += y[j];
+					count++;
+				}
+			}
+			if (count == 0) {
+				averageX = x[length - 1];
+				averageY = y[length - 1];
+			} else {
+				averageX /= count;
+				averageY /= count;
+			}
+
+			// Point in this bucket forming the largest triangle
+			final int start = (int) Math.floor(i * bucketSize) + 1;
+			final int end = (int) Math.floor((i + 1) * bucketSize) + 1;
+			double maxArea = -1;
+			int next = start;
+			for (int j = start; j < end; j++) {
+				final double area = Math.abs(((x[a] - averageX) * (y[j] - y[a])) - ((x[a] - x[j]) * (averageY - y[a])));
+				if (area > maxArea) {
+					maxArea = area;
+					next = j;
+				}
+			}
+			kept[i + 1] = next;
+			a = next;
+		}
+		kept[points - 1] = length - 1;
+		return kept;
+	}
+
+	/**
+	 * <p>
+	 * Chooses the points nearest to evenly spaced values between the first and last values of the axis
+	 * </p>
+	 *
+	 * @param axis
+	 *            Axis values
+	 * @param points
+	 *            Maximum number of points
+	 * @return Indices of the chosen points, in order and without repeats (so there may be fewer than asked for if the axis has flat stretches)
+	 */
+	public static int[] nearestIndices(final float[] axis, final int points) {
+		final int length = axis.length;
+		if ((length <= points) || (length == 0)) {
+			return allIndices(length, length);
+		}
+		if (points < 2) {
+			return allIndices(Math.max(points, 0), length);
+		}
+		final float first = axis[0];
+		final float last = axis[length - 1];
+		final int[] indices = new int[points];
+		int count = 0;
+		int j = 0;
+		for (int k = 0; k < points; k++) {
+			final float target = first + (((last - first) * k) / (points - 1));
+			while (((j + 1) < length) && (axis[j + 1] <= target)) {
+				j++;
+			}
+			int nearest = j;
+			if (((j + 1) < length) && ((axis[j + 1] - target) < (target - axis[j]))) {
+				nearest = j + 1;
+			}
+			if ((count == 0) || (nearest > indices[count - 1])) {
+				indices[count++] = nearest;
+			}
+		}
+		final int[] result = new int[count];
+		System.arraycopy(indices, 0, result, 0, count);
+		return result;
+	}
+
+	/**
+	 * <p>
+	 * Resamples streams onto a common, evenly spaced axis, interpolating linearly between the original points
+	 * </p>
+	 *
+	 * <p>
+	 * Map points are interpolated in latitude and longitude, and the moving stream takes the value of the nearer original point. Use this to line up streams from different activities
+	 * (e.g. to compare two efforts on a segment by distance), or to produce a fixed number of evenly spaced points for analysis.
+	 * </p>
+	 *
+	 * @param streams
+	 *            Streams, including the axis
+	 * @param seriesType
+	 *            Axis to resample on
+	 * @param points
+	 *            Number of points required (at least 2)
+	 * @return The resampled streams
+	 */
+	public static List<StravaStream> resample(final List<StravaStream> streams, final StravaStreamSeriesDownsamplingType seriesType, final int points) {
+		final StravaStreamSeriesDownsamplingType axisType = axisType(seriesType);
+		final float[] axis = values(axis(streams, axisType));
+		final int length = axis.length;
+
+		// For each point of the new axis, the original point at or before it and how far towards the next one it is
+		final int[] lower = new int[points];
+		final float[] fraction = new float[points];
+		if (length > 0) {
+			final float first = axis[0];
+			final float last = axis[length - 1];
+			int j = 0;
+			for (int k = 0; k < points; k++) {
+				final float target = (points == 1 ? first : first + (((last - first) * k) / (points - 1)));
+				while (((j + 1) < length) && (axis[j + 1] <= target)) {
+					j++;
+				}
+				lower[k] = j;
+				if (((j + 1) < length) && (axis[j + 1] > axis[j])) {
+					fraction[k] = Math.min(1, Math.max(0, (target - axis[j]) / (axis[j + 1] - axis[j])));
+				}
+			}
+		}
+
+		final List<StravaStream> resampled = new ArrayList<>();
+		for (final StravaStream stream : streams) {
+			final StravaStream result = newStream(stream, null, axisType);
+			if (stream.getData() != null) {
+				final float[] values = values(stream);
+				final List<Float> data = new ArrayList<>(points);
+				for (int k = 0; k < points; k++) {
+					data.add(length == 0 ? null : Float.valueOf(interpolate(values, lower[k], fraction[k])));
+				}
+				result.setData(data);
+			}
+			if (stream.getMapPoints() != null) {
+				final List<StravaMapPoint> source = stream.getMapPoints();
+				final float[] latitudes = new float[source.size()];
+				final float[] longitudes = new float[source.size()];
+				for (int i = 0; i < source.size(); i++) {
+					final StravaMapPoint point = source.get(i);
+					latitudes[i] = ((point == null) || (point.getLatitude() == null) ? Float.NaN : point.getLatitude().floatValue());
+					longitudes[i] = ((point == null) || (point.getLongitude() == null) ? Float.NaN : point.getLongitude().floatValue());
+				}
+				final List<StravaMapPoint> mapPoints = new ArrayList<>(points);
+				for (int k = 0; k < points; k++) {
+					mapPoints.add(length == 0 ? null
+							: new StravaMapPoint(Float.valueOf(interpolate(latitudes, lower[k], fraction[k])), Float.valueOf(interpolate(longitudes, lower[k], fraction[k]))));
+				}
+				result.setMapPoints(mapPoints);
+			}
+			if (stream.getMoving() != null) {
+				final List<Boolean> source = stream.getMoving();
+				final List<Boolean> moving = new ArrayList<>(points);
+				for (int k = 0; k < points; k++) {
+					final int nearest = Math.min((fraction[k] < 0.5f ? lower[k] : lower[k] + 1), source.size() - 1);
+					moving.add(nearest < 0 ? null : source.get(nearest));
+				}
+				result.setMoving(moving);
+			}
+			resampled.add(result);
+		}
+		return resampled;
+	}
+
+	/**
+	 * <p>
+	 * Selects the same points from each of a set of streams
+	 * </p>
+	 *
+	 * @param streams
+	 *            The streams
+	 * @param indices
+	 *            Indices of the points to select, in order
+	 * @param resolution
+	 *            Resolution to record on the selected streams
+	 * @param seriesType
+	 *            Series type to record on the selected streams
+	 * @return The selected streams
+	 */
+	public static List<StravaStream> select(final List<StravaStream> streams, final int[] indices, final StravaStreamResolutionType resolution,
+			final StravaStreamSeriesDownsamplingType seriesType) {
+		final List<StravaStream> selected = new ArrayList<>();
+		for (final StravaStream stream : streams) {
+			final StravaStream result = newStream(stream, resolution, seriesType);
+			result.setData(select(stream.getData(), indices));
+			result.setMapPoints(select(stream.getMapPoints(), indices));
+			result.setMoving(select(stream.getMoving(), indices));
+			selected.add(result);
+		}
+		return selected;
+	}
+
+	/**
+	 * @param stream
+	 *            A stream of numbers (or of moving flags, which are returned as 1 or 0)
+	 * @return The values as a primitive array, with missing values as <code>NaN</code>
+	 */
+	public static float[] values(final StravaStream stream) {
+		if (stream.getData() != null) {
+			final List<Float> data = stream.getData();
+			final float[] values = new float[data.size()];
+			for (int i = 0; i < values.length; i++) {
+				final Float value = data.get(i);
+				values[i] = (value == null ? Float.NaN : value.floatValue());
+			}
+			return values;
+		}
+		if (stream.getMoving() != null) {
+			final List<Boolean> moving = stream.getMoving();
+			final float[] values = new float[moving.size()];
+			for (int i = 0; i < values.length; i++) {
+				final Boolean value = moving.get(i);
+				values[i] = (value == null ? Float.NaN : (value.booleanValue() ? 1 : 0));
+			}
+			return values;
+		}
+		return new float[0];
+	}
+
+	/**
+	 * @param count
+	 *            Number of indices
+	 * @param length
+	 *            Length of the streams
+	 * @return The first <code>count</code> indices, or if <code>count</code> is 1 or 2 the first and last
+	 */
+	private static int[] allIndices(final int count, final int length) {
+		final int[] indices = new int[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = i;
+		}
+		if ((count > 0) && (count < length)) {
+			indices[count - 1] = length - 1;
+		}
+		return indices;
+	}
+
+	/**
+	 * @param streams
+	 *            Streams
+	 * @param seriesType
+	 *            Series type
+	 * @return The stream to use as the axis
+	 */
+	private static StravaStream axis(final List<StravaStream> streams, final StravaStreamSeriesDownsamplingType seriesType) {
+		final StravaStreamType type = (seriesType == StravaStreamSeriesDownsamplingType.TIME ? StravaStreamType.TIME : StravaStreamType.DISTANCE);
+		final StravaStream axis = find(streams, type);
+		if (axis == null) {
+			throw new IllegalArgumentException(Messages.string("StravaStreamResampler.missingStream") + type);
+		}
+		return axis;
+	}
+
+	/**
+	 * @param seriesType
+	 *            Series type requested
+	 * @return The series type to use, defaulting to distance as in the API
+	 */
+	private static StravaStreamSeriesDownsamplingType axisType(final StravaStreamSeriesDownsamplingType seriesType) {
+		return (seriesType == StravaStreamSeriesDownsamplingType.TIME ? StravaStreamSeriesDownsamplingType.TIME : StravaStreamSeriesDownsamplingType.DISTANCE);
+	}
+
+	/**
+	 * @param streams
+	 *            Streams
+	 * @param type
+	 *            Type of stream
+	 * @return The stream of that type, or <code>null</code>
+	 */
+	private static StravaStream find(final List<StravaStream> streams, final StravaStreamType type) {
+		for (final StravaStream stream : streams) {
+			if (stream.getType() == type) {
+				return stream;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param values
+	 *            Values
+	 * @param lower
+	 *            Index of the point at or before the position
+	 * @param fraction
+	 *            How far the position is towards the next point
+	 * @return The interpolated value (the value at <code>lower</code> if the next is missing)
+	 */
+	private static float interpolate(final float[] values, final int lower, final float fraction) {
+		if ((fraction == 0) || ((lower + 1) >= values.length) || Float.isNaN(values[lower + 1])) {
+			return values[lower];
+		}
+		if (Float.isNaN(values[lower])) {
+			return values[lower + 1];
+		}
+		return values[lower] + ((values[lower + 1] - values[lower]) * fraction);
+	}
+
+	/**
+	 * @param source
+	 *            Stream being resampled
+	 * @param resolution
+	 *            Resolution of the new stream
+	 * @param seriesType
+	 *            Series type of the new stream
+	 * @return A new, empty stream of the same type
+	 */
+	private static StravaStream newStream(final StravaStream source, final StravaStreamResolutionType resolution, final StravaStreamSeriesDownsamplingType seriesType) {
+		final StravaStream stream = new StravaStream();
+		stream.setType(source.getType());
+		stream.setResolution(resolution);
+		stream.setSeriesType(seriesType);
+		if (source.getOriginalSize() != null) {
+			stream.setOriginalSize(source.getOriginalSize());
+		} else if (source.getData() != null) {
+			stream.setOriginalSize(Integer.valueOf(source.getData().size()));
+		} else if (source.getMapPoints() != null) {
+			stream.setOriginalSize(Integer.valueOf(source.getMapPoints().size()));
+		} else if (source.getMoving() != null) {
+			stream.setOriginalSize(Integer.valueOf(source.getMoving().size()));
+		}
+		return stream;
+	}
+
+	/**
+	 * @param list
+	 *            Points
+	 * @param indices
+	 *            Indices of the points to select
+	 * @param <E>
+	 *            Class of the points
+	 * @return The selected points, or <code>null</code> if there were none
+	 */
+	private static <E> List<E> select(final List<E> list, final int[] indices) {
+		if (list == null) {
+			return null;
+		}
+		final List<E> selected = new ArrayList<>(indices.length);
+		for (final int index : indices) {
+			selected.add(list.get(index));
+		}
+		return selected;
+	}
+}